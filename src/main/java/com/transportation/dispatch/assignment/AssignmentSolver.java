@@ -0,0 +1,33 @@
+package com.transportation.dispatch.assignment;
+
+import com.transportation.dispatch.enumeration.AssignmentAlgorithm;
+
+/**
+ * 矩形指派问题的求解器。
+ * 成本矩阵的行是任务、列是车辆，不可行的组合为 {@link Double#POSITIVE_INFINITY}，求解器不修改传入的矩阵。
+ */
+public interface AssignmentSolver {
+
+    /**
+     * @param cost cost[i][j] 为第 i 行分配给第 j 列的成本，所有行长度相同
+     * @return 长度为行数的数组，第 i 个元素为第 i 行分配到的列，未分配为 -1
+     */
+    int[] solve(double[][] cost);
+
+    static AssignmentSolver of(AssignmentAlgorithm algorithm) {
+        return algorithm == AssignmentAlgorithm.HUNGARIAN
+                ? HungarianAssignmentSolver.INSTANCE
+                : GreedyAssignmentSolver.INSTANCE;
+    }
+
+    /**
+     * 指派方案的总成本，未分配的行不计
+     */
+    static double totalCost(double[][] cost, int[] assignment) {
+        double total = 0;
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) total += cost[i][assignment[i]];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,116 @@
+package com.transportation.dispatch.assignment;
+
+import java.util.Arrays;
+
+/**
+ * 贪心指派：所有可行组合按成本从低到高依次取行和列都还未分配的组合，结果不保证总成本最小。
+ * 不对全部组合排序：每行的可行组合建一个小顶堆（O(C) 建堆），再用一个按各行堆顶排序的小顶堆取全局最小，
+ * 堆顶的列已被占用时只弹出该行的堆顶，行或列分配完即停止，通常只弹出很少一部分组合。
+ * 成本相同时按行、列顺序取，与原先的候选列表排序一致。
+ */
+public final class GreedyAssignmentSolver implements AssignmentSolver {
+
+    public static final GreedyAssignmentSolver INSTANCE = new GreedyAssignmentSolver();
+
+    private GreedyAssignmentSolver() {
+    }
+
+    @Override
+    public int[] solve(double[][] cost) {
+        int rows = cost.length;
+        int[] assignment = new int[rows];
+        Arrays.fill(assignment, -1);
+        if (rows == 0) return assignment;
+        int cols = cost[0].length;
+
+        // 每行的可行列与对应成本，各自组成一个小顶堆
+        int[][] rowColumns = new int[rows][];
+        double[][] rowKeys = new double[rows][];
+        int[] rowSize = new int[rows];
+        int[] heads = new int[rows];
+        int headCount = 0;
+        for (int i = 0; i < rows; i++) {
+            double[] row = cost[i];
+            int size = 0;
+            for (double c : row) if (c != Double.POSITIVE_INFINITY) size++;
+            if (size == 0) continue;
+            int[] columns = new int[size];
+            double[] keys = new double[size];
+            for (int j = 0, k = 0; j < cols; j++) {
+                if (row[j] == Double.POSITIVE_INFINITY) continue;
+                columns[k] = j;
+                keys[k++] = row[j];
+            }
+            for (int k = size / 2 - 1; k >= 0; k--) siftDownRow(columns, keys, k, size);
+            rowColumns[i] = columns;
+            rowKeys[i] = keys;
+            rowSize[i] = size;
+            heads[headCount++] = i;
+        }
+        for (int k = headCount / 2 - 1; k >= 0; k--) siftDownHeads(heads, rowKeys, k, headCount);
+
+        boolean[] columnTaken = new boolean[cols];
+        int remaining = Math.min(rows, cols);
+        while (headCount > 0 && remaining > 0) {
+            int i = heads[0];
+            int j = rowColumns[i][0];
+            if (!columnTaken[j]) {
+                assignment[i] = j;
+                columnTaken[j] = true;
+                remaining--;
+                heads[0] = heads[--headCount];
+            } else {
+                // 该行的最优列已被占用，换成该行下一个组合
+                int size = --rowSize[i];
+                if (size == 0) {
+                    heads[0] = heads[--headCount];
+                } else {
+                    rowColumns[i][0] = rowColumns[i][size];
+                    rowKeys[i][0] = rowKeys[i][size];
+                    siftDownRow(rowColumns[i], rowKeys[i], 0, size);
+                }
+            }
+            siftDownHeads(heads, rowKeys, 0, headCount);
+        }
+        return assignment;
+    }
+
+    /**
+     * 行内的堆，按成本、列号排序
+     */
+    private static void siftDownRow(int[] columns, double[] keys, int i, int size) {
+        while (true) {
+            int smallest = i, left = 2 * i + 1, right = left + 1;
+            if (left < size && before(keys[left], columns[left], keys[smallest], columns[smallest])) smallest = left;
+            if (right < size && before(keys[right], columns[right], keys[smallest], columns[smallest])) smallest = right;
+            if (smallest == i) return;
+            int column = columns[i];
+            columns[i] = columns[smallest];
+            columns[smallest] = column;
+            double key = keys[i];
+            keys[i] = keys[smallest];
+            keys[smallest] = key;
+            i = smallest;
+        }
+    }
+
+    /**
+     * 行之间的堆，按各行堆顶的成本、行号排序
+     */
+    private static void siftDownHeads(int[] heads, double[][] rowKeys, int i, int size) {
+        while (true) {
+            int smallest = i, left = 2 * i + 1, right = left + 1;
+            if (left < size && before(rowKeys[heads[left]][0], heads[left], rowKeys[heads[smallest]][0], heads[smallest])) smallest = left;
+            if (right < size && before(rowKeys[heads[right]][0], heads[right], rowKeys[heads[smallest]][0], heads[smallest])) smallest = right;
+            if (smallest == i) return;
+            int head = heads[i];
+            heads[i] = heads[smallest];
+            heads[smallest] = head;
+            i = smallest;
+        }
+    }
+
+    private static boolean before(double keyA, int a, double keyB, int b) {
+        return keyA < keyB || (keyA == keyB && a < b);
+    }
+}
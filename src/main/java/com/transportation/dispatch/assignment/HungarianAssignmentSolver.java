@@ -0,0 +1,119 @@
+package com.transportation.dispatch.assignment;
+
+import java.util.Arrays;
+
+/**
+ * 矩形最小成本指派：匈牙利算法的最短增广路形式（Jonker-Volgenant 所用的对偶势能更新）。
+ * 逐行加入，每行用类 Dijkstra 的过程沿约化成本找到一条增广路，复杂度 O(n²m)，n 为行列中较小的一方。
+ * <p>
+ * 不可行的组合替换为一个足够大的有限成本：使用一个不可行组合的代价总是高于任何只用可行组合的方案，
+ * 因此结果先使分配数量最多，再使总成本最小；落在不可行组合上的分配在返回前去掉。
+ */
+public final class HungarianAssignmentSolver implements AssignmentSolver {
+
+    public static final HungarianAssignmentSolver INSTANCE = new HungarianAssignmentSolver();
+
+    private HungarianAssignmentSolver() {
+    }
+
+    @Override
+    public int[] solve(double[][] cost) {
+        int rows = cost.length;
+        int[] assignment = new int[rows];
+        Arrays.fill(assignment, -1);
+        if (rows == 0 || cost[0].length == 0) return assignment;
+        int cols = cost[0].length;
+
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (double[] row : cost) {
+            for (double c : row) {
+                if (c == Double.POSITIVE_INFINITY) continue;
+                if (c < min) min = c;
+                if (c > max) max = c;
+            }
+        }
+        if (min == Double.POSITIVE_INFINITY) return assignment;
+
+        // 算法要求行数不超过列数，行多于列时在转置矩阵上求解
+        boolean transposed = rows > cols;
+        int n = transposed ? cols : rows;
+        int m = transposed ? rows : cols;
+        double forbidden = max + (max - min + 1) * n;
+        double[][] a = new double[n][m];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                double c = cost[i][j] == Double.POSITIVE_INFINITY ? forbidden : cost[i][j];
+                if (transposed) a[j][i] = c;
+                else a[i][j] = c;
+            }
+        }
+
+        int[] columnOwner = solveSquareOrWide(a, n, m);
+
+        for (int j = 1; j <= m; j++) {
+            int i = columnOwner[j] - 1;
+            if (i < 0) continue;
+            int row = transposed ? j - 1 : i;
+            int col = transposed ? i : j - 1;
+            if (cost[row][col] != Double.POSITIVE_INFINITY) assignment[row] = col;
+        }
+        return assignment;
+    }
+
+    /**
+     * n ≤ m 时的求解过程，下标从 1 开始，0 号列是增广路的虚拟起点
+     * @return columnOwner[j] 为第 j 列分配到的行（从 1 开始），0 表示未分配
+     */
+    private static int[] solveSquareOrWide(double[][] a, int n, int m) {
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] owner = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minReduced = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            owner[0] = i;
+            int j0 = 0;
+            Arrays.fill(minReduced, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = owner[j0];
+                double[] row = a[i0 - 1];
+                double ui0 = u[i0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    double reduced = row[j - 1] - ui0 - v[j];
+                    if (reduced < minReduced[j]) {
+                        minReduced[j] = reduced;
+                        way[j] = j0;
+                    }
+                    if (minReduced[j] < delta) {
+                        delta = minReduced[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[owner[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minReduced[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (owner[j0] != 0);
+
+            // 沿增广路回溯，翻转匹配
+            do {
+                int j1 = way[j0];
+                owner[j0] = owner[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+        return owner;
+    }
+}
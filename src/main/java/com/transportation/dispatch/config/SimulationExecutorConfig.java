@@ -0,0 +1,23 @@
+package com.transportation.dispatch.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+@Slf4j
+public class SimulationExecutorConfig {
+
+    /**
+     * 仿真工作线程池，由实时仿真和所有并发运行的沙箱共享，车辆分片步进都在这里执行
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool simulationWorkerPool(@Value("${simulation.tick.parallelism:0}") int tickParallelism) {
+        int parallelism = tickParallelism > 0 ? tickParallelism : Runtime.getRuntime().availableProcessors();
+        log.info("仿真工作线程池已创建，并行度: {}", parallelism);
+        return new ForkJoinPool(parallelism);
+    }
+}
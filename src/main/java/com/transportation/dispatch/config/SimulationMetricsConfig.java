@@ -0,0 +1,43 @@
+package com.transportation.dispatch.config;
+
+import com.transportation.dispatch.persistence.SimulationCheckpointStore;
+import com.transportation.dispatch.persistence.VehicleWriteBehindBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SimulationMetricsConfig {
+
+    /**
+     * 车辆写后缓冲与检查点写线程的状态指标，由 Spring Boot 自动绑定到 MeterRegistry
+     */
+    @Bean
+    public MeterBinder simulationPersistenceMetrics(VehicleWriteBehindBuffer buffer, SimulationCheckpointStore checkpointStore) {
+        return registry -> {
+            Gauge.builder("simulation.write_behind.backlog", buffer, VehicleWriteBehindBuffer::getBacklog)
+                    .description("待写入与正在写入的车辆行数")
+                    .register(registry);
+            Gauge.builder("simulation.write_behind.last_flush_size", buffer, VehicleWriteBehindBuffer::getLastFlushSize)
+                    .description("最近一次刷盘的行数")
+                    .register(registry);
+            Gauge.builder("simulation.write_behind.last_flush_latency", buffer, VehicleWriteBehindBuffer::getLastFlushLatencyMs)
+                    .description("最近一次刷盘的耗时")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            FunctionCounter.builder("simulation.write_behind.flushed_rows", buffer, VehicleWriteBehindBuffer::getTotalFlushedRows)
+                    .description("累计刷入数据库的行数")
+                    .register(registry);
+            Gauge.builder("simulation.checkpoint.last_write_latency", checkpointStore, SimulationCheckpointStore::getLastWriteLatencyMs)
+                    .description("最近一次写检查点的耗时")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            Gauge.builder("simulation.checkpoint.last_write_bytes", checkpointStore, SimulationCheckpointStore::getLastWriteBytes)
+                    .description("最近一次写入的检查点大小")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
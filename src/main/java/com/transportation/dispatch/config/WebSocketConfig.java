@@ -1,15 +1,29 @@
 package com.transportation.dispatch.config;
 
+import com.transportation.dispatch.scheduler.VehiclePushTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker // 开启 WebSocket 消息代理功能
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private VehiclePushTracker vehiclePushTracker;
+
+    // 单个会话发送一条消息允许的最长时间，以及发送受阻时允许缓冲的字节数，超过任一限制即断开该会话
+    @Value("${simulation.push.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+    @Value("${simulation.push.send-buffer-size-kb:512}")
+    private int sendBufferSizeKb;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // 1. 配置消息代理（Broker）
@@ -22,6 +36,20 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // 4. 限制慢客户端：发送缓冲有上限，超时或溢出的会话被断开，而不是在服务端无限堆积消息
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeKb * 1024)
+                .addDecoratorFactory(vehiclePushTracker::decorate);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // 5. 跟踪每个会话尚未发出的车辆推送，供推送方合并（见 VehiclePushTracker）
+        registration.interceptors(vehiclePushTracker);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // 3. 注册 STOMP 端点（Endpoint）
@@ -31,5 +59,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOrigins("http://localhost:3000")
                 .withSockJS();
+
+        //    "/ws-binary" 是不经过 SockJS 的原生 WebSocket 端点。
+        //    SockJS 只能传输文本帧，协商了二进制车辆推送格式（见 VehicleWireCodec）的客户端需通过这个端点连接。
+        registry.addEndpoint("/ws-binary")
+                .setAllowedOrigins("http://localhost:3000");
     }
 }
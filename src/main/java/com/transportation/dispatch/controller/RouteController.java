@@ -2,12 +2,18 @@ package com.transportation.dispatch.controller;
 
 import com.transportation.dispatch.model.common.Result;
 import com.transportation.dispatch.model.entity.RouteCache;
+import com.transportation.dispatch.model.geo.PolylineSimplifier;
 import com.transportation.dispatch.service.RouteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.TimeUnit;
+
 @Tag(name = "路径操作")
 @RestController
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -19,15 +25,40 @@ public class RouteController {
 
     @Operation(summary = "根据起终点获取路径")
     @GetMapping("/get")
-    public Result getRoute(String originCoords, String destinationCoords) {
+    public Result getRoute(String originCoords, String destinationCoords,
+                           @RequestParam(required = false) Double zoom,
+                           @RequestParam(required = false) Double tolerance) {
         try {
-            RouteCache route = routeService.getRoute(originCoords, destinationCoords);
+            // 指定地图缩放级别或容差（米）时返回对应细节层级的简化路径
+            RouteCache route = routeService.getRoute(originCoords, destinationCoords, PolylineSimplifier.resolveLevel(zoom, tolerance));
             return Result.success("获取路径成功", route);
         } catch(Exception e) {
             return Result.error("获取失败" + e.getMessage());
         }
     }
 
+    @Operation(summary = "根据路径ID获取路径")
+    @GetMapping("/{id}")
+    public ResponseEntity<Result> getRouteById(@PathVariable Long id,
+                                               @RequestParam(required = false) Double zoom,
+                                               @RequestParam(required = false) Double tolerance) {
+        int level = PolylineSimplifier.resolveLevel(zoom, tolerance);
+        RouteCache route;
+        try {
+            route = routeService.getRouteById(id, level);
+        } catch(Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Result.error("获取失败" + e.getMessage()));
+        }
+        if (route == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Result.error("路径不存在: " + id));
+        }
+        // 路径写入后不再修改，同一ID和层级的响应永远相同，允许客户端和中间缓存长期保存
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .eTag(id + "-" + level)
+                .body(Result.success("获取路径成功", route));
+    }
+
     @Operation(summary = "基于当前的Poi向高德api获取全部的路径")
     @GetMapping("/initial")
     public Result initialAllRoute() {
@@ -1,7 +1,10 @@
 package com.transportation.dispatch.controller;
 
+import com.transportation.dispatch.enumeration.SimulationEngineType;
 import com.transportation.dispatch.model.common.Result;
+import com.transportation.dispatch.model.dto.SandboxInfo;
 import com.transportation.dispatch.model.entity.Weight2Dispatch;
+import com.transportation.dispatch.service.SandboxService;
 import com.transportation.dispatch.service.SimulationService;
 import com.transportation.dispatch.service.SimulationSessionService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -19,17 +22,73 @@ public class SimulationController {
     private SimulationService simulationService;
     @Autowired
     private SimulationSessionService simulationSessionService;
+    @Autowired
+    private SandboxService sandboxService;
 
     @Operation(summary = "启动仿真引擎")
     @PostMapping("/start")
-    public Result startSimulation(@RequestBody Weight2Dispatch weight2Dispatch) {
+    public Result startSimulation(@RequestBody Weight2Dispatch weight2Dispatch,
+                                  @RequestParam(required = false) SimulationEngineType engine,
+                                  @RequestParam(required = false) Long seed) {
         if (simulationService.isRunning()) {
             return Result.error("仿真已在运行中");
         }
-        simulationService.start(weight2Dispatch);
+        simulationService.start(weight2Dispatch, engine, seed);
         return Result.success("仿真引擎已启动");
     }
 
+    @Operation(summary = "无头快进仿真", description = "不按真实时间推进，达到目标仿真时长后返回本次会话的统计结果")
+    @PostMapping("/fast-forward")
+    public Result fastForward(@RequestBody Weight2Dispatch weight2Dispatch,
+                              @RequestParam long targetSeconds,
+                              @RequestParam(required = false) SimulationEngineType engine,
+                              @RequestParam(required = false) Long seed) {
+        if (targetSeconds <= 0) {
+            return Result.error("目标仿真时长必须大于 0");
+        }
+        if (simulationService.isRunning()) {
+            return Result.error("仿真已在运行中");
+        }
+        return Result.success(simulationService.fastForward(weight2Dispatch, targetSeconds, engine, seed));
+    }
+
+    @Operation(summary = "提交并发沙箱", description = "每个沙箱拥有独立的车队、任务队列和时钟，以无头快进方式在后台运行，可同时运行多个")
+    @PostMapping("/sandboxes")
+    public Result launchSandbox(@RequestBody Weight2Dispatch weight2Dispatch,
+                                @RequestParam long targetSeconds,
+                                @RequestParam(required = false) SimulationEngineType engine,
+                                @RequestParam(required = false) Long seed) {
+        if (targetSeconds <= 0) {
+            return Result.error("目标仿真时长必须大于 0");
+        }
+        return Result.success(sandboxService.launch(weight2Dispatch, targetSeconds, engine, seed));
+    }
+
+    @Operation(summary = "查询所有并发沙箱")
+    @GetMapping("/sandboxes")
+    public Result listSandboxes() {
+        return Result.success(sandboxService.list());
+    }
+
+    @Operation(summary = "查询并发沙箱")
+    @GetMapping("/sandboxes/{id}")
+    public Result getSandbox(@PathVariable Long id) {
+        SandboxInfo info = sandboxService.get(id);
+        if (info == null) {
+            return Result.error("沙箱不存在");
+        }
+        return Result.success(info);
+    }
+
+    @Operation(summary = "终止并发沙箱")
+    @PostMapping("/sandboxes/{id}/stop")
+    public Result stopSandbox(@PathVariable Long id) {
+        if (!sandboxService.stop(id)) {
+            return Result.error("沙箱不存在或已结束");
+        }
+        return Result.success("已请求终止沙箱");
+    }
+
     @Operation(summary = "停止仿真引擎")
     @PostMapping("/stop")
     public Result stopSimulation() {
@@ -3,12 +3,20 @@ package com.transportation.dispatch.controller;
 import com.transportation.dispatch.enumeration.VehicleStatus;
 import com.transportation.dispatch.model.common.Result;
 import com.transportation.dispatch.model.dto.VehicleDto;
+import com.transportation.dispatch.model.dto.VehicleLocationDto;
+import com.transportation.dispatch.model.dto.VehicleSubscriptionRequest;
 import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.model.geo.PolylineSimplifier;
+import com.transportation.dispatch.scheduler.VehicleTelemetryStream;
+import com.transportation.dispatch.service.VehicleGeoService;
 import com.transportation.dispatch.service.VehicleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -19,13 +27,45 @@ public class VehicleController {
 
     @Autowired
     private VehicleService vehicleService;
+    @Autowired
+    private VehicleGeoService vehicleGeoService;
+    @Autowired
+    private VehicleTelemetryStream vehicleTelemetryStream;
 
     @Operation(summary = "获取所有车辆的实时状态和路径")
     @GetMapping("/get")
-    public Result getAllVehicleStatus(@RequestParam(name="status" , required = false) VehicleStatus status) {
-        List<VehicleDto> vehicles = vehicleService.getVehicles(status);
+    public Result getAllVehicleStatus(@RequestParam(name="status" , required = false) VehicleStatus status,
+                                      @RequestParam(required = false) Double zoom,
+                                      @RequestParam(required = false) Double tolerance) {
+        // 指定地图缩放级别或容差（米）时，尾迹按对应的细节层级简化
+        List<VehicleDto> vehicles = vehicleService.getVehicles(status, PolylineSimplifier.resolveLevel(zoom, tolerance));
+        return Result.success(vehicles);
+    }
+    @Operation(summary = "订阅车队实时数据流（SSE）：先发送快照，之后每个 tick 发送增量")
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamVehicles(VehicleSubscriptionRequest filter) {
+        // 过滤条件与 WebSocket 订阅相同：视口 minLng/minLat/maxLng/maxLat、statuses、typeIds、vehicleIds、zoom/tolerance
+        return vehicleTelemetryStream.open(filter);
+    }
+
+    @Operation(summary = "查询指定半径内的车辆（按距离由近到远）")
+    @GetMapping("/nearby")
+    public Result findNearby(@RequestParam double lng, @RequestParam double lat,
+                             @RequestParam double radius,
+                             @RequestParam(required = false) VehicleStatus status) {
+        List<VehicleLocationDto> vehicles = vehicleGeoService.findWithinRadius(lng, lat, radius, status);
         return Result.success(vehicles);
     }
+
+    @Operation(summary = "查询经纬度矩形范围内的车辆")
+    @GetMapping("/within")
+    public Result findWithin(@RequestParam double minLng, @RequestParam double minLat,
+                             @RequestParam double maxLng, @RequestParam double maxLat,
+                             @RequestParam(required = false) VehicleStatus status) {
+        List<VehicleLocationDto> vehicles = vehicleGeoService.findWithinBox(minLng, minLat, maxLng, maxLat, status);
+        return Result.success(vehicles);
+    }
+
     @Operation(summary = "更新指定车辆的速度")
     @PutMapping("/updateSpeed")
     public Result updateSpeed(@RequestParam Long vehicleId, @RequestParam Double speed) {
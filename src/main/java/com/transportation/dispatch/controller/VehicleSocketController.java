@@ -2,12 +2,21 @@ package com.transportation.dispatch.controller;
 
 import com.transportation.dispatch.enumeration.VehicleStatus;
 import com.transportation.dispatch.model.dto.VehicleDto;
+import com.transportation.dispatch.model.dto.VehicleSnapshotMessage;
+import com.transportation.dispatch.model.dto.VehicleSubscriptionRequest;
+import com.transportation.dispatch.projection.VehicleWireCodec;
 import com.transportation.dispatch.service.VehicleService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
 import java.util.List;
 
@@ -22,6 +31,48 @@ public class VehicleSocketController {
         this.vehicleService = vehicleService;
     }
 
+    /**
+     * 增量协议的初始快照。
+     * 客户端订阅 "/topic/vehicles/delta" 后再订阅 "/app/vehicles/snapshot"，
+     * 丢弃序号不大于快照序号的增量，之后发现序号不连续或收到 resync 时重新订阅快照。
+     * 该映射比 "/vehicles/{status}" 更具体，会优先匹配。
+     */
+    @SubscribeMapping("/vehicles/snapshot")
+    public VehicleSnapshotMessage getVehicleSnapshot() {
+        return vehicleService.getVehicleSnapshot();
+    }
+
+    /**
+     * 二进制格式的初始快照，配合 "/topic/vehicles/delta/binary" 使用，编码见 VehicleWireCodec
+     */
+    @SubscribeMapping("/vehicles/snapshot/binary")
+    public byte[] getVehicleSnapshotBinary() {
+        return VehicleWireCodec.encode(vehicleService.getVehicleSnapshot());
+    }
+
+    /**
+     * 按视口和条件订阅车辆。
+     * 客户端先订阅 "/user/queue/vehicles/delta"，再向 "/app/vehicles/subscribe" 发送过滤条件，
+     * 快照发送到 "/user/queue/vehicles/snapshot"，之后每个 tick 只推送范围内发生变化、进入或离开范围的车辆。
+     * 视口变化时重新发送过滤条件即可，会收到新的快照，增量序号从 0 重新开始。
+     * 过滤条件中 binary 为 true 时快照和增量均为二进制格式。
+     */
+    @MessageMapping("/vehicles/subscribe")
+    @SendToUser(destinations = "/queue/vehicles/snapshot", broadcast = false)
+    public Object subscribeVehicles(@Payload VehicleSubscriptionRequest request,
+                                    SimpMessageHeaderAccessor headerAccessor) {
+        VehicleSnapshotMessage snapshot = vehicleService.subscribeVehicles(headerAccessor.getSessionId(), request);
+        return request.isBinary() ? VehicleWireCodec.encode(snapshot) : snapshot;
+    }
+
+    /**
+     * 会话断开时移除它的订阅
+     */
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        vehicleService.unsubscribeVehicles(event.getSessionId());
+    }
+
     /**
      * 处理客户端的订阅请求。
      * 当客户端订阅 "/app/vehicles/{status}" 这个目的地时，此方法会被调用。
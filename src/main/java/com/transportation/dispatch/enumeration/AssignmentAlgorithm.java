@@ -0,0 +1,9 @@
+package com.transportation.dispatch.enumeration;
+
+/**
+ * 按综合成本调度时，任务与车辆匹配的求解方式
+ */
+public enum AssignmentAlgorithm {
+    GREEDY,     // 贪心：所有候选按成本排序，依次取最便宜且双方都未分配的组合
+    HUNGARIAN   // 最小成本指派：在分配数量最多的前提下总成本最小
+}
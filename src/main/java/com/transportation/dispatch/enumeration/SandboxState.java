@@ -0,0 +1,12 @@
+package com.transportation.dispatch.enumeration;
+
+/**
+ * 并发沙箱的运行状态
+ */
+public enum SandboxState {
+    QUEUED,     // 排队中，等待空闲的沙箱线程
+    RUNNING,    // 运行中
+    FINISHED,   // 已达到目标仿真时长
+    STOPPED,    // 被手动终止
+    FAILED      // 运行出错
+}
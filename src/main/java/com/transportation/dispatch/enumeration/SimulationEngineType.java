@@ -0,0 +1,9 @@
+package com.transportation.dispatch.enumeration;
+
+/**
+ * 仿真引擎的推进方式
+ */
+public enum SimulationEngineType {
+    FIXED_TICK,         // 固定步长：每个 tick 遍历全部车辆
+    DISCRETE_EVENT      // 离散事件：只处理行驶中的车辆和到期事件
+}
@@ -0,0 +1,11 @@
+package com.transportation.dispatch.enumeration;
+
+/**
+ * 离散事件引擎中车辆的定时事件类型
+ */
+public enum VehicleEventType {
+    LOADING_COMPLETE,   // 装货完成
+    UNLOADING_COMPLETE, // 卸货完成
+    MAINTENANCE_OVER,   // 维修/离线结束
+    IDLE_INCIDENT       // 空闲车辆触发随机事件（维修或离线）
+}
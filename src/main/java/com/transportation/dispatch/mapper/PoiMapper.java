@@ -15,12 +15,17 @@ import java.util.List;
  */
 @Mapper
 public interface PoiMapper {
+    /**
+     * POI 查询的公共前缀：经纬度两列通过 CONCAT 拼成 "lng,lat"，由 CoordinateTypeHandler 映射为 Coordinate
+     */
+    String SELECT_POI = "SELECT *, CONCAT(lng, ',', lat) AS position FROM poi";
+
     /**
      * 根据主键id查询POI信息
      * @param id
      * @return
      */
-    @Select("select * from poi where id = #{id}")
+    @Select(SELECT_POI + " WHERE id = #{id}")
     Poi findById(Long id);
 
     /**
@@ -30,7 +35,7 @@ public interface PoiMapper {
      * @param amapId 高德POI的唯一ID
      * @return 对应的POI实体；如果不存在，则返回null。
      */
-    @Select("SELECT * FROM poi WHERE amap_id = #{amapId}")
+    @Select(SELECT_POI + " WHERE amap_id = #{amapId}")
     Poi findByAmapId(String amapId);
 
     /**
@@ -40,15 +45,16 @@ public interface PoiMapper {
      * @return 返回影响的行数，通常为1表示成功。
      */
     @Insert("INSERT INTO poi(amap_id, name, address, lng, lat, pname, cityname, adname, type, typecode, sim_type, status, create_time) " +
-            "VALUES(#{amapId}, #{name}, #{address}, #{lng}, #{lat}, #{pname}, #{cityname}, #{adname}, #{type}, #{typecode}, #{simType}, #{status}, NOW())")
+            "VALUES(#{amapId}, #{name}, #{address}, #{position.lngText}, #{position.latText}, #{pname}, #{cityname}, #{adname}, #{type}, #{typecode}, #{simType}, #{status}, NOW())")
     int insert(Poi poi);
 
     /**
      * 查询数据库中所有已存储的POI点。
+     * 按主键排序：快照按此顺序建立类型列表，相同种子的仿真随机选取的 POI 才能一致。
      *
      * @return 包含所有POI实体的列表。
      */
-    @Select("SELECT * FROM poi")
+    @Select(SELECT_POI + " ORDER BY id")
     List<Poi> findAll();
 
     /**
@@ -57,7 +63,7 @@ public interface PoiMapper {
      * @param simType 仿真业务类型枚举
      * @return 符合该类型的POI实体列表。
      */
-    @Select("SELECT * FROM poi WHERE sim_type = #{simType}")
+    @Select(SELECT_POI + " WHERE sim_type = #{simType}")
     List<Poi> findBySimType(PoiSimType simType);
 
     /**
@@ -3,6 +3,7 @@ package com.transportation.dispatch.mapper;
 import com.transportation.dispatch.model.entity.RouteCache;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
@@ -19,9 +20,16 @@ public interface RouteCacheMapper {
     RouteCache findByOriginAndDestination(@Param("originCoords") String originCoords, @Param("destinationCoords") String destinationCoords);
 
     /**
-     * 向数据库中插入一条新的路径缓存记录。
+     * 根据主键查询路径。路径记录写入后不再修改，主键即路径的稳定ID。
+     */
+    @Select("SELECT * FROM route_cache WHERE id = #{id}")
+    RouteCache findById(Long id);
+
+    /**
+     * 向数据库中插入一条新的路径缓存记录，生成的主键回填到 routeCache.id。
      * @param routeCache 待插入的路径对象
      */
+    @Options(useGeneratedKeys = true, keyProperty = "id")
     @Insert("INSERT INTO route_cache (origin_coords, destination_coords, distance, duration, polyline) " +
             "VALUES (#{originCoords}, #{destinationCoords}, #{distance}, #{duration}, #{polyline})")
     void insert(RouteCache routeCache);
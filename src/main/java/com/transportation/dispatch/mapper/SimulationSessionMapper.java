@@ -20,9 +20,9 @@ public interface SimulationSessionMapper {
      */
     @Insert({
             "INSERT INTO simulation_session (",
-            "session_name, start_time, use_weight, weight_time, weight_wasted_load, weight_wasted_idle",
+            "session_name, start_time, use_weight, weight_time, weight_wasted_load, weight_wasted_idle, seed, sandbox",
             ") VALUES (",
-            "#{sessionName}, NOW(), #{useWeight}, #{weightTime}, #{weightWastedLoad}, #{weightWastedIdle}",
+            "#{sessionName}, NOW(), #{useWeight}, #{weightTime}, #{weightWastedLoad}, #{weightWastedIdle}, #{seed}, COALESCE(#{sandbox}, FALSE)",
             ")"
     })
     @Options(useGeneratedKeys = true, keyProperty = "id")
@@ -62,7 +62,12 @@ public interface SimulationSessionMapper {
      */
     @Select("SELECT * FROM simulation_session ORDER BY start_time DESC")
     List<SimulationSession> findAll();
-    @Select("SELECT * FROM simulation_session WHERE end_time IS NULL ORDER BY start_time DESC LIMIT 1")
+
+    /**
+     * 查询最近一个未结束的实时仿真会话，沙箱会话不参与恢复。
+     * @return 未结束的会话，没有时返回 null。
+     */
+    @Select("SELECT * FROM simulation_session WHERE end_time IS NULL AND sandbox = FALSE ORDER BY start_time DESC LIMIT 1")
     SimulationSession findLatestUnfinishedSession();
 
 }
\ No newline at end of file
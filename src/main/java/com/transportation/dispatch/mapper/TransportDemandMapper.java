@@ -2,6 +2,7 @@ package com.transportation.dispatch.mapper;
 
 import com.transportation.dispatch.enumeration.DemandStatus;
 import com.transportation.dispatch.model.entity.TransportDemand;
+import com.transportation.dispatch.model.geo.Coordinate;
 import org.apache.ibatis.annotations.*;
 
 import java.math.BigDecimal;
@@ -30,7 +31,7 @@ public interface TransportDemandMapper {
      * 根据POI ID查询其坐标。
      */
     @Select("SELECT CONCAT(lng, ',', lat) FROM poi WHERE id = #{poiId}")
-    String findPoiCoordsById(@Param("poiId") Long poiId);
+    Coordinate findPoiCoordsById(@Param("poiId") Long poiId);
 
     /**
      * 【新增】根据状态查询任务列表
@@ -54,6 +55,18 @@ public interface TransportDemandMapper {
     @Select("SELECT destination_poi_id FROM transport_demand WHERE id = #{id}")
     Long findDestinationPoiIdById(Long id);
 
+    @Select("SELECT * FROM transport_demand ORDER BY id")
+    List<TransportDemand> findAll();
+
+    /**
+     * 按原ID写回一条任务记录，用于从仿真检查点恢复任务表
+     */
+    @Insert("INSERT INTO transport_demand (id, origin_poi_id, destination_poi_id, cargo_name, cargo_weight, cargo_volume, status, assigned_vehicle_id, " +
+            "creation_time, assignment_time, pickup_time, completion_time, template_id, stage_order) " +
+            "VALUES (#{id}, #{originPoiId}, #{destinationPoiId}, #{cargoName}, #{cargoWeight}, #{cargoVolume}, #{status}, #{assignedVehicleId}, " +
+            "#{creationTime}, #{assignmentTime}, #{pickupTime}, #{completionTime}, #{templateId}, #{stageOrder})")
+    void insertWithId(TransportDemand demand);
+
     @Delete("TRUNCATE table transport_demand")
     void deleteAll();
 }
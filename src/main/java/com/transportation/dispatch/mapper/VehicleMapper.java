@@ -5,10 +5,18 @@ import com.transportation.dispatch.model.entity.Vehicle;
 import com.transportation.dispatch.model.entity.VehicleType;
 import org.apache.ibatis.annotations.*;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
 public interface VehicleMapper {
+    /**
+     * 车辆查询的公共前缀：经纬度两列通过 CONCAT 拼成 "lng,lat"，由 CoordinateTypeHandler 映射为 Coordinate
+     */
+    String SELECT_VEHICLE = "SELECT *, CONCAT(current_lng, ',', current_lat) AS current_position, " +
+            "CONCAT(origin_lng, ',', origin_lat) AS origin_position FROM vehicle";
+
     @Insert("INSERT INTO vehicle_type (name, max_load_weight, max_load_volume, carbon_emission_factor) " +
             "VALUES (#{name}, #{maxLoadWeight}, #{maxLoadVolume}, #{carbonEmissionFactor})")
     @Options(useGeneratedKeys = true, keyProperty = "id")
@@ -21,24 +29,51 @@ public interface VehicleMapper {
     List<VehicleType> findAllTypes();
 
     @Insert("INSERT INTO vehicle (plate_number, type_id, status, current_lng, current_lat, last_update_time) " +
-            "VALUES (#{plateNumber}, #{typeId}, #{status}, #{currentLng}, #{currentLat}, NOW())")
+            "VALUES (#{plateNumber}, #{typeId}, #{status}, #{currentPosition.lngText}, #{currentPosition.latText}, NOW())")
     void insert(Vehicle vehicle);
 
-    @Select("SELECT * FROM vehicle")
+    @Select(SELECT_VEHICLE)
     List<Vehicle> findAll();
 
     /**
      * 【新增】根据状态查询车辆列表
      */
-    @Select("SELECT * FROM vehicle WHERE status = #{status}")
+    @Select(SELECT_VEHICLE + " WHERE status = #{status}")
     List<Vehicle> findByStatus(VehicleStatus status);
 
     /**
      * 【新增】更新车辆的状态和位置信息
      */
-    @Update("UPDATE vehicle SET status = #{status}, current_lng = #{currentLng}, current_lat = #{currentLat}, " +
-            "current_demand_id = #{currentDemandId}, last_update_time = NOW() ,  speed=#{speed} ,total_shipping_weight=#{totalShippingWeight},total_shipping_volume=#{totalShippingVolume}, last_reached_path_index=#{lastReachedPathIndex},origin_lng=#{originLng},origin_lat=#{originLat} WHERE id = #{id}")
+    @Update("UPDATE vehicle SET status = #{status}, current_lng = #{currentPosition.lngText}, current_lat = #{currentPosition.latText}, " +
+            "current_demand_id = #{currentDemandId}, last_update_time = NOW() ,  speed=#{speed} ,total_shipping_weight=#{totalShippingWeight},total_shipping_volume=#{totalShippingVolume}, last_reached_path_index=#{lastReachedPathIndex},origin_lng=#{originPosition.lngText},origin_lat=#{originPosition.latText} WHERE id = #{id}")
     void update(Vehicle vehicle);
+
+    /**
+     * 写后缓冲使用的批量更新语句：只写入仿真运行时状态，不修改 last_update_time。
+     * last_update_time 因此只反映 tick 之外的变更（调度分配、人工修改、新增车辆），供增量同步使用。
+     */
+    @Update("UPDATE vehicle SET status = #{status}, current_lng = #{currentPosition.lngText}, current_lat = #{currentPosition.latText}, " +
+            "current_demand_id = #{currentDemandId}, speed=#{speed} ,total_shipping_weight=#{totalShippingWeight},total_shipping_volume=#{totalShippingVolume}, last_reached_path_index=#{lastReachedPathIndex},origin_lng=#{originPosition.lngText},origin_lat=#{originPosition.latText} WHERE id = #{id}")
+    void updateRuntimeState(Vehicle vehicle);
+
+    /**
+     * 查询水位线 since 及之后在 tick 之外被修改或新增的车辆（增量同步水位线查询）。
+     * last_update_time 只精确到秒，水位线那一秒会被重复读取，由调用方跳过已同步过的行。
+     */
+    @Select(SELECT_VEHICLE + " WHERE last_update_time >= #{since} ORDER BY last_update_time, id")
+    List<Vehicle> findUpdatedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * 根据车辆ID列表批量查询车辆
+     */
+    @Select("<script>" +
+            SELECT_VEHICLE + " WHERE id IN " +
+            "<foreach item='id' collection='ids' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    List<Vehicle> findByIds(@Param("ids") Collection<Long> ids);
+
     @Select("SELECT max_load_weight FROM vehicle_type WHERE id = #{id}")
     Double findMaxLoad(@Param("id") Long id);
 }
@@ -0,0 +1,39 @@
+package com.transportation.dispatch.mapper.handler;
+
+import com.transportation.dispatch.model.geo.Coordinate;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedTypes;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Coordinate 与 "lng,lat" 文本列之间的 MyBatis 类型转换器。
+ * 读取时用于 route_cache 的坐标列，以及 SQL 中 CONCAT(lng, ',', lat) 拼出的坐标别名列。
+ */
+@MappedTypes(Coordinate.class)
+public class CoordinateTypeHandler extends BaseTypeHandler<Coordinate> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Coordinate parameter, JdbcType jdbcType) throws SQLException {
+        ps.setString(i, parameter.toString());
+    }
+
+    @Override
+    public Coordinate getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return Coordinate.parse(rs.getString(columnName));
+    }
+
+    @Override
+    public Coordinate getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return Coordinate.parse(rs.getString(columnIndex));
+    }
+
+    @Override
+    public Coordinate getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return Coordinate.parse(cs.getString(columnIndex));
+    }
+}
@@ -0,0 +1,131 @@
+package com.transportation.dispatch.metrics;
+
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 仿真引擎的运行指标，通过 Actuator 的 /actuator/metrics 暴露。
+ * <ul>
+ *     <li>simulation.tick：整个 tick 的耗时；simulation.tick.phase：按 phase 标签区分的各阶段耗时，均带延迟直方图</li>
+ *     <li>simulation.tick.overrun：耗时超过 tick 间隔的次数，出现即意味着地图会卡顿</li>
+ *     <li>simulation.dispatch：一次调度的完整耗时；simulation.dispatch.overlap：tick 到来时上一次调度仍未结束的次数</li>
+ *     <li>simulation.vehicles：按 status 标签统计的车辆数，每个 tick 结束时更新</li>
+ *     <li>simulation.weather.lookup：单次天气查询的耗时。车辆更新期间每辆车查询一次，不是 tick 阶段，单独计量</li>
+ * </ul>
+ * 沙箱在自己的子上下文中使用独立的实例，不会混入实时仿真的指标。
+ */
+@Component
+public class SimulationMetrics {
+
+    public static final String PHASE_DEMAND_GENERATION = "demand_generation";
+    public static final String PHASE_DISPATCH_SUBMIT = "dispatch_submit";
+    public static final String PHASE_VEHICLE_UPDATE = "vehicle_update";
+    public static final String PHASE_DB_FLUSH = "db_flush";
+    public static final String PHASE_REDIS_WRITE = "redis_write";
+    public static final String PHASE_CHECKPOINT = "checkpoint";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+    private final Map<VehicleStatus, AtomicLong> vehicleCounts = new EnumMap<>(VehicleStatus.class);
+    private final Timer tickTimer;
+    private final Timer dispatchTimer;
+    private final Timer weatherLookupTimer;
+    private final Counter tickOverruns;
+    private final Counter dispatchOverlaps;
+
+    public SimulationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.tickTimer = Timer.builder("simulation.tick")
+                .description("单个仿真 tick 的总耗时")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.dispatchTimer = Timer.builder("simulation.dispatch")
+                .description("一次调度分配的耗时")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.weatherLookupTimer = Timer.builder("simulation.weather.lookup")
+                .description("单次天气查询的耗时")
+                .register(registry);
+        this.tickOverruns = Counter.builder("simulation.tick.overrun")
+                .description("耗时超过 tick 间隔的次数")
+                .register(registry);
+        this.dispatchOverlaps = Counter.builder("simulation.dispatch.overlap")
+                .description("tick 到来时上一次调度仍在运行的次数")
+                .register(registry);
+        for (VehicleStatus status : VehicleStatus.values()) {
+            AtomicLong count = new AtomicLong();
+            vehicleCounts.put(status, count);
+            Gauge.builder("simulation.vehicles", count, AtomicLong::get)
+                    .description("各状态的车辆数")
+                    .tag("status", status.name())
+                    .register(registry);
+        }
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * 记录某个阶段的一次耗时
+     */
+    public void recordPhase(String phase, long nanos) {
+        phaseTimer(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void timePhase(String phase, Runnable action) {
+        phaseTimer(phase).record(action);
+    }
+
+    public <T> T timePhase(String phase, Supplier<T> action) {
+        return phaseTimer(phase).record(action);
+    }
+
+    /**
+     * 记录一个 tick 的总耗时，超过 budgetNanos 时计一次超时
+     */
+    public void recordTick(long nanos, long budgetNanos) {
+        tickTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos > budgetNanos) {
+            tickOverruns.increment();
+        }
+    }
+
+    public void recordDispatch(long nanos) {
+        dispatchTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordWeatherLookup(long nanos) {
+        weatherLookupTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void dispatchOverlapped() {
+        dispatchOverlaps.increment();
+    }
+
+    /**
+     * 用最新的统计覆盖各状态的车辆数，没有出现的状态计为 0
+     */
+    public void updateVehicleCounts(Map<VehicleStatus, Long> counts) {
+        vehicleCounts.forEach((status, gauge) -> gauge.set(counts.getOrDefault(status, 0L)));
+    }
+
+    private Timer phaseTimer(String phase) {
+        return phaseTimers.computeIfAbsent(phase, p -> Timer.builder("simulation.tick.phase")
+                .description("仿真 tick 各阶段的耗时")
+                .tag("phase", p)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
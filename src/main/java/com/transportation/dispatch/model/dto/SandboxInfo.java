@@ -0,0 +1,27 @@
+package com.transportation.dispatch.model.dto;
+
+import com.transportation.dispatch.enumeration.SandboxState;
+import com.transportation.dispatch.enumeration.SimulationEngineType;
+import com.transportation.dispatch.model.entity.SimulationSession;
+import com.transportation.dispatch.model.entity.Weight2Dispatch;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一个并发沙箱的运行信息
+ */
+@Data
+public class SandboxInfo {
+    private Long id;
+    private SandboxState state;
+    private Weight2Dispatch weights;
+    private SimulationEngineType engineType;
+    private Long seed;                  // 请求的随机数种子，为 null 时由会话生成，实际种子见 session
+    private long targetSeconds;         // 目标仿真时长（秒）
+    private long simulatedSeconds;      // 已仿真时长（秒）
+    private LocalDateTime submittedTime;
+    private LocalDateTime finishedTime;
+    private SimulationSession session;  // 运行结束后的会话统计结果
+    private String error;
+}
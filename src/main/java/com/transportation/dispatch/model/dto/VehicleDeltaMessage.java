@@ -0,0 +1,24 @@
+package com.transportation.dispatch.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每个 tick 推送的车队增量，只包含发生变化的车辆和字段。
+ * 每条变化包含 id 以及变化字段的新值，字段名与 VehicleDto 相同；
+ * traveledPolylineAppend 表示追加到已有 traveledPolyline 末尾的部分。
+ * 客户端收到的 sequence 不等于上一条 + 1，或 resync 为 true 时，应重新订阅快照。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleDeltaMessage {
+    private long sequence; // 增量序号，连续递增
+    private boolean resync; // 服务端状态被整体替换（如从检查点恢复），客户端必须重新获取快照
+    private List<Map<String, Object>> changes; // 变化的车辆，新进入订阅范围的车辆包含全部字段
+    private List<Long> removed; // 离开订阅范围的车辆id
+}
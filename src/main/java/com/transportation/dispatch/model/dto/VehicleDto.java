@@ -31,11 +31,21 @@ public class VehicleDto {
      */
     private transient String traveledPolyline; // 当前车辆已经过的路径的所有坐标点
 
+    /**
+     * 当前路径的ID和最后经过的路径点下标。
+     * 有路径ID时不再发送 traveledPolyline，前端通过 /api/route/{id} 获取一次路径几何并缓存，
+     * 尾迹即路径的第 0 ~ routeIndex 个点再连到当前位置。
+     */
+    private Long routeId; // 当前路径id
+    private Integer routeIndex; // 最后经过的路径点下标
+
     /**
      * [Transient] 当前路径的总预估距离和时间（秒）
      */
     private transient int routeDistance; // 当前路径的总预估距离
     private transient int routeDuration; // 当前路径的总预估时间
+    private transient double remainingDistance; // 当前路径的剩余里程
+    private transient double routeProgress; // 当前路径的完成比例 (0~1)
 
     /**
      * [Transient] 开始当前行为的仿真变量
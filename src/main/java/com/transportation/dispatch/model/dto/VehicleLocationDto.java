@@ -0,0 +1,20 @@
+package com.transportation.dispatch.model.dto;
+
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 空间查询命中的车辆
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleLocationDto {
+    private Long id; // 车辆id
+    private VehicleStatus status; // 车辆状态
+    private double lng; // 经度（GEO 索引精度约 0.6 米）
+    private double lat; // 纬度
+    private Double distance; // 到查询中心的距离（米），矩形查询时为 null
+}
@@ -0,0 +1,19 @@
+package com.transportation.dispatch.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 订阅时下发的完整车队快照。
+ * 客户端应丢弃 sequence 小于等于快照序号的增量，从 sequence + 1 开始应用。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VehicleSnapshotMessage {
+    private long sequence; // 快照已包含的最后一个增量的序号
+    private List<VehicleDto> vehicles; // 全部车辆
+}
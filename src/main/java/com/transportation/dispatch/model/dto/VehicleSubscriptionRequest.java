@@ -0,0 +1,31 @@
+package com.transportation.dispatch.model.dto;
+
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import lombok.Data;
+
+import java.util.Set;
+
+/**
+ * WebSocket 订阅的车辆过滤条件，客户端发送到 "/app/vehicles/subscribe"。
+ * 各条件同时满足才会推送；为 null 或空的条件不做限制。视口移动后重新发送即可替换原条件。
+ */
+@Data
+public class VehicleSubscriptionRequest {
+    private Double minLng; // 视口西南角经度
+    private Double minLat; // 视口西南角纬度
+    private Double maxLng; // 视口东北角经度
+    private Double maxLat; // 视口东北角纬度
+    private Set<VehicleStatus> statuses; // 车辆状态
+    private Set<Long> typeIds; // 车辆类型
+    private Set<Long> vehicleIds; // 指定的车辆id
+    private Double zoom; // 地图缩放级别，用于选择尾迹的细节层级
+    private Double tolerance; // 尾迹简化容差（米），优先于 zoom；都不指定时为原始精度
+    private boolean binary; // 为 true 时快照和增量以 VehicleWireCodec 二进制格式发送（需通过 /ws-binary 端点连接）
+
+    /**
+     * 是否指定了完整的视口矩形
+     */
+    public boolean hasBounds() {
+        return minLng != null && minLat != null && maxLng != null && maxLat != null;
+    }
+}
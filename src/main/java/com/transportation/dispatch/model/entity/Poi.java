@@ -3,8 +3,17 @@ package com.transportation.dispatch.model.entity;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSetter;
 import com.transportation.dispatch.enumeration.PoiSimType;
+import com.transportation.dispatch.model.geo.Coordinate;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * POI数据库实体类 (Point of Interest)。
@@ -34,14 +43,27 @@ public class Poi {
     private String address;
 
     /**
-     * 经度 (Longitude)
+     * 坐标，对应 lng / lat 两列；接口中仍以 lng / lat 两个字段收发，两者都提供时才组成坐标
      */
-    private String lng;
+    @JsonIgnore
+    private Coordinate position;
 
     /**
-     * 纬度 (Latitude)
+     * 反序列化时 lng / lat 分别到达，先暂存文本，两者到齐后再解析为坐标
      */
-    private String lat;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient String pendingLng;
+
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient String pendingLat;
 
     /**
      * POI所在省份名称
@@ -82,4 +104,44 @@ public class Poi {
      * 记录创建时间
      */
     private LocalDateTime createTime;
+
+    /**
+     * 经度 (Longitude)，固定 6 位小数
+     */
+    @JsonProperty("lng")
+    public String lngText() {
+        return position != null ? position.getLngText() : null;
+    }
+
+    /**
+     * 纬度 (Latitude)，固定 6 位小数
+     */
+    @JsonProperty("lat")
+    public String latText() {
+        return position != null ? position.getLatText() : null;
+    }
+
+    @JsonSetter("lng")
+    public void lngText(String lng) {
+        pendingLng = lng;
+        resolvePendingPosition();
+    }
+
+    @JsonSetter("lat")
+    public void latText(String lat) {
+        pendingLat = lat;
+        resolvePendingPosition();
+    }
+
+    /**
+     * @throws IllegalArgumentException lng / lat 无法组成合法坐标时抛出，请求体按格式错误拒绝
+     */
+    private void resolvePendingPosition() {
+        if (pendingLng == null || pendingLat == null) return;
+        Coordinate parsed = Coordinate.parse(pendingLng + "," + pendingLat);
+        if (parsed == null) {
+            throw new IllegalArgumentException("坐标格式不正确: " + pendingLng + "," + pendingLat);
+        }
+        position = parsed;
+    }
 }
@@ -1,5 +1,7 @@
 package com.transportation.dispatch.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.transportation.dispatch.model.geo.RouteGeometry;
 import lombok.Data;
 import java.time.LocalDateTime;
 
@@ -12,4 +14,10 @@ public class RouteCache {
     private Integer duration;
     private String polyline;
     private LocalDateTime createdAt;
+
+    /**
+     * [Transient] polyline 解析后的坐标数组，仅在内存中使用，不写入数据库或 Redis
+     */
+    @JsonIgnore
+    private transient RouteGeometry geometry;
 }
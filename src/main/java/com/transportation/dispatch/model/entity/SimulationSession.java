@@ -55,6 +55,16 @@ public class SimulationSession {
      */
     private Double weightWastedIdle;
 
+    /**
+     * 随机数种子。相同种子、相同权重和相同初始车队的两次运行结果一致
+     */
+    private Long seed;
+
+    /**
+     * 是否为并发沙箱中运行的会话，沙箱会话不会被实时仿真恢复
+     */
+    private Boolean sandbox;
+
     // --- 总体结果指标 (Simulation KPIs) ---
 
     /**
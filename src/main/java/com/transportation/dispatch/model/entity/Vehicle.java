@@ -1,31 +1,30 @@
 package com.transportation.dispatch.model.entity;
 
 import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.model.geo.RouteGeometry;
 import lombok.Data;
 import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Data
-@ToString(exclude = {"parsedPolyline", "traveledPolyline"}) // 避免日志过长
+@ToString(exclude = {"routeGeometry", "traveledPolyline"}) // 避免日志过长
 public class Vehicle {
     // --- 数据库持久化字段 ---
     private Long id;
     private String plateNumber;
     private Long typeId;
     private VehicleStatus status;
-    private String currentLng;
-    private String currentLat;
+    private Coordinate currentPosition; // 对应 current_lng / current_lat 两列
     private Long currentDemandId;
     private LocalDateTime lastUpdateTime;
     private Double speed;
     private  Integer lastReachedPathIndex;
     private  BigDecimal totalShippingWeight;
     private BigDecimal  totalShippingVolume;
-    private String originLng;
-    private String originLat;
+    private Coordinate originPosition; // 对应 origin_lng / origin_lat 两列
 
     // --- 以下为仿真运行时，仅在内存中使用的字段 ---
 
@@ -35,6 +34,11 @@ public class Vehicle {
      */
     private transient String routePolyline;
 
+    /**
+     * [Transient] 当前路径在 route_cache 中的ID，前端据此通过 /api/route/{id} 获取并缓存路径几何
+     */
+    private transient Long routeId;
+
     /**
      * [NEW - Transient] 当前车辆已经过的路径的所有坐标点 ("lng,lat;lng,lat;...")
      * 返回给前端，用于绘制车辆尾迹。
@@ -42,9 +46,14 @@ public class Vehicle {
     private transient String traveledPolyline;
 
     /**
-     * [Transient] 将 routePolyline 解析后的坐标点数组，方便计算
+     * [Transient] routePolyline 解析后的紧凑坐标数组，由 RouteService 在加载路径时构建
+     */
+    private transient RouteGeometry routeGeometry;
+
+    /**
+     * [Transient] 车辆在当前路径上已行驶的里程（米），配合 routeGeometry 的累计里程索引定位车辆
      */
-    private transient List<String[]> parsedPolyline;
+    private transient double routeTraveledDistance;
 
     /**
      * [Transient] 当前路径的总距离（米）
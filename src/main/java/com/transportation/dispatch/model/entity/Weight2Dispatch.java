@@ -1,6 +1,7 @@
 package com.transportation.dispatch.model.entity;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.transportation.dispatch.enumeration.AssignmentAlgorithm;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,4 +18,6 @@ public class Weight2Dispatch {
     private double weightWastedIdle ;
     @JsonProperty("UseWeight")
     private boolean useWeight;
+    @JsonProperty("Algorithm")
+    private AssignmentAlgorithm assignmentAlgorithm; // 任务与车辆的匹配方式，为空时使用贪心
 }
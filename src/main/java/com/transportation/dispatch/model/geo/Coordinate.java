@@ -0,0 +1,146 @@
+package com.transportation.dispatch.model.geo;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * 经纬度坐标值对象。
+ * 内部以微度（度 × 10^6）定点数存储，经度占高 32 位、纬度占低 32 位打包在一个 long 中，
+ * 精度与原有的 "%.6f" 字符串格式一致。只有在 API/JSON 边界才格式化为 "lng,lat" 文本。
+ */
+public final class Coordinate {
+
+    private static final double SCALE = 1_000_000d;
+
+    private final long packed;
+
+    private Coordinate(long packed) {
+        this.packed = packed;
+    }
+
+    public static Coordinate of(double lng, double lat) {
+        return new Coordinate(pack(toMicro(lng), toMicro(lat)));
+    }
+
+    public static Coordinate ofMicro(int lngE6, int latE6) {
+        return new Coordinate(pack(lngE6, latE6));
+    }
+
+    public static Coordinate fromPacked(long packed) {
+        return new Coordinate(packed);
+    }
+
+    /**
+     * 解析 "lng,lat" 格式的文本，不做 split。
+     * @return 解析结果；文本为空或格式不正确时返回 null
+     */
+    @JsonCreator
+    public static Coordinate parse(CharSequence text) {
+        if (text == null) return null;
+        int comma = -1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == ',') {
+                if (comma >= 0) return null;
+                comma = i;
+            }
+        }
+        if (comma <= 0) return null;
+        double lng = RouteGeometry.parseDecimal(text, 0, comma);
+        double lat = RouteGeometry.parseDecimal(text, comma + 1, text.length());
+        if (Double.isNaN(lng) || Double.isNaN(lat)) return null;
+        return of(lng, lat);
+    }
+
+    public static long pack(int lngE6, int latE6) {
+        return ((long) lngE6 << 32) | (latE6 & 0xFFFFFFFFL);
+    }
+
+    public static int lngE6(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    public static int latE6(long packed) {
+        return (int) packed;
+    }
+
+    public static int toMicro(double degrees) {
+        return (int) Math.round(degrees * SCALE);
+    }
+
+    public static double toDegrees(int micro) {
+        return micro / SCALE;
+    }
+
+    /**
+     * 以固定 6 位小数追加一个微度值，不产生临时对象
+     */
+    public static StringBuilder appendMicro(StringBuilder sb, int micro) {
+        long abs = Math.abs((long) micro);
+        if (micro < 0) sb.append('-');
+        sb.append(abs / 1_000_000).append('.');
+        long fraction = abs % 1_000_000;
+        for (long div = 100_000; div > 0; div /= 10) {
+            sb.append((char) ('0' + (fraction / div) % 10));
+        }
+        return sb;
+    }
+
+    public long getPacked() {
+        return packed;
+    }
+
+    public int getLngE6() {
+        return lngE6(packed);
+    }
+
+    public int getLatE6() {
+        return latE6(packed);
+    }
+
+    public double getLng() {
+        return toDegrees(getLngE6());
+    }
+
+    public double getLat() {
+        return toDegrees(getLatE6());
+    }
+
+    public String getLngText() {
+        return appendMicro(new StringBuilder(12), getLngE6()).toString();
+    }
+
+    public String getLatText() {
+        return appendMicro(new StringBuilder(12), getLatE6()).toString();
+    }
+
+    /**
+     * 到另一坐标的球面距离（米）
+     */
+    public double distanceTo(Coordinate other) {
+        return GeoUtils.haversine(getLng(), getLat(), other.getLng(), other.getLat());
+    }
+
+    public StringBuilder appendTo(StringBuilder sb) {
+        appendMicro(sb, getLngE6()).append(',');
+        return appendMicro(sb, getLatE6());
+    }
+
+    /**
+     * "lng,lat" 格式，统一为小数点后 6 位，可直接用作路径缓存键
+     */
+    @JsonValue
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(24)).toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Coordinate other && packed == other.packed);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packed);
+    }
+}
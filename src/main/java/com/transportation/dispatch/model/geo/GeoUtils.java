@@ -0,0 +1,39 @@
+package com.transportation.dispatch.model.geo;
+
+/**
+ * 地理计算工具类
+ */
+public final class GeoUtils {
+
+    private static final double EARTH_RADIUS = 6371000; // 地球半径, 米
+
+    private GeoUtils() {
+    }
+
+    /**
+     * 使用 Haversine 公式计算两点间的球面距离
+     * @return 距离（米）
+     */
+    public static double haversine(double lng1, double lat1, double lng2, double lat2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS * c;
+    }
+
+    /**
+     * 与 haversine 相同的公式，输入为弧度，纬度余弦由调用方预先计算。
+     * 一端固定、另一端很多的批量计算中，每个点的三角函数只需计算一次。
+     * @return 距离（米）
+     */
+    public static double haversineRadians(double lngRad1, double latRad1, double cosLat1,
+                                          double lngRad2, double latRad2, double cosLat2) {
+        double sinLat = Math.sin((latRad2 - latRad1) / 2);
+        double sinLng = Math.sin((lngRad2 - lngRad1) / 2);
+        double a = sinLat * sinLat + cosLat1 * cosLat2 * sinLng * sinLng;
+        return EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,130 @@
+package com.transportation.dispatch.model.geo;
+
+import java.util.Arrays;
+
+/**
+ * 折线的 Douglas-Peucker 简化与细节层级（LOD）。
+ * 层级 0 为原始精度，之后每一级的容差为 {@link #LEVEL_TOLERANCES} 中对应的米数。
+ * 地图缩放级别按 Web 墨卡托每像素对应的米数换算成容差，取不超过一个像素的最粗层级，简化误差在屏幕上不可见。
+ */
+public final class PolylineSimplifier {
+
+    /**
+     * 各层级的容差（米），层级 0 不做简化
+     */
+    public static final double[] LEVEL_TOLERANCES = {0, 2, 8, 32, 128, 512};
+    public static final int LEVEL_COUNT = LEVEL_TOLERANCES.length;
+
+    // 256 像素瓦片在 0 级缩放时赤道处每像素的米数
+    private static final double METERS_PER_PIXEL_AT_ZOOM_0 = 156_543.033_92;
+    private static final double METERS_PER_DEGREE = 111_319.49;
+
+    private PolylineSimplifier() {
+    }
+
+    /**
+     * 由缩放级别或容差确定层级，两者都给出时以容差为准，都没有时返回 0
+     */
+    public static int resolveLevel(Double zoom, Double toleranceMeters) {
+        if (toleranceMeters != null) return levelForTolerance(toleranceMeters);
+        if (zoom != null) return levelForZoom(zoom);
+        return 0;
+    }
+
+    public static int levelForZoom(double zoom) {
+        return levelForTolerance(METERS_PER_PIXEL_AT_ZOOM_0 / Math.pow(2, zoom));
+    }
+
+    /**
+     * 容差不超过 toleranceMeters 的最粗层级
+     */
+    public static int levelForTolerance(double toleranceMeters) {
+        int level = 0;
+        for (int i = 1; i < LEVEL_COUNT; i++) {
+            if (LEVEL_TOLERANCES[i] <= toleranceMeters) level = i;
+        }
+        return level;
+    }
+
+    /**
+     * 按层级简化 "lng,lat;lng,lat;..." 文本
+     * @return 简化后的文本；层级为 0、文本为空或无法解析出 2 个点时原样返回
+     */
+    public static String simplify(String polyline, int level) {
+        if (level <= 0 || polyline == null) return polyline;
+        RouteGeometry geometry = RouteGeometry.parse(polyline);
+        return geometry != null ? geometry.polylineAtLevel(level) : polyline;
+    }
+
+    /**
+     * Douglas-Peucker 简化，保留首尾点。使用显式栈，长折线也不会递归过深。
+     * 距离在以折线平均纬度为基准的等距投影平面上计算（米），城市范围内误差可以忽略。
+     *
+     * @return 保留的点的下标，升序
+     */
+    public static int[] simplify(double[] lngs, double[] lats, double toleranceMeters) {
+        int n = lngs.length;
+        if (n <= 2 || toleranceMeters <= 0) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) all[i] = i;
+            return all;
+        }
+
+        double meanLat = 0;
+        for (double lat : lats) meanLat += lat;
+        meanLat /= n;
+        double kx = METERS_PER_DEGREE * Math.cos(Math.toRadians(meanLat));
+        double ky = METERS_PER_DEGREE;
+        double toleranceSq = toleranceMeters * toleranceMeters;
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int end = stack[--top];
+            int start = stack[--top];
+            if (end - start < 2) continue;
+
+            double ax = lngs[start] * kx, ay = lats[start] * ky;
+            double dx = lngs[end] * kx - ax, dy = lats[end] * ky - ay;
+            double lengthSq = dx * dx + dy * dy;
+            double maxDistSq = -1;
+            int farthest = -1;
+            for (int i = start + 1; i < end; i++) {
+                double px = lngs[i] * kx - ax, py = lats[i] * ky - ay;
+                double distSq;
+                if (lengthSq == 0) {
+                    distSq = px * px + py * py;
+                } else {
+                    double t = Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSq));
+                    double ex = px - t * dx, ey = py - t * dy;
+                    distSq = ex * ex + ey * ey;
+                }
+                if (distSq > maxDistSq) {
+                    maxDistSq = distSq;
+                    farthest = i;
+                }
+            }
+            if (maxDistSq > toleranceSq) {
+                keep[farthest] = true;
+                if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = start;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = end;
+            }
+        }
+
+        int count = 0;
+        for (boolean k : keep) if (k) count++;
+        int[] indices = new int[count];
+        for (int i = 0, j = 0; i < n; i++) {
+            if (keep[i]) indices[j++] = i;
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,299 @@
+package com.transportation.dispatch.model.geo;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 路径几何的紧凑表示。
+ * 坐标以两个平行的 double[] 数组存储（经度、纬度），在路径加载时只解析一次，
+ * 之后车辆沿路径移动时不再需要任何字符串解析或逐点对象分配。
+ * 构建时同时预计算每个路径点的累计里程，"行驶 d 米后位于何处" 只需一次二分查找加一次插值。
+ * 实例创建后不可变，可以在多辆车、多个线程之间共享。
+ * 各细节层级的简化折线（见 PolylineSimplifier）在第一次请求时计算并保存在实例中，随路径一起缓存。
+ */
+public final class RouteGeometry {
+
+    // 与原有的坐标去重逻辑保持一致的浮点容差
+    private static final double COORD_TOLERANCE = 0.000001;
+    // 可精确表示为 double 的 10 的幂
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+    // 尾数累加时不会溢出 long 的位数
+    private static final int MAX_FAST_DIGITS = 18;
+    // 快速路径要求尾数可精确表示为 double（不超过 2^53），此时一次除法的舍入与 Double.parseDouble 相同
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final double[] lngs;
+    private final double[] lats;
+    // cumulative[i] 为从第 0 个点到第 i 个点的累计里程（米）
+    private final double[] cumulative;
+    // 各细节层级的折线文本，按需计算
+    private final AtomicReferenceArray<String> levelPolylines = new AtomicReferenceArray<>(PolylineSimplifier.LEVEL_COUNT);
+
+    private RouteGeometry(double[] lngs, double[] lats) {
+        this.lngs = lngs;
+        this.lats = lats;
+        this.cumulative = new double[lngs.length];
+        for (int i = 1; i < lngs.length; i++) {
+            cumulative[i] = cumulative[i - 1] + GeoUtils.haversine(lngs[i - 1], lats[i - 1], lngs[i], lats[i]);
+        }
+    }
+
+    /**
+     * 直接扫描高德 Polyline 文本 ("lng,lat;lng,lat;...")，不做 split，也不创建中间字符串。
+     * 与原有解析逻辑一致：跳过空段、缺少逗号或逗号多于一个的段，并去除相邻的重复点。
+     *
+     * @param polyline 原始 Polyline 文本
+     * @return 解析后的路径；如果有效点少于 2 个则返回 null
+     */
+    public static RouteGeometry parse(CharSequence polyline) {
+        if (polyline == null || polyline.length() == 0) return null;
+
+        int len = polyline.length();
+        int capacity = 1;
+        for (int i = 0; i < len; i++) {
+            if (polyline.charAt(i) == ';') capacity++;
+        }
+        double[] lngs = new double[capacity];
+        double[] lats = new double[capacity];
+        int size = 0;
+
+        int segmentStart = 0;
+        while (segmentStart < len) {
+            int segmentEnd = segmentStart;
+            int comma = -1;
+            boolean valid = true;
+            while (segmentEnd < len && polyline.charAt(segmentEnd) != ';') {
+                if (polyline.charAt(segmentEnd) == ',') {
+                    if (comma >= 0) valid = false;
+                    comma = segmentEnd;
+                }
+                segmentEnd++;
+            }
+
+            if (valid && comma > segmentStart && comma < segmentEnd - 1) {
+                double lng = parseDecimal(polyline, segmentStart, comma);
+                double lat = parseDecimal(polyline, comma + 1, segmentEnd);
+                if (!Double.isNaN(lng) && !Double.isNaN(lat)) {
+                    boolean duplicate = size > 0
+                            && Math.abs(lngs[size - 1] - lng) < COORD_TOLERANCE
+                            && Math.abs(lats[size - 1] - lat) < COORD_TOLERANCE;
+                    if (!duplicate) {
+                        lngs[size] = lng;
+                        lats[size] = lat;
+                        size++;
+                    }
+                }
+            }
+            segmentStart = segmentEnd + 1;
+        }
+
+        if (size < 2) return null;
+        return new RouteGeometry(Arrays.copyOf(lngs, size), Arrays.copyOf(lats, size));
+    }
+
+    /**
+     * 由微度坐标数组重建路径，用于从检查点恢复。数组中的点应当已经去重。
+     * @return 重建的路径；点少于 2 个时返回 null
+     */
+    public static RouteGeometry fromMicro(int[] lngE6, int[] latE6) {
+        if (lngE6.length < 2 || lngE6.length != latE6.length) return null;
+        double[] lngs = new double[lngE6.length];
+        double[] lats = new double[latE6.length];
+        for (int i = 0; i < lngs.length; i++) {
+            lngs[i] = Coordinate.toDegrees(lngE6[i]);
+            lats[i] = Coordinate.toDegrees(latE6[i]);
+        }
+        return new RouteGeometry(lngs, lats);
+    }
+
+    /**
+     * 格式化为 "lng,lat;lng,lat;..." 文本，坐标统一为 6 位小数
+     */
+    public String toPolyline() {
+        StringBuilder sb = new StringBuilder(lngs.length * 22);
+        for (int i = 0; i < lngs.length; i++) {
+            if (i > 0) sb.append(';');
+            appendPoint(sb, i);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 指定细节层级的折线文本，同一层级只计算一次
+     * @param level 0 为原始精度，见 PolylineSimplifier.LEVEL_TOLERANCES
+     */
+    public String polylineAtLevel(int level) {
+        int clamped = Math.max(0, Math.min(level, PolylineSimplifier.LEVEL_COUNT - 1));
+        String polyline = levelPolylines.get(clamped);
+        if (polyline == null) {
+            int[] indices = PolylineSimplifier.simplify(lngs, lats, PolylineSimplifier.LEVEL_TOLERANCES[clamped]);
+            StringBuilder sb = new StringBuilder(indices.length * 22);
+            for (int i = 0; i < indices.length; i++) {
+                if (i > 0) sb.append(';');
+                appendPoint(sb, indices[i]);
+            }
+            polyline = sb.toString();
+            // 并发计算的结果相同，保留先写入的一份
+            if (!levelPolylines.compareAndSet(clamped, null, polyline)) {
+                polyline = levelPolylines.get(clamped);
+            }
+        }
+        return polyline;
+    }
+
+    /**
+     * 解析 [start, end) 范围内的十进制数。
+     * 常见的 "123.456789" 形式走快速路径（尾数 / 10 的幂，结果与 Double.parseDouble 一致），
+     * 其余形式（科学计数法、超长位数、尾数超过 2^53）回退到 Double.parseDouble。
+     *
+     * @return 解析结果；格式不正确时返回 NaN
+     */
+    static double parseDecimal(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+        if (start >= end) return Double.NaN;
+
+        int pos = start;
+        boolean negative = false;
+        char first = text.charAt(pos);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            pos++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDot = false;
+        for (; pos < end; pos++) {
+            char c = text.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                if (digits >= MAX_FAST_DIGITS) return slowParse(text, start, end);
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenDot) scale++;
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                return slowParse(text, start, end);
+            }
+        }
+        if (digits == 0) return Double.NaN;
+        if (mantissa > MAX_EXACT_MANTISSA) return slowParse(text, start, end);
+
+        double value = scale == 0 ? mantissa : mantissa / POW10[scale];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(CharSequence text, int start, int end) {
+        try {
+            return Double.parseDouble(text.subSequence(start, end).toString());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * 以固定 6 位小数追加坐标分量，等价于 String.format(Locale.US, "%.6f", value)，但不产生临时对象。
+     */
+    public static StringBuilder appendFixed6(StringBuilder sb, double value) {
+        return Coordinate.appendMicro(sb, Coordinate.toMicro(value));
+    }
+
+    /**
+     * 以 "lng,lat" 形式追加第 index 个路径点
+     */
+    public StringBuilder appendPoint(StringBuilder sb, int index) {
+        appendFixed6(sb, lngs[index]).append(',');
+        return appendFixed6(sb, lats[index]);
+    }
+
+    /**
+     * 路径总长度（米）
+     */
+    public double totalLength() {
+        return cumulative[cumulative.length - 1];
+    }
+
+    /**
+     * 从起点到第 index 个路径点的累计里程（米）
+     */
+    public double distanceAt(int index) {
+        return cumulative[index];
+    }
+
+    /**
+     * 沿路径行驶 distance 米后，最后一个已经到达（或经过）的路径点索引。
+     * 二分查找累计里程数组，结果落在 [0, lastIndex] 内。
+     */
+    public int nodeIndexAt(double distance) {
+        if (distance <= 0) return 0;
+        if (distance >= totalLength()) return lastIndex();
+        int index = Arrays.binarySearch(cumulative, distance);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * 沿路径行驶 distance 米后的经度。
+     * @param node nodeIndexAt(distance) 的结果，由调用方传入以免重复查找
+     */
+    public double lngAt(double distance, int node) {
+        return interpolate(lngs, distance, node);
+    }
+
+    /**
+     * 沿路径行驶 distance 米后的纬度。
+     * @param node nodeIndexAt(distance) 的结果，由调用方传入以免重复查找
+     */
+    public double latAt(double distance, int node) {
+        return interpolate(lats, distance, node);
+    }
+
+    /**
+     * 行驶 distance 米后的剩余里程（米）
+     */
+    public double remainingDistance(double distance) {
+        return Math.max(0, totalLength() - distance);
+    }
+
+    /**
+     * 行驶 distance 米后的完成比例，范围 [0, 1]
+     */
+    public double progress(double distance) {
+        double total = totalLength();
+        if (total <= 0) return 1.0;
+        return Math.min(1.0, Math.max(0, distance / total));
+    }
+
+    private double interpolate(double[] values, double distance, int node) {
+        if (node >= lastIndex()) return values[lastIndex()];
+        double segmentLength = cumulative[node + 1] - cumulative[node];
+        if (segmentLength <= 0) return values[node];
+        double ratio = (distance - cumulative[node]) / segmentLength;
+        ratio = Math.min(1.0, Math.max(0, ratio));
+        return values[node] + (values[node + 1] - values[node]) * ratio;
+    }
+
+    public int size() {
+        return lngs.length;
+    }
+
+    public int lastIndex() {
+        return lngs.length - 1;
+    }
+
+    public double lng(int index) {
+        return lngs[index];
+    }
+
+    public double lat(int index) {
+        return lats[index];
+    }
+
+    public Coordinate coordinate(int index) {
+        return Coordinate.of(lngs[index], lats[index]);
+    }
+}
@@ -0,0 +1,352 @@
+package com.transportation.dispatch.persistence;
+
+import com.transportation.dispatch.enumeration.DemandStatus;
+import com.transportation.dispatch.enumeration.SimulationEngineType;
+import com.transportation.dispatch.enumeration.VehicleEventType;
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.model.entity.TransportDemand;
+import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.model.geo.RouteGeometry;
+import com.transportation.dispatch.simulation.SimulationCheckpoint;
+import com.transportation.dispatch.simulation.VehicleEvent;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 仿真检查点的二进制编码。
+ * 写入使用 DataOutputStream（大端序），读取直接在 ByteBuffer 上进行，可以配合内存映射文件零拷贝解析。
+ * 坐标按微度 int 存储，路径几何只写坐标数组，恢复时再重建累计里程索引；枚举按序号存储，
+ * 枚举或字段有变动时需要递增 VERSION，旧版本的检查点会被拒绝读取。
+ */
+public final class SimulationCheckpointCodec {
+
+    static final int MAGIC = 0x44534350; // "DSCP"
+    static final int VERSION = 2;
+
+    private SimulationCheckpointCodec() {
+    }
+
+    public static void encode(SimulationCheckpoint checkpoint, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(checkpoint.getSessionId());
+        out.writeLong(checkpoint.getSimulationTime());
+        writeEnum(out, checkpoint.getEngineType());
+        out.writeLong(checkpoint.getSeed());
+        out.writeLong(checkpoint.getCreatedTime());
+
+        out.writeInt(checkpoint.getSubsystemRandomStates().size());
+        for (Map.Entry<String, Long> entry : checkpoint.getSubsystemRandomStates().entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        out.writeInt(checkpoint.getVehicleRandomStates().size());
+        for (Map.Entry<Long, Long> entry : checkpoint.getVehicleRandomStates().entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+
+        out.writeInt(checkpoint.getVehicles().size());
+        for (Vehicle vehicle : checkpoint.getVehicles()) {
+            writeVehicle(out, vehicle);
+        }
+        out.writeInt(checkpoint.getDemands().size());
+        for (TransportDemand demand : checkpoint.getDemands()) {
+            writeDemand(out, demand);
+        }
+
+        out.writeBoolean(checkpoint.isEventStateInitialized());
+        out.writeLong(checkpoint.getEventClock());
+        out.writeInt(checkpoint.getEvents().size());
+        for (VehicleEvent event : checkpoint.getEvents()) {
+            out.writeLong(event.time());
+            out.writeLong(event.vehicleId());
+            writeEnum(out, event.type());
+        }
+        out.writeInt(checkpoint.getIdleSince().size());
+        for (Map.Entry<Long, Long> entry : checkpoint.getIdleSince().entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+
+        // 结尾再写一次魔数，读取时据此识别被截断的文件
+        out.writeInt(MAGIC);
+    }
+
+    /**
+     * 从缓冲区当前位置解析一个检查点
+     * @throws IllegalArgumentException 魔数或版本不匹配、文件被截断时抛出
+     */
+    public static SimulationCheckpoint decode(ByteBuffer in) {
+        try {
+            if (in.getInt() != MAGIC) throw new IllegalArgumentException("不是仿真检查点文件");
+            int version = in.getInt();
+            if (version != VERSION) throw new IllegalArgumentException("不支持的检查点版本: " + version);
+
+            SimulationCheckpoint checkpoint = new SimulationCheckpoint();
+            checkpoint.setSessionId(in.getLong());
+            checkpoint.setSimulationTime(in.getLong());
+            checkpoint.setEngineType(readEnum(in, SimulationEngineType.values()));
+            checkpoint.setSeed(in.getLong());
+            checkpoint.setCreatedTime(in.getLong());
+
+            int subsystemCount = in.getInt();
+            Map<String, Long> subsystemStates = new HashMap<>(subsystemCount * 2);
+            for (int i = 0; i < subsystemCount; i++) {
+                subsystemStates.put(readString(in), in.getLong());
+            }
+            checkpoint.setSubsystemRandomStates(subsystemStates);
+            int vehicleStreamCount = in.getInt();
+            Map<Long, Long> vehicleStates = new HashMap<>(vehicleStreamCount * 2);
+            for (int i = 0; i < vehicleStreamCount; i++) {
+                vehicleStates.put(in.getLong(), in.getLong());
+            }
+            checkpoint.setVehicleRandomStates(vehicleStates);
+
+            int vehicleCount = in.getInt();
+            List<Vehicle> vehicles = new ArrayList<>(vehicleCount);
+            for (int i = 0; i < vehicleCount; i++) {
+                vehicles.add(readVehicle(in));
+            }
+            checkpoint.setVehicles(vehicles);
+            int demandCount = in.getInt();
+            List<TransportDemand> demands = new ArrayList<>(demandCount);
+            for (int i = 0; i < demandCount; i++) {
+                demands.add(readDemand(in));
+            }
+            checkpoint.setDemands(demands);
+
+            checkpoint.setEventStateInitialized(in.get() != 0);
+            checkpoint.setEventClock(in.getLong());
+            int eventCount = in.getInt();
+            List<VehicleEvent> events = new ArrayList<>(eventCount);
+            for (int i = 0; i < eventCount; i++) {
+                long time = in.getLong();
+                long vehicleId = in.getLong();
+                events.add(new VehicleEvent(time, vehicleId, readEnum(in, VehicleEventType.values()), i));
+            }
+            checkpoint.setEvents(events);
+            int idleCount = in.getInt();
+            Map<Long, Long> idleSince = new HashMap<>(idleCount * 2);
+            for (int i = 0; i < idleCount; i++) {
+                idleSince.put(in.getLong(), in.getLong());
+            }
+            checkpoint.setIdleSince(idleSince);
+
+            if (in.getInt() != MAGIC) throw new IllegalArgumentException("检查点文件结尾校验失败");
+            return checkpoint;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("检查点文件不完整", e);
+        }
+    }
+
+    private static void writeVehicle(DataOutputStream out, Vehicle vehicle) throws IOException {
+        out.writeLong(vehicle.getId());
+        writeString(out, vehicle.getPlateNumber());
+        writeNullableLong(out, vehicle.getTypeId());
+        writeEnum(out, vehicle.getStatus());
+        writeCoordinate(out, vehicle.getCurrentPosition());
+        writeNullableLong(out, vehicle.getCurrentDemandId());
+        writeDateTime(out, vehicle.getLastUpdateTime());
+        writeNullableDouble(out, vehicle.getSpeed());
+        writeNullableLong(out, vehicle.getLastReachedPathIndex() == null ? null : vehicle.getLastReachedPathIndex().longValue());
+        writeDecimal(out, vehicle.getTotalShippingWeight());
+        writeDecimal(out, vehicle.getTotalShippingVolume());
+        writeCoordinate(out, vehicle.getOriginPosition());
+
+        // 路径只保存解析后的几何，恢复时由几何重新生成 Polyline 文本
+        RouteGeometry geometry = vehicle.getRouteGeometry();
+        if (geometry == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(geometry.size());
+            for (int i = 0; i < geometry.size(); i++) {
+                out.writeInt(Coordinate.toMicro(geometry.lng(i)));
+                out.writeInt(Coordinate.toMicro(geometry.lat(i)));
+            }
+        }
+        writeNullableLong(out, vehicle.getRouteId());
+        writeString(out, vehicle.getTraveledPolyline());
+        out.writeDouble(vehicle.getRouteTraveledDistance());
+        out.writeInt(vehicle.getRouteDistance());
+        out.writeInt(vehicle.getRouteDuration());
+        out.writeLong(vehicle.getActionStartTime());
+        out.writeDouble(vehicle.getNoLoadDistance());
+        out.writeDouble(vehicle.getNoLoadDuration());
+        out.writeDouble(vehicle.getLoadDistance());
+        out.writeDouble(vehicle.getLoadDuration());
+        out.writeDouble(vehicle.getWaitingDuration());
+        out.writeDouble(vehicle.getWastedLoad());
+    }
+
+    private static Vehicle readVehicle(ByteBuffer in) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(in.getLong());
+        vehicle.setPlateNumber(readString(in));
+        vehicle.setTypeId(readNullableLong(in));
+        vehicle.setStatus(readEnum(in, VehicleStatus.values()));
+        vehicle.setCurrentPosition(readCoordinate(in));
+        vehicle.setCurrentDemandId(readNullableLong(in));
+        vehicle.setLastUpdateTime(readDateTime(in));
+        vehicle.setSpeed(readNullableDouble(in));
+        Long lastReachedPathIndex = readNullableLong(in);
+        vehicle.setLastReachedPathIndex(lastReachedPathIndex == null ? null : lastReachedPathIndex.intValue());
+        vehicle.setTotalShippingWeight(readDecimal(in));
+        vehicle.setTotalShippingVolume(readDecimal(in));
+        vehicle.setOriginPosition(readCoordinate(in));
+
+        int points = in.getInt();
+        if (points >= 0) {
+            int[] lngE6 = new int[points];
+            int[] latE6 = new int[points];
+            for (int i = 0; i < points; i++) {
+                lngE6[i] = in.getInt();
+                latE6[i] = in.getInt();
+            }
+            RouteGeometry geometry = RouteGeometry.fromMicro(lngE6, latE6);
+            vehicle.setRouteGeometry(geometry);
+            vehicle.setRoutePolyline(geometry != null ? geometry.toPolyline() : null);
+        }
+        vehicle.setRouteId(readNullableLong(in));
+        vehicle.setTraveledPolyline(readString(in));
+        vehicle.setRouteTraveledDistance(in.getDouble());
+        vehicle.setRouteDistance(in.getInt());
+        vehicle.setRouteDuration(in.getInt());
+        vehicle.setActionStartTime(in.getLong());
+        vehicle.setNoLoadDistance(in.getDouble());
+        vehicle.setNoLoadDuration(in.getDouble());
+        vehicle.setLoadDistance(in.getDouble());
+        vehicle.setLoadDuration(in.getDouble());
+        vehicle.setWaitingDuration(in.getDouble());
+        vehicle.setWastedLoad(in.getDouble());
+        return vehicle;
+    }
+
+    private static void writeDemand(DataOutputStream out, TransportDemand demand) throws IOException {
+        out.writeLong(demand.getId());
+        writeNullableLong(out, demand.getOriginPoiId());
+        writeNullableLong(out, demand.getDestinationPoiId());
+        writeString(out, demand.getCargoName());
+        writeDecimal(out, demand.getCargoWeight());
+        writeDecimal(out, demand.getCargoVolume());
+        writeEnum(out, demand.getStatus());
+        writeNullableLong(out, demand.getAssignedVehicleId());
+        writeDateTime(out, demand.getCreationTime());
+        writeDateTime(out, demand.getAssignmentTime());
+        writeDateTime(out, demand.getPickupTime());
+        writeDateTime(out, demand.getCompletionTime());
+        writeNullableLong(out, demand.getTemplateId());
+        writeNullableLong(out, demand.getStageOrder() == null ? null : demand.getStageOrder().longValue());
+    }
+
+    private static TransportDemand readDemand(ByteBuffer in) {
+        TransportDemand demand = new TransportDemand();
+        demand.setId(in.getLong());
+        demand.setOriginPoiId(readNullableLong(in));
+        demand.setDestinationPoiId(readNullableLong(in));
+        demand.setCargoName(readString(in));
+        demand.setCargoWeight(readDecimal(in));
+        demand.setCargoVolume(readDecimal(in));
+        demand.setStatus(readEnum(in, DemandStatus.values()));
+        demand.setAssignedVehicleId(readNullableLong(in));
+        demand.setCreationTime(readDateTime(in));
+        demand.setAssignmentTime(readDateTime(in));
+        demand.setPickupTime(readDateTime(in));
+        demand.setCompletionTime(readDateTime(in));
+        demand.setTemplateId(readNullableLong(in));
+        Long stageOrder = readNullableLong(in);
+        demand.setStageOrder(stageOrder == null ? null : stageOrder.intValue());
+        return demand;
+    }
+
+    // ---- 基本类型：可空值以一个标记字节开头 ----
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+        out.writeByte(value == null ? -1 : value.ordinal());
+    }
+
+    private static <E extends Enum<E>> E readEnum(ByteBuffer in, E[] values) {
+        byte ordinal = in.get();
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    private static void writeNullableLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeLong(value);
+    }
+
+    private static Long readNullableLong(ByteBuffer in) {
+        return in.get() != 0 ? in.getLong() : null;
+    }
+
+    private static void writeNullableDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeDouble(value);
+    }
+
+    private static Double readNullableDouble(ByteBuffer in) {
+        return in.get() != 0 ? in.getDouble() : null;
+    }
+
+    private static void writeCoordinate(DataOutputStream out, Coordinate value) throws IOException {
+        writeNullableLong(out, value == null ? null : value.getPacked());
+    }
+
+    private static Coordinate readCoordinate(ByteBuffer in) {
+        Long packed = readNullableLong(in);
+        return packed == null ? null : Coordinate.fromPacked(packed);
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        writeString(out, value == null ? null : value.toString());
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer in) {
+        String text = readString(in);
+        return text == null ? null : new BigDecimal(text);
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        if (in.get() == 0) return null;
+        long epochSecond = in.getLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, in.getInt(), ZoneOffset.UTC);
+    }
+}
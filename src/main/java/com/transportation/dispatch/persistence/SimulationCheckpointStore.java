@@ -0,0 +1,192 @@
+package com.transportation.dispatch.persistence;
+
+import com.transportation.dispatch.simulation.SimulationCheckpoint;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 仿真检查点的本地文件存储，每个会话一个文件。
+ * 写入在专用线程上进行：先在写线程上补全需要查询数据库的部分，再写临时文件并刷到磁盘，再原子重命名覆盖旧文件，进程在写入中途崩溃也不会留下损坏的检查点。
+ * 写线程繁忙时新提交的检查点会覆盖尚未开始写入的旧检查点，只落盘最新的一份。
+ * 读取使用内存映射文件，直接在映射区上解析，大型会话也能在数秒内恢复。
+ */
+@Component
+@Slf4j
+public class SimulationCheckpointStore {
+
+    private static final String FILE_PREFIX = "session-";
+    private static final String FILE_SUFFIX = ".ckpt";
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    // 等待写入的最新检查点
+    private final AtomicReference<PendingCheckpoint> latest = new AtomicReference<>();
+
+    /**
+     * 已提交的检查点，以及写盘前在写线程上补全检查点的回调（如查询数据库中的任务表）
+     */
+    private record PendingCheckpoint(SimulationCheckpoint checkpoint, Consumer<SimulationCheckpoint> completer) {
+    }
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "simulation-checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile long lastWriteLatencyMs = 0L;
+    private volatile long lastWriteBytes = 0L;
+
+    public SimulationCheckpointStore(@Value("${simulation.checkpoint.dir:./checkpoints}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * 提交一个检查点在后台写盘，调用方不等待 IO 完成
+     */
+    public void submit(SimulationCheckpoint checkpoint) {
+        submit(checkpoint, null);
+    }
+
+    /**
+     * 提交一个检查点在后台写盘，completer 在写线程上、编码之前执行，用于补全需要查询数据库的部分。
+     * 检查点被更新的提交覆盖时 completer 不会执行。
+     */
+    public void submit(SimulationCheckpoint checkpoint, Consumer<SimulationCheckpoint> completer) {
+        latest.set(new PendingCheckpoint(checkpoint, completer));
+        writer.submit(this::drain);
+    }
+
+    /**
+     * 读取会话的检查点
+     * @return 检查点；文件不存在或已损坏时返回 null
+     */
+    public SimulationCheckpoint read(long sessionId) {
+        Path file = fileOf(sessionId);
+        if (!Files.exists(file)) return null;
+
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            SimulationCheckpoint checkpoint = SimulationCheckpointCodec.decode(buffer);
+            if (checkpoint.getSessionId() != sessionId) {
+                log.warn("检查点文件 {} 属于会话 #{}，与请求的会话 #{} 不符，已忽略。", file, checkpoint.getSessionId(), sessionId);
+                return null;
+            }
+            log.info("已读取会话 #{} 的检查点（{} 字节），耗时 {} ms。",
+                    sessionId, channel.size(), (System.nanoTime() - start) / 1_000_000);
+            return checkpoint;
+        } catch (IOException | RuntimeException e) {
+            // 截断或损坏的文件在解码时可能抛出任意运行时异常（越界、非法枚举序号等），一律视为没有检查点
+            log.error("读取检查点 {} 失败，将不使用该检查点: {}", file, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 删除会话的检查点。在写线程上排队执行，保证已提交但尚未写完的检查点不会在删除后重新出现。
+     */
+    public void delete(long sessionId) {
+        try {
+            writer.submit(() -> {
+                PendingCheckpoint pending = latest.get();
+                if (pending != null && pending.checkpoint().getSessionId() == sessionId) {
+                    latest.compareAndSet(pending, null);
+                }
+                Files.deleteIfExists(fileOf(sessionId));
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("等待删除检查点时被中断。", e);
+        } catch (ExecutionException e) {
+            log.error("删除会话 #{} 的检查点失败: {}", sessionId, e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 等待所有已提交的检查点写完
+     */
+    public void awaitWrites() {
+        try {
+            Future<?> future = writer.submit(this::drain);
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("等待检查点写盘时被中断。", e);
+        } catch (ExecutionException e) {
+            log.error("检查点写盘失败: {}", e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public long getLastWriteLatencyMs() {
+        return lastWriteLatencyMs;
+    }
+
+    public long getLastWriteBytes() {
+        return lastWriteBytes;
+    }
+
+    /**
+     * 在写线程上执行：写入最新提交的检查点
+     */
+    private void drain() {
+        PendingCheckpoint pending = latest.getAndSet(null);
+        if (pending == null) return;
+        SimulationCheckpoint checkpoint = pending.checkpoint();
+
+        long start = System.nanoTime();
+        Path target = fileOf(checkpoint.getSessionId());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            if (pending.completer() != null) {
+                pending.completer().accept(checkpoint);
+            }
+            Files.createDirectories(directory);
+            try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, WRITE_BUFFER_SIZE))) {
+                SimulationCheckpointCodec.encode(checkpoint, out);
+                out.flush();
+                file.getChannel().force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            lastWriteLatencyMs = (System.nanoTime() - start) / 1_000_000;
+            lastWriteBytes = Files.size(target);
+            log.debug("会话 #{} 的检查点已写入（仿真时间 {}s，{} 字节），耗时 {} ms。",
+                    checkpoint.getSessionId(), checkpoint.getSimulationTime(), lastWriteBytes, lastWriteLatencyMs);
+        } catch (IOException | RuntimeException e) {
+            log.error("写入检查点 {} 失败: {}", target, e.getMessage(), e);
+        }
+    }
+
+    private Path fileOf(long sessionId) {
+        return directory.resolve(FILE_PREFIX + sessionId + FILE_SUFFIX);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        awaitWrites();
+        writer.shutdown();
+    }
+}
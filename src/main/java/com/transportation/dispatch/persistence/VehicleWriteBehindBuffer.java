@@ -0,0 +1,194 @@
+package com.transportation.dispatch.persistence;
+
+import com.transportation.dispatch.mapper.VehicleMapper;
+import com.transportation.dispatch.metrics.SimulationMetrics;
+import com.transportation.dispatch.model.entity.Vehicle;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * 车辆状态的写后（write-behind）缓冲层。
+ * 仿真 tick 内只把变更过的车辆登记为"脏行"，同一车辆多次写入会被合并为最后一次的快照；
+ * tick 结束时由专用写线程以 MyBatis BATCH 模式一次性刷入数据库。
+ * 内存中的 runtimeVehicleCache 始终是权威数据源，这里只保存写入时刻的快照。
+ */
+@Component
+@Slf4j
+public class VehicleWriteBehindBuffer {
+
+    // 每攒够多少条语句向 JDBC 驱动提交一次批处理
+    private static final int BATCH_CHUNK_SIZE = 500;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private SimulationMetrics simulationMetrics;
+
+    @Value("${simulation.write-behind.max-pending:20000}")
+    private int maxPending;
+
+    // 待写入的快照，按车辆ID合并
+    private final Map<Long, Vehicle> pending = new ConcurrentHashMap<>();
+    // 正在被写线程刷入的车辆ID
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "vehicle-write-behind");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile long lastFlushLatencyMs = 0L;
+    private volatile int lastFlushSize = 0;
+    private volatile long totalFlushedRows = 0L;
+
+    /**
+     * 登记一辆车为脏行。重复登记同一车辆时只保留最新快照。
+     * 当积压超过上限时，调用方线程会同步等待一次刷盘（背压）。
+     */
+    public void markDirty(Vehicle vehicle) {
+        if (vehicle == null || vehicle.getId() == null) return;
+        pending.put(vehicle.getId(), snapshot(vehicle));
+
+        if (pending.size() >= maxPending) {
+            log.warn("写后缓冲积压 {} 条，已达上限 {}，同步刷盘。", pending.size(), maxPending);
+            flushAndWait();
+        }
+    }
+
+    /**
+     * 异步提交一次刷盘，通常在每个 tick 结束时调用。
+     */
+    public Future<?> flush() {
+        return writer.submit(this::drain);
+    }
+
+    /**
+     * 提交刷盘并等待完成，用于停止仿真、重置车辆等需要数据库立即一致的场景。
+     */
+    public void flushAndWait() {
+        try {
+            flush().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("等待车辆写后缓冲刷盘时被中断。", e);
+        } catch (ExecutionException e) {
+            log.error("车辆写后缓冲刷盘失败: {}", e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 该车辆是否还有尚未落库的写入。
+     * 有未落库写入时，数据库中的行是旧数据，不应被同步回内存缓存。
+     */
+    public boolean isPending(Long vehicleId) {
+        return pending.containsKey(vehicleId) || inFlight.contains(vehicleId);
+    }
+
+    /**
+     * 当前积压深度（待写入 + 正在写入）
+     */
+    public int getBacklog() {
+        return pending.size() + inFlight.size();
+    }
+
+    public long getLastFlushLatencyMs() {
+        return lastFlushLatencyMs;
+    }
+
+    public int getLastFlushSize() {
+        return lastFlushSize;
+    }
+
+    public long getTotalFlushedRows() {
+        return totalFlushedRows;
+    }
+
+    /**
+     * 在写线程上执行：取出当前所有快照并以批处理方式写入。
+     */
+    private void drain() {
+        if (pending.isEmpty()) return;
+
+        List<Vehicle> batch = new ArrayList<>(pending.size());
+        for (Long id : new ArrayList<>(pending.keySet())) {
+            // 先登记为正在写入再移出待写入队列，期间 isPending 始终为 true
+            inFlight.add(id);
+            Vehicle snapshot = pending.remove(id);
+            if (snapshot != null) {
+                batch.add(snapshot);
+            } else {
+                inFlight.remove(id);
+            }
+        }
+        if (batch.isEmpty()) return;
+
+        long start = System.nanoTime();
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            VehicleMapper batchMapper = session.getMapper(VehicleMapper.class);
+            int count = 0;
+            for (Vehicle vehicle : batch) {
+                batchMapper.updateRuntimeState(vehicle);
+                if (++count % BATCH_CHUNK_SIZE == 0) {
+                    session.flushStatements();
+                }
+            }
+            session.flushStatements();
+            session.commit();
+
+            long elapsed = System.nanoTime() - start;
+            simulationMetrics.recordPhase(SimulationMetrics.PHASE_DB_FLUSH, elapsed);
+            lastFlushLatencyMs = elapsed / 1_000_000;
+            lastFlushSize = batch.size();
+            totalFlushedRows += batch.size();
+            log.debug("车辆写后缓冲已刷盘 {} 条，耗时 {} ms，剩余积压 {}。", batch.size(), lastFlushLatencyMs, pending.size());
+        } catch (Exception e) {
+            // 写入失败时把快照放回队列，若期间已有更新的快照则以新的为准
+            log.error("车辆批量写入失败，{} 条记录将在下次刷盘时重试: {}", batch.size(), e.getMessage(), e);
+            for (Vehicle vehicle : batch) {
+                pending.putIfAbsent(vehicle.getId(), vehicle);
+            }
+        } finally {
+            for (Vehicle vehicle : batch) {
+                inFlight.remove(vehicle.getId());
+            }
+        }
+    }
+
+    /**
+     * 复制 VehicleMapper.updateRuntimeState 会写入的持久化字段，
+     * 使刷盘期间 tick 线程可以继续修改原对象。
+     */
+    private Vehicle snapshot(Vehicle source) {
+        Vehicle copy = new Vehicle();
+        copy.setId(source.getId());
+        copy.setStatus(source.getStatus());
+        copy.setCurrentPosition(source.getCurrentPosition());
+        copy.setCurrentDemandId(source.getCurrentDemandId());
+        copy.setSpeed(source.getSpeed());
+        copy.setTotalShippingWeight(source.getTotalShippingWeight());
+        copy.setTotalShippingVolume(source.getTotalShippingVolume());
+        copy.setLastReachedPathIndex(source.getLastReachedPathIndex());
+        copy.setOriginPosition(source.getOriginPosition());
+        return copy;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushAndWait();
+        writer.shutdown();
+    }
+}
@@ -0,0 +1,126 @@
+package com.transportation.dispatch.projection;
+
+import com.transportation.dispatch.enumeration.PoiSimType;
+import com.transportation.dispatch.model.entity.Poi;
+import com.transportation.dispatch.model.geo.Coordinate;
+
+import java.util.*;
+
+/**
+ * poi 表在某一时刻的不可变快照，按主键、高德ID和仿真业务类型建立索引。
+ * 坐标在构建时展开为打包的微度坐标数组，按ID取坐标时只做一次数组访问。
+ * 每次 POI 数据变化都会构建新的快照并整体替换（见 PoiStore），已发布的快照不再修改，读线程无需加锁。
+ * 返回的 Poi 对象是快照内部的实例，调用方不得修改。
+ */
+public final class PoiSnapshot {
+
+    // 坐标缺失或无法解析
+    private static final long NO_COORDINATE = Long.MIN_VALUE;
+
+    private final long version;
+    private final Poi[] pois;
+    private final long[] coordinates;
+    private final Map<Long, Integer> indexById;
+    private final Map<String, Integer> indexByAmapId;
+    private final Map<PoiSimType, List<Poi>> byType;
+
+    private PoiSnapshot(long version, List<Poi> rows) {
+        this.version = version;
+        this.pois = new Poi[rows.size()];
+        this.coordinates = new long[rows.size()];
+        Map<Long, Integer> ids = new HashMap<>(rows.size() * 2);
+        Map<String, Integer> amapIds = new HashMap<>(rows.size() * 2);
+        Map<PoiSimType, List<Poi>> types = new EnumMap<>(PoiSimType.class);
+        for (int i = 0; i < rows.size(); i++) {
+            Poi poi = copy(rows.get(i));
+            pois[i] = poi;
+            coordinates[i] = poi.getPosition() != null ? poi.getPosition().getPacked() : NO_COORDINATE;
+            if (poi.getId() != null) ids.put(poi.getId(), i);
+            if (poi.getAmapId() != null) amapIds.put(poi.getAmapId(), i);
+            if (poi.getSimType() != null) types.computeIfAbsent(poi.getSimType(), t -> new ArrayList<>()).add(poi);
+        }
+        types.replaceAll((type, list) -> Collections.unmodifiableList(list));
+        this.indexById = ids;
+        this.indexByAmapId = amapIds;
+        this.byType = types;
+    }
+
+    public static PoiSnapshot of(long version, List<Poi> rows) {
+        return new PoiSnapshot(version, rows);
+    }
+
+    public static PoiSnapshot empty() {
+        return new PoiSnapshot(0L, Collections.emptyList());
+    }
+
+    /**
+     * 快照版本号，每次 POI 数据变化后递增
+     */
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return pois.length;
+    }
+
+    public Poi findById(Long id) {
+        Integer index = id != null ? indexById.get(id) : null;
+        return index != null ? pois[index] : null;
+    }
+
+    public Poi findByAmapId(String amapId) {
+        Integer index = amapId != null ? indexByAmapId.get(amapId) : null;
+        return index != null ? pois[index] : null;
+    }
+
+    /**
+     * @return 不可修改的列表，没有该类型的 POI 时为空列表
+     */
+    public List<Poi> findBySimType(PoiSimType simType) {
+        return byType.getOrDefault(simType, Collections.emptyList());
+    }
+
+    /**
+     * @return 不可修改的列表
+     */
+    public List<Poi> findAll() {
+        return Collections.unmodifiableList(Arrays.asList(pois));
+    }
+
+    /**
+     * @return POI 的坐标；POI 不存在或坐标无法解析时返回 null
+     */
+    public Coordinate coordinateOf(Long id) {
+        Integer index = id != null ? indexById.get(id) : null;
+        if (index == null || coordinates[index] == NO_COORDINATE) return null;
+        return Coordinate.fromPacked(coordinates[index]);
+    }
+
+    /**
+     * 随机取一个指定类型的 POI，不复制列表
+     * @return 没有该类型的 POI 时返回 null
+     */
+    public Poi randomOfType(PoiSimType simType, Random random) {
+        List<Poi> candidates = findBySimType(simType);
+        return candidates.isEmpty() ? null : candidates.get(random.nextInt(candidates.size()));
+    }
+
+    private static Poi copy(Poi source) {
+        Poi copy = new Poi();
+        copy.setId(source.getId());
+        copy.setAmapId(source.getAmapId());
+        copy.setName(source.getName());
+        copy.setAddress(source.getAddress());
+        copy.setPosition(source.getPosition());
+        copy.setPname(source.getPname());
+        copy.setCityname(source.getCityname());
+        copy.setAdname(source.getAdname());
+        copy.setType(source.getType());
+        copy.setTypecode(source.getTypecode());
+        copy.setSimType(source.getSimType());
+        copy.setStatus(source.getStatus());
+        copy.setCreateTime(source.getCreateTime());
+        return copy;
+    }
+}
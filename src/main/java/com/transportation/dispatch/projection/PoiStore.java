@@ -0,0 +1,47 @@
+package com.transportation.dispatch.projection;
+
+import com.transportation.dispatch.mapper.PoiMapper;
+import com.transportation.dispatch.model.entity.Poi;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * POI 数据的内存存储，对外提供当前的 PoiSnapshot。
+ * 第一次读取时从数据库加载；POI 数据变化后由写入方调用 refresh，重新加载并原子替换快照，版本号递增。
+ * 调度、需求生成和路径初始化只读快照，不再查询 poi 表。
+ */
+@Component
+@Slf4j
+public class PoiStore {
+
+    @Autowired
+    private PoiMapper poiMapper;
+
+    private volatile PoiSnapshot snapshot;
+
+    /**
+     * @return 当前快照，同一次调用内的多次读取应复用同一个快照以保证一致
+     */
+    public PoiSnapshot snapshot() {
+        PoiSnapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    /**
+     * 从数据库重新加载全部 POI 并替换当前快照，并发刷新串行执行
+     */
+    public synchronized PoiSnapshot refresh() {
+        long start = System.nanoTime();
+        List<Poi> rows = poiMapper.findAll();
+        PoiSnapshot previous = snapshot;
+        PoiSnapshot next = PoiSnapshot.of(previous != null ? previous.version() + 1 : 1L,
+                rows != null ? rows : List.of());
+        snapshot = next;
+        log.info("POI 快照已刷新：版本 {}，共 {} 个 POI，耗时 {} ms。",
+                next.version(), next.size(), (System.nanoTime() - start) / 1_000_000);
+        return next;
+    }
+}
@@ -0,0 +1,106 @@
+package com.transportation.dispatch.projection;
+
+import com.transportation.dispatch.model.dto.VehicleDto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * VehicleDto 的字段级差异。
+ * 差异以 "字段名 -> 新值" 的 Map 表示，字段名与 VehicleDto 的 JSON 属性名一致，总是包含 id。
+ * 尾迹只增长时不重复发送整条 traveledPolyline，而是以 traveledPolylineAppend 只发送新增的部分。
+ */
+public final class VehicleDtoDiff {
+
+    public static final String TRAVELED_POLYLINE = "traveledPolyline";
+    public static final String TRAVELED_POLYLINE_APPEND = "traveledPolylineAppend";
+
+    private VehicleDtoDiff() {
+    }
+
+    /**
+     * @param previous 上一次发布的 DTO，为 null 时返回全部字段
+     * @return 变化的字段；除 id 外没有变化时返回 null
+     */
+    public static Map<String, Object> diff(VehicleDto previous, VehicleDto current) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("id", current.getId());
+        boolean all = previous == null;
+        VehicleDto p = all ? new VehicleDto() : previous;
+
+        put(changes, all, "plateNumber", p.getPlateNumber(), current.getPlateNumber());
+        put(changes, all, "typeId", p.getTypeId(), current.getTypeId());
+        put(changes, all, "status", p.getStatus(), current.getStatus());
+        put(changes, all, "currentLng", p.getCurrentLng(), current.getCurrentLng());
+        put(changes, all, "currentLat", p.getCurrentLat(), current.getCurrentLat());
+        put(changes, all, "currentDemandId", p.getCurrentDemandId(), current.getCurrentDemandId());
+        put(changes, all, "lastUpdateTime", p.getLastUpdateTime(), current.getLastUpdateTime());
+        put(changes, all, "totalShippingWeight", p.getTotalShippingWeight(), current.getTotalShippingWeight());
+        put(changes, all, "totalShippingVolume", p.getTotalShippingVolume(), current.getTotalShippingVolume());
+        putTrail(changes, all, p.getTraveledPolyline(), current.getTraveledPolyline());
+        put(changes, all, "routeId", p.getRouteId(), current.getRouteId());
+        put(changes, all, "routeIndex", p.getRouteIndex(), current.getRouteIndex());
+        put(changes, all, "routeDistance", p.getRouteDistance(), current.getRouteDistance());
+        put(changes, all, "routeDuration", p.getRouteDuration(), current.getRouteDuration());
+        put(changes, all, "remainingDistance", p.getRemainingDistance(), current.getRemainingDistance());
+        put(changes, all, "routeProgress", p.getRouteProgress(), current.getRouteProgress());
+        put(changes, all, "maxLoadWeight", p.getMaxLoadWeight(), current.getMaxLoadWeight());
+        put(changes, all, "currentLoad", p.getCurrentLoad(), current.getCurrentLoad());
+        put(changes, all, "wastedLoad", p.getWastedLoad(), current.getWastedLoad());
+        put(changes, all, "waitingDuration", p.getWaitingDuration(), current.getWaitingDuration());
+        put(changes, all, "noLoadDistance", p.getNoLoadDistance(), current.getNoLoadDistance());
+        put(changes, all, "noLoadDuration", p.getNoLoadDuration(), current.getNoLoadDuration());
+        put(changes, all, "loadDistance", p.getLoadDistance(), current.getLoadDistance());
+        put(changes, all, "loadDuration", p.getLoadDuration(), current.getLoadDuration());
+        put(changes, all, "originName", p.getOriginName(), current.getOriginName());
+        put(changes, all, "destinationName", p.getDestinationName(), current.getDestinationName());
+        put(changes, all, "weatherCondition", p.getWeatherCondition(), current.getWeatherCondition());
+        put(changes, all, "speedFactor", p.getSpeedFactor(), current.getSpeedFactor());
+        put(changes, all, "adjustedSpeed", p.getAdjustedSpeed(), current.getAdjustedSpeed());
+        put(changes, all, "speed", p.getSpeed(), current.getSpeed());
+
+        return changes.size() > 1 ? changes : null;
+    }
+
+    /**
+     * 把较新的差异合并进尚未发布的差异，结果等价于依次应用两者
+     */
+    public static Map<String, Object> merge(Map<String, Object> pending, Map<String, Object> newer) {
+        for (Map.Entry<String, Object> entry : newer.entrySet()) {
+            String field = entry.getKey();
+            if (TRAVELED_POLYLINE_APPEND.equals(field)) {
+                String suffix = (String) entry.getValue();
+                if (pending.containsKey(TRAVELED_POLYLINE)) {
+                    Object base = pending.get(TRAVELED_POLYLINE);
+                    pending.put(TRAVELED_POLYLINE, (base == null ? "" : base) + suffix);
+                } else {
+                    Object base = pending.get(TRAVELED_POLYLINE_APPEND);
+                    pending.put(TRAVELED_POLYLINE_APPEND, base == null ? suffix : base + suffix);
+                }
+            } else if (TRAVELED_POLYLINE.equals(field)) {
+                pending.remove(TRAVELED_POLYLINE_APPEND);
+                pending.put(field, entry.getValue());
+            } else {
+                pending.put(field, entry.getValue());
+            }
+        }
+        return pending;
+    }
+
+    private static void put(Map<String, Object> changes, boolean all, String field, Object previous, Object current) {
+        if (all || !Objects.equals(previous, current)) {
+            changes.put(field, current);
+        }
+    }
+
+    private static void putTrail(Map<String, Object> changes, boolean all, String previous, String current) {
+        if (!all && Objects.equals(previous, current)) return;
+        if (!all && previous != null && current != null
+                && current.length() > previous.length() && current.startsWith(previous)) {
+            changes.put(TRAVELED_POLYLINE_APPEND, current.substring(previous.length()));
+        } else {
+            changes.put(TRAVELED_POLYLINE, current);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.transportation.dispatch.projection;
+
+import com.transportation.dispatch.model.geo.Coordinate;
+
+import java.util.*;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * 车辆位置的均匀网格索引，单元格边长约 0.01 度（约 1 公里）。
+ * 矩形查询只访问与矩形相交的单元格，代价与视口内的车辆数成正比；
+ * 矩形覆盖的单元格多于车辆数时直接遍历所有车辆。
+ * 最近邻查询从中心所在单元格开始逐圈向外扩展，已找到的第 k 近的车辆比下一圈可能的最近距离还近时停止。
+ * 非线程安全，由调用方加锁。
+ */
+class VehicleGridIndex {
+
+    private static final int CELL_MICRO = 10_000;
+    // 一个单元格在纬度方向上的米数
+    private static final double CELL_METERS = CELL_MICRO / 1e6 * 111_319.49;
+
+    /**
+     * 最近邻查询的候选，按距离比较
+     */
+    private record Neighbor(long id, double distance) {
+    }
+
+    private final Map<Long, Set<Long>> cells = new HashMap<>();
+    private final Map<Long, Long> cellOf = new HashMap<>();
+    private final Map<Long, Coordinate> positions = new HashMap<>();
+
+    void update(Long vehicleId, Coordinate position) {
+        positions.put(vehicleId, position);
+        long cell = cellKey(cellIndex(position.getLngE6()), cellIndex(position.getLatE6()));
+        Long previous = cellOf.put(vehicleId, cell);
+        if (previous != null && previous == cell) return;
+        if (previous != null) {
+            Set<Long> members = cells.get(previous);
+            members.remove(vehicleId);
+            if (members.isEmpty()) cells.remove(previous);
+        }
+        cells.computeIfAbsent(cell, k -> new HashSet<>()).add(vehicleId);
+    }
+
+    void remove(Long vehicleId) {
+        positions.remove(vehicleId);
+        Long previous = cellOf.remove(vehicleId);
+        if (previous == null) return;
+        Set<Long> members = cells.get(previous);
+        members.remove(vehicleId);
+        if (members.isEmpty()) cells.remove(previous);
+    }
+
+    int size() {
+        return positions.size();
+    }
+
+    void clear() {
+        cells.clear();
+        cellOf.clear();
+        positions.clear();
+    }
+
+    Coordinate positionOf(Long vehicleId) {
+        return positions.get(vehicleId);
+    }
+
+    /**
+     * 对位于矩形内（含边界）的每辆车调用 consumer
+     */
+    void query(double minLng, double minLat, double maxLng, double maxLat, LongConsumer consumer) {
+        int minLngE6 = Coordinate.toMicro(minLng);
+        int minLatE6 = Coordinate.toMicro(minLat);
+        int maxLngE6 = Coordinate.toMicro(maxLng);
+        int maxLatE6 = Coordinate.toMicro(maxLat);
+        if (minLngE6 > maxLngE6 || minLatE6 > maxLatE6) return;
+
+        int fromX = cellIndex(minLngE6), toX = cellIndex(maxLngE6);
+        int fromY = cellIndex(minLatE6), toY = cellIndex(maxLatE6);
+        long cellCount = (long) (toX - fromX + 1) * (toY - fromY + 1);
+        if (cellCount > positions.size()) {
+            positions.forEach((id, p) -> {
+                if (contains(p, minLngE6, minLatE6, maxLngE6, maxLatE6)) consumer.accept(id);
+            });
+            return;
+        }
+        for (int x = fromX; x <= toX; x++) {
+            for (int y = fromY; y <= toY; y++) {
+                Set<Long> members = cells.get(cellKey(x, y));
+                if (members == null) continue;
+                // 只有边缘的单元格需要逐个判断
+                boolean inner = x > fromX && x < toX && y > fromY && y < toY;
+                for (Long id : members) {
+                    if (inner || contains(positions.get(id), minLngE6, minLatE6, maxLngE6, maxLatE6)) {
+                        consumer.accept(id);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 距 center 最近的至多 k 辆被 accept 接受的车辆，距离为大圆距离
+     * @return 车辆ID，由近到远
+     */
+    List<Long> nearest(Coordinate center, int k, LongPredicate accept) {
+        if (k <= 0 || positions.isEmpty()) return Collections.emptyList();
+        // 大顶堆，保留目前最近的 k 个
+        PriorityQueue<Neighbor> best = new PriorityQueue<>(k + 1, Comparator.comparingDouble(Neighbor::distance).reversed());
+        int cx = cellIndex(center.getLngE6()), cy = cellIndex(center.getLatE6());
+        // 经度方向的单元格更窄，圈距按较窄的一边估计下界
+        double ringMeters = CELL_METERS * Math.min(1.0, Math.cos(Math.toRadians(center.getLat())));
+        int visited = 0;
+        for (int r = 0; visited < positions.size(); r++) {
+            // 一圈的单元格数多于尚未访问的车辆数时，剩余部分改为直接遍历
+            if (8L * r > positions.size() - visited) {
+                for (Map.Entry<Long, Coordinate> entry : positions.entrySet()) {
+                    Coordinate p = entry.getValue();
+                    if (Math.max(Math.abs(cellIndex(p.getLngE6()) - cx), Math.abs(cellIndex(p.getLatE6()) - cy)) >= r) {
+                        offer(best, k, entry.getKey(), p, center, accept);
+                    }
+                }
+                break;
+            }
+            for (int x = cx - r; x <= cx + r; x++) {
+                // 圈的上下两行完整遍历，中间各行只取左右两端
+                int step = (x == cx - r || x == cx + r) ? 1 : Math.max(1, 2 * r);
+                for (int y = cy - r; y <= cy + r; y += step) {
+                    Set<Long> members = cells.get(cellKey(x, y));
+                    if (members == null) continue;
+                    visited += members.size();
+                    for (Long id : members) {
+                        offer(best, k, id, positions.get(id), center, accept);
+                    }
+                }
+            }
+            // 第 r + 1 圈及以外的车辆距离中心至少 r 个单元格
+            if (best.size() == k && best.peek().distance() <= r * ringMeters) break;
+        }
+        Long[] ids = new Long[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = best.poll().id();
+        }
+        return Arrays.asList(ids);
+    }
+
+    private static void offer(PriorityQueue<Neighbor> best, int k, long id, Coordinate position, Coordinate center,
+                              LongPredicate accept) {
+        double distance = position.distanceTo(center);
+        if (best.size() == k && distance >= best.peek().distance()) return;
+        if (!accept.test(id)) return;
+        best.add(new Neighbor(id, distance));
+        if (best.size() > k) best.poll();
+    }
+
+    private static boolean contains(Coordinate p, int minLngE6, int minLatE6, int maxLngE6, int maxLatE6) {
+        return p.getLngE6() >= minLngE6 && p.getLngE6() <= maxLngE6
+                && p.getLatE6() >= minLatE6 && p.getLatE6() <= maxLatE6;
+    }
+
+    private static int cellIndex(int micro) {
+        return Math.floorDiv(micro, CELL_MICRO);
+    }
+
+    private static long cellKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,410 @@
+package com.transportation.dispatch.projection;
+
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.model.dto.VehicleDeltaMessage;
+import com.transportation.dispatch.model.dto.VehicleDto;
+import com.transportation.dispatch.model.dto.VehicleSnapshotMessage;
+import com.transportation.dispatch.model.dto.VehicleSubscriptionRequest;
+import com.transportation.dispatch.model.entity.Poi;
+import com.transportation.dispatch.model.entity.TransportDemand;
+import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.model.entity.WeatherInfo;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.model.geo.PolylineSimplifier;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+
+/**
+ * VehicleDto 的读模型投影。
+ * 由仿真 tick 在步进之后按变更的车辆增量刷新：任务的货重、起终点名称、车型载重等参考数据
+ * 只在第一次出现时批量查询一次并缓存，之后的刷新完全基于内存。
+ * 读取时只复制已经构建好的 DTO，不访问数据库，耗时与车队规模线性相关、与数据库无关。
+ * 已发布的 DTO 不再被修改，读线程与 tick 线程之间不会看到写了一半的对象。
+ * <p>
+ * 刷新时同时与上一版 DTO 比较，按车辆累积字段级的变化（见 VehicleDtoDiff），由推送线程通过 drainDelta 取走。
+ * 增量带有连续的序号；快照与增量在同一把锁下生成，快照的序号保证不会与之后的增量重叠或遗漏。
+ * 没有变化的车辆保留原来的 DTO 实例，按会话过滤的订阅（见 VehicleSubscriptions）只需比较引用即可发现变化。
+ * 车辆位置同时维护在网格索引中，供视口查询使用；空闲车辆另有一个索引，随状态变化增量维护，供调度按距离筛选候选车辆。
+ */
+public class VehicleProjection {
+
+    /**
+     * 投影所需的任务信息，任务创建后这些字段不再变化
+     */
+    private record DemandInfo(double cargoWeight, String originName, String destinationName) {
+    }
+
+    /**
+     * 某个版本的尾迹及其各细节层级的简化结果
+     */
+    private record TrailLevels(String source, AtomicReferenceArray<String> levels) {
+    }
+
+    private final Function<List<Long>, List<TransportDemand>> demandLoader;
+    private final Function<Long, Poi> poiLoader;
+    private final Function<Long, Double> maxLoadLoader;
+    private final Function<String, WeatherInfo> weatherLookup;
+
+    private final Map<Long, VehicleDto> projections = new ConcurrentHashMap<>();
+    private final Map<Long, DemandInfo> demandInfos = new HashMap<>();
+    private final Map<Long, String> poiNames = new HashMap<>();
+    private final Map<Long, Double> maxLoads = new HashMap<>();
+    private final VehicleGridIndex gridIndex = new VehicleGridIndex();
+    private final VehicleGridIndex idleIndex = new VehicleGridIndex();
+    // 空闲车辆索引单独加读写锁，不用投影的对象锁：调度在多个工作线程上并行查询，只有 tick 批量更新索引时才互斥
+    private final ReadWriteLock idleIndexLock = new ReentrantReadWriteLock();
+    // 尾迹的简化结果，尾迹变化后按需重新计算，同一版本尾迹的同一层级只简化一次
+    private final Map<Long, TrailLevels> trailLevels = new ConcurrentHashMap<>();
+
+    // 自上一次 drainDelta 以来累积的变化，按车辆ID保持首次变化的顺序
+    private final Map<Long, Map<String, Object>> pendingChanges = new LinkedHashMap<>();
+    // 最后一个已取走的增量的序号
+    private long sequence = 0L;
+    // 投影被整体清空后，下一个增量要求客户端重新获取快照
+    private boolean resyncPending = false;
+
+    /**
+     * @param demandLoader  按ID批量查询任务
+     * @param poiLoader     按ID查询 POI
+     * @param maxLoadLoader 按车型ID查询最大载重
+     * @param weatherLookup 按 "经度,纬度" 查询天气，返回 null 时不填充天气字段
+     */
+    public VehicleProjection(Function<List<Long>, List<TransportDemand>> demandLoader,
+                             Function<Long, Poi> poiLoader,
+                             Function<Long, Double> maxLoadLoader,
+                             Function<String, WeatherInfo> weatherLookup) {
+        this.demandLoader = demandLoader;
+        this.poiLoader = poiLoader;
+        this.maxLoadLoader = maxLoadLoader;
+        this.weatherLookup = weatherLookup;
+    }
+
+    /**
+     * 根据车辆的当前内存状态重建它们的 DTO，应在 tick 线程上、两次步进之间调用
+     */
+    public synchronized void refresh(Collection<Vehicle> vehicles) {
+        if (vehicles.isEmpty()) return;
+        loadMissingDemands(vehicles);
+        List<Vehicle> changed = new ArrayList<>();
+        for (Vehicle vehicle : vehicles) {
+            VehicleDto dto = project(vehicle);
+            Map<String, Object> changes = VehicleDtoDiff.diff(projections.get(vehicle.getId()), dto);
+            if (changes != null) {
+                projections.put(vehicle.getId(), dto);
+                pendingChanges.merge(vehicle.getId(), changes, VehicleDtoDiff::merge);
+                Coordinate position = vehicle.getCurrentPosition();
+                if (position != null) {
+                    gridIndex.update(vehicle.getId(), position);
+                } else {
+                    gridIndex.remove(vehicle.getId());
+                }
+                changed.add(vehicle);
+            }
+        }
+        if (!changed.isEmpty()) {
+            updateIdleIndex(changed);
+        }
+        if (demandInfos.size() > Math.max(1024, projections.size() * 2)) {
+            pruneDemandInfos();
+        }
+    }
+
+    /**
+     * 一次写锁内更新本轮变化车辆的空闲索引条目
+     */
+    private void updateIdleIndex(List<Vehicle> changed) {
+        idleIndexLock.writeLock().lock();
+        try {
+            for (Vehicle vehicle : changed) {
+                if (vehicle.getStatus() == VehicleStatus.IDLE && vehicle.getCurrentPosition() != null) {
+                    idleIndex.update(vehicle.getId(), vehicle.getCurrentPosition());
+                } else {
+                    idleIndex.remove(vehicle.getId());
+                }
+            }
+        } finally {
+            idleIndexLock.writeLock().unlock();
+        }
+    }
+
+    public synchronized void clear() {
+        projections.clear();
+        demandInfos.clear();
+        gridIndex.clear();
+        idleIndexLock.writeLock().lock();
+        try {
+            idleIndex.clear();
+        } finally {
+            idleIndexLock.writeLock().unlock();
+        }
+        trailLevels.clear();
+        pendingChanges.clear();
+        resyncPending = true;
+    }
+
+    /**
+     * 取走自上一次调用以来累积的变化
+     * @return 增量；没有任何变化时返回 null，且不消耗序号
+     */
+    public synchronized VehicleDeltaMessage drainDelta() {
+        if (pendingChanges.isEmpty() && !resyncPending) return null;
+        VehicleDeltaMessage delta = new VehicleDeltaMessage(++sequence, resyncPending,
+                new ArrayList<>(pendingChanges.values()), Collections.emptyList());
+        pendingChanges.clear();
+        resyncPending = false;
+        return delta;
+    }
+
+    /**
+     * 读取全部车辆的副本以及它对应的增量序号。
+     * 尚未取走的变化已经体现在快照中，它们会以 sequence + 1 发出，因此快照的序号算作下一个增量的序号。
+     */
+    public synchronized VehicleSnapshotMessage snapshotMessage() {
+        long snapshotSequence = pendingChanges.isEmpty() && !resyncPending ? sequence : sequence + 1;
+        return new VehicleSnapshotMessage(snapshotSequence, snapshot(null));
+    }
+
+    /**
+     * 读取投影的副本，调用方可以自由修改
+     * @param status 为 null 时返回全部车辆
+     */
+    public List<VehicleDto> snapshot(VehicleStatus status) {
+        return snapshot(status, 0);
+    }
+
+    /**
+     * 读取投影的副本，尾迹按细节层级简化
+     * @param level 见 PolylineSimplifier，0 为原始精度
+     */
+    public List<VehicleDto> snapshot(VehicleStatus status, int level) {
+        List<VehicleDto> result = new ArrayList<>(projections.size());
+        for (VehicleDto dto : projections.values()) {
+            if (status == null || dto.getStatus() == status) {
+                VehicleDto copy = copy(dto);
+                copy.setTraveledPolyline(traveledPolylineAtLevel(dto, level));
+                result.add(copy);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * DTO 的尾迹在指定细节层级下的简化结果
+     */
+    public String traveledPolylineAtLevel(VehicleDto dto, int level) {
+        String source = dto.getTraveledPolyline();
+        if (level <= 0 || source == null) return source;
+        TrailLevels entry = trailLevels.get(dto.getId());
+        if (entry == null || !entry.source().equals(source)) {
+            entry = new TrailLevels(source, new AtomicReferenceArray<>(PolylineSimplifier.LEVEL_COUNT));
+            trailLevels.put(dto.getId(), entry);
+        }
+        int clamped = Math.min(level, PolylineSimplifier.LEVEL_COUNT - 1);
+        String simplified = entry.levels().get(clamped);
+        if (simplified == null) {
+            simplified = PolylineSimplifier.simplify(source, clamped);
+            entry.levels().set(clamped, simplified);
+        }
+        return simplified;
+    }
+
+    /**
+     * 距 center 最近的至多 k 辆空闲车辆，搜索范围逐圈扩大直到找满 k 辆或遍历完所有空闲车辆
+     * @param accept 额外的筛选条件（如载重），只有被接受的车辆计入 k
+     * 只持有空闲索引的读锁，成本矩阵的多个行可以并行查询，也不会被刷新投影的其他部分阻塞。
+     * @return 车辆ID，由近到远
+     */
+    public List<Long> nearestIdle(Coordinate center, int k, LongPredicate accept) {
+        idleIndexLock.readLock().lock();
+        try {
+            return idleIndex.nearest(center, k, accept);
+        } finally {
+            idleIndexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按订阅条件选出车辆，有视口时通过网格索引查询。
+     * 返回投影内部的 DTO 实例而不是副本，调用方不得修改；同一辆车没有变化时两次返回的是同一个实例。
+     */
+    synchronized List<VehicleDto> select(VehicleSubscriptionRequest filter) {
+        List<VehicleDto> result = new ArrayList<>();
+        if (filter.getVehicleIds() != null && !filter.getVehicleIds().isEmpty()) {
+            for (Long id : filter.getVehicleIds()) {
+                VehicleDto dto = projections.get(id);
+                if (dto != null && matches(dto, filter)) result.add(dto);
+            }
+        } else if (filter.hasBounds()) {
+            gridIndex.query(filter.getMinLng(), filter.getMinLat(), filter.getMaxLng(), filter.getMaxLat(), id -> {
+                VehicleDto dto = projections.get(id);
+                if (dto != null && matchesAttributes(dto, filter)) result.add(dto);
+            });
+        } else {
+            for (VehicleDto dto : projections.values()) {
+                if (matchesAttributes(dto, filter)) result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    private boolean matches(VehicleDto dto, VehicleSubscriptionRequest filter) {
+        if (!matchesAttributes(dto, filter)) return false;
+        if (!filter.hasBounds()) return true;
+        Coordinate p = gridIndex.positionOf(dto.getId());
+        return p != null && p.getLng() >= filter.getMinLng() && p.getLng() <= filter.getMaxLng()
+                && p.getLat() >= filter.getMinLat() && p.getLat() <= filter.getMaxLat();
+    }
+
+    private static boolean matchesAttributes(VehicleDto dto, VehicleSubscriptionRequest filter) {
+        return (filter.getStatuses() == null || filter.getStatuses().isEmpty() || filter.getStatuses().contains(dto.getStatus()))
+                && (filter.getTypeIds() == null || filter.getTypeIds().isEmpty() || filter.getTypeIds().contains(dto.getTypeId()));
+    }
+
+    private void loadMissingDemands(Collection<Vehicle> vehicles) {
+        List<Long> missing = new ArrayList<>();
+        for (Vehicle vehicle : vehicles) {
+            Long demandId = vehicle.getCurrentDemandId();
+            if (demandId != null && !demandInfos.containsKey(demandId) && !missing.contains(demandId)) {
+                missing.add(demandId);
+            }
+        }
+        if (missing.isEmpty()) return;
+
+        for (TransportDemand demand : demandLoader.apply(missing)) {
+            double cargoWeight = demand.getCargoWeight() != null ? demand.getCargoWeight().doubleValue() : 0.0;
+            demandInfos.put(demand.getId(), new DemandInfo(cargoWeight,
+                    poiName(demand.getOriginPoiId()), poiName(demand.getDestinationPoiId())));
+        }
+        // 查不到的任务（例如已被清空）也记录下来，避免每次刷新都重复查询
+        for (Long demandId : missing) {
+            demandInfos.putIfAbsent(demandId, new DemandInfo(0.0, null, null));
+        }
+    }
+
+    private String poiName(Long poiId) {
+        if (poiId == null) return null;
+        return poiNames.computeIfAbsent(poiId, id -> {
+            Poi poi = poiLoader.apply(id);
+            return poi != null ? poi.getName() : null;
+        });
+    }
+
+    private double maxLoad(Long typeId) {
+        if (typeId == null) return 0.0;
+        Double maxLoad = maxLoads.computeIfAbsent(typeId, maxLoadLoader);
+        return maxLoad != null ? maxLoad : 0.0;
+    }
+
+    /**
+     * 只保留仍被某辆车引用的任务信息
+     */
+    private void pruneDemandInfos() {
+        Set<Long> referenced = new HashSet<>();
+        for (VehicleDto dto : projections.values()) {
+            if (dto.getCurrentDemandId() != null) referenced.add(dto.getCurrentDemandId());
+        }
+        demandInfos.keySet().retainAll(referenced);
+    }
+
+    private VehicleDto project(Vehicle v) {
+        VehicleDto dto = new VehicleDto();
+        dto.setId(v.getId());
+        dto.setPlateNumber(v.getPlateNumber());
+        dto.setTypeId(v.getTypeId());
+        dto.setStatus(v.getStatus());
+        Coordinate position = v.getCurrentPosition();
+        dto.setCurrentLng(position != null ? position.getLngText() : null);
+        dto.setCurrentLat(position != null ? position.getLatText() : null);
+
+        dto.setRouteDistance(v.getRouteDistance());
+        dto.setRouteDuration(v.getRouteDuration());
+        if (v.getRouteId() != null && v.getRouteGeometry() != null) {
+            // 路径可以按ID获取，只发送引用和进度，不再逐点发送尾迹
+            dto.setRouteId(v.getRouteId());
+            dto.setRouteIndex(v.getRouteGeometry().nodeIndexAt(v.getRouteTraveledDistance()));
+        } else {
+            dto.setTraveledPolyline(v.getTraveledPolyline());
+        }
+        if (v.getRouteGeometry() != null) {
+            dto.setRemainingDistance(v.getRouteGeometry().remainingDistance(v.getRouteTraveledDistance()));
+            dto.setRouteProgress(v.getRouteGeometry().progress(v.getRouteTraveledDistance()));
+        }
+        dto.setCurrentDemandId(v.getCurrentDemandId());
+        dto.setNoLoadDistance(v.getNoLoadDistance());
+        dto.setNoLoadDuration(v.getNoLoadDuration());
+        dto.setLoadDistance(v.getLoadDistance());
+        dto.setLoadDuration(v.getLoadDuration());
+        dto.setTotalShippingWeight(doubleValue(v.getTotalShippingWeight()));
+        dto.setTotalShippingVolume(doubleValue(v.getTotalShippingVolume()));
+        dto.setWaitingDuration(v.getWaitingDuration());
+        dto.setWastedLoad(v.getWastedLoad());
+        dto.setSpeed(v.getSpeed() != null ? v.getSpeed() : 0.0);
+        dto.setMaxLoadWeight(maxLoad(v.getTypeId()));
+
+        DemandInfo demand = v.getCurrentDemandId() != null ? demandInfos.get(v.getCurrentDemandId()) : null;
+        if (demand != null) {
+            if (v.getStatus() == VehicleStatus.IN_TRANSIT) {
+                dto.setCurrentLoad(demand.cargoWeight());
+            }
+            dto.setOriginName(demand.originName());
+            dto.setDestinationName(demand.destinationName());
+        }
+
+        // 天气来自内存缓存，位置不变时在同一时间段内结果相同，不会产生多余的增量
+        WeatherInfo weather = weatherLookup.apply(dto.getCurrentLng() + "," + dto.getCurrentLat());
+        if (weather != null && weather.getCondition() != null) {
+            double speedFactor = weather.getCondition().getSpeedFactor();
+            dto.setWeatherCondition(weather.getCondition().name());
+            dto.setSpeedFactor(speedFactor);
+            dto.setAdjustedSpeed(dto.getSpeed() * speedFactor);
+        }
+        return dto;
+    }
+
+    private static double doubleValue(BigDecimal value) {
+        return value != null ? value.doubleValue() : 0.0;
+    }
+
+    static VehicleDto copy(VehicleDto source) {
+        VehicleDto copy = new VehicleDto();
+        copy.setId(source.getId());
+        copy.setPlateNumber(source.getPlateNumber());
+        copy.setTypeId(source.getTypeId());
+        copy.setStatus(source.getStatus());
+        copy.setCurrentLng(source.getCurrentLng());
+        copy.setCurrentLat(source.getCurrentLat());
+        copy.setCurrentDemandId(source.getCurrentDemandId());
+        copy.setLastUpdateTime(source.getLastUpdateTime());
+        copy.setTotalShippingWeight(source.getTotalShippingWeight());
+        copy.setTotalShippingVolume(source.getTotalShippingVolume());
+        copy.setTraveledPolyline(source.getTraveledPolyline());
+        copy.setRouteId(source.getRouteId());
+        copy.setRouteIndex(source.getRouteIndex());
+        copy.setRouteDistance(source.getRouteDistance());
+        copy.setRouteDuration(source.getRouteDuration());
+        copy.setRemainingDistance(source.getRemainingDistance());
+        copy.setRouteProgress(source.getRouteProgress());
+        copy.setMaxLoadWeight(source.getMaxLoadWeight());
+        copy.setCurrentLoad(source.getCurrentLoad());
+        copy.setWastedLoad(source.getWastedLoad());
+        copy.setWaitingDuration(source.getWaitingDuration());
+        copy.setNoLoadDistance(source.getNoLoadDistance());
+        copy.setNoLoadDuration(source.getNoLoadDuration());
+        copy.setLoadDistance(source.getLoadDistance());
+        copy.setLoadDuration(source.getLoadDuration());
+        copy.setOriginName(source.getOriginName());
+        copy.setDestinationName(source.getDestinationName());
+        copy.setWeatherCondition(source.getWeatherCondition());
+        copy.setSpeedFactor(source.getSpeedFactor());
+        copy.setAdjustedSpeed(source.getAdjustedSpeed());
+        copy.setSpeed(source.getSpeed());
+        return copy;
+    }
+}
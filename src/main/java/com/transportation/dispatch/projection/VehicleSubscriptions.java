@@ -0,0 +1,154 @@
+package com.transportation.dispatch.projection;
+
+import com.transportation.dispatch.model.dto.VehicleDeltaMessage;
+import com.transportation.dispatch.model.dto.VehicleDto;
+import com.transportation.dispatch.model.dto.VehicleSnapshotMessage;
+import com.transportation.dispatch.model.dto.VehicleSubscriptionRequest;
+import com.transportation.dispatch.model.geo.PolylineSimplifier;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * 按 WebSocket 会话过滤的车辆订阅。
+ * 每个会话记录自己的过滤条件以及最后一次发给它的各车辆 DTO，每个推送周期通过网格索引选出范围内的车辆，
+ * 只对实例发生变化的车辆计算差异；新进入范围的车辆发送全部字段，离开范围的车辆放入 removed。
+ * 差异总是相对于该会话已收到的内容计算，因此与全局增量的节奏无关，也不会重复追加尾迹。
+ * 指定了缩放级别或容差的会话收到按细节层级简化的尾迹，尾迹变化时整条发送简化后的版本。
+ */
+public class VehicleSubscriptions {
+
+    private static class Session {
+        private final VehicleSubscriptionRequest filter;
+        // 尾迹的细节层级
+        private final int level;
+        // 最后一次发给该会话的 DTO（投影内部实例，只比较引用，不修改）
+        private final Map<Long, VehicleDto> sent = new HashMap<>();
+        private long sequence = 0L;
+        // 会话已被新的订阅替换或已取消，之后不再产生增量
+        private boolean closed = false;
+
+        private Session(VehicleSubscriptionRequest filter) {
+            this.filter = filter;
+            this.level = PolylineSimplifier.resolveLevel(filter.getZoom(), filter.getTolerance());
+        }
+    }
+
+    private final VehicleProjection projection;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    public VehicleSubscriptions(VehicleProjection projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * 注册或替换会话的过滤条件
+     * @return 范围内车辆的快照（副本），序号从 0 重新开始
+     */
+    public VehicleSnapshotMessage subscribe(String sessionId, VehicleSubscriptionRequest filter) {
+        Session session = new Session(filter);
+        List<VehicleDto> vehicles = new ArrayList<>();
+        // 在映射条目上串行化同一会话的并发订阅；旧会话在其锁内关闭，
+        // 正在为旧会话计算的增量先完成，之后旧会话不再产生增量，不会排在新快照之后
+        sessions.compute(sessionId, (id, previous) -> {
+            if (previous != null) close(previous);
+            for (VehicleDto dto : projection.select(filter)) {
+                session.sent.put(dto.getId(), dto);
+                VehicleDto copy = VehicleProjection.copy(dto);
+                copy.setTraveledPolyline(projection.traveledPolylineAtLevel(dto, session.level));
+                vehicles.add(copy);
+            }
+            return session;
+        });
+        return new VehicleSnapshotMessage(0L, vehicles);
+    }
+
+    public void unsubscribe(String sessionId) {
+        Session removed = sessions.remove(sessionId);
+        if (removed != null) close(removed);
+    }
+
+    private static void close(Session session) {
+        synchronized (session) {
+            session.closed = true;
+        }
+    }
+
+    /**
+     * 会话是否协商了二进制格式
+     */
+    public boolean isBinary(String sessionId) {
+        Session session = sessions.get(sessionId);
+        return session != null && session.filter.isBinary();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * 为每个会话计算自上一次推送以来的增量
+     * @return 会话ID到增量的映射，没有变化的会话不出现
+     */
+    public Map<String, VehicleDeltaMessage> drainDeltas() {
+        return drainDeltas(sessionId -> true);
+    }
+
+    /**
+     * 只为 ready 接受的会话计算增量。被跳过的会话的变化保留到下一次，届时合并为一个增量。
+     */
+    public Map<String, VehicleDeltaMessage> drainDeltas(Predicate<String> ready) {
+        Map<String, VehicleDeltaMessage> deltas = new HashMap<>();
+        sessions.forEach((sessionId, session) -> {
+            if (!ready.test(sessionId)) return;
+            VehicleDeltaMessage delta = drain(session);
+            if (delta != null) deltas.put(sessionId, delta);
+        });
+        return deltas;
+    }
+
+    /**
+     * 只为一个会话计算增量
+     * @return 增量；会话不存在或没有变化时返回 null
+     */
+    public VehicleDeltaMessage drainDelta(String sessionId) {
+        Session session = sessions.get(sessionId);
+        return session != null ? drain(session) : null;
+    }
+
+    private VehicleDeltaMessage drain(Session session) {
+        synchronized (session) {
+            if (session.closed) return null;
+            List<VehicleDto> selected = projection.select(session.filter);
+            List<Map<String, Object>> changes = new ArrayList<>();
+            Set<Long> visible = new HashSet<>(selected.size() * 2);
+            for (VehicleDto dto : selected) {
+                visible.add(dto.getId());
+                VehicleDto previous = session.sent.get(dto.getId());
+                if (previous == dto) continue;
+                Map<String, Object> diff = VehicleDtoDiff.diff(previous, dto);
+                if (diff != null) {
+                    // 简化后的尾迹不是前一版的前缀，整条发送
+                    if (session.level > 0 && (diff.containsKey(VehicleDtoDiff.TRAVELED_POLYLINE)
+                            || diff.remove(VehicleDtoDiff.TRAVELED_POLYLINE_APPEND) != null)) {
+                        diff.put(VehicleDtoDiff.TRAVELED_POLYLINE, projection.traveledPolylineAtLevel(dto, session.level));
+                    }
+                    changes.add(diff);
+                }
+                session.sent.put(dto.getId(), dto);
+            }
+            List<Long> removed = new ArrayList<>();
+            Iterator<Long> it = session.sent.keySet().iterator();
+            while (it.hasNext()) {
+                Long id = it.next();
+                if (!visible.contains(id)) {
+                    removed.add(id);
+                    it.remove();
+                }
+            }
+            if (changes.isEmpty() && removed.isEmpty()) return null;
+            return new VehicleDeltaMessage(++session.sequence, false, changes, removed);
+        }
+    }
+}
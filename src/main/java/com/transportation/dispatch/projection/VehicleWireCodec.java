@@ -0,0 +1,430 @@
+package com.transportation.dispatch.projection;
+
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.enumeration.WeatherCondition;
+import com.transportation.dispatch.model.dto.VehicleDeltaMessage;
+import com.transportation.dispatch.model.dto.VehicleDto;
+import com.transportation.dispatch.model.dto.VehicleSnapshotMessage;
+import com.transportation.dispatch.model.geo.Coordinate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * 车辆推送消息（快照与增量）的紧凑二进制编码，供协商了二进制格式的 WebSocket 客户端使用。
+ * <pre>
+ * 消息   := version:u8 type:u8(1=快照, 2=增量) sequence:varint flags:u8(bit0=resync)
+ *           count:varint record* removedCount:varint removedId:zigzag-delta*
+ * 记录   := id:zigzag-delta presentMask:varint nullMask:varint value*
+ * </pre>
+ * presentMask 的第 i 位对应 {@link Field} 的第 i 个字段，nullMask 标记其中值为 null 的字段，只有非 null 的字段写出值：
+ * <ul>
+ *     <li>经纬度为微度整数，相对消息中上一条记录的同一坐标做 zigzag 差分</li>
+ *     <li>尾迹为编码折线：点数 + 各点微度坐标相对前一点的 zigzag 差分；追加部分同样编码，首点相对 (0,0)</li>
+ *     <li>状态、天气为枚举序号；里程、时长、重量等为千分之一精度的定点数，比例类字段为百万分之一精度</li>
+ *     <li>字符串为 UTF-8 长度前缀编码，时间为 UTC 毫秒数</li>
+ * </ul>
+ */
+public final class VehicleWireCodec {
+
+    public static final int VERSION = 1;
+    public static final int TYPE_SNAPSHOT = 1;
+    public static final int TYPE_DELTA = 2;
+
+    private static final double QUANTITY_SCALE = 1_000.0;
+    private static final double RATIO_SCALE = 1_000_000.0;
+
+    private enum Kind { STRING, ID, STATUS, LNG, LAT, TIME, INT, QUANTITY, RATIO, POLYLINE, POLYLINE_APPEND, WEATHER }
+
+    /**
+     * 字段表，顺序即位掩码中的位序，只能在末尾追加
+     */
+    private enum Field {
+        PLATE_NUMBER("plateNumber", Kind.STRING, (d, v) -> d.setPlateNumber((String) v)),
+        TYPE_ID("typeId", Kind.ID, (d, v) -> d.setTypeId((Long) v)),
+        STATUS("status", Kind.STATUS, (d, v) -> d.setStatus((VehicleStatus) v)),
+        CURRENT_LNG("currentLng", Kind.LNG, (d, v) -> d.setCurrentLng((String) v)),
+        CURRENT_LAT("currentLat", Kind.LAT, (d, v) -> d.setCurrentLat((String) v)),
+        CURRENT_DEMAND_ID("currentDemandId", Kind.ID, (d, v) -> d.setCurrentDemandId((Long) v)),
+        LAST_UPDATE_TIME("lastUpdateTime", Kind.TIME, (d, v) -> d.setLastUpdateTime((LocalDateTime) v)),
+        TOTAL_SHIPPING_WEIGHT("totalShippingWeight", Kind.QUANTITY, (d, v) -> d.setTotalShippingWeight((Double) v)),
+        TOTAL_SHIPPING_VOLUME("totalShippingVolume", Kind.QUANTITY, (d, v) -> d.setTotalShippingVolume((Double) v)),
+        TRAVELED_POLYLINE(VehicleDtoDiff.TRAVELED_POLYLINE, Kind.POLYLINE, (d, v) -> d.setTraveledPolyline((String) v)),
+        TRAVELED_POLYLINE_APPEND(VehicleDtoDiff.TRAVELED_POLYLINE_APPEND, Kind.POLYLINE_APPEND,
+                (d, v) -> d.setTraveledPolyline(d.getTraveledPolyline() == null ? (String) v : d.getTraveledPolyline() + v)),
+        ROUTE_DISTANCE("routeDistance", Kind.INT, (d, v) -> d.setRouteDistance((Integer) v)),
+        ROUTE_DURATION("routeDuration", Kind.INT, (d, v) -> d.setRouteDuration((Integer) v)),
+        REMAINING_DISTANCE("remainingDistance", Kind.QUANTITY, (d, v) -> d.setRemainingDistance((Double) v)),
+        ROUTE_PROGRESS("routeProgress", Kind.RATIO, (d, v) -> d.setRouteProgress((Double) v)),
+        MAX_LOAD_WEIGHT("maxLoadWeight", Kind.QUANTITY, (d, v) -> d.setMaxLoadWeight((Double) v)),
+        CURRENT_LOAD("currentLoad", Kind.QUANTITY, (d, v) -> d.setCurrentLoad((Double) v)),
+        WASTED_LOAD("wastedLoad", Kind.QUANTITY, (d, v) -> d.setWastedLoad((Double) v)),
+        WAITING_DURATION("waitingDuration", Kind.QUANTITY, (d, v) -> d.setWaitingDuration((Double) v)),
+        NO_LOAD_DISTANCE("noLoadDistance", Kind.QUANTITY, (d, v) -> d.setNoLoadDistance((Double) v)),
+        NO_LOAD_DURATION("noLoadDuration", Kind.QUANTITY, (d, v) -> d.setNoLoadDuration((Double) v)),
+        LOAD_DISTANCE("loadDistance", Kind.QUANTITY, (d, v) -> d.setLoadDistance((Double) v)),
+        LOAD_DURATION("loadDuration", Kind.QUANTITY, (d, v) -> d.setLoadDuration((Double) v)),
+        ORIGIN_NAME("originName", Kind.STRING, (d, v) -> d.setOriginName((String) v)),
+        DESTINATION_NAME("destinationName", Kind.STRING, (d, v) -> d.setDestinationName((String) v)),
+        WEATHER_CONDITION("weatherCondition", Kind.WEATHER, (d, v) -> d.setWeatherCondition((String) v)),
+        SPEED_FACTOR("speedFactor", Kind.RATIO, (d, v) -> d.setSpeedFactor((Double) v)),
+        ADJUSTED_SPEED("adjustedSpeed", Kind.QUANTITY, (d, v) -> d.setAdjustedSpeed((Double) v)),
+        SPEED("speed", Kind.QUANTITY, (d, v) -> d.setSpeed((Double) v)),
+        ROUTE_ID("routeId", Kind.ID, (d, v) -> d.setRouteId((Long) v)),
+        ROUTE_INDEX("routeIndex", Kind.INT, (d, v) -> d.setRouteIndex((Integer) v));
+
+        private final String property;
+        private final Kind kind;
+        private final BiConsumer<VehicleDto, Object> setter;
+
+        Field(String property, Kind kind, BiConsumer<VehicleDto, Object> setter) {
+            this.property = property;
+            this.kind = kind;
+            this.setter = setter;
+        }
+    }
+
+    private static final Field[] FIELDS = Field.values();
+    private static final VehicleStatus[] STATUSES = VehicleStatus.values();
+    private static final WeatherCondition[] WEATHERS = WeatherCondition.values();
+
+    private VehicleWireCodec() {
+    }
+
+    public static byte[] encode(VehicleDeltaMessage delta) {
+        Writer out = new Writer(64 + delta.getChanges().size() * 24);
+        writeHeader(out, TYPE_DELTA, delta.getSequence(), delta.isResync());
+        writeRecords(out, delta.getChanges());
+        List<Long> removed = delta.getRemoved() != null ? delta.getRemoved() : Collections.emptyList();
+        out.varint(removed.size());
+        long previousId = 0L;
+        for (Long id : removed) {
+            out.zigzag(id - previousId);
+            previousId = id;
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] encode(VehicleSnapshotMessage snapshot) {
+        List<Map<String, Object>> records = new ArrayList<>(snapshot.getVehicles().size());
+        for (VehicleDto dto : snapshot.getVehicles()) {
+            records.add(VehicleDtoDiff.diff(null, dto));
+        }
+        Writer out = new Writer(64 + records.size() * 96);
+        writeHeader(out, TYPE_SNAPSHOT, snapshot.getSequence(), false);
+        writeRecords(out, records);
+        out.varint(0);
+        return out.toByteArray();
+    }
+
+    public static VehicleDeltaMessage decodeDelta(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        long sequence = readHeader(in, TYPE_DELTA);
+        boolean resync = (in.u8() & 1) != 0;
+        List<Map<String, Object>> changes = readRecords(in);
+        int removedCount = in.varintInt();
+        List<Long> removed = new ArrayList<>(removedCount);
+        long previousId = 0L;
+        for (int i = 0; i < removedCount; i++) {
+            previousId += in.zigzag();
+            removed.add(previousId);
+        }
+        return new VehicleDeltaMessage(sequence, resync, changes, removed);
+    }
+
+    public static VehicleSnapshotMessage decodeSnapshot(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        long sequence = readHeader(in, TYPE_SNAPSHOT);
+        in.u8();
+        List<VehicleDto> vehicles = new ArrayList<>();
+        for (Map<String, Object> record : readRecords(in)) {
+            VehicleDto dto = new VehicleDto();
+            dto.setId((Long) record.get("id"));
+            for (Field field : FIELDS) {
+                // 新建的 DTO 中引用类型字段本来就是 null，基本类型字段不会是 null
+                Object value = record.get(field.property);
+                if (value != null) field.setter.accept(dto, value);
+            }
+            vehicles.add(dto);
+        }
+        return new VehicleSnapshotMessage(sequence, vehicles);
+    }
+
+    private static void writeHeader(Writer out, int type, long sequence, boolean resync) {
+        out.u8(VERSION);
+        out.u8(type);
+        out.varint(sequence);
+        out.u8(resync ? 1 : 0);
+    }
+
+    private static long readHeader(Reader in, int expectedType) {
+        int version = in.u8();
+        if (version != VERSION) throw new IllegalArgumentException("不支持的车辆消息版本: " + version);
+        int type = in.u8();
+        if (type != expectedType) throw new IllegalArgumentException("车辆消息类型不符: " + type);
+        return in.varint();
+    }
+
+    private static void writeRecords(Writer out, List<Map<String, Object>> records) {
+        out.varint(records.size());
+        long previousId = 0L;
+        int[] previousCoord = new int[2];
+        for (Map<String, Object> record : records) {
+            long id = (Long) record.get("id");
+            out.zigzag(id - previousId);
+            previousId = id;
+
+            long present = 0L, nulls = 0L;
+            for (int i = 0; i < FIELDS.length; i++) {
+                if (record.containsKey(FIELDS[i].property)) {
+                    present |= 1L << i;
+                    if (record.get(FIELDS[i].property) == null) nulls |= 1L << i;
+                }
+            }
+            out.varint(present);
+            out.varint(nulls);
+            for (int i = 0; i < FIELDS.length; i++) {
+                if ((present & ~nulls & (1L << i)) != 0) {
+                    writeValue(out, FIELDS[i].kind, record.get(FIELDS[i].property), previousCoord);
+                }
+            }
+        }
+    }
+
+    private static List<Map<String, Object>> readRecords(Reader in) {
+        int count = in.varintInt();
+        List<Map<String, Object>> records = new ArrayList<>(count);
+        long previousId = 0L;
+        int[] previousCoord = new int[2];
+        for (int r = 0; r < count; r++) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            previousId += in.zigzag();
+            record.put("id", previousId);
+            long present = in.varint();
+            long nulls = in.varint();
+            for (int i = 0; i < FIELDS.length; i++) {
+                if ((present & (1L << i)) == 0) continue;
+                Object value = (nulls & (1L << i)) != 0 ? null : readValue(in, FIELDS[i].kind, previousCoord);
+                record.put(FIELDS[i].property, value);
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static void writeValue(Writer out, Kind kind, Object value, int[] previousCoord) {
+        switch (kind) {
+            case STRING -> out.string((String) value);
+            case ID -> out.zigzag(((Number) value).longValue());
+            case STATUS -> out.u8(((VehicleStatus) value).ordinal());
+            case WEATHER -> out.u8(WeatherCondition.valueOf((String) value).ordinal());
+            case LNG, LAT -> {
+                int axis = kind == Kind.LNG ? 0 : 1;
+                String text = (String) value;
+                int micro = parseMicro(text, 0, text.length());
+                out.zigzag(micro - previousCoord[axis]);
+                previousCoord[axis] = micro;
+            }
+            case TIME -> out.zigzag(((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli());
+            case INT -> out.zigzag(((Number) value).longValue());
+            case QUANTITY -> out.zigzag(Math.round(((Number) value).doubleValue() * QUANTITY_SCALE));
+            case RATIO -> out.zigzag(Math.round(((Number) value).doubleValue() * RATIO_SCALE));
+            case POLYLINE -> writePolyline(out, (String) value, 0);
+            case POLYLINE_APPEND -> {
+                String suffix = (String) value;
+                writePolyline(out, suffix, suffix.startsWith(";") ? 1 : 0);
+            }
+        }
+    }
+
+    private static Object readValue(Reader in, Kind kind, int[] previousCoord) {
+        return switch (kind) {
+            case STRING -> in.string();
+            case ID -> in.zigzag();
+            case STATUS -> STATUSES[in.u8()];
+            case WEATHER -> WEATHERS[in.u8()].name();
+            case LNG, LAT -> {
+                int axis = kind == Kind.LNG ? 0 : 1;
+                previousCoord[axis] += (int) in.zigzag();
+                yield Coordinate.appendMicro(new StringBuilder(12), previousCoord[axis]).toString();
+            }
+            case TIME -> LocalDateTime.ofInstant(Instant.ofEpochMilli(in.zigzag()), ZoneOffset.UTC);
+            case INT -> (int) in.zigzag();
+            case QUANTITY -> in.zigzag() / QUANTITY_SCALE;
+            case RATIO -> in.zigzag() / RATIO_SCALE;
+            case POLYLINE -> readPolyline(in, false);
+            case POLYLINE_APPEND -> readPolyline(in, true);
+        };
+    }
+
+    /**
+     * 把 "lng,lat;lng,lat;..." 编码为点数 + 差分坐标
+     */
+    private static void writePolyline(Writer out, String text, int start) {
+        int length = text.length();
+        if (start >= length) {
+            out.varint(0);
+            return;
+        }
+        int points = 1;
+        for (int i = start; i < length; i++) {
+            if (text.charAt(i) == ';') points++;
+        }
+        out.varint(points);
+        int previousLng = 0, previousLat = 0;
+        int pos = start;
+        while (pos < length) {
+            int end = text.indexOf(';', pos);
+            if (end < 0) end = length;
+            int comma = text.indexOf(',', pos);
+            if (comma < 0 || comma > end) throw new IllegalArgumentException("无法解析的折线点: " + text.substring(pos, end));
+            int lng = parseMicro(text, pos, comma);
+            int lat = parseMicro(text, comma + 1, end);
+            out.zigzag(lng - previousLng);
+            out.zigzag(lat - previousLat);
+            previousLng = lng;
+            previousLat = lat;
+            pos = end + 1;
+        }
+    }
+
+    private static String readPolyline(Reader in, boolean append) {
+        int points = in.varintInt();
+        StringBuilder sb = new StringBuilder(points * 22);
+        int lng = 0, lat = 0;
+        for (int i = 0; i < points; i++) {
+            lng += (int) in.zigzag();
+            lat += (int) in.zigzag();
+            if (i > 0 || append) sb.append(';');
+            Coordinate.appendMicro(sb, lng).append(',');
+            Coordinate.appendMicro(sb, lat);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 把 [start, end) 范围内的十进制度数解析为微度。
+     * 常见的至多 6 位小数的形式直接逐位累加，其余形式回退到 Double.parseDouble。
+     */
+    static int parseMicro(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = i < end && text.charAt(i) == '-';
+        if (negative) i++;
+        long whole = 0;
+        int digits = 0;
+        while (i < end && Character.isDigit(text.charAt(i))) {
+            whole = whole * 10 + (text.charAt(i++) - '0');
+            digits++;
+        }
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < end && text.charAt(i) == '.') {
+            i++;
+            while (i < end && fractionDigits < 6 && Character.isDigit(text.charAt(i))) {
+                fraction = fraction * 10 + (text.charAt(i++) - '0');
+                fractionDigits++;
+            }
+        }
+        if (i != end || digits == 0 || digits > 4) {
+            return Coordinate.toMicro(Double.parseDouble(text.subSequence(start, end).toString()));
+        }
+        for (int d = fractionDigits; d < 6; d++) fraction *= 10;
+        long micro = whole * 1_000_000 + fraction;
+        return (int) (negative ? -micro : micro);
+    }
+
+    /**
+     * 可增长的字节缓冲
+     */
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        private Writer(int capacity) {
+            buf = new byte[Math.max(16, capacity)];
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+
+        private void u8(int value) {
+            ensure(1);
+            buf[pos++] = (byte) value;
+        }
+
+        private void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        private void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        private void string(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        private Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        private int u8() {
+            if (pos >= buf.length) throw new IllegalArgumentException("车辆消息被截断");
+            return buf[pos++] & 0xFF;
+        }
+
+        private long varint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = u8();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IllegalArgumentException("varint 过长");
+        }
+
+        private int varintInt() {
+            long value = varint();
+            if (value < 0 || value > Integer.MAX_VALUE) throw new IllegalArgumentException("长度超出范围: " + value);
+            return (int) value;
+        }
+
+        private long zigzag() {
+            long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private String string() {
+            int length = varintInt();
+            if (pos + length > buf.length) throw new IllegalArgumentException("车辆消息被截断");
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.transportation.dispatch.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 跟踪每个 WebSocket 会话尚未发出的车辆推送。
+ * 作为 clientOutboundChannel 的拦截器：带有 {@link #PUSH_HEADER} 的消息进入出站通道时计数加一，
+ * 出站线程把它交给会话（写出或放入会话的发送缓冲）后减一。计数不为零说明客户端还没跟上，
+ * 推送方应跳过它，让下一次的差异把这段时间的变化合并在一起（见 VehicleStatusScheduler）。
+ * 同时记录 WebSocket 会话本身，以便断开长期跟不上的客户端。
+ */
+@Component
+@Slf4j
+public class VehiclePushTracker implements ExecutorChannelInterceptor {
+
+    /**
+     * 标记需要跟踪的推送消息，只存在于消息头中，不会写入 STOMP 帧
+     */
+    public static final String PUSH_HEADER = "vehiclePush";
+
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 会话已交给出站通道但尚未发出的推送数
+     */
+    public int inFlight(String sessionId) {
+        AtomicInteger count = inFlight.get(sessionId);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * 以 SESSION_NOT_RELIABLE 关闭会话，客户端需要重连并重新订阅
+     */
+    public void close(String sessionId) {
+        WebSocketSession session = sessions.get(sessionId);
+        if (session == null) return;
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.warn("关闭 WebSocket 会话 {} 失败: {}", sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * 包装 STOMP 的 WebSocketHandler，记录会话的建立与关闭
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), session);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                inFlight.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = trackedSession(message);
+        if (sessionId != null) {
+            inFlight.computeIfAbsent(sessionId, id -> new AtomicInteger()).incrementAndGet();
+        }
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // 未能进入出站通道（例如线程池拒绝）的消息不会再被处理
+        if (!sent) release(message);
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        release(message);
+    }
+
+    private void release(Message<?> message) {
+        String sessionId = trackedSession(message);
+        if (sessionId == null) return;
+        AtomicInteger count = inFlight.get(sessionId);
+        if (count != null) count.updateAndGet(c -> Math.max(0, c - 1));
+    }
+
+    private static String trackedSession(Message<?> message) {
+        if (!message.getHeaders().containsKey(PUSH_HEADER)) return null;
+        return SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+    }
+}
@@ -1,42 +1,131 @@
 package com.transportation.dispatch.scheduler;
 
-import com.transportation.dispatch.enumeration.VehicleStatus;
-import com.transportation.dispatch.model.dto.VehicleDto;
+import com.transportation.dispatch.model.dto.VehicleDeltaMessage;
+import com.transportation.dispatch.projection.VehicleWireCodec;
 import com.transportation.dispatch.service.VehicleService;
+import com.transportation.dispatch.simulation.SimulationTickEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import java.util.List;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
+@Slf4j
 public class VehicleStatusScheduler {
 
     private final VehicleService vehicleService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final VehiclePushTracker pushTracker;
+
+    // 每秒最多推送的次数，tick 更快时（如加速仿真）多个 tick 合并为一次推送
+    @Value("${simulation.push.max-rate:2}")
+    private double maxRate;
+    // 会话连续多少次推送都没能跟上后断开它
+    @Value("${simulation.push.max-lagging-pushes:10}")
+    private int maxLaggingPushes;
+
+    // 推送在专用线程上进行，序列化与发送不占用 tick 线程
+    private final ScheduledExecutorService pushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "vehicle-push");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean pushScheduled = new AtomicBoolean(false);
+    private volatile long lastPushNanos = 0L;
+    // 各会话连续被跳过的推送次数
+    private final Map<String, Integer> laggingPushes = new ConcurrentHashMap<>();
 
     @Autowired
-    public VehicleStatusScheduler(VehicleService vehicleService, SimpMessagingTemplate messagingTemplate) {
+    public VehicleStatusScheduler(VehicleService vehicleService, SimpMessagingTemplate messagingTemplate,
+                                  VehiclePushTracker pushTracker) {
         this.vehicleService = vehicleService;
         this.messagingTemplate = messagingTemplate;
+        this.pushTracker = pushTracker;
     }
 
     /**
-     * 定时任务
-     * 用于向所有订阅的客户端推送最新的车辆状态。
-     * 注意：请确保你的主启动类上有 @EnableScheduling 注解。
+     * 每个 tick 完成后触发一次推送，推送间隔不小于 1 / maxRate 秒；
+     * 已有推送在等待时新的 tick 不再重复安排，等待中的推送会读到最新的状态。
      */
-    @Scheduled(fixedRate = 5000)
-    public void pushVehicleUpdates() {
-        // 1. 获取所有车辆的最新状态
-        List<VehicleDto> allVehicles = vehicleService.getVehicles(null);
-        // 通过 messagingTemplate 将数据广播到 "/topic/vehicles/all" 这个目的地
-        // 所有订阅了这个目的地的客户端都会收到消息
-        messagingTemplate.convertAndSend("/topic/vehicles/all", allVehicles);
-
-        // 2. 你也可以为不同的状态创建不同的推送主题
-        List<VehicleDto> movingVehicles = vehicleService.getVehicles(VehicleStatus.MOVING_TO_PICKUP);
-        messagingTemplate.convertAndSend("/topic/vehicles/MOVING_TO_PICKUP", movingVehicles);
+    @EventListener
+    public void onTick(SimulationTickEvent event) {
+        if (!pushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        long minIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / maxRate);
+        long delay = Math.max(0L, lastPushNanos + minIntervalNanos - System.nanoTime());
+        pushExecutor.schedule(this::pushVehicleUpdates, delay, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 向订阅了 "/topic/vehicles/delta" 的客户端推送车队增量，只包含发生变化的车辆和字段，
+     * 消息大小和序列化开销与变化量成正比，与车队规模无关。客户端先订阅 "/app/vehicles/snapshot" 获取完整快照。
+     * 通过 "/app/vehicles/subscribe" 设置了过滤条件的会话另外在 "/user/queue/vehicles/delta" 上收到只含其视口内车辆的增量；
+     * 上一条还没发出的会话本次跳过，它的变化合并进下一次的增量，连续跳过 maxLaggingPushes 次后断开。
+     */
+    void pushVehicleUpdates() {
+        pushScheduled.set(false);
+        lastPushNanos = System.nanoTime();
+        try {
+            VehicleDeltaMessage delta = vehicleService.drainVehicleDelta();
+            if (delta != null) {
+                messagingTemplate.convertAndSend("/topic/vehicles/delta", delta);
+                // 同一增量的二进制编码，供通过 /ws-binary 连接的客户端订阅
+                messagingTemplate.convertAndSend("/topic/vehicles/delta/binary", VehicleWireCodec.encode(delta));
+            }
+
+            vehicleService.drainSubscribedVehicleDeltas(this::readyForPush).forEach((sessionId, sessionDelta) ->
+                    messagingTemplate.convertAndSendToUser(sessionId, "/queue/vehicles/delta", sessionDelta, sessionHeaders(sessionId)));
+        } catch (Exception e) {
+            log.error("推送车辆增量失败:", e);
+        }
+    }
+
+    private boolean readyForPush(String sessionId) {
+        if (pushTracker.inFlight(sessionId) == 0) {
+            laggingPushes.remove(sessionId);
+            return true;
+        }
+        int lagging = laggingPushes.merge(sessionId, 1, Integer::sum);
+        if (lagging == maxLaggingPushes) {
+            log.warn("WebSocket 会话 {} 连续 {} 次推送未能发出，断开该会话。", sessionId, lagging);
+            pushTracker.close(sessionId);
+        }
+        return false;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        laggingPushes.remove(event.getSessionId());
+    }
+
+    /**
+     * 未登录的会话没有用户名，以会话ID作为用户目的地；同时标记为需要跟踪的推送
+     */
+    private static MessageHeaders sessionHeaders(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setHeader(VehiclePushTracker.PUSH_HEADER, Boolean.TRUE);
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
 
+    @PreDestroy
+    public void shutdown() {
+        pushExecutor.shutdownNow();
     }
 }
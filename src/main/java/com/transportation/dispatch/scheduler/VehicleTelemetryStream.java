@@ -0,0 +1,90 @@
+package com.transportation.dispatch.scheduler;
+
+import com.transportation.dispatch.model.dto.VehicleSnapshotMessage;
+import com.transportation.dispatch.model.dto.VehicleSubscriptionRequest;
+import com.transportation.dispatch.service.VehicleService;
+import com.transportation.dispatch.simulation.SimulationTickEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * 车队遥测的响应式数据流（Server-Sent Events）。
+ * 仿真每个 tick 完成后向一个热的多播源发出信号，每个订阅者收到信号时计算自己过滤范围内相对于已发送内容的增量。
+ * 信号本身不携带数据，订阅者跟不上时只保留最新的一个，积压的变化在下一次增量中合并，
+ * 因此每个订阅者的缓冲有上限且不会丢失变化；增量在共享的弹性线程池上计算和写出，不占用 servlet 线程。
+ */
+@Service
+@Slf4j
+public class VehicleTelemetryStream {
+
+    public static final String EVENT_SNAPSHOT = "snapshot";
+    public static final String EVENT_DELTA = "delta";
+
+    private final VehicleService vehicleService;
+
+    // 没有变化时发送注释行的间隔，用于保持连接并及时发现已断开的客户端
+    @Value("${simulation.stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    private final Sinks.Many<Long> ticks = Sinks.many().multicast().directBestEffort();
+
+    @Autowired
+    public VehicleTelemetryStream(VehicleService vehicleService) {
+        this.vehicleService = vehicleService;
+    }
+
+    /**
+     * tick 可能来自仿真线程，也可能来自停止仿真的请求线程，发出信号需要串行
+     */
+    @EventListener
+    public synchronized void onTick(SimulationTickEvent event) {
+        ticks.tryEmitNext(event.simulationTime());
+    }
+
+    /**
+     * 打开一个数据流：先发送过滤范围内的快照（事件名 snapshot），之后每个 tick 发送有变化时的增量（事件名 delta），
+     * 事件ID为序号。订阅取消或连接断开时注销。
+     */
+    public Flux<ServerSentEvent<Object>> open(VehicleSubscriptionRequest filter) {
+        return Flux.defer(() -> {
+            String streamId = "stream-" + UUID.randomUUID();
+            VehicleSnapshotMessage snapshot = vehicleService.openVehicleStream(streamId, filter);
+            log.info("车队数据流 {} 已打开，快照包含 {} 辆车。", streamId, snapshot.getVehicles().size());
+
+            Flux<ServerSentEvent<Object>> deltas = ticks.asFlux()
+                    .onBackpressureLatest()
+                    .publishOn(Schedulers.boundedElastic(), 1)
+                    .mapNotNull(tick -> vehicleService.drainVehicleStream(streamId))
+                    .map(delta -> event(EVENT_DELTA, delta.getSequence(), delta));
+            Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(Duration.ofSeconds(heartbeatSeconds))
+                    .onBackpressureDrop()
+                    .map(i -> ServerSentEvent.builder().comment("heartbeat").build());
+
+            // 合并时只预取 1 个，增量在订阅者请求时才计算
+            return Flux.concat(Mono.just(event(EVENT_SNAPSHOT, snapshot.getSequence(), snapshot)),
+                            Flux.merge(1, deltas, heartbeats))
+                    .doFinally(signal -> {
+                        vehicleService.closeVehicleStream(streamId);
+                        log.info("车队数据流 {} 已关闭 ({})", streamId, signal);
+                    });
+        });
+    }
+
+    private static ServerSentEvent<Object> event(String name, long sequence, Object data) {
+        return ServerSentEvent.builder(data)
+                .event(name)
+                .id(Long.toString(sequence))
+                .build();
+    }
+}
@@ -2,6 +2,8 @@ package com.transportation.dispatch.service;
 
 import com.transportation.dispatch.model.entity.TransportDemand;
 
+import java.util.List;
+
 public interface DemandService {
     /**
      * 根据概率，随机生成新的运输任务链的起点
@@ -16,4 +18,14 @@ public interface DemandService {
     int getCompletedDemandCount();
 
     void deleteAll();
+
+    /**
+     * 查询任务表中的全部任务，用于写入仿真检查点
+     */
+    List<TransportDemand> findAllDemands();
+
+    /**
+     * 用检查点中的任务替换整个任务表，任务ID保持不变
+     */
+    void restoreDemands(List<TransportDemand> demands);
 }
@@ -1,6 +1,7 @@
 package com.transportation.dispatch.service;
 
 import com.transportation.dispatch.model.entity.RouteCache;
+import com.transportation.dispatch.model.geo.Coordinate;
 
 public interface RouteService {
     /**
@@ -9,9 +10,33 @@ public interface RouteService {
      * @param originCoords 起点坐标 "lng,lat"
      * @param destinationCoords 终点坐标 "lng,lat"
      * @return 包含路径信息的RouteCache对象，如果失败则返回null。
+     * @throws IllegalArgumentException 坐标无法解析时抛出
      */
     RouteCache getRoute(String originCoords, String destinationCoords);
 
+    /**
+     * 获取两点之间的驾驶路径，坐标已是数值类型，无需再解析和标准化。
+     * @param origin 起点坐标
+     * @param destination 终点坐标
+     * @return 包含路径信息的RouteCache对象，如果失败则返回null。
+     */
+    RouteCache getRoute(Coordinate origin, Coordinate destination);
+
+    /**
+     * 获取两点之间的驾驶路径，polyline 按细节层级简化。
+     * 简化结果随路径几何缓存，每条路径的每个层级只计算一次。
+     * @param polylineLevel 见 PolylineSimplifier，0 为原始精度
+     * @return 路径的副本，如果失败则返回null。
+     */
+    RouteCache getRoute(String originCoords, String destinationCoords, int polylineLevel);
+
+    /**
+     * 根据路径ID获取路径。路径写入后不再修改，同一ID的内容始终相同，可由客户端长期缓存。
+     * @param polylineLevel 见 PolylineSimplifier，0 为原始精度
+     * @return 路径（层级大于 0 时为副本），不存在时返回null。
+     */
+    RouteCache getRouteById(Long id, int polylineLevel);
+
     /**
      * 为所有供应链阶段预热并缓存路径
      */
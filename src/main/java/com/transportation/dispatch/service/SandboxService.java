@@ -0,0 +1,37 @@
+package com.transportation.dispatch.service;
+
+import com.transportation.dispatch.enumeration.SimulationEngineType;
+import com.transportation.dispatch.model.dto.SandboxInfo;
+import com.transportation.dispatch.model.entity.Weight2Dispatch;
+
+import java.util.List;
+
+/**
+ * 并发数据沙箱服务。
+ * 每个沙箱拥有独立的车队状态、任务队列、时钟和随机流，以无头快进方式运行，
+ * 多个沙箱可以同时运行，用于并排比较不同的调度策略。
+ */
+public interface SandboxService {
+
+    /**
+     * 提交一个沙箱，立即返回；沙箱在共享线程池上异步运行
+     * @param targetSeconds 目标仿真时长（秒）
+     * @param engineType 为 null 时使用配置项 simulation.engine
+     * @param seed 为 null 时随机生成
+     */
+    SandboxInfo launch(Weight2Dispatch weight2Dispatch, long targetSeconds, SimulationEngineType engineType, Long seed);
+
+    /**
+     * 查询沙箱信息，运行中的沙箱返回当前进度
+     * @return 沙箱不存在时返回 null
+     */
+    SandboxInfo get(Long sandboxId);
+
+    List<SandboxInfo> list();
+
+    /**
+     * 终止排队中或运行中的沙箱；运行中的沙箱会保存已仿真部分的统计结果
+     * @return 沙箱不存在或已结束时返回 false
+     */
+    boolean stop(Long sandboxId);
+}
@@ -1,5 +1,7 @@
 package com.transportation.dispatch.service;
 
+import com.transportation.dispatch.enumeration.SimulationEngineType;
+import com.transportation.dispatch.model.entity.SimulationSession;
 import com.transportation.dispatch.model.entity.Weight2Dispatch;
 
 public interface SimulationService {
@@ -8,6 +10,37 @@ public interface SimulationService {
      */
     void start(Weight2Dispatch weight2Dispatch);
 
+    /**
+     * 以指定的引擎启动仿真
+     * @param engineType 为 null 时使用配置项 simulation.engine
+     */
+    void start(Weight2Dispatch weight2Dispatch, SimulationEngineType engineType);
+
+    /**
+     * 以指定的引擎和随机数种子启动仿真
+     * @param seed 为 null 时随机生成；继续未完成的会话时沿用该会话的种子
+     */
+    void start(Weight2Dispatch weight2Dispatch, SimulationEngineType engineType, Long seed);
+
+    /**
+     * 当前（或最近一次）运行使用的引擎
+     */
+    SimulationEngineType getEngineType();
+
+    /**
+     * 无头快进：在调用线程上不间断地推进仿真时间，不推送 WebSocket、不写 Redis，
+     * 达到目标仿真时长后保存并返回会话统计结果，随后像 stop 一样清理任务和车辆。
+     * @param targetSeconds 目标仿真时长（秒）
+     * @param engineType 为 null 时使用配置项 simulation.engine
+     * @param seed 随机数种子，为 null 时随机生成；使用相同种子可复现同一次运行
+     */
+    SimulationSession fastForward(Weight2Dispatch weight2Dispatch, long targetSeconds, SimulationEngineType engineType, Long seed);
+
+    /**
+     * 是否正以无头快进模式运行
+     */
+    boolean isHeadless();
+
     /**
      * 停止仿真
      */
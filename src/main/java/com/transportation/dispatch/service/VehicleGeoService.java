@@ -0,0 +1,34 @@
+package com.transportation.dispatch.service;
+
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.model.dto.VehicleLocationDto;
+import com.transportation.dispatch.model.entity.Vehicle;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 基于 Redis GEO 集合的车辆实时位置索引
+ */
+public interface VehicleGeoService {
+
+    /**
+     * 把位置或状态发生变化的车辆以一次流水线批量写入 GEO 集合和状态哈希，由仿真 tick 调用
+     * 启动后的第一次发布、发布失败后的下一次发布以及每隔固定次数的发布会清空两个键并全量写入，
+     * 清除上次运行残留或被外部改写的车辆。
+     * @param vehicles 当前的全部车辆；未变化的车辆不会产生任何写入
+     */
+    void publish(Collection<Vehicle> vehicles);
+
+    /**
+     * 查询以 (lng, lat) 为中心、半径 radiusMeters 米内的车辆，按距离由近到远排列
+     * @param status 为 null 时不按状态过滤
+     */
+    List<VehicleLocationDto> findWithinRadius(double lng, double lat, double radiusMeters, VehicleStatus status);
+
+    /**
+     * 查询经纬度矩形范围内的车辆
+     * @param status 为 null 时不按状态过滤
+     */
+    List<VehicleLocationDto> findWithinBox(double minLng, double minLat, double maxLng, double maxLat, VehicleStatus status);
+}
@@ -1,10 +1,18 @@
 package com.transportation.dispatch.service;
 
 import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.model.dto.VehicleDeltaMessage;
 import com.transportation.dispatch.model.dto.VehicleDto;
+import com.transportation.dispatch.model.dto.VehicleSnapshotMessage;
+import com.transportation.dispatch.model.dto.VehicleSubscriptionRequest;
 import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.simulation.SimulationCheckpoint;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
 
 public interface VehicleService {
 
@@ -15,11 +23,74 @@ public interface VehicleService {
      */
     List<VehicleDto> getVehicles(VehicleStatus vehicleStatus);
 
+    /**
+     * 同 getVehicles，尾迹按细节层级简化
+     * @param polylineLevel 见 PolylineSimplifier，0 为原始精度
+     */
+    List<VehicleDto> getVehicles(VehicleStatus vehicleStatus, int polylineLevel);
+
+    /**
+     * 获取完整的车队快照及其增量序号，供 WebSocket 订阅时下发
+     */
+    VehicleSnapshotMessage getVehicleSnapshot();
+
+    /**
+     * 取走自上一次调用以来车队的字段级变化
+     * @return 增量；没有变化时返回 null
+     */
+    VehicleDeltaMessage drainVehicleDelta();
+
+    /**
+     * 注册或替换某个 WebSocket 会话的过滤条件（视口、状态、车型、车辆id）
+     * @return 满足条件的车辆快照，该会话的增量序号从快照的序号之后开始
+     */
+    VehicleSnapshotMessage subscribeVehicles(String sessionId, VehicleSubscriptionRequest filter);
+
+    void unsubscribeVehicles(String sessionId);
+
+    /**
+     * 为 ready 接受的已订阅会话计算自上一次推送以来范围内车辆的增量，被跳过的会话的变化合并到下一次
+     * @return 会话ID到待发送内容的映射：VehicleDeltaMessage，或协商了二进制格式的会话为编码后的字节数组；没有变化的会话不出现
+     */
+    Map<String, Object> drainSubscribedVehicleDeltas(Predicate<String> ready);
+
+    /**
+     * 打开一个响应式车队数据流，与 WebSocket 会话的订阅相互独立
+     * @return 满足条件的车辆快照，该数据流的增量序号从快照的序号之后开始
+     */
+    VehicleSnapshotMessage openVehicleStream(String streamId, VehicleSubscriptionRequest filter);
+
+    /**
+     * 计算数据流自上一次取走以来范围内车辆的增量
+     * @return 增量；没有变化或数据流已关闭时返回 null
+     */
+    VehicleDeltaMessage drainVehicleStream(String streamId);
+
+    void closeVehicleStream(String streamId);
+
+    /**
+     * 距 center 最近的至多 k 辆空闲车辆，基于 tick 维护的空闲车辆空间索引，不访问数据库
+     * @param accept 额外的筛选条件（如载重），只有被接受的车辆计入 k
+     * @return 车辆ID，由近到远；仿真尚未加载车辆时为空
+     */
+    List<Long> findNearestIdleVehicles(Coordinate center, int k, LongPredicate accept);
+
     /**
      * 更新所有车辆的当前实时状态。
      */
     void updateAllVehiclesState(long simulationTime, int timeStep);
+
+    /**
+     * 离散事件引擎的推进方法：只推进行驶中的车辆，并处理截至 simulationTime 到期的事件。
+     * 装货、卸货、维修中以及空闲的车辆在事件到期之前不会被访问。
+     */
+    void processVehicleEvents(long simulationTime, int timeStep);
     void updateVehicleSpeed(Long vehicleId, double speed);
+
+    /**
+     * 标记某辆车在仿真 tick 之外被修改（如调度分配），下一个 tick 会从数据库重新同步该车辆。
+     */
+    void invalidateVehicle(Long vehicleId);
     Double getTotalWastedCapacity();
 
     Double getTotalLoadDistance();
@@ -30,4 +101,25 @@ public interface VehicleService {
      Double getTotalDuration();
 
     void resetAllVehicles();
+
+    /**
+     * 把车辆位置和状态的变化发布到 Redis GEO 索引（见 VehicleGeoService），每个 tick 至多一次流水线写入
+     */
+    void publishPositions();
+
+    /**
+     * 按状态统计内存中的车辆数
+     */
+    Map<VehicleStatus, Long> countVehiclesByStatus();
+
+    /**
+     * 把车队的完整运行时状态（含仅存在于内存中的路径与统计字段）以及离散事件引擎的调度状态复制到检查点。
+     * 应在 tick 线程上、两次步进之间调用。
+     */
+    void captureCheckpoint(SimulationCheckpoint checkpoint);
+
+    /**
+     * 用检查点中的状态替换内存中的车队，并把持久化字段写回数据库
+     */
+    void restoreCheckpoint(SimulationCheckpoint checkpoint);
 }
@@ -2,16 +2,20 @@ package com.transportation.dispatch.service.impl;
 
 import com.transportation.dispatch.enumeration.DemandStatus;
 import com.transportation.dispatch.enumeration.PoiSimType;
-import com.transportation.dispatch.mapper.PoiMapper;
 import com.transportation.dispatch.mapper.SupplyChainMapper;
 import com.transportation.dispatch.mapper.TransportDemandMapper;
 import com.transportation.dispatch.model.entity.Poi;
 import com.transportation.dispatch.model.entity.SupplyChainStage;
 import com.transportation.dispatch.model.entity.SupplyChainTemplate;
 import com.transportation.dispatch.model.entity.TransportDemand;
+import com.transportation.dispatch.projection.PoiStore;
 import com.transportation.dispatch.service.DemandService;
 import com.transportation.dispatch.service.VehicleService;
+import com.transportation.dispatch.simulation.SimulationRandom;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -25,12 +29,21 @@ public class DemandServiceImpl implements DemandService {
     @Autowired
     private SupplyChainMapper supplyChainMapper;
     @Autowired
-    private PoiMapper poiMapper;
+    private PoiStore poiStore;
     @Autowired
     private TransportDemandMapper transportDemandMapper;
+    @Autowired
+    private SimulationRandom simulationRandom;
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
 
+    // 恢复任务时每攒够多少条语句向 JDBC 驱动提交一次批处理
+    private static final int RESTORE_BATCH_CHUNK_SIZE = 500;
 
-    private final Random random = new Random();
+    // 需求生成使用会话种子派生的独立随机流
+    private Random random() {
+        return simulationRandom.subsystem("demand");
+    }
 
     /**
      * 根据概率，随机生成新的运输任务链的起点
@@ -39,14 +52,14 @@ public class DemandServiceImpl implements DemandService {
         // 假设每个tick有20%的概率生成一个新的供应链任务
         if (transportDemandMapper.findByStatus(DemandStatus.PENDING).size()<=40)
         {
-            if (random.nextDouble() < 0.2)
+            if (random().nextDouble() < 0.2)
             {
                 List<SupplyChainTemplate> templates = supplyChainMapper.findAllTemplates();
                 if (templates.isEmpty()) return;
                 for (int i = 0; i < 10; i++)
                 {
                     // 随机选择一个供应链模板
-                    SupplyChainTemplate template = templates.get(random.nextInt(templates.size()));
+                    SupplyChainTemplate template = templates.get(random().nextInt(templates.size()));
                     SupplyChainStage firstStage = supplyChainMapper.findStageByTemplateIdAndOrder(template.getId(), 1);
 
                     if (firstStage != null)
@@ -95,11 +108,38 @@ public class DemandServiceImpl implements DemandService {
         transportDemandMapper.deleteAll();
     }
 
+    @Override
+    public List<TransportDemand> findAllDemands() {
+        return transportDemandMapper.findAll();
+    }
+
+    /**
+     * 清空任务表并写回检查点中的任务，在同一个批处理会话中提交
+     */
+    @Override
+    public void restoreDemands(List<TransportDemand> demands) {
+        long start = System.nanoTime();
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            TransportDemandMapper batchMapper = session.getMapper(TransportDemandMapper.class);
+            batchMapper.deleteAll();
+            int count = 0;
+            for (TransportDemand demand : demands) {
+                batchMapper.insertWithId(demand);
+                if (++count % RESTORE_BATCH_CHUNK_SIZE == 0) {
+                    session.flushStatements();
+                }
+            }
+            session.flushStatements();
+            session.commit();
+        }
+        log.info("已从检查点恢复 {} 条运输任务，耗时 {} ms。", demands.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
     private void createDemandFromStage(SupplyChainStage stage, Long fixedOriginPoiId) {
         Poi originPoi;
         // 如果上一环节的终点是固定的，就用它作为本环节的起点
         if (fixedOriginPoiId != null) {
-            originPoi = poiMapper.findById(fixedOriginPoiId);
+            originPoi = poiStore.snapshot().findById(fixedOriginPoiId);
         } else {
             originPoi = getRandomPoiByType(stage.getOriginPoiType());
         }
@@ -120,9 +160,7 @@ public class DemandServiceImpl implements DemandService {
 }
 
     private Poi getRandomPoiByType(PoiSimType simType) {
-        List<Poi> pois = poiMapper.findBySimType(simType);
-        if (pois.isEmpty()) return null;
-        return pois.get(random.nextInt(pois.size()));
+        return poiStore.snapshot().randomOfType(simType, random());
     }
 
 }
@@ -1,21 +1,32 @@
 package com.transportation.dispatch.service.impl;
 
+import com.transportation.dispatch.assignment.AssignmentSolver;
+import com.transportation.dispatch.enumeration.AssignmentAlgorithm;
 import com.transportation.dispatch.enumeration.DemandStatus;
 import com.transportation.dispatch.enumeration.VehicleStatus;
-import com.transportation.dispatch.mapper.PoiMapper;
 import com.transportation.dispatch.mapper.TransportDemandMapper;
 import com.transportation.dispatch.mapper.VehicleMapper;
 import com.transportation.dispatch.model.entity.*;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.model.geo.GeoUtils;
+import com.transportation.dispatch.projection.PoiSnapshot;
+import com.transportation.dispatch.projection.PoiStore;
 import com.transportation.dispatch.service.DispatchService;
 import com.transportation.dispatch.service.VehicleService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 
 @Service
@@ -28,12 +39,28 @@ public class DispatchServiceImpl implements DispatchService {
     @Autowired
     private VehicleService vehicleService;
     @Autowired
-    private PoiMapper poiMapper;
-    public record AssignmentCandidate(
-            TransportDemand demand,
-            Vehicle vehicle,
-            double weightedCost // 成本，例如：行驶时间 + 惩罚项
-    ) {}
+    private PoiStore poiStore;
+
+    // 所有沙箱共享的仿真工作线程池，见 SimulationExecutorConfig；成本矩阵按行在其中并行构建
+    @Autowired
+    @Qualifier("simulationWorkerPool")
+    private ForkJoinPool workerPool;
+
+    // 按成本调度时每个任务考虑的最近候选车辆数，不大于 0 时考虑全部空闲车辆；
+    // 大于 0 时先到先得调度改为取最近的合格空闲车辆，不大于 0 时按空闲车辆列表顺序取第一辆
+    @Value("${simulation.dispatch.candidate-vehicles:16}")
+    private int candidateVehicles;
+
+    /**
+     * 按成本调度的成本矩阵，不是候选的组合为正无穷；columnVehicles 为各列车辆在空闲车辆列表中的下标
+     */
+    private record CostMatrix(double[][] cost, int[] columnVehicles) {
+    }
+
+    private static final int[] NO_CANDIDATES = new int[0];
+    private static final double[] NO_COSTS = new double[0];
+    // 任务数少于此值时在调用线程上顺序构建，避免线程调度开销
+    private static final int MIN_PARALLEL_ROWS = 64;
 
     /**
      * 调度主方法：为所有待处理的任务分配车辆（无干预策略）
@@ -52,24 +79,159 @@ public class DispatchServiceImpl implements DispatchService {
 
         log.info("开始调度... 待处理任务: {}个, 空闲车辆: {}辆", pendingDemands.size(), idleVehicles.size());
 
+        Map<Long, Vehicle> idleById = new LinkedHashMap<>();
+        for (Vehicle vehicle : idleVehicles) {
+            idleById.put(vehicle.getId(), vehicle);
+        }
+
+        // 启用空间索引时取离装货点最近的合格空闲车辆；未启用或索引中没有找到时按空闲车辆列表顺序取第一辆合格车辆
+        int k = candidateVehicles > 0 ? 1 : 0;
+        PoiSnapshot pois = poiStore.snapshot();
         for (TransportDemand demand : pendingDemands) {
+            Coordinate origin = pois.coordinateOf(demand.getOriginPoiId());
+            List<Vehicle> candidates = findCandidates(demand, origin, k, idleById, vehicleTypeMap);
+            if (candidates.isEmpty()) continue;
+
+            Vehicle vehicle = candidates.get(0);
+            // 分配任务
+            assignDemandToVehicle(demand, vehicle);
+            // 将此车辆从空闲列表中移除，防止被再次分配
+            idleById.remove(vehicle.getId());
+        }
+    }
 
-            for (Vehicle vehicle : idleVehicles) {
-                VehicleType type = vehicleTypeMap.get(vehicle.getTypeId());
-                if (type == null) continue;
+    /**
+     * 为任务挑选候选车辆：通过空闲车辆空间索引取离装货点最近的至多 k 辆能承载该任务的车辆，代价与 k 成正比而与车队规模无关。
+     * 索引由 tick 维护，只采纳本轮数据库中仍为空闲的车辆；k 不大于 0、装货点坐标缺失或索引中没有找到
+     * （如仿真尚未加载车辆）时退回到遍历全部空闲车辆。
+     */
+    private List<Vehicle> findCandidates(TransportDemand demand, Coordinate origin, int k,
+                                         Map<Long, Vehicle> idleById, Map<Long, VehicleType> vehicleTypeMap) {
+        if (k > 0 && origin != null) {
+            List<Long> nearest = vehicleService.findNearestIdleVehicles(origin, k, id -> {
+                Vehicle vehicle = idleById.get(id);
+                return vehicle != null && canHandle(vehicleTypeMap.get(vehicle.getTypeId()), demand);
+            });
+            if (!nearest.isEmpty()) {
+                List<Vehicle> candidates = new ArrayList<>(nearest.size());
+                for (Long id : nearest) candidates.add(idleById.get(id));
+                return candidates;
+            }
+        }
+        List<Vehicle> candidates = new ArrayList<>();
+        for (Vehicle vehicle : idleById.values()) {
+            if (canHandle(vehicleTypeMap.get(vehicle.getTypeId()), demand)) {
+                candidates.add(vehicle);
+                if (k > 0 && origin == null && candidates.size() == k) break;
+            }
+        }
+        return candidates;
+    }
 
-                boolean canHandle = type.getMaxLoadWeight().compareTo(demand.getCargoWeight()) >= 0 &&
-                        type.getMaxLoadVolume().compareTo(demand.getCargoVolume()) >= 0;
+    /**
+     * 对 [0, rows) 的每一行执行 body，行数较多时在工作线程池中并行执行。body 只能写入自己那一行的数据。
+     */
+    private void forEachRow(int rows, IntConsumer body) {
+        if (rows < MIN_PARALLEL_ROWS || workerPool.getParallelism() <= 1) {
+            for (int d = 0; d < rows; d++) body.accept(d);
+            return;
+        }
+        // 在工作线程池内启动的并行流使用该线程池，而不是公共池
+        workerPool.submit(() -> IntStream.range(0, rows).parallel().forEach(body)).join();
+    }
 
-                if (canHandle) {
-                    // 分配任务
-                    assignDemandToVehicle(demand, vehicle);
-                    // 将此车辆从空闲列表中移除，防止被再次分配
-                    idleVehicles.remove(vehicle);
-                    break; // 跳出内层循环，处理下一个任务
-                }
+    /**
+     * 按成本调度时的候选车辆，返回 idleVehicles 中的下标；车辆坐标为弧度。
+     * k 大于 0 时先查空闲车辆空间索引，索引中没有找到（如仿真尚未加载车辆）时遍历全部车辆，
+     * 用大小为 k 的大顶堆保留最近的 k 辆，不对全部车辆排序；k 不大于 0 时返回全部合格车辆。
+     */
+    private int[] findCandidateIndexes(Coordinate origin, int k, Map<Long, Integer> vehicleIndexOf,
+                                       double[] vehicleLng, double[] vehicleLat, double[] vehicleCosLat,
+                                       IntPredicate capable) {
+        if (k > 0) {
+            List<Long> nearest = vehicleService.findNearestIdleVehicles(origin, k, id -> {
+                Integer v = vehicleIndexOf.get(id);
+                return v != null && capable.test(v);
+            });
+            if (!nearest.isEmpty()) {
+                int[] candidates = new int[nearest.size()];
+                for (int c = 0; c < candidates.length; c++) candidates[c] = vehicleIndexOf.get(nearest.get(c));
+                return candidates;
             }
         }
+
+        int vehicleCount = vehicleLng.length;
+        if (k <= 0) {
+            int count = 0;
+            for (int v = 0; v < vehicleCount; v++) if (capable.test(v)) count++;
+            int[] candidates = new int[count];
+            for (int v = 0, c = 0; v < vehicleCount; v++) if (capable.test(v)) candidates[c++] = v;
+            return candidates;
+        }
+
+        double originLng = Math.toRadians(origin.getLng());
+        double originLat = Math.toRadians(origin.getLat());
+        double originCosLat = Math.cos(originLat);
+        int[] heap = new int[k];
+        double[] heapDistance = new double[k];
+        int size = 0;
+        for (int v = 0; v < vehicleCount; v++) {
+            if (!capable.test(v)) continue;
+            double distance = GeoUtils.haversineRadians(vehicleLng[v], vehicleLat[v], vehicleCosLat[v],
+                    originLng, originLat, originCosLat);
+            if (size < k) {
+                heap[size] = v;
+                heapDistance[size] = distance;
+                siftUp(heap, heapDistance, size++);
+            } else if (distance < heapDistance[0]) {
+                heap[0] = v;
+                heapDistance[0] = distance;
+                siftDown(heap, heapDistance, size);
+            }
+        }
+        return Arrays.copyOf(heap, size);
+    }
+
+    /**
+     * 按距离的大顶堆，堆顶是当前保留的最远车辆
+     */
+    private static void siftUp(int[] heap, double[] distance, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (distance[parent] >= distance[i]) return;
+            swap(heap, distance, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, double[] distance, int size) {
+        int i = 0;
+        while (true) {
+            int largest = i, left = 2 * i + 1, right = left + 1;
+            if (left < size && distance[left] > distance[largest]) largest = left;
+            if (right < size && distance[right] > distance[largest]) largest = right;
+            if (largest == i) return;
+            swap(heap, distance, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(int[] heap, double[] distance, int i, int j) {
+        int v = heap[i];
+        heap[i] = heap[j];
+        heap[j] = v;
+        double t = distance[i];
+        distance[i] = distance[j];
+        distance[j] = t;
+    }
+
+    /**
+     * **载重/体积检查**
+     */
+    private static boolean canHandle(VehicleType type, TransportDemand demand) {
+        return type != null
+                && type.getMaxLoadWeight().compareTo(demand.getCargoWeight()) >= 0
+                && type.getMaxLoadVolume().compareTo(demand.getCargoVolume()) >= 0;
     }
 
     private void assignDemandToVehicle(TransportDemand demand, Vehicle vehicle) {
@@ -84,6 +246,7 @@ public class DispatchServiceImpl implements DispatchService {
         vehicle.setCurrentDemandId(demand.getId());
         vehicle.setSpeed(10.0);
         vehicleMapper.update(vehicle);
+        vehicleService.invalidateVehicle(vehicle.getId());
 
         log.info("任务 #{} 已成功分配给车辆 #{} ({})", demand.getId(), vehicle.getId(), vehicle.getPlateNumber());
     }
@@ -99,88 +262,151 @@ public class DispatchServiceImpl implements DispatchService {
         Map<Long, VehicleType> vehicleTypeMap = vehicleMapper.findAllTypes().stream()
                 .collect(Collectors.toMap(VehicleType::getId, Function.identity()));
 
-        log.info("开始干预调度 (最小综合成本)... 待处理任务: {}个, 空闲车辆: {}辆", pendingDemands.size(), idleVehicles.size());
-        List<AssignmentCandidate> candidates = new ArrayList<>();
+        AssignmentAlgorithm algorithm = weight2Dispatch.getAssignmentAlgorithm() != null
+                ? weight2Dispatch.getAssignmentAlgorithm()
+                : AssignmentAlgorithm.GREEDY;
+        log.info("开始干预调度 (最小综合成本, {})... 待处理任务: {}个, 空闲车辆: {}辆", algorithm, pendingDemands.size(), idleVehicles.size());
+
+        CostMatrix matrix = buildCostMatrix(pendingDemands, idleVehicles, vehicleTypeMap, weight2Dispatch);
+        if (matrix.columnVehicles().length == 0) return;
+        double[][] cost = matrix.cost();
+
+        // --- 阶段 3: 求解指派并分配任务 ---
+        long solveStart = System.nanoTime();
+        int[] assignment = AssignmentSolver.of(algorithm).solve(cost);
+        log.info("指派求解完成 ({})，耗时 {} ms，总成本: {}", algorithm,
+                String.format("%.1f", (System.nanoTime() - solveStart) / 1e6),
+                String.format("%.2f", AssignmentSolver.totalCost(cost, assignment)));
 
+        for (int d = 0; d < assignment.length; d++) {
+            if (assignment[d] < 0) continue;
+            TransportDemand demand = pendingDemands.get(d);
+            Vehicle vehicle = idleVehicles.get(matrix.columnVehicles()[assignment[d]]);
 
+            assignDemandToVehicle(demand, vehicle);
+
+            log.info("✅ 调度成功 (干预策略): 任务 #{} 分配给车辆 #{}，综合成本: {}。",
+                    demand.getId(), vehicle.getId(), String.format("%.2f", cost[d][assignment[d]]));
+        }
+    }
+
+    /**
+     * 构建任务 x 候选车辆的综合成本矩阵。列只包含至少是一个任务候选的车辆，
+     * columnVehicles 为各列车辆在 idleVehicles 中的下标；没有任何候选车辆时列数为 0。
+     */
+    private CostMatrix buildCostMatrix(List<TransportDemand> pendingDemands, List<Vehicle> idleVehicles,
+                                       Map<Long, VehicleType> vehicleTypeMap, Weight2Dispatch weight2Dispatch) {
         final double WEIGHT_TIME = weight2Dispatch.getWeightTime();          // 行驶时间权重
         final double WEIGHT_WASTED_LOAD = weight2Dispatch.getWeightWastedLoad();   // 浪费载重权重（可能需要标准化）
         final double WEIGHT_WASTED_IDLE = weight2Dispatch.getWeightWastedIdle();
-        final double MAX_REF_LOAD = vehicleMapper.findAllTypes().stream()
+        final double MAX_REF_LOAD = vehicleTypeMap.values().stream()
                 .mapToDouble(type -> type.getMaxLoadWeight().doubleValue())
                 .max().orElse(10000.0);
+        // 载重成本乘以 3600 将其转换为小时级别的影响
+        final double LOAD_SCALE = WEIGHT_WASTED_LOAD * 3600 / MAX_REF_LOAD;
+
+        long buildStart = System.nanoTime();
+        // --- 阶段 1: 只与车辆或只与任务有关的成本项各计算一次，存入基本类型数组 ---
+        // 综合成本 = 时间权重 × (空驶距离 + 运送距离) / 10
+        //          + 载重权重 × (浪费载重 + 车辆载重) / 最大参考载重 × 3600 - 空闲权重 × 已等待时长
+        // 其中浪费载重 = 车辆载重 - 货重，拆成车辆项与任务项后，每个组合只剩空驶距离需要计算
+        List<VehicleType> types = new ArrayList<>(vehicleTypeMap.values());
+        Map<Long, Integer> typeIndexOf = new HashMap<>();
+        for (int t = 0; t < types.size(); t++) typeIndexOf.put(types.get(t).getId(), t);
+
+        int vehicleCount = idleVehicles.size();
+        Map<Long, Integer> vehicleIndexOf = new HashMap<>(vehicleCount * 2);
+        // 车辆位置以弧度存放，纬度余弦预先计算，组合中只剩两个正弦
+        double[] vehicleLng = new double[vehicleCount];
+        double[] vehicleLat = new double[vehicleCount];
+        double[] vehicleCosLat = new double[vehicleCount];
+        double[] vehicleTerm = new double[vehicleCount];
+        // 车型下标，车型未知或位置缺失时为 -1，不参与调度
+        int[] vehicleTypeIndex = new int[vehicleCount];
+        for (int v = 0; v < vehicleCount; v++) {
+            Vehicle vehicle = idleVehicles.get(v);
+            vehicleIndexOf.put(vehicle.getId(), v);
+            Coordinate position = vehicle.getCurrentPosition();
+            Integer typeIndex = typeIndexOf.get(vehicle.getTypeId());
+            vehicleTypeIndex[v] = position != null && typeIndex != null ? typeIndex : -1;
+            if (vehicleTypeIndex[v] < 0) continue;
+            vehicleLng[v] = Math.toRadians(position.getLng());
+            vehicleLat[v] = Math.toRadians(position.getLat());
+            vehicleCosLat[v] = Math.cos(vehicleLat[v]);
+            vehicleTerm[v] = 2 * types.get(typeIndex).getMaxLoadWeight().doubleValue() * LOAD_SCALE
+                    - vehicle.getWaitingDuration() * WEIGHT_WASTED_IDLE;
+        }
 
-        // --- 阶段 1: 找出所有合格的候选者并计算综合成本 ---
-        for (TransportDemand demand : pendingDemands) {
-
-            for (Vehicle vehicle : idleVehicles) {
-                double distance1 = calculateDistance(vehicle.getCurrentLng(), vehicle.getCurrentLat(),poiMapper.findById(demand.getOriginPoiId()).getLng(),poiMapper.findById(demand.getDestinationPoiId()).getLat());
-                double distance2 = calculateDistance(poiMapper.findById(demand.getOriginPoiId()).getLng(),poiMapper.findById(demand.getDestinationPoiId()).getLat(),poiMapper.findById(demand.getOriginPoiId()).getLng(),poiMapper.findById(demand.getDestinationPoiId()).getLat());
-                VehicleType type = vehicleTypeMap.get(vehicle.getTypeId());
-                if (type == null) continue;
-
-                // **载重/体积检查**
-                boolean canHandle = type.getMaxLoadWeight().compareTo(demand.getCargoWeight()) >= 0 &&
-                        type.getMaxLoadVolume().compareTo(demand.getCargoVolume()) >= 0;
-
-                if (canHandle) {
-
-                        // 1. 计算时间成本 (秒)
-                        double timeCost = (distance2+distance1)/10;
-
-                        // 2. 计算浪费载重成本 (需要标准化)
-                        double wastedLoad = type.getMaxLoadWeight().subtract(demand.getCargoWeight()).doubleValue();
-
-                        // 将浪费载重标准化（除以最大参考载重），并应用权重
-                        double wastedLoadCost = (wastedLoad / MAX_REF_LOAD) * WEIGHT_WASTED_LOAD * 3600; // 乘以 3600 将其转换为小时级别的影响
-                    wastedLoadCost+=(type.getMaxLoadWeight().doubleValue()/MAX_REF_LOAD)*WEIGHT_WASTED_LOAD*3600;
-
-                        // 3. 计算综合成本 (秒 + 浪费载重折算成的秒)
-                        double totalCost = timeCost* WEIGHT_TIME + wastedLoadCost-vehicle.getWaitingDuration()*WEIGHT_WASTED_IDLE;
+        int demandCount = pendingDemands.size();
+        PoiSnapshot pois = poiStore.snapshot();
+        // 每个任务的起终点坐标只取一次，不随车辆数重复计算
+        Coordinate[] origins = new Coordinate[demandCount];
+        double[] demandTerm = new double[demandCount];
+        // 每个任务能使用的车型，车型数量很少，按任务预先比较一次，组合中只查表
+        boolean[][] capableTypes = new boolean[demandCount][];
+        for (int d = 0; d < demandCount; d++) {
+            TransportDemand demand = pendingDemands.get(d);
+            Coordinate origin = pois.coordinateOf(demand.getOriginPoiId());
+            Coordinate destination = pois.coordinateOf(demand.getDestinationPoiId());
+            if (origin == null || destination == null) continue;
+            origins[d] = origin;
+            demandTerm[d] = WEIGHT_TIME * origin.distanceTo(destination) / 10
+                    - demand.getCargoWeight().doubleValue() * LOAD_SCALE;
+            capableTypes[d] = new boolean[types.size()];
+            for (int t = 0; t < types.size(); t++) capableTypes[d][t] = canHandle(types.get(t), demand);
+        }
 
-                        candidates.add(new AssignmentCandidate(demand, vehicle, totalCost));
-                    }
-                }
+        // --- 阶段 2: 并行地为每个任务挑选最近的 k 辆合格车辆并计算成本行 ---
+        int[][] rowVehicles = new int[demandCount][];
+        double[][] rowCosts = new double[demandCount][];
+        forEachRow(demandCount, d -> {
+            rowVehicles[d] = NO_CANDIDATES;
+            rowCosts[d] = NO_COSTS;
+            if (origins[d] == null) return;
+            boolean[] capable = capableTypes[d];
+            int[] candidates = findCandidateIndexes(origins[d], candidateVehicles, vehicleIndexOf,
+                    vehicleLng, vehicleLat, vehicleCosLat, v -> vehicleTypeIndex[v] >= 0 && capable[vehicleTypeIndex[v]]);
+            double originLng = Math.toRadians(origins[d].getLng());
+            double originLat = Math.toRadians(origins[d].getLat());
+            double originCosLat = Math.cos(originLat);
+            double[] costs = new double[candidates.length];
+            for (int c = 0; c < candidates.length; c++) {
+                int v = candidates[c];
+                double distance1 = GeoUtils.haversineRadians(vehicleLng[v], vehicleLat[v], vehicleCosLat[v],
+                        originLng, originLat, originCosLat);
+                costs[c] = WEIGHT_TIME * distance1 / 10 + vehicleTerm[v] + demandTerm[d];
             }
-
-
-        // --- 阶段 2: 排序并分配任务 (逻辑与之前相同) ---
-
-        // 1. 按成本升序排序 (最小成本优先)
-        candidates.sort(Comparator.comparing(AssignmentCandidate::weightedCost));
-
-        Set<Long> assignedDemands = new HashSet<>();
-        Set<Long> assignedVehicles = new HashSet<>();
-
-        for (AssignmentCandidate candidate : candidates) {
-            TransportDemand demand = candidate.demand();
-            Vehicle vehicle = candidate.vehicle();
-
-            if (!assignedDemands.contains(demand.getId()) && !assignedVehicles.contains(vehicle.getId())) {
-
-                assignDemandToVehicle(demand, vehicle);
-
-                assignedDemands.add(demand.getId());
-                assignedVehicles.add(vehicle.getId());
-
-                log.info("✅ 调度成功 (干预策略): 任务 #{} 分配给车辆 #{}，综合成本: {}。",
-                        demand.getId(), vehicle.getId(), String.format("%.2f", candidate.weightedCost()));
+            rowVehicles[d] = candidates;
+            rowCosts[d] = costs;
+        });
+
+        // 成本矩阵只包含至少是一个任务候选的车辆，列号按首次出现的顺序分配
+        int[] columnOfVehicle = new int[vehicleCount];
+        Arrays.fill(columnOfVehicle, -1);
+        int[] columnVehicles = new int[vehicleCount];
+        int columnCount = 0;
+        for (int[] candidates : rowVehicles) {
+            for (int v : candidates) {
+                if (columnOfVehicle[v] < 0) {
+                    columnOfVehicle[v] = columnCount;
+                    columnVehicles[columnCount++] = v;
+                }
             }
         }
+        if (columnCount == 0) return new CostMatrix(new double[demandCount][0], NO_CANDIDATES);
+
+        // 不是候选的组合为正无穷
+        double[][] cost = new double[demandCount][columnCount];
+        forEachRow(demandCount, d -> {
+            double[] row = cost[d];
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+            int[] candidates = rowVehicles[d];
+            for (int c = 0; c < candidates.length; c++) {
+                row[columnOfVehicle[candidates[c]]] = rowCosts[d][c];
+            }
+        });
+        log.info("成本矩阵 {}x{} 构建完成，耗时 {} ms", demandCount, columnCount,
+                String.format("%.1f", (System.nanoTime() - buildStart) / 1e6));
+        return new CostMatrix(cost, Arrays.copyOf(columnVehicles, columnCount));
     }
-    private double calculateDistance( String lng1, String lat1, String lng2, String lat2) {
-        double lat3 = Double.parseDouble(lat1);
-        double lng3 = Double.parseDouble(lng1);
-        double lat4 = Double.parseDouble(lat2);
-        double lng4 = Double.parseDouble(lng2);
-        double R = 6371000; // 地球半径, 米
-        double latDistance = Math.toRadians(lat4 - lat3);
-        double lonDistance = Math.toRadians(lng4 - lng3);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat3)) * Math.cos(Math.toRadians(lat4))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
-    }
-
 }
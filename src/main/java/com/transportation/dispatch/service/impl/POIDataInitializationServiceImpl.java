@@ -8,6 +8,8 @@ import com.transportation.dispatch.model.dto.AmapPoiResponse;
 import com.transportation.dispatch.model.entity.Poi;
 import com.transportation.dispatch.model.entity.SupplyChainStage;
 import com.transportation.dispatch.model.entity.SupplyChainTemplate;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.projection.PoiStore;
 import com.transportation.dispatch.service.POIDataInitializationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +30,8 @@ public class POIDataInitializationServiceImpl implements POIDataInitializationSe
     private PoiMapper poiMapper;
     @Autowired
     private SupplyChainMapper supplyChainMapper;
+    @Autowired
+    private PoiStore poiStore;
 
     // 从 application.properties 文件中注入API Key
     @Value("${api.key}")
@@ -40,6 +44,8 @@ public class POIDataInitializationServiceImpl implements POIDataInitializationSe
         log.info("开始执行数据初始化任务...");
         setupSupplyChains();
         fetchAndSavePois();
+        // 新抓取的 POI 已写入数据库，重新加载内存快照
+        poiStore.refresh();
         log.info("数据初始化任务完成。");
     }
 
@@ -116,6 +122,7 @@ public class POIDataInitializationServiceImpl implements POIDataInitializationSe
                     // 没添加过的才进行添加
                     if (poiMapper.findByAmapId(poiDetail.getId()) == null) {
                         Poi poi = convertToPoiEntity(poiDetail, simType);
+                        if (poi == null) continue;
                         poiMapper.insert(poi);
                         totalPoisFetched++;
                     }
@@ -138,15 +145,21 @@ public class POIDataInitializationServiceImpl implements POIDataInitializationSe
         log.info("类型 '{}' 抓取完成, 共新增 {} 个POI。", simType, totalPoisFetched);
     }
 
+    /**
+     * @return 坐标无法解析时返回 null，该 POI 不入库
+     */
     private Poi convertToPoiEntity(AmapPoiDetail detail, PoiSimType simType) {
+        Coordinate position = Coordinate.parse(detail.getLocation());
+        if (position == null) {
+            log.warn("POI {} ({}) 的坐标格式不正确: {}，已跳过。", detail.getId(), detail.getName(), detail.getLocation());
+            return null;
+        }
         Poi poi = new Poi();
         poi.setAmapId(detail.getId());
         poi.setName(detail.getName());
         poi.setAddress(detail.getAddress());
 
-        String[] location = detail.getLocation().split(",");
-        poi.setLng(location[0]);
-        poi.setLat(location[1]);
+        poi.setPosition(position);
 
         poi.setPname(detail.getPname());
         poi.setCityname(detail.getCityname());
@@ -5,6 +5,8 @@ import com.transportation.dispatch.mapper.PoiMapper;
 import com.transportation.dispatch.model.common.RawPOI;
 import com.transportation.dispatch.model.common.Result;
 import com.transportation.dispatch.model.entity.Poi;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.projection.PoiStore;
 import com.transportation.dispatch.service.POIDataService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -12,16 +14,34 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class POIDataServiceImpl implements POIDataService {
 
     @Autowired
     private PoiMapper poiMapper;
+    @Autowired
+    private PoiStore poiStore;
 
     @Override
     public Result insert(RawPOI rawPOI, PoiSimType simType) {
+        Result result = insertWithoutRefresh(rawPOI, simType, new HashSet<>());
+        if (result.getCode() == 200) poiStore.refresh();
+        return result;
+    }
+
+    /**
+     * 插入一个POI但不刷新内存快照，批量插入时在最后统一刷新一次
+     * @param insertedAmapIds 本批次已插入的高德ID。快照在批次结束前不会刷新，批次内的重复 POI 靠它去重
+     */
+    private Result insertWithoutRefresh(RawPOI rawPOI, PoiSimType simType, Set<String> insertedAmapIds) {
+        Coordinate position = Coordinate.parse(rawPOI.getLocation());
+        if (position == null) {
+            return Result.error("POI 坐标格式不正确: " + rawPOI.getLocation());
+        }
 
         Poi poi = new Poi();
 
@@ -29,9 +49,7 @@ public class POIDataServiceImpl implements POIDataService {
         poi.setName(rawPOI.getName());
         poi.setAddress(rawPOI.getAddress());
 
-        String[] location = rawPOI.getLocation().split(",");
-        poi.setLng(location[0]);
-        poi.setLat(location[1]);
+        poi.setPosition(position);
 
         poi.setPname(rawPOI.getPname());
         poi.setCityname(rawPOI.getCityname());
@@ -41,9 +59,9 @@ public class POIDataServiceImpl implements POIDataService {
         poi.setSimType(simType);
         poi.setStatus(1);
 
-        // 先查看数据库内有没有这个poi，没有再插入
-        Poi DB_poi = poiMapper.findById(poi.getId());
-        if(DB_poi == null){
+        // 先查看有没有这个poi（按高德ID判断），没有再插入
+        Poi DB_poi = poiStore.snapshot().findByAmapId(poi.getAmapId());
+        if(DB_poi == null && (poi.getAmapId() == null || insertedAmapIds.add(poi.getAmapId()))){
             poiMapper.insert(poi);
             return Result.success();
         }
@@ -52,7 +70,7 @@ public class POIDataServiceImpl implements POIDataService {
 
     @Override
     public Result findById(Long id) {
-        Poi poi = poiMapper.findById(id);
+        Poi poi = poiStore.snapshot().findById(id);
         if(poi != null){
             return Result.success(poi);
         }
@@ -61,7 +79,7 @@ public class POIDataServiceImpl implements POIDataService {
 
     @Override
     public Result findBySimType(PoiSimType simType) {
-        List<Poi> Pois = poiMapper.findBySimType(simType);
+        List<Poi> Pois = poiStore.snapshot().findBySimType(simType);
         if(Pois == null) return Result.error("错误，数据库为空");
         else return Result.success(Pois);
     }
@@ -69,30 +87,41 @@ public class POIDataServiceImpl implements POIDataService {
     @Override
     public Result update(Poi poi) {
         int res = poiMapper.update(poi);
-        if(res > 0) return Result.success("Updated");
+        if(res > 0) {
+            poiStore.refresh();
+            return Result.success("Updated");
+        }
         else return Result.error("Cannot update");
     }
 
     @Override
     public Result delete(Long id) {
         int res = poiMapper.delete(id);
-        if(res > 0) return Result.success("Deleted");
+        if(res > 0) {
+            poiStore.refresh();
+            return Result.success("Deleted");
+        }
         else return Result.error("Cannot delete");
     }
 
     @Override
     public Result addPOIs(List<RawPOI> rawPOIs, PoiSimType simType){
-        for(RawPOI poi : rawPOIs){
-            Result result = insert(poi, simType);
-            if(result.getCode() != 200) return Result.error("添加失败");
+        Set<String> insertedAmapIds = new HashSet<>();
+        try {
+            for(RawPOI poi : rawPOIs){
+                Result result = insertWithoutRefresh(poi, simType, insertedAmapIds);
+                if(result.getCode() != 200) return Result.error("添加失败");
+            }
+            return Result.success();
+        } finally {
+            poiStore.refresh();
         }
-        return Result.success();
     }
 
 
     @Override
     public Result getAll(){
-        List<Poi> allPOI = poiMapper.findAll();
+        List<Poi> allPOI = poiStore.snapshot().findAll();
         if(allPOI == null) return Result.error("错误，数据库为空");
         else return Result.success(allPOI);
     }
@@ -1,6 +1,5 @@
 package com.transportation.dispatch.service.impl;
 
-import com.transportation.dispatch.mapper.PoiMapper;
 import com.transportation.dispatch.mapper.RouteCacheMapper;
 import com.transportation.dispatch.mapper.SupplyChainMapper;
 import com.transportation.dispatch.model.dto.AmapRouteResponse;
@@ -9,6 +8,10 @@ import com.transportation.dispatch.model.dto.StepInfo;
 import com.transportation.dispatch.model.entity.Poi;
 import com.transportation.dispatch.model.entity.RouteCache;
 import com.transportation.dispatch.model.entity.SupplyChainStage;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.model.geo.RouteGeometry;
+import com.transportation.dispatch.projection.PoiSnapshot;
+import com.transportation.dispatch.projection.PoiStore;
 import com.transportation.dispatch.service.RouteService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,7 +21,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,7 +38,7 @@ public class RouteServiceImpl implements RouteService {
     private RouteCacheMapper routeCacheMapper;
 
     @Autowired
-    private PoiMapper poiMapper;
+    private PoiStore poiStore;
 
     @Autowired
     private SupplyChainMapper supplyChainMapper;
@@ -43,9 +49,22 @@ public class RouteServiceImpl implements RouteService {
     @Value("${api.key}")
     private String amapApiKey;
 
-    private static final long API_CALL_DELAY_MS = 360; // 每次API调用后暂停一定毫秒，确保不超过3次/秒的QPS
+    private static final long API_CALL_DELAY_MS = 360; // 两次API调用之间至少间隔的毫秒数，确保不超过3次/秒的QPS
     private static final String ROUTE_CACHE_KEY_TEMPLATE = "route:%s:%s";
     private static final Duration ROUTE_CACHE_TTL = Duration.ofHours(12);
+    // 进程内保留的已解析路径几何数量上限（LRU 淘汰）
+    private static final int GEOMETRY_CACHE_SIZE = 4096;
+
+    // 下一次允许调用高德API的时间（System.nanoTime），所有线程共享，见 acquireApiPermit
+    private long nextApiCallNanos = 0L;
+
+    private final Map<String, RouteGeometry> geometryCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RouteGeometry> eldest) {
+                    return size() > GEOMETRY_CACHE_SIZE;
+                }
+            });
 
     /**
      * 获取两点之间的驾驶路径。
@@ -56,14 +75,69 @@ public class RouteServiceImpl implements RouteService {
      */
     @Override
     public RouteCache getRoute(String originCoords, String destinationCoords) {
-        String normalizedOrigin = normalizeCoords(originCoords);
-        String normalizedDestination = normalizeCoords(destinationCoords);
+        Coordinate origin = Coordinate.parse(originCoords);
+        Coordinate destination = Coordinate.parse(destinationCoords);
+        if (origin == null || destination == null) {
+            throw new IllegalArgumentException("坐标格式不正确: " + originCoords + " -> " + destinationCoords);
+        }
+        return loadRoute(originCoords, destinationCoords, origin.toString(), destination.toString());
+    }
+
+    @Override
+    public RouteCache getRoute(Coordinate origin, Coordinate destination) {
+        String normalizedOrigin = origin.toString();
+        String normalizedDestination = destination.toString();
+        return loadRoute(normalizedOrigin, normalizedDestination, normalizedOrigin, normalizedDestination);
+    }
+
+    @Override
+    public RouteCache getRoute(String originCoords, String destinationCoords, int polylineLevel) {
+        return atLevel(getRoute(originCoords, destinationCoords), polylineLevel);
+    }
+
+    @Override
+    public RouteCache getRouteById(Long id, int polylineLevel) {
+        RouteCache route = routeCacheMapper.findById(id);
+        if (route == null) {
+            return null;
+        }
+        return atLevel(attachGeometry(route.getOriginCoords(), route.getDestinationCoords(), route), polylineLevel);
+    }
 
+    private RouteCache atLevel(RouteCache route, int polylineLevel) {
+        if (route == null || polylineLevel <= 0 || route.getGeometry() == null) {
+            return route;
+        }
+        // 返回副本，不修改 Redis / 进程内缓存中的对象
+        RouteCache simplified = new RouteCache();
+        simplified.setId(route.getId());
+        simplified.setOriginCoords(route.getOriginCoords());
+        simplified.setDestinationCoords(route.getDestinationCoords());
+        simplified.setDistance(route.getDistance());
+        simplified.setDuration(route.getDuration());
+        simplified.setCreatedAt(route.getCreatedAt());
+        simplified.setGeometry(route.getGeometry());
+        simplified.setPolyline(route.getGeometry().polylineAtLevel(polylineLevel));
+        return simplified;
+    }
+
+    private RouteCache loadRoute(String originCoords,
+                                 String destinationCoords,
+                                 String normalizedOrigin,
+                                 String normalizedDestination) {
         // 1. 优先从 Redis 缓存读取
         RouteCache cachedRoute = getRouteFromRedis(normalizedOrigin, normalizedDestination);
+        if (cachedRoute != null && cachedRoute.getId() == null) {
+            // 早期写入 Redis 的路径没有主键，从数据库补齐后重新缓存
+            RouteCache stored = routeCacheMapper.findByOriginAndDestination(normalizedOrigin, normalizedDestination);
+            if (stored != null) {
+                cachedRoute = stored;
+                cacheRoute(normalizedOrigin, normalizedDestination, cachedRoute);
+            }
+        }
         if (cachedRoute != null) {
             log.info("Redis 路径缓存命中: {} -> {}", normalizedOrigin, normalizedDestination);
-            return cachedRoute;
+            return attachGeometry(normalizedOrigin, normalizedDestination, cachedRoute);
         }
 
         // 1. 优先查询数据库缓存
@@ -71,14 +145,33 @@ public class RouteServiceImpl implements RouteService {
         if (cachedRoute != null) {
             log.info("数据库路径缓存命中: {} -> {}", normalizedOrigin, normalizedDestination);
             cacheRoute(normalizedOrigin, normalizedDestination, cachedRoute);
-            return cachedRoute;
+            return attachGeometry(normalizedOrigin, normalizedDestination, cachedRoute);
         }
 
         // 2. 缓存未命中，调用高德API，并将标准化坐标作为参数传入内部方法
         log.info("路径缓存未命中，正在调用高德API: {} -> {}", normalizedOrigin, normalizedDestination);
 
         // 调用 API 时，使用原始/高精度坐标，但传入标准化后的坐标用于缓存存储
-        return callAmapApiAndCache(originCoords, destinationCoords, normalizedOrigin, normalizedDestination);
+        RouteCache newRoute = callAmapApiAndCache(originCoords, destinationCoords, normalizedOrigin, normalizedDestination);
+        return newRoute == null ? null : attachGeometry(normalizedOrigin, normalizedDestination, newRoute);
+    }
+
+    /**
+     * 为路径挂载解析后的几何数据。同一条路径只解析一次，之后从进程内缓存直接复用。
+     */
+    private RouteCache attachGeometry(String normalizedOrigin, String normalizedDestination, RouteCache route) {
+        String key = buildRouteCacheKey(normalizedOrigin, normalizedDestination);
+        RouteGeometry geometry = geometryCache.get(key);
+        if (geometry == null) {
+            geometry = RouteGeometry.parse(route.getPolyline());
+            if (geometry == null) {
+                log.error("路径 {} -> {} 的 Polyline 无法解析出至少 2 个有效点。", normalizedOrigin, normalizedDestination);
+                return route;
+            }
+            geometryCache.put(key, geometry);
+        }
+        route.setGeometry(geometry);
+        return route;
     }
 
     private RouteCache callAmapApiAndCache(  String originCoords,
@@ -91,6 +184,10 @@ public class RouteServiceImpl implements RouteService {
         );
 
         try {
+            if (!acquireApiPermit()) {
+                log.warn("等待高德API调用配额时被中断，跳过路径 {} -> {}", normalizedOrigin, normalizedDestination);
+                return null;
+            }
             AmapRouteResponse response = restTemplate.getForObject(url, AmapRouteResponse.class);
 
             // 校验API返回结果的有效性
@@ -162,8 +259,9 @@ public class RouteServiceImpl implements RouteService {
         log.info("--- 开始处理阶段: 从 {} 到 {} ---", stage.getOriginPoiType(), stage.getDestinationPoiType());
 
         // 1. 获取该阶段所有的起点和终点POI
-        List<Poi> originPois = poiMapper.findBySimType(stage.getOriginPoiType());
-        List<Poi> destinationPois = poiMapper.findBySimType(stage.getDestinationPoiType());
+        PoiSnapshot pois = poiStore.snapshot();
+        List<Poi> originPois = pois.findBySimType(stage.getOriginPoiType());
+        List<Poi> destinationPois = pois.findBySimType(stage.getDestinationPoiType());
 
         if (originPois.isEmpty() || destinationPois.isEmpty()) {
             log.warn("阶段 [{} -> {}] 的起点或终点POI列表为空，跳过此阶段。", stage.getOriginPoiType(), stage.getDestinationPoiType());
@@ -182,11 +280,15 @@ public class RouteServiceImpl implements RouteService {
                     continue;
                 }
 
-                // 3. 格式化坐标并调用RouteService
-                String originCoords = origin.getLng() + "," + origin.getLat();
-                String destCoords = dest.getLng() + "," + dest.getLat();
-                String normalizedOrigin = normalizeCoords(originCoords);
-                String normalizedDest = normalizeCoords(destCoords);
+                // 3. 格式化坐标并调用RouteService，Coordinate 的文本已是标准化格式
+                if (origin.getPosition() == null || dest.getPosition() == null) {
+                    log.warn("POI {} 或 {} 缺少坐标，跳过该路径。", origin.getId(), dest.getId());
+                    continue;
+                }
+                String originCoords = origin.getPosition().toString();
+                String destCoords = dest.getPosition().toString();
+                String normalizedOrigin = originCoords;
+                String normalizedDest = destCoords;
 
                 // 使用不延时版本的getRoute
                 RouteCache cachedRoute = routeCacheMapper.findByOriginAndDestination(normalizedOrigin, normalizedDest);
@@ -194,16 +296,11 @@ public class RouteServiceImpl implements RouteService {
                     log.info("路径缓存命中: {} -> {}", normalizedOrigin, normalizedDest);
                     cacheRoute(normalizedOrigin, normalizedDest, cachedRoute);
                 } else {
-                    // 缓存未命中，调用高德API并延时
+                    // 缓存未命中，调用高德API（调用本身按 QPS 限制排队）
                     log.info("路径缓存未命中，正在调用高德API: {} -> {}", normalizedOrigin, normalizedDest);
                     callAmapApiAndCache(originCoords, destCoords, normalizedOrigin, normalizedDest);
-
-                    // 强制延时，保护API的QPS（仅在调用API时延时）
-                    try {
-                        Thread.sleep(API_CALL_DELAY_MS);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        log.error("路径预热任务被中断。", e);
+                    if (Thread.currentThread().isInterrupted()) {
+                        log.error("路径预热任务被中断。");
                         return; // 任务被中断，提前退出
                     }
                 }
@@ -225,22 +322,38 @@ public class RouteServiceImpl implements RouteService {
     public String normalizeCoords(String coords) {
         if (coords == null) return null;
 
-        // 假设输入格式为 "lng,lat"
-        String[] parts = coords.split(",");
-        if (parts.length != 2) return coords; // 格式不正确则返回原值
+        Coordinate coordinate = Coordinate.parse(coords);
+        if (coordinate == null) {
+            log.error("坐标格式化失败: {}", coords);
+            return coords; // 格式不正确则返回原值
+        }
+        return coordinate.toString();
+    }
 
+    /**
+     * 按 QPS 限制为一次高德API调用排队：所有线程（包括仿真分片并行更新时的缓存未命中）共享同一个调用间隔，
+     * 调用方在自己的线程上等待到分配的时间点。
+     * @return 被中断时返回 false，中断标记保留
+     */
+    private boolean acquireApiPermit() {
+        long callAt;
+        synchronized (this) {
+            long now = System.nanoTime();
+            callAt = Math.max(now, nextApiCallNanos);
+            nextApiCallNanos = callAt + API_CALL_DELAY_MS * 1_000_000;
+        }
+        long waitNanos = callAt - System.nanoTime();
+        if (waitNanos <= 0) return true;
         try {
-            double lng = Double.parseDouble(parts[0]);
-            double lat = Double.parseDouble(parts[1]);
-
-            return String.format("%.6f,%.6f", lng, lat);
-        } catch (NumberFormatException e) {
-            log.error("坐标格式化失败: {}", coords);
-            return coords;
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
-    private RouteCache getRouteFromRedis(String normalizedOrigin, String normalizedDestination) {
+        private RouteCache getRouteFromRedis(String normalizedOrigin, String normalizedDestination) {
         try {
             String key = buildRouteCacheKey(normalizedOrigin, normalizedDestination);
             return routeCacheRedisTemplate.opsForValue().get(key);
@@ -0,0 +1,182 @@
+package com.transportation.dispatch.service.impl;
+
+import com.transportation.dispatch.enumeration.SandboxState;
+import com.transportation.dispatch.enumeration.SimulationEngineType;
+import com.transportation.dispatch.model.dto.SandboxInfo;
+import com.transportation.dispatch.model.entity.SimulationSession;
+import com.transportation.dispatch.model.entity.Weight2Dispatch;
+import com.transportation.dispatch.service.SandboxService;
+import com.transportation.dispatch.simulation.sandbox.SimulationSandbox;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@Slf4j
+public class SandboxServiceImpl implements SandboxService {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    // 同时运行的沙箱数上限，0 表示 CPU 核数；超出的沙箱排队等待
+    @Value("${simulation.sandbox.max-concurrent:0}")
+    private int maxConcurrent;
+
+    // 保留的已结束沙箱数上限，超出时最早提交的已结束沙箱被移出列表；其结果仍可在会话列表中查看
+    @Value("${simulation.sandbox.retain-finished:100}")
+    private int retainFinished;
+
+    private ExecutorService sandboxExecutor;
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<Long, SandboxRun> sandboxes = new ConcurrentSkipListMap<>();
+
+    /**
+     * 沙箱的运行句柄
+     */
+    private static class SandboxRun {
+        final SandboxInfo info;
+        volatile Future<?> future;
+        volatile SimulationSandbox sandbox;
+        volatile boolean stopRequested;
+
+        SandboxRun(SandboxInfo info) {
+            this.info = info;
+        }
+    }
+
+    @PostConstruct
+    public void initExecutor() {
+        int threads = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+        sandboxExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "simulation-sandbox");
+            t.setDaemon(true);
+            return t;
+        });
+        log.info("沙箱线程池已创建，最多同时运行 {} 个沙箱。", threads);
+    }
+
+    @PreDestroy
+    public void shutdownExecutor() {
+        sandboxes.values().forEach(run -> run.stopRequested = true);
+        sandboxes.values().stream()
+                .map(run -> run.sandbox)
+                .filter(Objects::nonNull)
+                .forEach(sandbox -> sandbox.getSimulationService().stop());
+        sandboxExecutor.shutdown();
+    }
+
+    @Override
+    public SandboxInfo launch(Weight2Dispatch weight2Dispatch, long targetSeconds, SimulationEngineType engineType, Long seed) {
+        SandboxInfo info = new SandboxInfo();
+        info.setId(nextId.incrementAndGet());
+        info.setState(SandboxState.QUEUED);
+        info.setWeights(weight2Dispatch);
+        info.setEngineType(engineType);
+        info.setSeed(seed);
+        info.setTargetSeconds(targetSeconds);
+        info.setSubmittedTime(LocalDateTime.now());
+
+        SandboxRun run = new SandboxRun(info);
+        evictFinished();
+        sandboxes.put(info.getId(), run);
+        run.future = sandboxExecutor.submit(() -> execute(run));
+        log.info("沙箱 #{} 已提交，目标仿真时长 {} 秒。", info.getId(), targetSeconds);
+        return info;
+    }
+
+    /**
+     * 已结束的沙箱超过保留上限时，按提交顺序移除最早的几个
+     */
+    private void evictFinished() {
+        List<Long> finished = new ArrayList<>();
+        for (Map.Entry<Long, SandboxRun> entry : sandboxes.entrySet()) {
+            SandboxState state = entry.getValue().info.getState();
+            if (state != SandboxState.QUEUED && state != SandboxState.RUNNING) {
+                finished.add(entry.getKey());
+            }
+        }
+        for (int i = 0; i < finished.size() - Math.max(retainFinished, 0); i++) {
+            sandboxes.remove(finished.get(i));
+        }
+    }
+
+    private void execute(SandboxRun run) {
+        SandboxInfo info = run.info;
+        if (run.stopRequested) return;
+        info.setState(SandboxState.RUNNING);
+        try (SimulationSandbox sandbox = new SimulationSandbox(applicationContext)) {
+            run.sandbox = sandbox;
+            if (run.stopRequested) {
+                info.setState(SandboxState.STOPPED);
+                return;
+            }
+            SimulationSession session = sandbox.getSimulationService()
+                    .fastForward(info.getWeights(), info.getTargetSeconds(), info.getEngineType(), info.getSeed());
+            info.setSimulatedSeconds(sandbox.getSimulationTime());
+            info.setSession(session);
+            info.setState(run.stopRequested ? SandboxState.STOPPED : SandboxState.FINISHED);
+            log.info("沙箱 #{} 运行结束（{}），会话 #{}。", info.getId(), info.getState(),
+                    session != null ? session.getId() : null);
+        } catch (Exception e) {
+            info.setState(SandboxState.FAILED);
+            info.setError(e.getMessage());
+            log.error("沙箱 #{} 运行失败: {}", info.getId(), e.getMessage(), e);
+        } finally {
+            run.sandbox = null;
+            info.setFinishedTime(LocalDateTime.now());
+        }
+    }
+
+    @Override
+    public SandboxInfo get(Long sandboxId) {
+        SandboxRun run = sandboxes.get(sandboxId);
+        if (run == null) return null;
+        SimulationSandbox sandbox = run.sandbox;
+        if (sandbox != null) {
+            run.info.setSimulatedSeconds(sandbox.getSimulationTime());
+        }
+        return run.info;
+    }
+
+    @Override
+    public List<SandboxInfo> list() {
+        List<SandboxInfo> result = new ArrayList<>(sandboxes.size());
+        for (Long id : sandboxes.keySet()) {
+            SandboxInfo info = get(id);
+            if (info != null) result.add(info);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean stop(Long sandboxId) {
+        SandboxRun run = sandboxes.get(sandboxId);
+        if (run == null) return false;
+        SandboxState state = run.info.getState();
+        if (state != SandboxState.QUEUED && state != SandboxState.RUNNING) return false;
+
+        run.stopRequested = true;
+        if (state == SandboxState.QUEUED && run.future.cancel(false)) {
+            run.info.setState(SandboxState.STOPPED);
+            run.info.setFinishedTime(LocalDateTime.now());
+            return true;
+        }
+        SimulationSandbox sandbox = run.sandbox;
+        if (sandbox != null) {
+            sandbox.getSimulationService().stop();
+        }
+        return true;
+    }
+}
@@ -1,17 +1,31 @@
 package com.transportation.dispatch.service.impl;
 
+import com.transportation.dispatch.enumeration.DemandStatus;
+import com.transportation.dispatch.enumeration.SimulationEngineType;
 import com.transportation.dispatch.mapper.SimulationSessionMapper;
+import com.transportation.dispatch.metrics.SimulationMetrics;
 import com.transportation.dispatch.model.entity.SimulationSession;
+import com.transportation.dispatch.model.entity.TransportDemand;
+import com.transportation.dispatch.model.entity.Vehicle;
 import com.transportation.dispatch.model.entity.Weight2Dispatch;
+import com.transportation.dispatch.persistence.SimulationCheckpointStore;
 import com.transportation.dispatch.service.DemandService;
 import com.transportation.dispatch.service.DispatchService;
 import com.transportation.dispatch.service.SimulationService;
 import com.transportation.dispatch.service.VehicleService;
+import com.transportation.dispatch.simulation.SimulationCheckpoint;
+import com.transportation.dispatch.simulation.SimulationClock;
+import com.transportation.dispatch.simulation.SimulationRandom;
+import com.transportation.dispatch.simulation.SimulationTickEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -38,6 +52,16 @@ public class SimulationServiceImpl implements SimulationService {
     private VehicleService vehicleService;
     @Autowired
     private SimulationSessionMapper   sessionMapper;
+    @Autowired
+    private SimulationRandom simulationRandom;
+    @Autowired
+    private SimulationClock simulationClock;
+    @Autowired
+    private SimulationCheckpointStore checkpointStore;
+    @Autowired
+    private SimulationMetrics simulationMetrics;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     private Weight2Dispatch weight2dispatch;
     private LocalDateTime startTime;
     private Long currentSessionId;
@@ -45,6 +69,18 @@ public class SimulationServiceImpl implements SimulationService {
     // 用于跟踪当前是否有一个调度任务正在运行
     private Future<?> dispatchFuture = null;
 
+    // 默认引擎，可在启动仿真时按次指定
+    @Value("${simulation.engine:FIXED_TICK}")
+    private SimulationEngineType defaultEngineType;
+    private volatile SimulationEngineType engineType;
+    // 无头快进模式：不推送 WebSocket、不写 Redis，仿真时间不受真实时钟约束
+    private volatile boolean headless = false;
+    private volatile boolean stopRequested = false;
+
+    // 每隔多少个 tick 写一次检查点，0 表示不写
+    @Value("${simulation.checkpoint.interval-ticks:10}")
+    private int checkpointIntervalTicks;
+
     /**
      * 启动仿真
      */
@@ -52,8 +88,19 @@ public class SimulationServiceImpl implements SimulationService {
 
     @Override
     public void start(Weight2Dispatch weight2Dispatch) {
+        start(weight2Dispatch, null);
+    }
+
+    @Override
+    public void start(Weight2Dispatch weight2Dispatch, SimulationEngineType engineType) {
+        start(weight2Dispatch, engineType, null);
+    }
+
+    @Override
+    public void start(Weight2Dispatch weight2Dispatch, SimulationEngineType engineType, Long seed) {
         if (isRunning.compareAndSet(false, true)) {
             this.weight2dispatch = weight2Dispatch;
+            this.engineType = engineType != null ? engineType : defaultEngineType;
             dispatchExecutor=Executors.newFixedThreadPool(
                     Runtime.getRuntime().availableProcessors()
             );
@@ -69,9 +116,20 @@ public class SimulationServiceImpl implements SimulationService {
                         sessionToUse.getWeightTime(),
                         sessionToUse.getWeightWastedLoad(),
                         sessionToUse.getWeightWastedIdle(),
-                        sessionToUse.getUseWeight()
+                        sessionToUse.getUseWeight(),
+                        weight2Dispatch.getAssignmentAlgorithm() // 匹配方式不随会话保存，沿用本次传入的参数
                 );
 
+                SimulationCheckpoint checkpoint = checkpointStore.read(this.currentSessionId);
+                if (checkpoint != null) {
+                    restoreCheckpoint(checkpoint);
+                } else {
+                    // 没有检查点：沿用该会话的种子；旧会话没有记录种子时重新生成
+                    long sessionSeed = sessionToUse.getSeed() != null ? sessionToUse.getSeed() : newSeed(seed);
+                    simulationRandom.reseed(sessionSeed);
+                    log.info("继续会话 #{}，随机数种子: {}", this.currentSessionId, sessionSeed);
+                }
+
                 String finalSessionName = "数据沙箱 #" + this.currentSessionId;
                 if (!finalSessionName.equals(sessionToUse.getSessionName())) {
                     sessionToUse.setSessionName(finalSessionName);
@@ -80,34 +138,14 @@ public class SimulationServiceImpl implements SimulationService {
 
             } else {
                 // 情况 2: 未发现未完成的沙箱，创建新沙箱
-                this.startTime = LocalDateTime.now();
-                SimulationSession newSession = new SimulationSession(
-                        null,
-                        "Simulation Run", // 临时名称，稍后更新为最终名称
-                        this.startTime,
-                        null,
-                        weight2Dispatch.isUseWeight(),
-                        weight2Dispatch.getWeightTime(),
-                        weight2Dispatch.getWeightWastedLoad(),
-                        weight2Dispatch.getWeightWastedIdle(),
-                        null, null, null, null, null, null,null
-                );
-
-                sessionMapper.insert(newSession);
-                this.currentSessionId = newSession.getId();
-
-                String finalSessionName = "数据沙箱 #" + this.currentSessionId;
-                newSession.setSessionName(finalSessionName);
-                sessionMapper.update(newSession);
-
-                log.info("已创建新的仿真会话。会话ID: {}", this.currentSessionId);
+                createSession(weight2Dispatch, seed);
             }
 
             executorService = Executors.newSingleThreadScheduledExecutor();
 
             executorService.scheduleAtFixedRate(this::tick, 0, TICK_INTERVAL_MS, TimeUnit.MILLISECONDS);
 
-            log.info("仿真引擎已启动。仿真时间流速: {}秒/真实秒", TIME_STEP_SECONDS);
+            log.info("仿真引擎已启动（{}）。仿真时间流速: {}秒/真实秒", this.engineType, TIME_STEP_SECONDS);
 
         } else {
 
@@ -126,6 +164,12 @@ public class SimulationServiceImpl implements SimulationService {
      */
     @Override
     public void stop() {
+        if (headless) {
+            // 无头快进在调用线程上同步运行，这里只请求其提前结束，收尾工作由快进循环完成
+            stopRequested = true;
+            log.info("已请求终止无头快进仿真。");
+            return;
+        }
         if (isRunning.compareAndSet(true, false)) {
             if (executorService != null) {
                 executorService.shutdown();
@@ -133,44 +177,21 @@ public class SimulationServiceImpl implements SimulationService {
                 log.info("仿真引擎已停止。");
 
 
+                saveSessionResults(null);
+                // --- 优化 2.1 结束 ---
+
+                // 会话已正常结束，检查点不再需要
                 if (this.currentSessionId != null) {
-                    // 1. 根据ID加载记录
-                    SimulationSession session = sessionMapper.findById(this.currentSessionId);
-
-                    if (session != null) {
-                        // 2. 收集统计数据
-                        session.setEndTime(LocalDateTime.now());
-                        session.setUseWeight(weight2dispatch.isUseWeight());
-                        session.setWeightTime(weight2dispatch.getWeightTime());
-                        session.setWeightWastedLoad(weight2dispatch.getWeightWastedLoad());
-                        session.setWeightWastedIdle(weight2dispatch.getWeightWastedIdle());
-                        session.setAvgNoLoadDistance(vehicleService.getTotalNoLoadDistance());
-                        session.setAvgLoadDistance(vehicleService.getTotalLoadDistance());
-                        session.setAvgTotalDuration(vehicleService.getTotalDuration());
-                        session.setAvgWaitingDuration(vehicleService.getTotalWaitingDuration());
-                        session.setTotalDemandsCompleted(demandService.getCompletedDemandCount());
-                        session.setTotalWastedCapacity(vehicleService.getTotalWastedCapacity());
-
-                        // 3. 构建并设置最终名称
-                        String finalSessionName = "数据沙箱 #" + this.currentSessionId;
-                        session.setSessionName(finalSessionName);
-
-                        // 4. 更新数据库
-                        sessionMapper.update(session);
-                        log.info("仿真会话 #{} 结果已保存并命名为: {}", this.currentSessionId, finalSessionName);
-                    } else {
-                        log.error("尝试停止仿真时，未找到ID为 {} 的会话记录！", this.currentSessionId);
-                    }
-                } else {
-                    log.warn("currentSessionId 为 null，未保存本次仿真结果。");
+                    checkpointStore.delete(this.currentSessionId);
                 }
-                // --- 优化 2.1 结束 ---
 
                 // 2. 清空 TransportDemand 表
                 demandService.deleteAll();
 
                 // 3. 批量重置所有车辆
                 vehicleService.resetAllVehicles();
+                vehicleService.publishPositions();
+                eventPublisher.publishEvent(new SimulationTickEvent(simulationTime));
 
                 // 4. 清理会话状态
                 this.currentSessionId = null;
@@ -185,44 +206,264 @@ public class SimulationServiceImpl implements SimulationService {
      */
     private void tick() {
         try {
-            simulationTime += TIME_STEP_SECONDS;
+            long start = System.nanoTime();
+            advance();
+            simulationMetrics.recordTick(System.nanoTime() - start, TimeUnit.MILLISECONDS.toNanos(TICK_INTERVAL_MS));
+        } catch (Exception e) {
+            log.error("仿真tick发生严重错误，引擎将停止: {}", e.getMessage(), e);
+            stop(); // 发生未知异常时自动停止
+        }
+    }
+
+    /**
+     * 推进一个仿真步长：需求生成、调度分配、车辆状态更新
+     */
+    private void advance() {
+        simulationTime += TIME_STEP_SECONDS;
+        simulationClock.set(simulationTime);
+        if (headless) {
+            log.debug("--- Simulation Tick! Current Time: {}s ---", simulationTime);
+        } else {
             log.info("--- Simulation Tick! Current Time: {}s ---", simulationTime);
+        }
+
+        // 【1. 需求生成】
+        simulationMetrics.timePhase(SimulationMetrics.PHASE_DEMAND_GENERATION, demandService::generateDemands);
+
+        // 【2. 调度分配】无头模式下同步执行，保证每个步长的调度结果都已落库
+        long dispatchStart = System.nanoTime();
+        if (headless) {
+            dispatchPendingDemands();
+        } else if (dispatchFuture == null || dispatchFuture.isDone()) {
+            Runnable dispatchTask = () -> {
+                try {
+                    dispatchPendingDemands();
+                    log.debug("异步调度任务完成。");
+                } catch (Exception e) {
+                    log.error("异步调度任务执行失败:", e);
+                }
+            };
+
+            dispatchFuture = dispatchExecutor.submit(dispatchTask);
+            log.debug("已提交异步调度任务。");
+
+        } else {
+            // 这是正常的，调度是一个后台任务，允许跨越多个 tick
+            simulationMetrics.dispatchOverlapped();
+            log.debug("上一个调度任务仍在运行中，等待完成。");
+        }
+        simulationMetrics.recordPhase(SimulationMetrics.PHASE_DISPATCH_SUBMIT, System.nanoTime() - dispatchStart);
 
-            // 【1. 需求生成】
-            demandService.generateDemands();
-
-            // 【2. 异步调度分配】
-            if (dispatchFuture == null || dispatchFuture.isDone()) {
-                Runnable dispatchTask = () -> {
-                    try {
-                        if (weight2dispatch.isUseWeight()) {
-                            dispatchService.dispatchPendingDemandsByCost(weight2dispatch);
-                        } else {
-                            dispatchService.dispatchPendingDemands();
-                        }
-                        log.debug("异步调度任务完成。");
-                    } catch (Exception e) {
-                        log.error("异步调度任务执行失败:", e);
-                    }
-                };
-
-                dispatchFuture = dispatchExecutor.submit(dispatchTask);
-                log.debug("已提交异步调度任务。");
 
+        // 【3. 状态更新】
+        simulationMetrics.timePhase(SimulationMetrics.PHASE_VEHICLE_UPDATE, () -> {
+            if (engineType == SimulationEngineType.DISCRETE_EVENT) {
+                vehicleService.processVehicleEvents(simulationTime, TIME_STEP_SECONDS);
             } else {
-                // 这是正常的，调度是一个后台任务，允许跨越多个 tick
-                log.debug("上一个调度任务仍在运行中，等待完成。");
+                vehicleService.updateAllVehiclesState(simulationTime, TIME_STEP_SECONDS);
+            }
+        });
+        simulationMetrics.updateVehicleCounts(vehicleService.countVehiclesByStatus());
+        if (!headless) {
+            simulationMetrics.timePhase(SimulationMetrics.PHASE_REDIS_WRITE, vehicleService::publishPositions);
+            // 推送在推送线程上进行，这里只通知 tick 已完成
+            eventPublisher.publishEvent(new SimulationTickEvent(simulationTime));
+        }
+
+        // 【4. 检查点】
+        if (!headless && checkpointIntervalTicks > 0
+                && (simulationTime / TIME_STEP_SECONDS) % checkpointIntervalTicks == 0) {
+            simulationMetrics.timePhase(SimulationMetrics.PHASE_CHECKPOINT, this::writeCheckpoint);
+        }
+    }
+
+    /**
+     * 在 tick 线程上只采集内存中的运行时状态；任务表的查询、序列化和写盘都交给检查点写线程
+     */
+    private void writeCheckpoint() {
+        if (currentSessionId == null) return;
+        SimulationCheckpoint checkpoint = new SimulationCheckpoint();
+        checkpoint.setSessionId(currentSessionId);
+        checkpoint.setSimulationTime(simulationTime);
+        checkpoint.setEngineType(engineType);
+        checkpoint.setSeed(simulationRandom.getSeed());
+        checkpoint.setCreatedTime(System.currentTimeMillis());
+        checkpoint.setSubsystemRandomStates(simulationRandom.exportSubsystemStates());
+        checkpoint.setVehicleRandomStates(simulationRandom.exportVehicleStates());
+        vehicleService.captureCheckpoint(checkpoint);
+        checkpointStore.submit(checkpoint, pending -> pending.setDemands(demandService.findAllDemands()));
+    }
+
+    /**
+     * 从检查点恢复仿真时钟、随机流、任务表和车队，之后的推进与未中断时一致
+     */
+    private void restoreCheckpoint(SimulationCheckpoint checkpoint) {
+        simulationTime = checkpoint.getSimulationTime();
+        simulationClock.set(simulationTime);
+        simulationRandom.restore(checkpoint.getSeed(), checkpoint.getSubsystemRandomStates(), checkpoint.getVehicleRandomStates());
+
+        // 实时模式下调度是异步的，检查点中可能有已分配给车辆、但该车辆尚未同步到这次分配的任务，退回待分配
+        Set<Long> referencedDemandIds = new HashSet<>();
+        for (Vehicle vehicle : checkpoint.getVehicles()) {
+            if (vehicle.getCurrentDemandId() != null) referencedDemandIds.add(vehicle.getCurrentDemandId());
+        }
+        for (TransportDemand demand : checkpoint.getDemands()) {
+            if (demand.getStatus() == DemandStatus.ASSIGNED && !referencedDemandIds.contains(demand.getId())) {
+                demand.setStatus(DemandStatus.PENDING);
+                demand.setAssignedVehicleId(null);
+                demand.setAssignmentTime(null);
             }
+        }
+        demandService.restoreDemands(checkpoint.getDemands());
+
+        // 离散事件的调度状态只对同一种引擎有效，换用另一种引擎时按车辆状态重新安排
+        if (checkpoint.getEngineType() != engineType) {
+            checkpoint.setEventStateInitialized(false);
+        }
+        vehicleService.restoreCheckpoint(checkpoint);
+        log.info("会话 #{} 已从检查点恢复，仿真时间 {}s，随机数种子: {}",
+                checkpoint.getSessionId(), simulationTime, checkpoint.getSeed());
+    }
 
+    private void dispatchPendingDemands() {
+        long start = System.nanoTime();
+        if (weight2dispatch.isUseWeight()) {
+            dispatchService.dispatchPendingDemandsByCost(weight2dispatch);
+        } else {
+            dispatchService.dispatchPendingDemands();
+        }
+        simulationMetrics.recordDispatch(System.nanoTime() - start);
+    }
 
-            // 【3. 状态更新】
-            vehicleService.updateAllVehiclesState(simulationTime, TIME_STEP_SECONDS);
+    @Override
+    public SimulationSession fastForward(Weight2Dispatch weight2Dispatch, long targetSeconds, SimulationEngineType engineType, Long seed) {
+        if (!isRunning.compareAndSet(false, true)) {
+            throw new IllegalStateException("仿真引擎已在运行中");
+        }
+        headless = true;
+        stopRequested = false;
+        long wallStart = System.currentTimeMillis();
+        try {
+            this.weight2dispatch = weight2Dispatch;
+            this.engineType = engineType != null ? engineType : defaultEngineType;
+            // 快进用于评估给定的权重配置，总是创建新会话，不沿用未完成的会话
+            createSession(weight2Dispatch, seed);
+            long endTime = simulationTime + targetSeconds;
+            log.info("无头快进仿真开始（{}），目标仿真时长 {} 秒。", this.engineType, targetSeconds);
+
+            // 不等待真实时间，逐步长背靠背推进
+            while (simulationTime < endTime && !stopRequested) {
+                advance();
+            }
 
-        } catch (Exception e) {
-            log.error("仿真tick发生严重错误，引擎将停止: {}", e.getMessage(), e);
-            stop(); // 发生未知异常时自动停止
+            long simulated = targetSeconds - Math.max(0, endTime - simulationTime);
+            long elapsedMs = System.currentTimeMillis() - wallStart;
+            String notes = String.format("无头快进: 仿真 %d 秒, 耗时 %d 毫秒, 种子 %d%s",
+                    simulated, elapsedMs, simulationRandom.getSeed(), stopRequested ? "（提前终止）" : "");
+            SimulationSession session = saveSessionResults(notes);
+            log.info("无头快进仿真结束，仿真 {} 秒，耗时 {} ms。", simulated, elapsedMs);
+            return session;
+        } finally {
+            demandService.deleteAll();
+            vehicleService.resetAllVehicles();
+            this.currentSessionId = null;
+            headless = false;
+            stopRequested = false;
+            isRunning.set(false);
         }
     }
+
+    /**
+     * 创建新的仿真会话记录并设为当前会话。
+     * 仿真时间从 0 开始，随机流按会话种子重新派生，使同一种子的运行可以复现。
+     * @param seed 为 null 时随机生成
+     */
+    private void createSession(Weight2Dispatch weight2Dispatch, Long seed) {
+        this.startTime = LocalDateTime.now();
+        long sessionSeed = newSeed(seed);
+        simulationRandom.reseed(sessionSeed);
+        simulationTime = 0L;
+        simulationClock.set(0L);
+        SimulationSession newSession = new SimulationSession(
+                null,
+                "Simulation Run", // 临时名称，稍后更新为最终名称
+                this.startTime,
+                null,
+                weight2Dispatch.isUseWeight(),
+                weight2Dispatch.getWeightTime(),
+                weight2Dispatch.getWeightWastedLoad(),
+                weight2Dispatch.getWeightWastedIdle(),
+                null, null, null, null, null, null,null
+        );
+        newSession.setSeed(sessionSeed);
+
+        sessionMapper.insert(newSession);
+        this.currentSessionId = newSession.getId();
+
+        String finalSessionName = "数据沙箱 #" + this.currentSessionId;
+        newSession.setSessionName(finalSessionName);
+        sessionMapper.update(newSession);
+
+        log.info("已创建新的仿真会话。会话ID: {}，随机数种子: {}", this.currentSessionId, sessionSeed);
+    }
+
+    private static long newSeed(Long requested) {
+        return requested != null ? requested : ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * 收集统计数据并写入当前会话记录
+     * @param notes 备注，为 null 时保留原值
+     * @return 更新后的会话；没有当前会话时返回 null
+     */
+    private SimulationSession saveSessionResults(String notes) {
+        SimulationSession session = null;
+        if (this.currentSessionId != null) {
+            // 1. 根据ID加载记录
+            session = sessionMapper.findById(this.currentSessionId);
+
+            if (session != null) {
+                // 2. 收集统计数据
+                session.setEndTime(LocalDateTime.now());
+                session.setUseWeight(weight2dispatch.isUseWeight());
+                session.setWeightTime(weight2dispatch.getWeightTime());
+                session.setWeightWastedLoad(weight2dispatch.getWeightWastedLoad());
+                session.setWeightWastedIdle(weight2dispatch.getWeightWastedIdle());
+                session.setAvgNoLoadDistance(vehicleService.getTotalNoLoadDistance());
+                session.setAvgLoadDistance(vehicleService.getTotalLoadDistance());
+                session.setAvgTotalDuration(vehicleService.getTotalDuration());
+                session.setAvgWaitingDuration(vehicleService.getTotalWaitingDuration());
+                session.setTotalDemandsCompleted(demandService.getCompletedDemandCount());
+                session.setTotalWastedCapacity(vehicleService.getTotalWastedCapacity());
+                if (notes != null) {
+                    session.setNotes(notes);
+                }
+
+                // 3. 构建并设置最终名称
+                String finalSessionName = "数据沙箱 #" + this.currentSessionId;
+                session.setSessionName(finalSessionName);
+
+                // 4. 更新数据库
+                sessionMapper.update(session);
+                log.info("仿真会话 #{} 结果已保存并命名为: {}", this.currentSessionId, finalSessionName);
+            } else {
+                log.error("尝试停止仿真时，未找到ID为 {} 的会话记录！", this.currentSessionId);
+            }
+        } else {
+            log.warn("currentSessionId 为 null，未保存本次仿真结果。");
+        }
+        return session;
+    }
+    @Override
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    @Override
+    public SimulationEngineType getEngineType() {
+        return engineType != null ? engineType : defaultEngineType;
+    }
+
     @Override
     public boolean isRunning() {
         return isRunning.get();
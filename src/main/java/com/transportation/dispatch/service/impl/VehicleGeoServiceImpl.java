@@ -0,0 +1,209 @@
+package com.transportation.dispatch.service.impl;
+
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.model.dto.VehicleLocationDto;
+import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.model.geo.GeoUtils;
+import com.transportation.dispatch.service.VehicleGeoService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.geo.*;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.domain.geo.BoundingBox;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Predicate;
+
+@Service
+@Slf4j
+public class VehicleGeoServiceImpl implements VehicleGeoService {
+
+    // 车辆位置的 GEO 集合（成员为车辆ID）与车辆状态哈希
+    static final String GEO_KEY = "vehicle:geo";
+    static final String STATUS_KEY = "vehicle:status";
+    private static final byte[] GEO_KEY_BYTES = GEO_KEY.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] STATUS_KEY_BYTES = STATUS_KEY.getBytes(StandardCharsets.UTF_8);
+    // 单条 GEOADD / HSET 命令携带的最大成员数
+    private static final int COMMAND_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    // 每隔多少次发布做一次全量重建，纠正 Redis 被清空或被其他进程改写造成的偏差；0 表示只在启动和发布失败后重建
+    @Value("${simulation.geo.full-resync-interval:300}")
+    private int fullResyncInterval;
+
+    // 已写入 Redis 的位置（打包的微度坐标）和状态，用于只发布变化的部分
+    private final Map<Long, Long> publishedPositions = new HashMap<>();
+    private final Map<Long, VehicleStatus> publishedStatuses = new HashMap<>();
+    // 下一次发布是否需要全量重建。启动时 Redis 中可能残留上次运行的车辆，必须先清空
+    private boolean resyncRequired = true;
+    private int publishesSinceResync = 0;
+
+    @Override
+    public synchronized void publish(Collection<Vehicle> vehicles) {
+        boolean fullResync = resyncRequired || (fullResyncInterval > 0 && ++publishesSinceResync >= fullResyncInterval);
+        if (fullResync) {
+            // 全量重建时视为从未发布过：删除两个键后写入全部车辆
+            publishedPositions.clear();
+            publishedStatuses.clear();
+        }
+        Map<byte[], Point> positions = new LinkedHashMap<>();
+        Map<byte[], byte[]> statuses = new LinkedHashMap<>();
+        Map<Long, Long> newPositions = new HashMap<>();
+        Map<Long, VehicleStatus> newStatuses = new HashMap<>();
+        Set<Long> present = new HashSet<>(vehicles.size() * 2);
+
+        for (Vehicle vehicle : vehicles) {
+            Long id = vehicle.getId();
+            present.add(id);
+            byte[] member = bytes(id.toString());
+            Coordinate position = vehicle.getCurrentPosition();
+            if (position != null && !Objects.equals(publishedPositions.get(id), position.getPacked())) {
+                positions.put(member, new Point(position.getLng(), position.getLat()));
+                newPositions.put(id, position.getPacked());
+            }
+            if (vehicle.getStatus() != null && publishedStatuses.get(id) != vehicle.getStatus()) {
+                statuses.put(member, bytes(vehicle.getStatus().name()));
+                newStatuses.put(id, vehicle.getStatus());
+            }
+        }
+        // 只发布过状态、没有发布过位置的车辆也要从状态哈希中删除
+        Set<Long> published = new HashSet<>(publishedPositions.keySet());
+        published.addAll(publishedStatuses.keySet());
+        List<Long> removed = new ArrayList<>();
+        for (Long id : published) {
+            if (!present.contains(id)) removed.add(id);
+        }
+        if (!fullResync && positions.isEmpty() && statuses.isEmpty() && removed.isEmpty()) return;
+
+        try {
+            // 所有命令在一个流水线中发出，每个 tick 只有一次网络往返
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                if (fullResync) {
+                    connection.keyCommands().del(GEO_KEY_BYTES, STATUS_KEY_BYTES);
+                }
+                writeChunked(connection, positions, statuses);
+                if (!removed.isEmpty()) {
+                    byte[][] members = removed.stream().map(id -> bytes(id.toString())).toArray(byte[][]::new);
+                    connection.zSetCommands().zRem(GEO_KEY_BYTES, members);
+                    connection.hashCommands().hDel(STATUS_KEY_BYTES, members);
+                }
+                return null;
+            });
+            publishedPositions.putAll(newPositions);
+            publishedStatuses.putAll(newStatuses);
+            removed.forEach(id -> {
+                publishedPositions.remove(id);
+                publishedStatuses.remove(id);
+            });
+            if (fullResync) {
+                resyncRequired = false;
+                publishesSinceResync = 0;
+                log.info("已全量重建 Redis GEO 索引，共 {} 个车辆位置。", positions.size());
+            }
+            log.debug("已发布 {} 个车辆位置、{} 个车辆状态到 Redis GEO 索引。", positions.size(), statuses.size());
+        } catch (Exception e) {
+            // 流水线可能已部分执行，已发布记录不再可信，下一个 tick 全量重建
+            resyncRequired = true;
+            log.warn("Redis连接失败，本 tick 的 {} 个车辆位置未写入 GEO 索引: {}", positions.size(), e.getMessage());
+        }
+    }
+
+    private static void writeChunked(RedisConnection connection, Map<byte[], Point> positions, Map<byte[], byte[]> statuses) {
+        Map<byte[], Point> positionChunk = new LinkedHashMap<>();
+        for (Map.Entry<byte[], Point> entry : positions.entrySet()) {
+            positionChunk.put(entry.getKey(), entry.getValue());
+            if (positionChunk.size() == COMMAND_CHUNK_SIZE) {
+                connection.geoCommands().geoAdd(GEO_KEY_BYTES, positionChunk);
+                positionChunk = new LinkedHashMap<>();
+            }
+        }
+        if (!positionChunk.isEmpty()) connection.geoCommands().geoAdd(GEO_KEY_BYTES, positionChunk);
+
+        Map<byte[], byte[]> statusChunk = new LinkedHashMap<>();
+        for (Map.Entry<byte[], byte[]> entry : statuses.entrySet()) {
+            statusChunk.put(entry.getKey(), entry.getValue());
+            if (statusChunk.size() == COMMAND_CHUNK_SIZE) {
+                connection.hashCommands().hMSet(STATUS_KEY_BYTES, statusChunk);
+                statusChunk = new LinkedHashMap<>();
+            }
+        }
+        if (!statusChunk.isEmpty()) connection.hashCommands().hMSet(STATUS_KEY_BYTES, statusChunk);
+    }
+
+    @Override
+    public List<VehicleLocationDto> findWithinRadius(double lng, double lat, double radiusMeters, VehicleStatus status) {
+        GeoResults<RedisGeoCommands.GeoLocation<String>> results = redisTemplate.opsForGeo().search(
+                GEO_KEY,
+                GeoReference.fromCoordinate(lng, lat),
+                new Distance(radiusMeters, RedisGeoCommands.DistanceUnit.METERS),
+                RedisGeoCommands.GeoSearchCommandArgs.newGeoSearchArgs().includeCoordinates().includeDistance().sortAscending());
+        return toLocations(results, status, null);
+    }
+
+    @Override
+    public List<VehicleLocationDto> findWithinBox(double minLng, double minLat, double maxLng, double maxLat, VehicleStatus status) {
+        double centerLng = (minLng + maxLng) / 2;
+        double centerLat = (minLat + maxLat) / 2;
+        // BYBOX 以米为单位；经度方向按离赤道最近的边计算宽度，保证矩形完全覆盖，多出的部分按经纬度精确过滤
+        double widestLat = minLat <= 0 && maxLat >= 0 ? 0 : Math.min(Math.abs(minLat), Math.abs(maxLat));
+        double width = GeoUtils.haversine(minLng, widestLat, maxLng, widestLat);
+        double height = GeoUtils.haversine(centerLng, minLat, centerLng, maxLat);
+
+        GeoResults<RedisGeoCommands.GeoLocation<String>> results = redisTemplate.opsForGeo().search(
+                GEO_KEY,
+                GeoReference.fromCoordinate(centerLng, centerLat),
+                new BoundingBox(width, height, RedisGeoCommands.DistanceUnit.METERS),
+                RedisGeoCommands.GeoSearchCommandArgs.newGeoSearchArgs().includeCoordinates());
+        return toLocations(results, status, point -> point.getX() >= minLng && point.getX() <= maxLng
+                && point.getY() >= minLat && point.getY() <= maxLat);
+    }
+
+    /**
+     * 组装查询结果，并用一次 HMGET 取回所有命中车辆的状态
+     */
+    private List<VehicleLocationDto> toLocations(GeoResults<RedisGeoCommands.GeoLocation<String>> results,
+                                                 VehicleStatus status,
+                                                 Predicate<Point> filter) {
+        if (results == null || results.getContent().isEmpty()) return Collections.emptyList();
+
+        List<GeoResult<RedisGeoCommands.GeoLocation<String>>> hits = new ArrayList<>();
+        for (GeoResult<RedisGeoCommands.GeoLocation<String>> hit : results.getContent()) {
+            if (filter == null || filter.test(hit.getContent().getPoint())) hits.add(hit);
+        }
+        if (hits.isEmpty()) return Collections.emptyList();
+
+        List<Object> ids = new ArrayList<>(hits.size());
+        for (GeoResult<RedisGeoCommands.GeoLocation<String>> hit : hits) {
+            ids.add(hit.getContent().getName());
+        }
+        List<Object> statuses = redisTemplate.opsForHash().multiGet(STATUS_KEY, ids);
+
+        List<VehicleLocationDto> locations = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            Object statusText = statuses.get(i);
+            VehicleStatus vehicleStatus = statusText != null ? VehicleStatus.valueOf(statusText.toString()) : null;
+            if (status != null && vehicleStatus != status) continue;
+
+            GeoResult<RedisGeoCommands.GeoLocation<String>> hit = hits.get(i);
+            Point point = hit.getContent().getPoint();
+            Double distance = filter == null ? hit.getDistance().getValue() : null;
+            locations.add(new VehicleLocationDto(Long.valueOf(hit.getContent().getName()), vehicleStatus,
+                    point.getX(), point.getY(), distance));
+        }
+        return locations;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,30 +1,47 @@
 package com.transportation.dispatch.service.impl;
 
-import com.alibaba.fastjson.JSON;
 import com.transportation.dispatch.enumeration.DemandStatus;
+import com.transportation.dispatch.enumeration.VehicleEventType;
 import com.transportation.dispatch.enumeration.VehicleStatus;
-import com.transportation.dispatch.mapper.PoiMapper;
-import com.transportation.dispatch.mapper.RouteCacheMapper;
 import com.transportation.dispatch.mapper.TransportDemandMapper;
 import com.transportation.dispatch.mapper.VehicleMapper;
+import com.transportation.dispatch.metrics.SimulationMetrics;
+import com.transportation.dispatch.model.dto.VehicleDeltaMessage;
 import com.transportation.dispatch.model.dto.VehicleDto;
+import com.transportation.dispatch.model.dto.VehicleSnapshotMessage;
+import com.transportation.dispatch.model.dto.VehicleSubscriptionRequest;
 import com.transportation.dispatch.model.entity.RouteCache;
 import com.transportation.dispatch.model.entity.TransportDemand;
 import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.model.geo.RouteGeometry;
+import com.transportation.dispatch.persistence.VehicleWriteBehindBuffer;
+import com.transportation.dispatch.projection.PoiSnapshot;
+import com.transportation.dispatch.projection.PoiStore;
+import com.transportation.dispatch.projection.VehicleProjection;
+import com.transportation.dispatch.projection.VehicleSubscriptions;
+import com.transportation.dispatch.projection.VehicleWireCodec;
 import com.transportation.dispatch.service.DemandService;
 import com.transportation.dispatch.service.RouteService;
+import com.transportation.dispatch.service.VehicleGeoService;
 import com.transportation.dispatch.service.VehicleService;
 import com.transportation.dispatch.service.WeatherService;
+import com.transportation.dispatch.simulation.SimulationCheckpoint;
+import com.transportation.dispatch.simulation.SimulationRandom;
+import com.transportation.dispatch.simulation.VehicleEvent;
+import com.transportation.dispatch.simulation.VehicleEventQueue;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
 
 @Service
 @Slf4j
@@ -35,201 +52,511 @@ public class VehicleServiceImpl implements VehicleService {
     @Autowired
     private TransportDemandMapper transportDemandMapper;
     @Autowired
-    private RouteCacheMapper routeCacheMapper;
-    @Autowired
     private DemandService demandService;
     @Autowired
     private RouteService routeService;
     @Autowired
-    private PoiMapper poiMapper;
+    private PoiStore poiStore;
     @Autowired
-    private StringRedisTemplate redisTemplate;
+    private VehicleGeoService vehicleGeoService;
     @Autowired
     private WeatherService weatherService;
+    @Autowired
+    private VehicleWriteBehindBuffer vehicleWriteBehindBuffer;
+    @Autowired
+    private SimulationRandom simulationRandom;
+    @Autowired
+    private SimulationMetrics simulationMetrics;
 
     private final Map<Long, Vehicle> runtimeVehicleCache = new ConcurrentHashMap<>();
+    // 增量同步水位线：已同步到的最大 last_update_time，为 null 表示尚未全量加载
+    private volatile LocalDateTime syncWatermark;
+    // 水位线那一秒内已同步过的行。last_update_time 只精确到秒，同一秒内之后的修改只能靠重读这一秒发现，
+    // 重读时状态与这里记录的相同的行被跳过
+    private final Map<Long, Vehicle> syncedAtWatermark = new ConcurrentHashMap<>();
+    // 被显式标记为需要重新从数据库读取的车辆
+    private final Set<Long> invalidatedVehicleIds = ConcurrentHashMap.newKeySet();
+
+    // ---- 离散事件引擎状态 ----
+    private final VehicleEventQueue eventQueue = new VehicleEventQueue();
+    // 行驶中的车辆位置每个 tick 都在变化，仍需逐 tick 推进；按ID有序以保证遍历顺序确定
+    private final Set<Long> movingVehicleIds = new ConcurrentSkipListSet<>();
+    // 空闲车辆上一次结算等待时长的仿真时间，等待时长在离开空闲状态或读取时再结算
+    private final Map<Long, Long> idleSince = new ConcurrentHashMap<>();
+    private volatile boolean eventStateInitialized = false;
+    // 离散事件引擎最近处理到的仿真时间
+    private volatile long eventClock = 0L;
 
     private static final long LOADING_DURATION_SECONDS = 5 * 60; // 5分钟
     private static final long UNLOADING_DURATION_SECONDS = 5 * 60; // 5分钟
     private static final long  timeStepSeconds = 60;
+    // 空闲车辆每个 tick 触发随机事件（维修或离线）的概率
+    private static final double IDLE_INCIDENT_PROBABILITY = 0.1;
+    // 每个分片至少包含的车辆数，以及每个工作线程分到的分片数（用于负载均衡）
+    private static final int MIN_SHARD_SIZE = 256;
+    private static final int SHARDS_PER_WORKER = 4;
+
+    // 所有沙箱共享的仿真工作线程池，见 SimulationExecutorConfig
+    @Autowired
+    @Qualifier("simulationWorkerPool")
+    private ForkJoinPool tickPool;
+
+    // getVehicles 的读模型，由 tick 增量维护
+    private VehicleProjection vehicleProjection;
+    // 按 WebSocket 会话过滤的订阅，基于同一个投影
+    private VehicleSubscriptions vehicleSubscriptions;
+    // 响应式数据流（SSE）的订阅，与 WebSocket 会话分开，避免被 WebSocket 推送取走
+    private VehicleSubscriptions vehicleStreams;
+
+    @PostConstruct
+    public void initProjection() {
+        vehicleProjection = new VehicleProjection(transportDemandMapper::findByIds, id -> poiStore.snapshot().findById(id), vehicleMapper::findMaxLoad,
+                weatherService::getWeatherByLocation);
+        vehicleSubscriptions = new VehicleSubscriptions(vehicleProjection);
+        vehicleStreams = new VehicleSubscriptions(vehicleProjection);
+    }
 
     @Override
     public List<VehicleDto> getVehicles(VehicleStatus  status) {
-        // 此方法逻辑保持不变，继续为前端提供数据
-        List<Vehicle> vehicles= runtimeVehicleCache.values().stream()
-                .filter(v -> status == null || v.getStatus() == status)
-                .toList();
-        vehicles.forEach(v -> {
-            if (v.getStatus().equals(VehicleStatus.MOVING_TO_PICKUP)||v.getStatus().equals(VehicleStatus.IN_TRANSIT))
-            {
-
-                try {
-                    redisTemplate.opsForValue().set("vehicle_lat:" + v.getId(), JSON.toJSONString(v.getCurrentLat()));
-                    redisTemplate.opsForValue().set("vehicle_lng:" + v.getId(), JSON.toJSONString(v.getCurrentLng()));
-                } catch (Exception e) {
-                    // 仅记录警告日志，不要抛出异常，让程序继续运行
-                    log.warn("Redis连接失败，车辆 #{} 状态未写入缓存，将仅使用内存数据。", v.getId());
-                }
-            }
+        return getVehicles(status, 0);
+    }
 
-        });
-
-        if (vehicles.stream().anyMatch(v -> v.getCurrentDemandId() != null)) {
-            List<Long> demandIds = vehicles.stream()
-                    .map(Vehicle::getCurrentDemandId)
-                    .filter(Objects::nonNull)
-                    .distinct()
-                    .collect(Collectors.toList());
-            if(!demandIds.isEmpty()) {
-                Map<Long, TransportDemand> demandMap = transportDemandMapper.findByIds(demandIds)
-                        .stream().collect(Collectors.toMap(TransportDemand::getId, d -> d));
-                for (Vehicle vehicle : vehicles) {
-                    if (vehicle.getCurrentDemandId() != null) {
-                        TransportDemand demand = demandMap.get(vehicle.getCurrentDemandId());
-                        if (demand != null) {
-                            String normalizedOrigin = routeService.normalizeCoords(transportDemandMapper.findPoiCoordsById(demand.getOriginPoiId()));
-                            String normalizedDest = routeService.normalizeCoords(transportDemandMapper.findPoiCoordsById(demand.getDestinationPoiId()));
-                            if (normalizedOrigin != null && normalizedDest != null) {
-
-                                String rawStart = vehicle.getStatus() == VehicleStatus.IN_TRANSIT ? normalizedOrigin : vehicle.getCurrentLng() + "," + vehicle.getCurrentLat();
-                                String routeEnd = vehicle.getStatus() == VehicleStatus.IN_TRANSIT ? normalizedDest : normalizedOrigin;
-
-                                String normalizedRouteStart = routeService.normalizeCoords(rawStart);
-
-                                RouteCache route = routeCacheMapper.findByOriginAndDestination(normalizedRouteStart, routeEnd); // routeEnd已经是标准化后的POI坐标
-
-                                if (route != null) {
-                                    vehicle.setRoutePolyline(route.getPolyline());
-                                }
-                            }
-                        }
-                    }
-                }
+    @Override
+    public List<VehicleDto> getVehicles(VehicleStatus status, int polylineLevel) {
+        // 读取 tick 维护的投影（含天气），不访问数据库；车辆位置由 tick 通过 publishPositions 写入 Redis
+        List<VehicleDto> vehicles = vehicleProjection.snapshot(status, polylineLevel);
+        settleIdleWaiting(vehicles);
+        return vehicles;
+    }
+
+    @Override
+    public VehicleSnapshotMessage getVehicleSnapshot() {
+        VehicleSnapshotMessage snapshot = vehicleProjection.snapshotMessage();
+        settleIdleWaiting(snapshot.getVehicles());
+        return snapshot;
+    }
+
+    @Override
+    public VehicleDeltaMessage drainVehicleDelta() {
+        return vehicleProjection.drainDelta();
+    }
+
+    @Override
+    public VehicleSnapshotMessage subscribeVehicles(String sessionId, VehicleSubscriptionRequest filter) {
+        VehicleSnapshotMessage snapshot = vehicleSubscriptions.subscribe(sessionId, filter);
+        settleIdleWaiting(snapshot.getVehicles());
+        return snapshot;
+    }
+
+    @Override
+    public void unsubscribeVehicles(String sessionId) {
+        vehicleSubscriptions.unsubscribe(sessionId);
+    }
+
+    @Override
+    public Map<String, Object> drainSubscribedVehicleDeltas(Predicate<String> ready) {
+        Map<String, Object> payloads = new HashMap<>();
+        vehicleSubscriptions.drainDeltas(ready).forEach((sessionId, delta) ->
+                payloads.put(sessionId, vehicleSubscriptions.isBinary(sessionId) ? VehicleWireCodec.encode(delta) : delta));
+        return payloads;
+    }
+
+    @Override
+    public VehicleSnapshotMessage openVehicleStream(String streamId, VehicleSubscriptionRequest filter) {
+        VehicleSnapshotMessage snapshot = vehicleStreams.subscribe(streamId, filter);
+        settleIdleWaiting(snapshot.getVehicles());
+        return snapshot;
+    }
+
+    @Override
+    public VehicleDeltaMessage drainVehicleStream(String streamId) {
+        return vehicleStreams.drainDelta(streamId);
+    }
+
+    @Override
+    public void closeVehicleStream(String streamId) {
+        vehicleStreams.unsubscribe(streamId);
+    }
+
+    @Override
+    public List<Long> findNearestIdleVehicles(Coordinate center, int k, LongPredicate accept) {
+        return vehicleProjection.nearestIdle(center, k, accept);
+    }
+
+    /**
+     * 离散事件模式下空闲车辆的等待时长在读取时结算
+     */
+    private void settleIdleWaiting(List<VehicleDto> vehicles) {
+        for (VehicleDto dto : vehicles) {
+            Long since = idleSince.get(dto.getId());
+            if (since != null) {
+                dto.setWaitingDuration(dto.getWaitingDuration() + Math.max(0L, eventClock - since));
             }
         }
-        return  vehicles.stream()
-                .map(v -> {
-                    VehicleDto dto = new VehicleDto();
-                    dto.setId(v.getId());
-                    dto.setPlateNumber(v.getPlateNumber());
-                    dto.setTypeId(v.getTypeId());
-                    dto.setStatus(v.getStatus());
-                    dto.setCurrentLng(v.getCurrentLng());
-                    dto.setCurrentLat(v.getCurrentLat());
-
-                    dto.setTraveledPolyline(v.getTraveledPolyline());
-                    dto.setRouteDistance(v.getRouteDistance());
-                    dto.setRouteDuration(v.getRouteDuration());
-                    dto.setCurrentDemandId(v.getCurrentDemandId());
-                    dto.setNoLoadDistance(v.getNoLoadDistance());
-                    dto.setNoLoadDuration(v.getNoLoadDuration());
-                    dto.setLoadDistance(v.getLoadDistance());
-                    dto.setLoadDuration(v.getLoadDuration());
-                    dto.setTotalShippingWeight(v.getTotalShippingWeight().doubleValue());
-                    dto.setTotalShippingVolume(v.getTotalShippingVolume().doubleValue());
-                    dto.setWaitingDuration(v.getWaitingDuration());
-                    dto.setWastedLoad(v.getWastedLoad());
-                    dto.setSpeed(v.getSpeed() != null ? v.getSpeed() : 0.0);
-                    if(v.getCurrentDemandId() != null && v.getStatus() == VehicleStatus.IN_TRANSIT) {
-                        dto.setCurrentLoad(transportDemandMapper.findCargoWeightById(v.getCurrentDemandId()).doubleValue());
-                    }
-                    dto.setMaxLoadWeight(vehicleMapper.findMaxLoad(v.getTypeId()));
-
-                    Long originPoiId = null, destinationPoiId = null;
-                    if(v.getCurrentDemandId() != null) {
-                        originPoiId = transportDemandMapper.findOriginPoiIdById(v.getCurrentDemandId());
-                        destinationPoiId = transportDemandMapper.findDestinationPoiIdById(v.getCurrentDemandId());
-                    }
-
-                    if(originPoiId != null) {
-                        dto.setOriginName(poiMapper.findById(originPoiId).getName());
-                    }
-                    if(destinationPoiId != null) {
-                        dto.setDestinationName(poiMapper.findById(destinationPoiId).getName());
-                    }
-
-                    // 添加天气相关信息
-                    String location = dto.getCurrentLng() + "," + dto.getCurrentLat();
-                    double speedFactor = weatherService.getSpeedFactorByLocation(location);
-                    String weatherCondition = weatherService.getWeatherByLocation(location).getCondition().name();
-                    double adjustedSpeed = dto.getSpeed() * speedFactor;
-                    
-                    dto.setWeatherCondition(weatherCondition);
-                    dto.setSpeedFactor(speedFactor);
-                    dto.setAdjustedSpeed(adjustedSpeed);
-                    
-                    return dto;
-                }).collect(Collectors.toList());
     }
 
     @Override
     public void updateAllVehiclesState(long simulationTime, int timeStep) {
-        // 1. 从数据库获取最新状态列表（仅用于同步新增/修改）
-        List<Vehicle> allVehiclesDb = vehicleMapper.findAll();
+        // 1~2. 将 tick 之外发生的变更（新增车辆、调度分配、人工修改）增量同步到内存缓存
+        syncExternalChanges();
 
-        // 2. 将数据库最新数据同步到内存缓存中（确保新的车辆或状态更新被捕获）
-        for (Vehicle dbVehicle : allVehiclesDb) {
-            Vehicle cacheVehicle = runtimeVehicleCache.get(dbVehicle.getId());
+        // 3. 遍历【内存缓存】进行状态更新：按车辆ID排序后切分为若干分片并行步进
+        List<Vehicle> activeVehicles = new ArrayList<>(runtimeVehicleCache.values());
+        activeVehicles.sort(Comparator.comparing(Vehicle::getId));
+
+        List<List<TransportDemand>> completedByShard = stepInShards(activeVehicles, simulationTime);
+
+        // 跨车辆的副作用（触发供应链下一环）在屏障之后按车辆ID顺序串行执行，保证结果与串行执行一致
+        for (List<TransportDemand> completed : completedByShard) {
+            for (TransportDemand demand : completed) {
+                demandService.triggerNextDemand(demand);
+            }
+        }
 
+        // 4. 本 tick 的所有变更合并后交给写线程批量落库
+        vehicleWriteBehindBuffer.flush();
+
+        // 5. 刷新读模型
+        vehicleProjection.refresh(activeVehicles);
+    }
+
+    @Override
+    public void processVehicleEvents(long simulationTime, int timeStep) {
+        // 1. 增量同步外部变更，被调度分配或人工修改过的车辆需要重新安排事件
+        List<Vehicle> changedVehicles = syncExternalChanges();
+        if (!eventStateInitialized) {
+            changedVehicles = new ArrayList<>(runtimeVehicleCache.values());
+            eventStateInitialized = true;
+        }
+        changedVehicles.sort(Comparator.comparing(Vehicle::getId));
+        for (Vehicle vehicle : changedVehicles) {
+            scheduleVehicle(vehicle, simulationTime);
+        }
+        eventClock = simulationTime;
+
+        // 2. 推进行驶中的车辆；到达装/卸货点的车辆转为定时事件
+        List<Vehicle> movingVehicles = new ArrayList<>(movingVehicleIds.size());
+        for (Long id : movingVehicleIds) {
+            Vehicle vehicle = runtimeVehicleCache.get(id);
+            if (vehicle != null) movingVehicles.add(vehicle);
+        }
+        List<List<TransportDemand>> completedByShard = stepInShards(movingVehicles, simulationTime);
+        for (Vehicle vehicle : movingVehicles) {
+            if (!isMoving(vehicle.getStatus())) {
+                movingVehicleIds.remove(vehicle.getId());
+                scheduleVehicle(vehicle, simulationTime + timeStepSeconds);
+            }
+        }
+
+        // 3. 处理所有到期事件，等待中的车辆只在事件到期时才被访问
+        List<TransportDemand> completedByEvents = new ArrayList<>();
+        List<Vehicle> visitedByEvents = new ArrayList<>();
+        VehicleEvent event;
+        int processed = 0;
+        while ((event = eventQueue.pollDue(simulationTime)) != null) {
+            Vehicle vehicle = runtimeVehicleCache.get(event.vehicleId());
+            if (vehicle == null) continue;
+            visitedByEvents.add(vehicle);
+            if (event.type() == VehicleEventType.IDLE_INCIDENT && vehicle.getStatus() == VehicleStatus.IDLE) {
+                settleIdleWaiting(vehicle, simulationTime);
+                applyIdleIncident(vehicle, simulationTime,
+                        simulationRandom.vehicle(vehicle.getId()).nextBoolean() ? VehicleStatus.REFUSED : VehicleStatus.MAINTENANCE);
+            } else if (event.type() == eventTypeOf(vehicle.getStatus())) {
+                stepVehicle(vehicle, simulationTime, completedByEvents);
+            }
+            scheduleVehicle(vehicle, simulationTime + timeStepSeconds);
+            processed++;
+        }
+        log.debug("离散事件引擎: 行驶中车辆 {} 辆，处理到期事件 {} 个，待处理事件 {} 个。",
+                movingVehicles.size(), processed, eventQueue.size());
+
+        for (List<TransportDemand> completed : completedByShard) {
+            for (TransportDemand demand : completed) {
+                demandService.triggerNextDemand(demand);
+            }
+        }
+        for (TransportDemand demand : completedByEvents) {
+            demandService.triggerNextDemand(demand);
+        }
+
+        vehicleWriteBehindBuffer.flush();
+
+        // 只刷新本 tick 被访问过的车辆的读模型
+        Set<Vehicle> touched = new LinkedHashSet<>(changedVehicles);
+        touched.addAll(movingVehicles);
+        touched.addAll(visitedByEvents);
+        vehicleProjection.refresh(touched);
+    }
+
+    /**
+     * 根据车辆当前状态安排下一次访问：行驶中的车辆加入逐 tick 推进的集合，
+     * 装货、卸货、维修中的车辆安排到期事件，空闲车辆按几何分布抽样下一次随机事件的时间。
+     * @param firstVisitTime 按固定步长引擎的语义，该车辆下一次会被访问的仿真时间
+     */
+    private void scheduleVehicle(Vehicle vehicle, long firstVisitTime) {
+        Long id = vehicle.getId();
+        VehicleStatus status = vehicle.getStatus();
+        if (status != VehicleStatus.IDLE && idleSince.containsKey(id)) {
+            // 离开空闲状态：结算到上一次被访问时为止的等待时长
+            settleIdleWaiting(vehicle, firstVisitTime - timeStepSeconds);
+        }
+
+        switch (status) {
+            case MOVING_TO_PICKUP:
+            case IN_TRANSIT:
+                eventQueue.cancel(id);
+                movingVehicleIds.add(id);
+                break;
+            case LOADING:
+                scheduleTimedEvent(vehicle, VehicleEventType.LOADING_COMPLETE, LOADING_DURATION_SECONDS, firstVisitTime);
+                break;
+            case UNLOADING:
+                scheduleTimedEvent(vehicle, VehicleEventType.UNLOADING_COMPLETE, UNLOADING_DURATION_SECONDS, firstVisitTime);
+                break;
+            case MAINTENANCE:
+            case REFUSED:
+                scheduleTimedEvent(vehicle, VehicleEventType.MAINTENANCE_OVER, UNLOADING_DURATION_SECONDS, firstVisitTime);
+                break;
+            default:
+                movingVehicleIds.remove(id);
+                // 已在等待随机事件的空闲车辆不重新抽样
+                if (idleSince.putIfAbsent(id, firstVisitTime - timeStepSeconds) == null) {
+                    long ticksUntilIncident = sampleTicksUntilIncident(simulationRandom.vehicle(id));
+                    eventQueue.schedule(id, VehicleEventType.IDLE_INCIDENT, firstVisitTime + (ticksUntilIncident - 1) * timeStepSeconds);
+                }
+                break;
+        }
+    }
+
+    private void scheduleTimedEvent(Vehicle vehicle, VehicleEventType type, long duration, long firstVisitTime) {
+        movingVehicleIds.remove(vehicle.getId());
+        long dueTime = Math.max(firstVisitTime, vehicle.getActionStartTime() + duration);
+        eventQueue.schedule(vehicle.getId(), type, dueTime);
+    }
+
+    private VehicleEventType eventTypeOf(VehicleStatus status) {
+        switch (status) {
+            case LOADING:
+                return VehicleEventType.LOADING_COMPLETE;
+            case UNLOADING:
+                return VehicleEventType.UNLOADING_COMPLETE;
+            case MAINTENANCE:
+            case REFUSED:
+                return VehicleEventType.MAINTENANCE_OVER;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isMoving(VehicleStatus status) {
+        return status == VehicleStatus.MOVING_TO_PICKUP || status == VehicleStatus.IN_TRANSIT;
+    }
+
+    /**
+     * 固定步长下空闲车辆每个 tick 以相同概率触发随机事件，第几个 tick 触发服从几何分布，
+     * 这里一次性抽样得到间隔的 tick 数（至少为 1）。
+     */
+    private long sampleTicksUntilIncident(Random random) {
+        double u = 1.0 - random.nextDouble(); // (0, 1]
+        return 1 + (long) Math.floor(Math.log(u) / Math.log(1.0 - IDLE_INCIDENT_PROBABILITY));
+    }
+
+    /**
+     * 把空闲车辆截至 lastIdleVisitTime 的等待时长计入 waitingDuration，与固定步长下每 tick 累加 60 秒等价。
+     */
+    private void settleIdleWaiting(Vehicle vehicle, long lastIdleVisitTime) {
+        Long since = idleSince.remove(vehicle.getId());
+        if (since != null && lastIdleVisitTime > since) {
+            vehicle.setWaitingDuration(vehicle.getWaitingDuration() + (lastIdleVisitTime - since));
+        }
+    }
+
+    /**
+     * 离散事件引擎中尚未结算的空闲等待时长
+     */
+    private long pendingIdleWaiting(Vehicle vehicle) {
+        Long since = idleSince.get(vehicle.getId());
+        return since == null ? 0L : Math.max(0L, eventClock - since);
+    }
+
+    /**
+     * 按车辆ID顺序把车辆切分为分片并行步进，返回每个分片内完成的任务。
+     */
+    private List<List<TransportDemand>> stepInShards(List<Vehicle> vehicles, long simulationTime) {
+        List<List<Vehicle>> shards = partition(vehicles);
+        // 每个分片各自收集本 tick 完成的任务，屏障之后再按分片顺序统一处理
+        List<List<TransportDemand>> completedByShard = new ArrayList<>(shards.size());
+        List<Callable<Void>> tasks = new ArrayList<>(shards.size());
+        for (List<Vehicle> shard : shards) {
+            List<TransportDemand> completed = new ArrayList<>();
+            completedByShard.add(completed);
+            tasks.add(() -> {
+                for (Vehicle vehicle : shard) {
+                    stepVehicle(vehicle, simulationTime, completed);
+                }
+                return null;
+            });
+        }
+
+        if (tasks.size() == 1) {
+            try {
+                tasks.get(0).call();
+            } catch (Exception e) {
+                throw new IllegalStateException("车辆状态更新失败: " + e.getMessage(), e);
+            }
+        } else {
+            awaitShards(tickPool.invokeAll(tasks));
+        }
+        return completedByShard;
+    }
+
+    /**
+     * 增量同步：首次全量加载，之后只拉取 last_update_time 水位线之后变更的车辆，
+     * 以及通过 invalidateVehicle 显式标记过的车辆。车队无外部变更时几乎没有开销。
+     * @return 本次新加入或被外部修改过的缓存车辆
+     */
+    private List<Vehicle> syncExternalChanges() {
+        List<Vehicle> changedVehicles;
+        if (syncWatermark == null) {
+            changedVehicles = vehicleMapper.findAll();
+        } else {
+            changedVehicles = new ArrayList<>();
+            for (Vehicle dbVehicle : vehicleMapper.findUpdatedSince(syncWatermark)) {
+                if (!alreadySynced(dbVehicle)) changedVehicles.add(dbVehicle);
+            }
+            if (!invalidatedVehicleIds.isEmpty()) {
+                List<Long> ids = new ArrayList<>(invalidatedVehicleIds);
+                invalidatedVehicleIds.removeAll(ids);
+                changedVehicles.addAll(vehicleMapper.findByIds(ids));
+            }
+        }
+
+        List<Vehicle> applied = new ArrayList<>();
+        for (Vehicle dbVehicle : changedVehicles) {
+            advanceWatermark(dbVehicle);
+
+            Vehicle cacheVehicle = runtimeVehicleCache.get(dbVehicle.getId());
             if (cacheVehicle == null) {
                 runtimeVehicleCache.put(dbVehicle.getId(), dbVehicle);
+                applied.add(dbVehicle);
+            } else if (vehicleWriteBehindBuffer.isPending(dbVehicle.getId())) {
+                // 该车辆仍有未落库的写入，数据库中是旧数据，以内存为准；下个 tick 再重新读取
+                invalidatedVehicleIds.add(dbVehicle.getId());
             } else {
+                applyExternalChange(dbVehicle, cacheVehicle);
+                applied.add(cacheVehicle);
+            }
+        }
+        if (syncWatermark == null) {
+            syncWatermark = LocalDateTime.now();
+        }
+        return applied;
+    }
 
-                String[] ignoreProperties = {
-                        "parsedPolyline",
-                        "routeDuration",
-                        "routeDistance",
-                        "routePolyline",
-                        "traveledPolyline",
-                        "currentLng",
-                        "currentLat",
-                        "lastReachedPathIndex"
-                        , "actionStartTime",
-                        "totalShippingWeight",
-                        "totalShippingVolume",
-                        "waitingDuration",
-                        "noLoadDistance",
-                        "noLoadDuration",
-                        "loadDistance",
-                        "loadDuration",
-                        "wastedLoad"
-                };
-
-                org.springframework.beans.BeanUtils.copyProperties(
-                        dbVehicle,
-                        cacheVehicle,
-                        ignoreProperties
-                );
+    /**
+     * 把水位线推进到该行的 last_update_time，只前进不后退；落在水位线那一秒的行记录下来供重读时比较
+     */
+    private void advanceWatermark(Vehicle dbVehicle) {
+        LocalDateTime updated = dbVehicle.getLastUpdateTime();
+        if (updated == null) return;
+        if (syncWatermark == null || updated.isAfter(syncWatermark)) {
+            syncWatermark = updated;
+            syncedAtWatermark.clear();
+        }
+        if (updated.equals(syncWatermark)) {
+            syncedAtWatermark.put(dbVehicle.getId(), dbVehicle);
+        }
+    }
 
-            }
+    /**
+     * 重读水位线那一秒时，该行是否与上次同步时完全相同
+     */
+    private boolean alreadySynced(Vehicle dbVehicle) {
+        Vehicle synced = syncedAtWatermark.get(dbVehicle.getId());
+        return synced != null
+                && Objects.equals(synced.getLastUpdateTime(), dbVehicle.getLastUpdateTime())
+                && Objects.equals(synced.getPlateNumber(), dbVehicle.getPlateNumber())
+                && Objects.equals(synced.getTypeId(), dbVehicle.getTypeId())
+                && synced.getStatus() == dbVehicle.getStatus()
+                && Objects.equals(synced.getCurrentDemandId(), dbVehicle.getCurrentDemandId())
+                && Objects.equals(synced.getSpeed(), dbVehicle.getSpeed())
+                && Objects.equals(synced.getOriginPosition(), dbVehicle.getOriginPosition());
+    }
+
+    /**
+     * 只复制可能在 tick 之外被修改的持久化字段；位置、路径和各项仿真统计以内存为准。
+     */
+    private void applyExternalChange(Vehicle source, Vehicle target) {
+        target.setPlateNumber(source.getPlateNumber());
+        target.setTypeId(source.getTypeId());
+        target.setStatus(source.getStatus());
+        target.setCurrentDemandId(source.getCurrentDemandId());
+        target.setLastUpdateTime(source.getLastUpdateTime());
+        target.setSpeed(source.getSpeed());
+        target.setOriginPosition(source.getOriginPosition());
+    }
+
+    @Override
+    public void invalidateVehicle(Long vehicleId) {
+        if (vehicleId != null) {
+            invalidatedVehicleIds.add(vehicleId);
         }
+    }
 
-        // 3. 遍历【内存缓存】进行状态更新
-        List<Vehicle> activeVehicles = new ArrayList<>(runtimeVehicleCache.values());
-        for (Vehicle vehicle : activeVehicles) { // 遍历内存中的 vehicle
-
-            // 只有 MOVING, LOADING, UNLOADING 状态才需要更新
-            switch (vehicle.getStatus()) {
-                case MOVING_TO_PICKUP:
-                case IN_TRANSIT:
-                    updateMovingVehiclePosition(vehicle, simulationTime);
-                    break;
-                case LOADING:
-                    updateLoadingVehicle(vehicle, simulationTime);
-                    break;
-                case UNLOADING:
-                    updateUnloadingVehicle(vehicle, simulationTime);
-                    break;
-                case MAINTENANCE:
-                case REFUSED:
-                    updateSpecialCase(vehicle, simulationTime);
-                    break;
-                default:
-                    updateIDle(vehicle,simulationTime);
-                    break;
-            }
+    /**
+     * 单辆车在一个 tick 内的状态步进。
+     * @param completedDemands 本分片内完成的任务，由调用方在屏障之后统一触发下一环
+     */
+    private void stepVehicle(Vehicle vehicle, long simulationTime, List<TransportDemand> completedDemands) {
+        // 只有 MOVING, LOADING, UNLOADING 状态才需要更新
+        switch (vehicle.getStatus()) {
+            case MOVING_TO_PICKUP:
+            case IN_TRANSIT:
+                updateMovingVehiclePosition(vehicle, simulationTime);
+                break;
+            case LOADING:
+                updateLoadingVehicle(vehicle, simulationTime);
+                break;
+            case UNLOADING:
+                updateUnloadingVehicle(vehicle, simulationTime, completedDemands);
+                break;
+            case MAINTENANCE:
+            case REFUSED:
+                updateSpecialCase(vehicle, simulationTime);
+                break;
+            default:
+                updateIDle(vehicle,simulationTime);
+                break;
+        }
+    }
 
+    /**
+     * 将车队切分为连续的分片。车队较小时只返回一个分片，避免线程调度开销。
+     */
+    private List<List<Vehicle>> partition(List<Vehicle> vehicles) {
+        int parallelism = tickPool.getParallelism();
+        if (parallelism <= 1 || vehicles.size() < MIN_SHARD_SIZE * 2) {
+            return List.of(vehicles);
+        }
+        int shardCount = Math.min(parallelism * SHARDS_PER_WORKER, (vehicles.size() + MIN_SHARD_SIZE - 1) / MIN_SHARD_SIZE);
+        int shardSize = (vehicles.size() + shardCount - 1) / shardCount;
+        List<List<Vehicle>> shards = new ArrayList<>(shardCount);
+        for (int from = 0; from < vehicles.size(); from += shardSize) {
+            shards.add(vehicles.subList(from, Math.min(from + shardSize, vehicles.size())));
+        }
+        return shards;
+    }
 
+    private void awaitShards(List<Future<Void>> futures) {
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("车辆状态更新被中断", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("车辆状态更新失败: " + e.getCause().getMessage(), e.getCause());
+            }
         }
     }
 
@@ -237,20 +564,23 @@ public class VehicleServiceImpl implements VehicleService {
     public void updateVehicleSpeed(Long vehicleId, double speed) {
         Vehicle vehicle = runtimeVehicleCache.get(vehicleId);
         vehicle.setSpeed(speed);
-        vehicleMapper.update(vehicle);
+        vehicleWriteBehindBuffer.markDirty(vehicle);
+        vehicleWriteBehindBuffer.flush();
+        vehicleProjection.refresh(List.of(vehicle));
         log.info("车辆 #{} 的速度已更新为 {} m/s", vehicleId, speed);
     }
 
     private void updateMovingVehiclePosition(Vehicle vehicle, long simulationTime) {
-        if (vehicle.getParsedPolyline() == null) {
+        if (vehicle.getRouteGeometry() == null) {
             initializeVehicleRoute(vehicle, simulationTime);
-            if (vehicle.getParsedPolyline() == null)
+            if (vehicle.getRouteGeometry() == null)
                 return;
         }
 
         // 根据天气调整速度
-        String location = vehicle.getCurrentLng() + "," + vehicle.getCurrentLat();
-        double speedFactor = weatherService.getSpeedFactorByLocation(location);
+        // 位置缺失的车辆（数据库中经纬度为空）不受天气影响
+        Coordinate position = vehicle.getCurrentPosition();
+        double speedFactor = position != null ? weatherService.getSpeedFactorByLocation(position.toString()) : 1.0;
         double adjustedSpeed = vehicle.getSpeed() * speedFactor;
 
         double distanceTraveledInThisStep = adjustedSpeed * timeStepSeconds;
@@ -259,9 +589,8 @@ public class VehicleServiceImpl implements VehicleService {
                 distanceTraveledInThisStep
         );
         if (reachedDestination) {
-            String[] finalCoords = vehicle.getParsedPolyline().get(vehicle.getParsedPolyline().size() - 1);
-            vehicle.setCurrentLng(finalCoords[0]);
-            vehicle.setCurrentLat(finalCoords[1]);
+            RouteGeometry geometry = vehicle.getRouteGeometry();
+            vehicle.setCurrentPosition(geometry.coordinate(geometry.lastIndex()));
             vehicle.setTraveledPolyline(vehicle.getRoutePolyline());
 
             // ... (状态切换逻辑保持不变) ...
@@ -282,11 +611,11 @@ public class VehicleServiceImpl implements VehicleService {
                 log.info("车辆 #{} 到达卸货点，开始卸货。", vehicle.getId());
             }
         } else {
-            log.info("车辆 #{} 正在移动中。当前坐标为 #{} , #{}", vehicle.getId(), vehicle.getCurrentLng(), vehicle.getCurrentLat());
+            log.debug("车辆 #{} 正在移动中。当前坐标为 {}", vehicle.getId(), vehicle.getCurrentPosition());
         }
 
         // 每次更新都进行数据库同步
-        vehicleMapper.update(vehicle);
+        vehicleWriteBehindBuffer.markDirty(vehicle);
     }
 
 
@@ -298,11 +627,11 @@ public class VehicleServiceImpl implements VehicleService {
            vehicle.setWastedLoad(vehicle.getWastedLoad()+vehicleMapper.findMaxLoad(vehicle.getTypeId())-demand.getCargoWeight().doubleValue());
            initializeVehicleRoute(vehicle, simulationTime);
             log.info("车辆 #{} 装货完成，开始前往目的地。", vehicle.getId());
-            vehicleMapper.update(vehicle);
+            vehicleWriteBehindBuffer.markDirty(vehicle);
         }
     }
 
-    private void updateUnloadingVehicle(Vehicle vehicle, long simulationTime) {
+    private void updateUnloadingVehicle(Vehicle vehicle, long simulationTime, List<TransportDemand> completedDemands) {
         if (simulationTime - vehicle.getActionStartTime() >= UNLOADING_DURATION_SECONDS) {
             TransportDemand demand = transportDemandMapper.findByIds(List.of(vehicle.getCurrentDemandId())).get(0);
             demand.setStatus(DemandStatus.COMPLETED);
@@ -328,17 +657,19 @@ public class VehicleServiceImpl implements VehicleService {
             vehicle.setStatus(VehicleStatus.IDLE);
             vehicle.setCurrentDemandId(null);
             vehicle.setRoutePolyline(null);
-            vehicle.setParsedPolyline(null);
+            vehicle.setRouteId(null);
+            vehicle.setRouteGeometry(null);
             vehicle.setTraveledPolyline(null);
             vehicle.setSpeed(0.0);
-            vehicleMapper.update(vehicle);
+            vehicleWriteBehindBuffer.markDirty(vehicle);
 
-            demandService.triggerNextDemand(demand);
+            completedDemands.add(demand);
         }
     }
     private void updateIDle(Vehicle vehicle,long simulationTime) {
         vehicle.setWaitingDuration(vehicle.getWaitingDuration()+60);
-        Random random = new Random();
+        // 每辆车使用自己的随机流，分片并行时结果仍可复现
+        Random random = simulationRandom.vehicle(vehicle.getId());
           int roll = random.nextInt(100);
         if (roll < 10) {
 
@@ -350,17 +681,21 @@ public class VehicleServiceImpl implements VehicleService {
             else {
                 nextStatus = VehicleStatus.MAINTENANCE;
             }
-            vehicle.setStatus(nextStatus);
+            applyIdleIncident(vehicle, simulationTime, nextStatus);
+        }
+
+    }
 
-            vehicle.setActionStartTime(simulationTime);
+    private void applyIdleIncident(Vehicle vehicle, long simulationTime, VehicleStatus nextStatus) {
+        vehicle.setStatus(nextStatus);
 
+        vehicle.setActionStartTime(simulationTime);
 
-            log.warn("🚨 车辆 #{} 在 IDLE 状态下触发随机事件，状态切换为：{}",
-                    vehicle.getId(), nextStatus);
 
-            vehicleMapper.update(vehicle);
-        }
+        log.warn("🚨 车辆 #{} 在 IDLE 状态下触发随机事件，状态切换为：{}",
+                vehicle.getId(), nextStatus);
 
+        vehicleWriteBehindBuffer.markDirty(vehicle);
     }
 
     private void initializeVehicleRoute(Vehicle vehicle, long simulationTime) {
@@ -381,55 +716,63 @@ public class VehicleServiceImpl implements VehicleService {
         }
         TransportDemand demand = demands.get(0);
 
-        String originCoords, destCoords;
+        // Coordinate 已是 6 位小数的定点数，无需再做字符串标准化
+        Coordinate originCoords, destCoords;
 
 
         if (vehicle.getStatus() == VehicleStatus.MOVING_TO_PICKUP) {
 
-                String rawOrigin = vehicle.getCurrentLng() + "," + vehicle.getCurrentLat();
-                originCoords = routeService.normalizeCoords(rawOrigin);
-
-                String rawDest = transportDemandMapper.findPoiCoordsById(demand.getOriginPoiId());
-                destCoords = routeService.normalizeCoords(rawDest);
-                log.info("车辆 #{} 正在前往装货点 {}，当前位置 {}", vehicle.getId(), originCoords, rawOrigin);
+                originCoords = vehicle.getCurrentPosition();
+                destCoords = poiStore.snapshot().coordinateOf(demand.getOriginPoiId());
+                log.info("车辆 #{} 正在前往装货点 {}，当前位置 {}", vehicle.getId(), destCoords, originCoords);
 
 
 
 
         } else { // IN_TRANSIT
-            // 假设 POI 坐标已标准化或在 RouteService.getRoute 中会被标准化
-            originCoords = transportDemandMapper.findPoiCoordsById(demand.getOriginPoiId());
-            destCoords = transportDemandMapper.findPoiCoordsById(demand.getDestinationPoiId());
-
-            // 再次强制标准化，防止 POI 数据库中数据精度不一致
-            originCoords = routeService.normalizeCoords(originCoords);
-            destCoords = routeService.normalizeCoords(destCoords);
+            PoiSnapshot pois = poiStore.snapshot();
+            originCoords = pois.coordinateOf(demand.getOriginPoiId());
+            destCoords = pois.coordinateOf(demand.getDestinationPoiId());
         }
 
         if (originCoords != null && destCoords != null) {
             RouteCache route = routeService.getRoute(originCoords, destCoords);
             if (route != null) {
                 vehicle.setRoutePolyline(route.getPolyline());
-                vehicle.setParsedPolyline(parsePolyline(route.getPolyline()));
+                vehicle.setRouteId(route.getId());
+                vehicle.setRouteGeometry(route.getGeometry());
                 vehicle.setRouteDistance(route.getDistance());
                 vehicle.setRouteDuration(route.getDuration());
                 vehicle.setActionStartTime(simulationTime);
-                if (vehicle.getLastReachedPathIndex()!= null)
+                vehicle.setRouteTraveledDistance(initialTraveledDistance(vehicle));
+                if (vehicle.getLastReachedPathIndex()!= null && vehicle.getCurrentPosition() != null)
                 {
-                    String rawOrigin = vehicle.getCurrentLng() + "," + vehicle.getCurrentLat();
-                    rawOrigin = routeService.normalizeCoords(rawOrigin);
-                    vehicle.setTraveledPolyline(rawOrigin);
+                    vehicle.setTraveledPolyline(vehicle.getCurrentPosition().toString());
                 }
-                else  vehicle.setTraveledPolyline(originCoords); // 初始化已行驶轨迹为起点
+                else  vehicle.setTraveledPolyline(originCoords.toString()); // 初始化已行驶轨迹为起点
 
                 vehicle.setSpeed(10.0);
-                vehicleMapper.update(vehicle);
+                vehicleWriteBehindBuffer.markDirty(vehicle);
                 log.info("车辆 #{} 初始化路径 ({} -> {}) 成功，总距离 {}，总时长 {}", vehicle.getId(), originCoords, destCoords, route.getDistance(), route.getDuration());
             } else {
                 log.error("无法为车辆 #{} 初始化路径 ({} -> {}), 路径服务返回null!", vehicle.getId(), originCoords, destCoords);
             }
         }
     }
+    /**
+     * 计算车辆在新加载路径上的已行驶里程。
+     * 重启后恢复的车辆带有 lastReachedPathIndex，其里程为该路径点的累计里程加上到当前位置的距离。
+     */
+    private double initialTraveledDistance(Vehicle vehicle) {
+        RouteGeometry geometry = vehicle.getRouteGeometry();
+        Integer lastReached = vehicle.getLastReachedPathIndex();
+        if (geometry == null || lastReached == null || lastReached <= 0) return 0;
+
+        int node = Math.min(lastReached, geometry.lastIndex());
+        double offset = geometry.coordinate(node).distanceTo(vehicle.getCurrentPosition());
+        return Math.min(geometry.distanceAt(node) + offset, geometry.totalLength());
+    }
+
     private void updateSpecialCase(Vehicle vehicle, long simulationTime) {
         if (simulationTime - vehicle.getActionStartTime() >= UNLOADING_DURATION_SECONDS) {
 
@@ -440,12 +783,13 @@ public class VehicleServiceImpl implements VehicleService {
             vehicle.setStatus(VehicleStatus.IDLE);
             vehicle.setCurrentDemandId(null);
             vehicle.setRoutePolyline(null);
-            vehicle.setParsedPolyline(null);
+            vehicle.setRouteId(null);
+            vehicle.setRouteGeometry(null);
             vehicle.setSpeed(0.0);
             vehicle.setLastReachedPathIndex(null);
             vehicle.setWaitingDuration(UNLOADING_DURATION_SECONDS+vehicle.getWaitingDuration());
 
-            vehicleMapper.update(vehicle);
+            vehicleWriteBehindBuffer.markDirty(vehicle);
 
         } else {
             log.debug("车辆 #{} 正在维修中，已耗时 {} 秒，预计 {} 秒后恢复。",
@@ -462,7 +806,7 @@ public class VehicleServiceImpl implements VehicleService {
      * @return boolean 是否到达终点
      */
     private boolean updateTraveledPathAndPositionByDistance(Vehicle vehicle, double distanceToCover) {
-        List<String[]> fullPath = vehicle.getParsedPolyline();
+        RouteGeometry fullPath = vehicle.getRouteGeometry();
         if (fullPath == null || fullPath.size() < 2) return false;
 
 
@@ -471,64 +815,26 @@ public class VehicleServiceImpl implements VehicleService {
         int startIndex = (vehicle.getLastReachedPathIndex() == null || vehicle.getLastReachedPathIndex() < 0)
                 ? 0
                 : vehicle.getLastReachedPathIndex();
-        if (startIndex >= fullPath.size() - 1)
+        if (startIndex >= fullPath.lastIndex())
             return true;
-        // 2. 初始化本次移动的起始精确坐标（就是上一次 Tick 停止的精确坐标）
-        double currentLng = Double.parseDouble(vehicle.getCurrentLng());
-        double currentLat = Double.parseDouble(vehicle.getCurrentLat());
+        // 2. 基于累计里程索引定位：二分查找本次行驶结束时所在的路段，再在路段内插值
+        double traveled = vehicle.getRouteTraveledDistance();
+        double target = Math.min(traveled + distanceToCover, fullPath.totalLength());
+        int reachedIndex = fullPath.nodeIndexAt(target);
 
-        double remainingDistance = distanceToCover;
-       //StringBuilder newTraveledPolyline = new StringBuilder(vehicle.getTraveledPolyline());
+        // 3. 把本次经过的路径点追加到已行驶轨迹
         StringBuilder newTraveledPolyline = new StringBuilder();
-
-        // 3. 循环从上一个已知节点 i 开始
-        // i 是当前路段的起点节点索引
-        for (int i = startIndex; i < fullPath.size() - 1; i++) {
-
-            String[] endPointStr = fullPath.get(i + 1);
-            double endLng = Double.parseDouble(endPointStr[0]);
-            double endLat = Double.parseDouble(endPointStr[1]);
-
-            // 计算当前路段 (从车辆当前精确位置到下一个路径点 i+1) 的剩余距离
-            double distanceToNextNode = calculateDistance(currentLng, currentLat, endLng, endLat);
-
-            // 【容错处理】防止 i == startIndex 且 distanceToNextNode 接近于零的情况
-            // 这种情况意味着上一次 Tick 已经将车辆位置精确更新为 fullPath.get(i+1)
-            if (distanceToNextNode < 0.1) {
-                vehicle.setLastReachedPathIndex(i + 1);
-                continue;
-            }
-
-            if (remainingDistance >= distanceToNextNode) {
-
-                remainingDistance -= distanceToNextNode;
-
-
-                currentLng = endLng;
-                currentLat = endLat;
-
-                vehicle.setLastReachedPathIndex(i + 1);
-
-
-                newTraveledPolyline.append(";").append(endPointStr[0]).append(",").append(endPointStr[1]);
-
-
-            } else {
-                // 3b. 车辆停在路段 (currentPos -> i+1) 的中间
-
-                double ratio = remainingDistance / distanceToNextNode;
-
-                currentLng = currentLng + (endLng - currentLng) * ratio;
-                currentLat = currentLat + (endLat - currentLat) * ratio;
-
-                break;
-            }
+        for (int i = startIndex + 1; i <= reachedIndex; i++) {
+            fullPath.appendPoint(newTraveledPolyline.append(";"), i);
+        }
+        if (reachedIndex > startIndex) {
+            vehicle.setLastReachedPathIndex(reachedIndex);
         }
-        String formattedLng = String.format(Locale.US, "%.6f", currentLng);
-        String formattedLat = String.format(Locale.US, "%.6f",currentLat) ;
 
-        vehicle.setCurrentLng(formattedLng);
-        vehicle.setCurrentLat(formattedLat);
+        double currentLng = fullPath.lngAt(target, reachedIndex);
+        double currentLat = fullPath.latAt(target, reachedIndex);
+        vehicle.setRouteTraveledDistance(target);
+        vehicle.setCurrentPosition(Coordinate.of(currentLng, currentLat));
 
         if (newTraveledPolyline.length() > vehicle.getTraveledPolyline().length()) {
             vehicle.setTraveledPolyline(newTraveledPolyline.toString());
@@ -544,106 +850,20 @@ public class VehicleServiceImpl implements VehicleService {
         }
 
 
-        vehicleMapper.update(vehicle);
+        vehicleWriteBehindBuffer.markDirty(vehicle);
         return false;
     }
     private void resetToIdle(Vehicle vehicle) {
         vehicle.setStatus(VehicleStatus.IDLE);
         vehicle.setCurrentDemandId(null);
         vehicle.setRoutePolyline(null);
-        vehicle.setParsedPolyline(null);
+        vehicle.setRouteId(null);
+        vehicle.setRouteGeometry(null);
         vehicle.setTraveledPolyline(null);
         vehicle.setSpeed(0.0);
-        vehicleMapper.update(vehicle);
-    }
-
-    private double calculateDistance(double lng1, double lat1, double lng2, double lat2) {
-        double R = 6371000; // 地球半径, 米
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lng2 - lng1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
-    }
-
-    /**
-     * 安全地将高德 Polyline 字符串解析为 List<String[]> 坐标列表。
-     * 该方法包含多重过滤，以处理字符串首尾多余的分号或空坐标段。
-     *
-     * @param polyline 原始 Polyline 字符串
-     * @return 解析后的坐标列表，如果解析失败或结果为空则返回 null
-     */
-    private List<String[]> parsePolyline(String polyline) {
-        if (polyline == null || polyline.isEmpty()) {
-            log.error("致命错误：Polyline 字符串为空！");
-            return null;
-        }
-
-        try {
-            List<String[]> parsedPolyline = Arrays.stream(polyline.split(";"))
-                    // 关键过滤 1: 过滤掉空字符串（如结尾的 ";" 产生的 ""，或中间的 ";;" 产生的 ""）
-                    .filter(s -> !s.isEmpty())
-
-                    // 关键过滤 2: 过滤掉不包含逗号的段（确保是坐标）
-                    .filter(s -> s.contains(","))
-
-                    .map(s -> s.split(","))
-
-                    // 关键过滤 3: 过滤掉长度不为 2 的数组（确保是完整的 lng,lat）
-                    .filter(coords -> coords.length == 2)
-
-                    .collect(Collectors.toList());
-
-            if (parsedPolyline.isEmpty()) {
-                log.error("致命错误：Polyline 字符串 {} 包含有效路径点，但解析后列表为空，或所有段格式均不正确。", polyline);
-                return null;
-            }
-            List<String[]> cleanPath = new ArrayList<>();
-            cleanPath.add(parsedPolyline.get(0));
-
-            for (int i = 1; i < parsedPolyline.size(); i++) {
-                String[] currentPoint = parsedPolyline.get(i);
-                String[] lastPoint = cleanPath.get(cleanPath.size() - 1);
-
-                // 使用新的辅助方法判断点是否重复
-                if (!isPointEqual(currentPoint, lastPoint)) {
-                    cleanPath.add(currentPoint);
-                }
-            }
-
-            if (cleanPath.size() < 2) {
-                // 如果去重后只剩一个点，说明整个路径是无效的
-                log.warn("警告：Polyline 经去重后路径点少于 2 个。原始点数: {}, 去重后点数: {}",
-                        parsedPolyline.size(), cleanPath.size());
-                return null;
-            }
-
-            return cleanPath; // 返回去重后的路径
-        } catch (Exception e) {
-            // 捕获任何意外异常，并记录原始 Polyline
-            log.error("解析 Polyline 失败，抛出异常: {}。原始 Polyline 值: {}", e.getMessage(), polyline, e);
-            return null;
-        }
+        vehicleWriteBehindBuffer.markDirty(vehicle);
     }
 
-
-    private boolean isPointEqual(String[] p1, String[] p2) {
-        if (p1.length != 2 || p2.length != 2) return false;
-        try {
-            double lng1 = Double.parseDouble(p1[0]);
-            double lat1 = Double.parseDouble(p1[1]);
-            double lng2 = Double.parseDouble(p2[0]);
-            double lat2 = Double.parseDouble(p2[1]);
-
-            // 使用您已定义的浮点数容差（例如 0.000001，与您现有的逻辑保持一致）
-            final double COORD_TOLERANCE = 0.000001;
-            return Math.abs(lng1 - lng2) < COORD_TOLERANCE && Math.abs(lat1 - lat2) < COORD_TOLERANCE;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
     @Override
     public Double getTotalWastedCapacity() {
         double totalWastedCapacity = 0.0;
@@ -664,7 +884,7 @@ public class VehicleServiceImpl implements VehicleService {
     public Double getTotalWaitingDuration() {
         double totalWaitingDuration = 0.0;
         for (Vehicle vehicle : runtimeVehicleCache.values()) {
-            totalWaitingDuration += vehicle.getWaitingDuration();
+            totalWaitingDuration += vehicle.getWaitingDuration() + pendingIdleWaiting(vehicle);
         }
         return totalWaitingDuration;
     }
@@ -696,17 +916,15 @@ public class VehicleServiceImpl implements VehicleService {
 
             // 核心状态：回到 IDLE，设置固定初始位置
             vehicle.setStatus(VehicleStatus.IDLE);
-            vehicle.setOriginLat(vehicle.getCurrentLat());
-            vehicle.setOriginLng(vehicle.getCurrentLng());
-            vehicle.setCurrentLng(vehicle.getCurrentLng()); // 设置固定经度
-            vehicle.setCurrentLat(vehicle.getCurrentLat()); // 设置固定纬度
+            vehicle.setOriginPosition(vehicle.getCurrentPosition());
             vehicle.setSpeed(0.0);
             vehicle.setLastUpdateTime(LocalDateTime.now()); // 更新时间
 
             // 清零所有运行时指标
             vehicle.setCurrentDemandId(null);
             vehicle.setRoutePolyline(null);
-            vehicle.setParsedPolyline(null);
+            vehicle.setRouteId(null);
+            vehicle.setRouteGeometry(null);
             vehicle.setTraveledPolyline(null);
             vehicle.setActionStartTime(0);
             vehicle.setLastReachedPathIndex( null);
@@ -721,9 +939,129 @@ public class VehicleServiceImpl implements VehicleService {
 
 
             // 2. 更新数据库
-            vehicleMapper.update(vehicle);
+            vehicleWriteBehindBuffer.markDirty(vehicle);
         }
+        // 重置后需要数据库立即一致
+        vehicleWriteBehindBuffer.flushAndWait();
+        clearEventState();
+        vehicleProjection.refresh(allVehicles);
         log.info("所有 {} 辆车辆已重置并初始化完成。", allVehicles.size());
     }
-}
 
+    @Override
+    public void publishPositions() {
+        vehicleGeoService.publish(runtimeVehicleCache.values());
+    }
+
+    @Override
+    public Map<VehicleStatus, Long> countVehiclesByStatus() {
+        Map<VehicleStatus, Long> counts = new EnumMap<>(VehicleStatus.class);
+        for (Vehicle vehicle : runtimeVehicleCache.values()) {
+            counts.merge(vehicle.getStatus(), 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    @Override
+    public void captureCheckpoint(SimulationCheckpoint checkpoint) {
+        List<Vehicle> vehicles = new ArrayList<>(runtimeVehicleCache.size());
+        for (Vehicle vehicle : runtimeVehicleCache.values()) {
+            vehicles.add(copyRuntimeState(vehicle));
+        }
+        vehicles.sort(Comparator.comparing(Vehicle::getId));
+        checkpoint.setVehicles(vehicles);
+
+        checkpoint.setEventStateInitialized(eventStateInitialized);
+        checkpoint.setEventClock(eventClock);
+        checkpoint.setEvents(eventQueue.snapshot());
+        checkpoint.setIdleSince(new HashMap<>(idleSince));
+    }
+
+    @Override
+    public void restoreCheckpoint(SimulationCheckpoint checkpoint) {
+        runtimeVehicleCache.clear();
+        invalidatedVehicleIds.clear();
+        clearEventState();
+
+        for (Vehicle vehicle : checkpoint.getVehicles()) {
+            runtimeVehicleCache.put(vehicle.getId(), vehicle);
+            vehicleWriteBehindBuffer.markDirty(vehicle);
+        }
+        vehicleWriteBehindBuffer.flushAndWait();
+
+        // 检查点之后新增的车辆不在检查点中，按数据库当前状态加入
+        // 数据库中检查点之后的变更已被检查点覆盖，水位线推进到当前所有行之后，不再同步
+        syncWatermark = null;
+        syncedAtWatermark.clear();
+        for (Vehicle dbVehicle : vehicleMapper.findAll()) {
+            runtimeVehicleCache.putIfAbsent(dbVehicle.getId(), dbVehicle);
+            advanceWatermark(dbVehicle);
+        }
+        if (syncWatermark == null) {
+            syncWatermark = LocalDateTime.now();
+        }
+
+        if (checkpoint.isEventStateInitialized()) {
+            for (VehicleEvent event : checkpoint.getEvents()) {
+                eventQueue.schedule(event.vehicleId(), event.type(), event.time());
+            }
+            idleSince.putAll(checkpoint.getIdleSince());
+            for (Vehicle vehicle : runtimeVehicleCache.values()) {
+                if (isMoving(vehicle.getStatus())) {
+                    movingVehicleIds.add(vehicle.getId());
+                }
+            }
+            eventClock = checkpoint.getEventClock();
+            eventStateInitialized = true;
+        }
+        vehicleProjection.clear();
+        vehicleProjection.refresh(runtimeVehicleCache.values());
+        log.info("已从检查点恢复 {} 辆车辆的运行时状态，待处理事件 {} 个。", checkpoint.getVehicles().size(), eventQueue.size());
+    }
+
+    /**
+     * 复制车辆的全部字段（包括仅在内存中使用的字段），使写检查点期间 tick 线程可以继续修改原对象。
+     * RouteGeometry 不可变，直接共享引用。
+     */
+    private Vehicle copyRuntimeState(Vehicle source) {
+        Vehicle copy = new Vehicle();
+        copy.setId(source.getId());
+        copy.setPlateNumber(source.getPlateNumber());
+        copy.setTypeId(source.getTypeId());
+        copy.setStatus(source.getStatus());
+        copy.setCurrentPosition(source.getCurrentPosition());
+        copy.setCurrentDemandId(source.getCurrentDemandId());
+        copy.setLastUpdateTime(source.getLastUpdateTime());
+        copy.setSpeed(source.getSpeed());
+        copy.setLastReachedPathIndex(source.getLastReachedPathIndex());
+        copy.setTotalShippingWeight(source.getTotalShippingWeight());
+        copy.setTotalShippingVolume(source.getTotalShippingVolume());
+        copy.setOriginPosition(source.getOriginPosition());
+        copy.setRoutePolyline(source.getRoutePolyline());
+        copy.setRouteId(source.getRouteId());
+        copy.setTraveledPolyline(source.getTraveledPolyline());
+        copy.setRouteGeometry(source.getRouteGeometry());
+        copy.setRouteTraveledDistance(source.getRouteTraveledDistance());
+        copy.setRouteDistance(source.getRouteDistance());
+        copy.setRouteDuration(source.getRouteDuration());
+        copy.setActionStartTime(source.getActionStartTime());
+        copy.setNoLoadDistance(source.getNoLoadDistance());
+        copy.setNoLoadDuration(source.getNoLoadDuration());
+        copy.setLoadDistance(source.getLoadDistance());
+        copy.setLoadDuration(source.getLoadDuration());
+        copy.setWaitingDuration(source.getWaitingDuration());
+        copy.setWastedLoad(source.getWastedLoad());
+        return copy;
+    }
+
+    /**
+     * 清空离散事件引擎的调度状态，下次以离散事件模式运行时会根据车辆状态重新安排全部事件
+     */
+    private void clearEventState() {
+        eventQueue.clear();
+        movingVehicleIds.clear();
+        idleSince.clear();
+        eventStateInitialized = false;
+        eventClock = 0L;
+    }
+}
@@ -1,36 +1,71 @@
 package com.transportation.dispatch.service.impl;
 
 import com.transportation.dispatch.enumeration.WeatherCondition;
+import com.transportation.dispatch.metrics.SimulationMetrics;
 import com.transportation.dispatch.model.entity.WeatherInfo;
 import com.transportation.dispatch.service.WeatherService;
+import com.transportation.dispatch.simulation.SimulationClock;
+import com.transportation.dispatch.simulation.SimulationRandom;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Slf4j
 public class WeatherServiceImpl implements WeatherService {
 
-    private final Map<String, WeatherInfo> weatherCache = new HashMap<>();
-    private final Random random = new Random();
-    private static final long CACHE_DURATION_MINUTES = 30;
+    // 天气有效期（仿真秒）。实时运行时仿真时间是真实时间的 60 倍，与原先真实时间 30 分钟的有效期一致
+    private static final long WEATHER_PERIOD_SECONDS = 30 * 60 * 60;
+
+    @Autowired
+    private SimulationRandom simulationRandom;
+    @Autowired
+    private SimulationClock simulationClock;
+    @Autowired
+    private SimulationMetrics simulationMetrics;
+
+    // 仿真 tick 会在多个线程上并发查询天气，缓存必须是线程安全的
+    private final Map<String, CachedWeather> weatherCache = new ConcurrentHashMap<>();
+    // 手动触发天气变化的次数，用于派生不同的随机流
+    private final AtomicLong manualChanges = new AtomicLong();
+
+    /**
+     * 缓存的天气及其所属的种子和时间段，任一变化即失效
+     */
+    private record CachedWeather(long seed, long period, WeatherInfo weather) {
+    }
 
     @Override
     public WeatherInfo getWeatherByLocation(String location) {
-        WeatherInfo cachedWeather = weatherCache.get(location);
-        if (cachedWeather != null && isCacheValid(cachedWeather)) {
-            return cachedWeather;
+        long start = System.nanoTime();
+        try {
+            return lookupWeather(location);
+        } finally {
+            simulationMetrics.recordWeatherLookup(System.nanoTime() - start);
         }
+    }
 
-        // 模拟天气数据（实际项目中应调用真实的天气API）
-        WeatherInfo weatherInfo = generateRandomWeather(location);
-        weatherCache.put(location, weatherInfo);
-        log.info("为位置 {} 生成天气信息: {}", location, weatherInfo.getCondition());
-        return weatherInfo;
+    private WeatherInfo lookupWeather(String location) {
+        long seed = simulationRandom.getSeed();
+        long period = simulationClock.now() / WEATHER_PERIOD_SECONDS;
+        // 原子地检查并刷新缓存，避免多个线程为同一位置各自生成不同的天气
+        return weatherCache.compute(location, (key, cached) -> {
+            if (cached != null && cached.seed() == seed && cached.period() == period) {
+                return cached;
+            }
+
+            // 模拟天气数据（实际项目中应调用真实的天气API）
+            // 天气只由 (种子, 位置, 时间段) 决定，与哪辆车、哪个线程先查询无关
+            WeatherInfo weatherInfo = generateRandomWeather(key, simulationRandom.keyed("weather", key, period));
+            log.info("为位置 {} 生成天气信息: {}", key, weatherInfo.getCondition());
+            return new CachedWeather(seed, period, weatherInfo);
+        }).weather();
     }
 
     @Override
@@ -41,13 +76,15 @@ public class WeatherServiceImpl implements WeatherService {
 
     @Override
     public WeatherInfo simulateWeatherChange(String location) {
-        WeatherInfo newWeather = generateRandomWeather(location);
-        weatherCache.put(location, newWeather);
+        long period = simulationClock.now() / WEATHER_PERIOD_SECONDS;
+        WeatherInfo newWeather = generateRandomWeather(location,
+                simulationRandom.keyed("weather-change", location, manualChanges.incrementAndGet()));
+        weatherCache.put(location, new CachedWeather(simulationRandom.getSeed(), period, newWeather));
         log.info("位置 {} 的天气已更新为: {}", location, newWeather.getCondition());
         return newWeather;
     }
 
-    private WeatherInfo generateRandomWeather(String location) {
+    private WeatherInfo generateRandomWeather(String location, Random random) {
         WeatherCondition[] conditions = WeatherCondition.values();
         WeatherCondition randomCondition = conditions[random.nextInt(conditions.length)];
         
@@ -65,8 +102,4 @@ public class WeatherServiceImpl implements WeatherService {
 
         return weatherInfo;
     }
-
-    private boolean isCacheValid(WeatherInfo weatherInfo) {
-        return weatherInfo.getTimestamp().plusMinutes(CACHE_DURATION_MINUTES).isAfter(LocalDateTime.now());
-    }
 }
\ No newline at end of file
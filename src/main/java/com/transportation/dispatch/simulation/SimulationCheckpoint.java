@@ -0,0 +1,38 @@
+package com.transportation.dispatch.simulation;
+
+import com.transportation.dispatch.enumeration.SimulationEngineType;
+import com.transportation.dispatch.model.entity.TransportDemand;
+import com.transportation.dispatch.model.entity.Vehicle;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 某一仿真时刻的完整运行时状态：车队（含路径、里程计数等只存在于内存的字段）、任务表、仿真时钟、
+ * 随机流状态以及离散事件引擎的调度状态。在 tick 线程上采集，由 SimulationCheckpointStore 在后台写盘。
+ * 采集时所有对象都已复制，写盘期间 tick 线程可以继续修改原对象。
+ */
+@Data
+public class SimulationCheckpoint {
+    private long sessionId;
+    private long simulationTime;
+    private SimulationEngineType engineType;
+    private long seed;
+    // 采集时刻（真实时间，毫秒）
+    private long createdTime;
+
+    private Map<String, Long> subsystemRandomStates = new HashMap<>();
+    private Map<Long, Long> vehicleRandomStates = new HashMap<>();
+
+    private List<Vehicle> vehicles = new ArrayList<>();
+    private List<TransportDemand> demands = new ArrayList<>();
+
+    // ---- 离散事件引擎状态 ----
+    private boolean eventStateInitialized;
+    private long eventClock;
+    private List<VehicleEvent> events = new ArrayList<>();
+    private Map<Long, Long> idleSince = new HashMap<>();
+}
@@ -0,0 +1,22 @@
+package com.transportation.dispatch.simulation;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 当前会话的仿真时间（秒）。
+ * 依赖时间的模拟逻辑（如天气变化）应以仿真时间而不是真实时间为准，
+ * 否则快进与实时运行、或同一种子的两次运行会得到不同结果。
+ */
+@Component
+public class SimulationClock {
+
+    private volatile long now = 0L;
+
+    public long now() {
+        return now;
+    }
+
+    public void set(long simulationTime) {
+        this.now = simulationTime;
+    }
+}
@@ -0,0 +1,113 @@
+package com.transportation.dispatch.simulation;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 仿真随机数的唯一来源。
+ * 每次仿真会话使用一个种子，由它派生出互不相关的随机流：每个子系统（需求生成等）一个流，每辆车一个流，
+ * 天气按 (位置, 时间段) 派生。某个流的取数顺序只取决于它自己的使用者，
+ * 因此分片并行、事件重排都不会改变结果，相同种子的两次运行可以得到完全一致的统计指标。
+ */
+@Component
+public class SimulationRandom {
+
+    private static final long VEHICLE_STREAM = 0x56454849434C45L; // "VEHICLE"
+
+    private volatile long seed;
+    private final Map<String, StatefulRandom> subsystemStreams = new ConcurrentHashMap<>();
+    private final Map<Long, StatefulRandom> vehicleStreams = new ConcurrentHashMap<>();
+
+    public SimulationRandom() {
+        reseed(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * 切换到新的种子并丢弃所有已派生的随机流，在仿真会话开始时调用
+     */
+    public synchronized void reseed(long seed) {
+        this.seed = seed;
+        subsystemStreams.clear();
+        vehicleStreams.clear();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * 子系统级别的随机流，例如 "demand"。同一子系统在一次会话内始终是同一个流。
+     */
+    public StatefulRandom subsystem(String name) {
+        return subsystemStreams.computeIfAbsent(name, n -> new StatefulRandom(derive(seed, hash(n), 0)));
+    }
+
+    /**
+     * 车辆专属的随机流。一辆车在一个 tick 内只会被一个线程步进，因此各车辆的取数互不影响。
+     */
+    public StatefulRandom vehicle(Long vehicleId) {
+        return vehicleStreams.computeIfAbsent(vehicleId, id -> new StatefulRandom(derive(seed, VEHICLE_STREAM, id)));
+    }
+
+    /**
+     * 一次性的随机流，完全由 (子系统, 键, 序号) 决定，不依赖调用顺序
+     */
+    public Random keyed(String subsystem, String key, long index) {
+        return new Random(derive(derive(seed, hash(subsystem), hash(key)), index, 0));
+    }
+
+    /**
+     * 导出所有已派生的子系统随机流的内部状态，用于写入检查点
+     */
+    public Map<String, Long> exportSubsystemStates() {
+        Map<String, Long> states = new HashMap<>();
+        subsystemStreams.forEach((name, stream) -> states.put(name, stream.getState()));
+        return states;
+    }
+
+    /**
+     * 导出所有已派生的车辆随机流的内部状态，用于写入检查点
+     */
+    public Map<Long, Long> exportVehicleStates() {
+        Map<Long, Long> states = new HashMap<>();
+        vehicleStreams.forEach((id, stream) -> states.put(id, stream.getState()));
+        return states;
+    }
+
+    /**
+     * 从检查点恢复：切换到原会话的种子，并把各随机流恢复到检查点时刻的状态。
+     * 检查点中没有的流（当时尚未使用过）会在首次使用时按种子重新派生，与未中断的运行一致。
+     */
+    public synchronized void restore(long seed, Map<String, Long> subsystemStates, Map<Long, Long> vehicleStates) {
+        reseed(seed);
+        subsystemStates.forEach((name, state) -> subsystem(name).setState(state));
+        vehicleStates.forEach((id, state) -> vehicle(id).setState(state));
+    }
+
+    /**
+     * 由种子和两个分量派生出新的种子（SplitMix64 混合）
+     */
+    static long derive(long seed, long a, long b) {
+        return mix64(mix64(seed ^ mix64(a)) + b);
+    }
+
+    private static long mix64(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long hash(String text) {
+        long h = 1125899906842597L;
+        for (int i = 0; i < text.length(); i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h;
+    }
+}
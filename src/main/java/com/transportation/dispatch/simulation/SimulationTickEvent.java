@@ -0,0 +1,10 @@
+package com.transportation.dispatch.simulation;
+
+/**
+ * 实时仿真完成一个 tick（或重置车队）后发布的事件，车辆推送以此为节拍。
+ * 无头快进和沙箱不发布该事件。
+ *
+ * @param simulationTime 该 tick 结束时的仿真时间（秒）
+ */
+public record SimulationTickEvent(long simulationTime) {
+}
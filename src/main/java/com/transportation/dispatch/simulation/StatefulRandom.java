@@ -0,0 +1,48 @@
+package com.transportation.dispatch.simulation;
+
+import java.util.Random;
+
+/**
+ * 内部状态可导出、可恢复的随机流，用于仿真检查点。
+ * 使用与 java.util.Random 相同的 48 位线性同余算法，相同种子产生的序列与 new Random(seed) 完全一致。
+ * 与 java.util.Random 不同，本类不是线程安全的：每个流在同一时刻只由一个线程使用（见 SimulationRandom）。
+ */
+public class StatefulRandom extends Random {
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // 不能有初始化表达式：父类构造器会先调用 setSeed 为其赋值
+    private long state;
+
+    public StatefulRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    /**
+     * 当前的 48 位内部状态
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * 恢复到 getState 导出的内部状态，之后的取数序列与导出时刻之后完全一致
+     */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
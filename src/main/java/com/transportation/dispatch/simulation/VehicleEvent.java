@@ -0,0 +1,24 @@
+package com.transportation.dispatch.simulation;
+
+import com.transportation.dispatch.enumeration.VehicleEventType;
+
+/**
+ * 一个带时间戳的车辆事件。
+ * 按 (时间, 车辆ID, 序号) 排序，同一时刻的事件按车辆ID处理，与固定步长引擎的遍历顺序一致。
+ */
+public record VehicleEvent(
+        long time,
+        Long vehicleId,
+        VehicleEventType type,
+        long sequence
+) implements Comparable<VehicleEvent> {
+
+    @Override
+    public int compareTo(VehicleEvent other) {
+        int byTime = Long.compare(time, other.time);
+        if (byTime != 0) return byTime;
+        int byVehicle = vehicleId.compareTo(other.vehicleId);
+        if (byVehicle != 0) return byVehicle;
+        return Long.compare(sequence, other.sequence);
+    }
+}
@@ -0,0 +1,78 @@
+package com.transportation.dispatch.simulation;
+
+import com.transportation.dispatch.enumeration.VehicleEventType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 车辆事件优先队列。每辆车同一时刻最多只有一个有效事件：
+ * 重新安排或取消时旧事件不会从堆中删除，而是在出队时作为过期事件跳过（惰性删除）。
+ */
+public class VehicleEventQueue {
+
+    // 过期事件超过有效事件的该倍数时重建堆，避免无效元素堆积
+    private static final int COMPACT_FACTOR = 2;
+    private static final int COMPACT_MIN_SIZE = 1024;
+
+    private PriorityQueue<VehicleEvent> queue = new PriorityQueue<>();
+    // 每辆车当前有效的事件
+    private final Map<Long, VehicleEvent> current = new HashMap<>();
+    private long sequence = 0L;
+
+    /**
+     * 为车辆安排一个事件，替换该车辆之前的事件
+     */
+    public synchronized void schedule(Long vehicleId, VehicleEventType type, long time) {
+        VehicleEvent event = new VehicleEvent(time, vehicleId, type, sequence++);
+        current.put(vehicleId, event);
+        queue.add(event);
+        if (queue.size() > COMPACT_MIN_SIZE && queue.size() > current.size() * COMPACT_FACTOR) {
+            queue = new PriorityQueue<>(current.values());
+        }
+    }
+
+    public synchronized void cancel(Long vehicleId) {
+        current.remove(vehicleId);
+    }
+
+    /**
+     * 取出下一个在 now 之前（含）到期的有效事件
+     * @return 到期事件；没有到期事件时返回 null
+     */
+    public synchronized VehicleEvent pollDue(long now) {
+        while (!queue.isEmpty() && queue.peek().time() <= now) {
+            VehicleEvent event = queue.poll();
+            if (current.get(event.vehicleId()) == event) {
+                current.remove(event.vehicleId());
+                return event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 当前有效事件数
+     */
+    public synchronized int size() {
+        return current.size();
+    }
+
+    /**
+     * 当前所有有效事件，按处理顺序排列，用于写入检查点
+     */
+    public synchronized List<VehicleEvent> snapshot() {
+        List<VehicleEvent> events = new ArrayList<>(current.values());
+        Collections.sort(events);
+        return events;
+    }
+
+    public synchronized void clear() {
+        queue.clear();
+        current.clear();
+    }
+}
@@ -0,0 +1,130 @@
+package com.transportation.dispatch.simulation.sandbox;
+
+import com.transportation.dispatch.enumeration.DemandStatus;
+import com.transportation.dispatch.mapper.TransportDemandMapper;
+import com.transportation.dispatch.model.entity.TransportDemand;
+import com.transportation.dispatch.model.geo.Coordinate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 沙箱内的任务表，每个沙箱有独立的任务队列，不读写真实的 transport_demand 表。
+ * POI 坐标等参考数据仍从共享的数据库 mapper 读取。
+ */
+public class InMemoryTransportDemandMapper implements TransportDemandMapper {
+
+    private final TransportDemandMapper shared;
+    private final ConcurrentSkipListMap<Long, TransportDemand> rows = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+
+    public InMemoryTransportDemandMapper(TransportDemandMapper shared) {
+        this.shared = shared;
+    }
+
+    @Override
+    public void insert(TransportDemand demand) {
+        demand.setId(nextId.incrementAndGet());
+        demand.setCreationTime(LocalDateTime.now());
+        rows.put(demand.getId(), copy(demand));
+    }
+
+    @Override
+    public List<TransportDemand> findByIds(List<Long> ids) {
+        List<TransportDemand> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            TransportDemand row = rows.get(id);
+            if (row != null) result.add(copy(row));
+        }
+        return result;
+    }
+
+    @Override
+    public Coordinate findPoiCoordsById(Long poiId) {
+        return shared.findPoiCoordsById(poiId);
+    }
+
+    @Override
+    public List<TransportDemand> findByStatus(DemandStatus status) {
+        List<TransportDemand> result = new ArrayList<>();
+        for (TransportDemand row : rows.values()) {
+            if (row.getStatus() == status) result.add(copy(row));
+        }
+        return result;
+    }
+
+    @Override
+    public void update(TransportDemand demand) {
+        TransportDemand row = rows.get(demand.getId());
+        if (row == null) return;
+        TransportDemand updated = copy(row);
+        updated.setStatus(demand.getStatus());
+        updated.setAssignedVehicleId(demand.getAssignedVehicleId());
+        updated.setAssignmentTime(demand.getAssignmentTime());
+        updated.setPickupTime(demand.getPickupTime());
+        updated.setCompletionTime(demand.getCompletionTime());
+        rows.put(updated.getId(), updated);
+    }
+
+    @Override
+    public BigDecimal findCargoWeightById(Long id) {
+        TransportDemand row = rows.get(id);
+        return row != null ? row.getCargoWeight() : null;
+    }
+
+    @Override
+    public Long findOriginPoiIdById(Long id) {
+        TransportDemand row = rows.get(id);
+        return row != null ? row.getOriginPoiId() : null;
+    }
+
+    @Override
+    public Long findDestinationPoiIdById(Long id) {
+        TransportDemand row = rows.get(id);
+        return row != null ? row.getDestinationPoiId() : null;
+    }
+
+    @Override
+    public List<TransportDemand> findAll() {
+        List<TransportDemand> result = new ArrayList<>(rows.size());
+        for (TransportDemand row : rows.values()) {
+            result.add(copy(row));
+        }
+        return result;
+    }
+
+    @Override
+    public void insertWithId(TransportDemand demand) {
+        rows.put(demand.getId(), copy(demand));
+        nextId.accumulateAndGet(demand.getId(), Math::max);
+    }
+
+    @Override
+    public void deleteAll() {
+        rows.clear();
+        nextId.set(0L);
+    }
+
+    private static TransportDemand copy(TransportDemand source) {
+        TransportDemand copy = new TransportDemand();
+        copy.setId(source.getId());
+        copy.setOriginPoiId(source.getOriginPoiId());
+        copy.setDestinationPoiId(source.getDestinationPoiId());
+        copy.setCargoName(source.getCargoName());
+        copy.setCargoWeight(source.getCargoWeight());
+        copy.setCargoVolume(source.getCargoVolume());
+        copy.setStatus(source.getStatus());
+        copy.setAssignedVehicleId(source.getAssignedVehicleId());
+        copy.setCreationTime(source.getCreationTime());
+        copy.setAssignmentTime(source.getAssignmentTime());
+        copy.setPickupTime(source.getPickupTime());
+        copy.setCompletionTime(source.getCompletionTime());
+        copy.setTemplateId(source.getTemplateId());
+        copy.setStageOrder(source.getStageOrder());
+        return copy;
+    }
+}
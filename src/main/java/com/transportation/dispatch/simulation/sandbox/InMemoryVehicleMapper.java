@@ -0,0 +1,169 @@
+package com.transportation.dispatch.simulation.sandbox;
+
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.mapper.VehicleMapper;
+import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.model.entity.VehicleType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 沙箱内的车辆表。创建时从数据库复制一份车队并重置为空闲状态，之后的读写只发生在内存中，不影响真实的 vehicle 表。
+ * 与数据库行为一致：查询返回的是行的副本，修改副本后必须通过 update 写回。
+ * 车型等参考数据仍从共享的数据库 mapper 读取。
+ */
+public class InMemoryVehicleMapper implements VehicleMapper {
+
+    private final VehicleMapper shared;
+    private final ConcurrentSkipListMap<Long, Vehicle> rows = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextId;
+
+    public InMemoryVehicleMapper(VehicleMapper shared) {
+        this.shared = shared;
+        for (Vehicle vehicle : shared.findAll()) {
+            rows.put(vehicle.getId(), initialRow(vehicle));
+        }
+        nextId = new AtomicLong(rows.isEmpty() ? 0L : rows.lastKey());
+    }
+
+    @Override
+    public void insertType(VehicleType vehicleType) {
+        throw new UnsupportedOperationException("沙箱中不能修改车型");
+    }
+
+    @Override
+    public VehicleType findTypeById(Long id) {
+        return shared.findTypeById(id);
+    }
+
+    @Override
+    public List<VehicleType> findAllTypes() {
+        return shared.findAllTypes();
+    }
+
+    @Override
+    public Double findMaxLoad(Long id) {
+        return shared.findMaxLoad(id);
+    }
+
+    @Override
+    public void insert(Vehicle vehicle) {
+        Vehicle row = copy(vehicle);
+        row.setId(nextId.incrementAndGet());
+        row.setLastUpdateTime(LocalDateTime.now());
+        rows.put(row.getId(), row);
+    }
+
+    @Override
+    public List<Vehicle> findAll() {
+        return copies(rows.values());
+    }
+
+    @Override
+    public List<Vehicle> findByStatus(VehicleStatus status) {
+        List<Vehicle> result = new ArrayList<>();
+        for (Vehicle row : rows.values()) {
+            if (row.getStatus() == status) result.add(copy(row));
+        }
+        return result;
+    }
+
+    @Override
+    public void update(Vehicle vehicle) {
+        Vehicle row = copy(vehicle);
+        row.setPlateNumber(rowValue(vehicle.getId()).getPlateNumber());
+        row.setTypeId(rowValue(vehicle.getId()).getTypeId());
+        row.setLastUpdateTime(LocalDateTime.now());
+        rows.put(row.getId(), row);
+    }
+
+    @Override
+    public void updateRuntimeState(Vehicle vehicle) {
+        Vehicle row = rowValue(vehicle.getId());
+        Vehicle updated = copy(vehicle);
+        updated.setPlateNumber(row.getPlateNumber());
+        updated.setTypeId(row.getTypeId());
+        updated.setLastUpdateTime(row.getLastUpdateTime());
+        rows.put(updated.getId(), updated);
+    }
+
+    @Override
+    public List<Vehicle> findUpdatedSince(LocalDateTime since) {
+        List<Vehicle> result = new ArrayList<>();
+        for (Vehicle row : rows.values()) {
+            LocalDateTime updated = row.getLastUpdateTime();
+            if (updated != null && !updated.isBefore(since)) {
+                result.add(copy(row));
+            }
+        }
+        result.sort(Comparator.comparing(Vehicle::getLastUpdateTime).thenComparing(Vehicle::getId));
+        return result;
+    }
+
+    @Override
+    public List<Vehicle> findByIds(Collection<Long> ids) {
+        List<Vehicle> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Vehicle row = rows.get(id);
+            if (row != null) result.add(copy(row));
+        }
+        return result;
+    }
+
+    private Vehicle rowValue(Long id) {
+        Vehicle row = rows.get(id);
+        if (row == null) {
+            throw new IllegalArgumentException("沙箱中不存在车辆 #" + id);
+        }
+        return row;
+    }
+
+    /**
+     * 沙箱从干净的车队开始：实时仿真中的任务不会复制进沙箱，车辆一律回到出发点并置为空闲
+     */
+    private static Vehicle initialRow(Vehicle source) {
+        Vehicle row = copy(source);
+        row.setStatus(VehicleStatus.IDLE);
+        if (row.getOriginPosition() != null) {
+            row.setCurrentPosition(row.getOriginPosition());
+        }
+        row.setCurrentDemandId(null);
+        row.setLastReachedPathIndex(null);
+        row.setSpeed(0.0);
+        return row;
+    }
+
+    private static List<Vehicle> copies(Collection<Vehicle> source) {
+        List<Vehicle> result = new ArrayList<>(source.size());
+        for (Vehicle row : source) {
+            result.add(copy(row));
+        }
+        return result;
+    }
+
+    /**
+     * 只复制 vehicle 表中的列，运行时字段保持默认值，与从数据库查询得到的对象一致
+     */
+    private static Vehicle copy(Vehicle source) {
+        Vehicle copy = new Vehicle();
+        copy.setId(source.getId());
+        copy.setPlateNumber(source.getPlateNumber());
+        copy.setTypeId(source.getTypeId());
+        copy.setStatus(source.getStatus());
+        copy.setCurrentPosition(source.getCurrentPosition());
+        copy.setCurrentDemandId(source.getCurrentDemandId());
+        copy.setLastUpdateTime(source.getLastUpdateTime());
+        copy.setSpeed(source.getSpeed());
+        copy.setLastReachedPathIndex(source.getLastReachedPathIndex());
+        copy.setTotalShippingWeight(source.getTotalShippingWeight());
+        copy.setTotalShippingVolume(source.getTotalShippingVolume());
+        copy.setOriginPosition(source.getOriginPosition());
+        return copy;
+    }
+}
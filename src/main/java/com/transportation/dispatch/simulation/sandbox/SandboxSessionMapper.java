@@ -0,0 +1,46 @@
+package com.transportation.dispatch.simulation.sandbox;
+
+import com.transportation.dispatch.mapper.SimulationSessionMapper;
+import com.transportation.dispatch.model.entity.SimulationSession;
+
+import java.util.List;
+
+/**
+ * 沙箱内的会话表。会话仍写入真实的 simulation_session 表，使沙箱结果出现在会话列表中，
+ * 但写入时标记为沙箱会话，实时仿真恢复未结束会话时不会选中它们；
+ * 沙箱每次都创建新会话，从不恢复未结束的会话。
+ */
+public class SandboxSessionMapper implements SimulationSessionMapper {
+
+    private final SimulationSessionMapper shared;
+
+    public SandboxSessionMapper(SimulationSessionMapper shared) {
+        this.shared = shared;
+    }
+
+    @Override
+    public int insert(SimulationSession session) {
+        session.setSandbox(true);
+        return shared.insert(session);
+    }
+
+    @Override
+    public SimulationSession findById(Long id) {
+        return shared.findById(id);
+    }
+
+    @Override
+    public int update(SimulationSession session) {
+        return shared.update(session);
+    }
+
+    @Override
+    public List<SimulationSession> findAll() {
+        return shared.findAll();
+    }
+
+    @Override
+    public SimulationSession findLatestUnfinishedSession() {
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.transportation.dispatch.simulation.sandbox;
+
+import com.transportation.dispatch.mapper.VehicleMapper;
+import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.persistence.VehicleWriteBehindBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * 沙箱内的车辆写入：直接写入沙箱自己的内存车辆表，不经过写线程，也不访问数据库。
+ */
+public class SandboxVehicleWriteBuffer extends VehicleWriteBehindBuffer {
+
+    @Autowired
+    private VehicleMapper vehicleMapper;
+
+    @Override
+    public void markDirty(Vehicle vehicle) {
+        if (vehicle == null || vehicle.getId() == null) return;
+        vehicleMapper.updateRuntimeState(vehicle);
+    }
+
+    @Override
+    public Future<?> flush() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void flushAndWait() {
+    }
+
+    @Override
+    public boolean isPending(Long vehicleId) {
+        return false;
+    }
+
+    @Override
+    public int getBacklog() {
+        return 0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.transportation.dispatch.simulation.sandbox;
+
+import com.transportation.dispatch.mapper.SimulationSessionMapper;
+import com.transportation.dispatch.mapper.TransportDemandMapper;
+import com.transportation.dispatch.mapper.VehicleMapper;
+import com.transportation.dispatch.metrics.SimulationMetrics;
+import com.transportation.dispatch.service.SimulationService;
+import com.transportation.dispatch.service.impl.*;
+import com.transportation.dispatch.simulation.SimulationClock;
+import com.transportation.dispatch.simulation.SimulationRandom;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * 一个隔离的数据沙箱。
+ * 以主应用上下文为父上下文创建子上下文，在其中以同名 Bean 重新注册所有带仿真状态的服务
+ * （车队缓存、任务队列、时钟、随机流、天气），以及内存版的车辆表和任务表、带沙箱标记的会话表；
+ * 由于子上下文中的同名 Bean 会遮蔽父上下文，这些服务之间互相注入的都是本沙箱的实例，
+ * 而 POI、路径缓存、车型等只读参考数据和仿真工作线程池仍来自父上下文、由所有沙箱共享。
+ */
+public class SimulationSandbox implements AutoCloseable {
+
+    private final AnnotationConfigApplicationContext context;
+
+    public SimulationSandbox(ApplicationContext parent) {
+        VehicleMapper sharedVehicleMapper = parent.getBean(VehicleMapper.class);
+        TransportDemandMapper sharedDemandMapper = parent.getBean(TransportDemandMapper.class);
+        SimulationSessionMapper sharedSessionMapper = parent.getBean(SimulationSessionMapper.class);
+
+        context = new AnnotationConfigApplicationContext();
+        context.setParent(parent);
+        context.registerBean("vehicleMapper", VehicleMapper.class, () -> new InMemoryVehicleMapper(sharedVehicleMapper));
+        context.registerBean("transportDemandMapper", TransportDemandMapper.class, () -> new InMemoryTransportDemandMapper(sharedDemandMapper));
+        context.registerBean("simulationSessionMapper", SimulationSessionMapper.class, () -> new SandboxSessionMapper(sharedSessionMapper));
+        context.registerBean("vehicleWriteBehindBuffer", SandboxVehicleWriteBuffer.class);
+        // 沙箱的指标单独记录，不混入实时仿真的指标
+        context.registerBean("simulationMetrics", SimulationMetrics.class, () -> new SimulationMetrics(new SimpleMeterRegistry()));
+        context.register(
+                SimulationRandom.class,
+                SimulationClock.class,
+                WeatherServiceImpl.class,
+                DemandServiceImpl.class,
+                VehicleServiceImpl.class,
+                DispatchServiceImpl.class,
+                SimulationServiceImpl.class
+        );
+        context.refresh();
+    }
+
+    public SimulationService getSimulationService() {
+        return context.getBean(SimulationService.class);
+    }
+
+    /**
+     * 本沙箱当前的仿真时间（秒）
+     */
+    public long getSimulationTime() {
+        return context.getBean(SimulationClock.class).now();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,158 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.assignment.AssignmentSolver;
+import com.transportation.dispatch.assignment.GreedyAssignmentSolver;
+import com.transportation.dispatch.assignment.HungarianAssignmentSolver;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+public class AssignmentSolverTest {
+
+    @Test
+    public void testHungarianMatchesBruteForceOnSmallRectangularMatrices() {
+        Random random = new Random(3);
+        for (int round = 0; round < 300; round++) {
+            int rows = 1 + random.nextInt(6);
+            int cols = 1 + random.nextInt(6);
+            double[][] cost = new double[rows][cols];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    cost[i][j] = random.nextInt(5) == 0 ? Double.POSITIVE_INFINITY : random.nextInt(2000) - 300;
+                }
+            }
+
+            int[] assignment = HungarianAssignmentSolver.INSTANCE.solve(cost);
+            assertValid(cost, assignment);
+            double[] best = bruteForce(cost, 0, new boolean[cols]);
+            assertEquals(best[0], assigned(assignment), "round " + round);
+            assertEquals(best[1], AssignmentSolver.totalCost(cost, assignment), 1e-6, "round " + round);
+        }
+    }
+
+    @Test
+    public void testGreedyHeapMatchesFullSortOrder() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int rows = 1 + random.nextInt(20);
+            int cols = 1 + random.nextInt(20);
+            double[][] cost = new double[rows][cols];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    // 成本取值范围很小，确保有大量相同成本，检验按行、列顺序取
+                    cost[i][j] = random.nextInt(4) == 0 ? Double.POSITIVE_INFINITY : random.nextInt(10);
+                }
+            }
+            assertArrayEquals(sortedGreedy(cost), GreedyAssignmentSolver.INSTANCE.solve(cost), "round " + round);
+        }
+    }
+
+    /**
+     * 1000 个任务 x 1000 辆车，约 10% 的组合因载重不可行。匈牙利算法的总成本应低于贪心，
+     * 两种算法的耗时写入日志。基准测试，默认构建不运行。
+     */
+    @Test
+    @Tag("benchmark")
+    public void testHungarianBeatsGreedyAtOneThousandSquare() {
+        int n = 1000;
+        Random random = new Random(42);
+        double[][] cost = new double[n][n];
+        double[] vehicleLng = new double[n], vehicleLat = new double[n];
+        for (int j = 0; j < n; j++) {
+            vehicleLng[j] = random.nextDouble() * 40_000;
+            vehicleLat[j] = random.nextDouble() * 40_000;
+        }
+        for (int i = 0; i < n; i++) {
+            double x = random.nextDouble() * 40_000, y = random.nextDouble() * 40_000;
+            double delivery = random.nextDouble() * 20_000;
+            for (int j = 0; j < n; j++) {
+                cost[i][j] = random.nextInt(10) == 0
+                        ? Double.POSITIVE_INFINITY
+                        : (Math.hypot(x - vehicleLng[j], y - vehicleLat[j]) + delivery) / 10 + random.nextDouble() * 600;
+            }
+        }
+
+        long start = System.nanoTime();
+        int[] greedy = GreedyAssignmentSolver.INSTANCE.solve(cost);
+        long greedyNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        int[] hungarian = HungarianAssignmentSolver.INSTANCE.solve(cost);
+        long hungarianNanos = System.nanoTime() - start;
+
+        assertValid(cost, greedy);
+        assertValid(cost, hungarian);
+        double greedyCost = AssignmentSolver.totalCost(cost, greedy);
+        double hungarianCost = AssignmentSolver.totalCost(cost, hungarian);
+        log.info("{}x{} 贪心：分配 {}，总成本 {}，耗时 {} ms；匈牙利：分配 {}，总成本 {}，耗时 {} ms",
+                n, n, assigned(greedy), String.format("%.1f", greedyCost), greedyNanos / 1_000_000,
+                assigned(hungarian), String.format("%.1f", hungarianCost), hungarianNanos / 1_000_000);
+        assertTrue(assigned(hungarian) >= assigned(greedy));
+        assertTrue(hungarianCost < greedyCost);
+    }
+
+    private static void assertValid(double[][] cost, int[] assignment) {
+        assertEquals(cost.length, assignment.length);
+        boolean[] taken = new boolean[cost.length == 0 ? 0 : cost[0].length];
+        for (int i = 0; i < assignment.length; i++) {
+            int j = assignment[i];
+            if (j < 0) continue;
+            assertFalse(taken[j], "列 " + j + " 被重复分配");
+            taken[j] = true;
+            assertNotEquals(Double.POSITIVE_INFINITY, cost[i][j]);
+        }
+    }
+
+    /**
+     * 对全部可行组合排序的贪心，作为对照
+     */
+    private static int[] sortedGreedy(double[][] cost) {
+        int rows = cost.length, cols = cost[0].length;
+        int[] assignment = new int[rows];
+        Arrays.fill(assignment, -1);
+        boolean[] columnTaken = new boolean[cols];
+        IntStream.range(0, rows * cols)
+                .filter(k -> cost[k / cols][k % cols] != Double.POSITIVE_INFINITY)
+                .boxed()
+                .sorted(Comparator.comparingDouble(k -> cost[k / cols][k % cols]))
+                .forEach(k -> {
+                    int i = k / cols, j = k % cols;
+                    if (assignment[i] < 0 && !columnTaken[j]) {
+                        assignment[i] = j;
+                        columnTaken[j] = true;
+                    }
+                });
+        return assignment;
+    }
+
+    private static int assigned(int[] assignment) {
+        int count = 0;
+        for (int j : assignment) if (j >= 0) count++;
+        return count;
+    }
+
+    /**
+     * 先比较分配数量（多者优先），再比较总成本
+     * @return {分配数量, 总成本}
+     */
+    private static double[] bruteForce(double[][] cost, int row, boolean[] taken) {
+        if (row == cost.length) return new double[]{0, 0};
+        double[] best = bruteForce(cost, row + 1, taken);
+        for (int j = 0; j < taken.length; j++) {
+            if (taken[j] || cost[row][j] == Double.POSITIVE_INFINITY) continue;
+            taken[j] = true;
+            double[] rest = bruteForce(cost, row + 1, taken);
+            taken[j] = false;
+            double count = rest[0] + 1, total = rest[1] + cost[row][j];
+            if (count > best[0] || (count == best[0] && total < best[1])) best = new double[]{count, total};
+        }
+        return best;
+    }
+}
@@ -0,0 +1,36 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.model.geo.Coordinate;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoordinateTest {
+
+    @Test
+    public void testParseAndFormatRoundTrip() {
+        Coordinate coordinate = Coordinate.parse("104.0657351, 30.65946");
+        assertNotNull(coordinate);
+        assertEquals("104.065735,30.659460", coordinate.toString());
+        assertEquals(coordinate, Coordinate.parse(coordinate.toString()));
+        assertEquals(104.065735, coordinate.getLng(), 1e-9);
+        assertEquals(30.65946, coordinate.getLat(), 1e-9);
+    }
+
+    @Test
+    public void testPackKeepsNegativeComponents() {
+        Coordinate coordinate = Coordinate.of(-73.985428, -40.748817);
+        Coordinate unpacked = Coordinate.fromPacked(coordinate.getPacked());
+        assertEquals(-73985428, unpacked.getLngE6());
+        assertEquals(-40748817, unpacked.getLatE6());
+        assertEquals("-73.985428,-40.748817", unpacked.toString());
+    }
+
+    @Test
+    public void testParseRejectsMalformedText() {
+        assertNull(Coordinate.parse(null));
+        assertNull(Coordinate.parse("104.06"));
+        assertNull(Coordinate.parse("abc,30.6"));
+        assertNull(Coordinate.parse("1,2,3"));
+    }
+}
@@ -0,0 +1,257 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.enumeration.AssignmentAlgorithm;
+import com.transportation.dispatch.enumeration.DemandStatus;
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.mapper.PoiMapper;
+import com.transportation.dispatch.mapper.TransportDemandMapper;
+import com.transportation.dispatch.mapper.VehicleMapper;
+import com.transportation.dispatch.model.entity.*;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.projection.PoiStore;
+import com.transportation.dispatch.service.VehicleService;
+import com.transportation.dispatch.service.impl.DispatchServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Slf4j
+public class DispatchCostMatrixTest {
+
+    private final ForkJoinPool workerPool = new ForkJoinPool(4);
+
+    @AfterEach
+    public void tearDown() {
+        workerPool.shutdownNow();
+    }
+
+    /**
+     * 每个装货点上恰好停着一辆合格车辆，只看行驶时间时最优指派就是就地装货；
+     * 空间索引为空，候选车辆由遍历全部车辆的有界堆选出。
+     */
+    @Test
+    public void testCostDispatchPicksColocatedVehiclesFromBoundedCandidates() {
+        int n = 300;
+        Random random = new Random(11);
+        List<Poi> pois = new ArrayList<>();
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Coordinate position = Coordinate.of(116 + random.nextDouble(), 39 + random.nextDouble());
+            pois.add(poi(i + 1L, position));
+            // 一半车辆载重不足，只有同一位置的合格车辆能承运
+            vehicles.add(vehicle(1000L + i, i % 2 == 0 ? 1L : 2L, position));
+        }
+        pois.add(poi(9999L, Coordinate.of(116.5, 39.5)));
+        List<TransportDemand> demands = new ArrayList<>();
+        for (int i = 0; i < n; i += 2) demands.add(demand(i, i + 1L, 9999L, "50"));
+        Collections.shuffle(demands, random);
+
+        DispatchServiceImpl dispatchService = dispatchService(pois, vehicles, demands, 4);
+        dispatchService.dispatchPendingDemandsByCost(new Weight2Dispatch(1.0, 0.0, 0.0, true, AssignmentAlgorithm.HUNGARIAN));
+
+        for (TransportDemand demand : demands) {
+            assertEquals(DemandStatus.ASSIGNED, demand.getStatus());
+            assertEquals(1000L + demand.getOriginPoiId() - 1, demand.getAssignedVehicleId());
+        }
+    }
+
+    /**
+     * 先到先得调度：启用空间索引时取离装货点最近的合格车辆；候选车辆数为 0 时不使用索引，按空闲车辆列表顺序取第一辆。
+     */
+    @Test
+    public void testFirstFitPicksNearestIndexedVehicle() {
+        Coordinate origin = Coordinate.of(116.0, 39.0);
+        List<Poi> pois = List.of(poi(1L, origin), poi(2L, Coordinate.of(116.5, 39.5)));
+        Vehicle outsideIndex = vehicle(1000L, 1L, Coordinate.of(117.0, 40.0));
+        Vehicle far = vehicle(1001L, 1L, Coordinate.of(116.2, 39.2));
+        Vehicle near = vehicle(1002L, 1L, origin);
+        List<Vehicle> vehicles = List.of(outsideIndex, far, near);
+
+        TransportDemand demand = demand(1L, 1L, 2L, "5");
+        DispatchServiceImpl dispatchService = dispatchService(pois, vehicles, List.of(demand), 2);
+        VehicleService vehicleService = (VehicleService) ReflectionTestUtils.getField(dispatchService, "vehicleService");
+        when(vehicleService.findNearestIdleVehicles(eq(origin), eq(1), any())).thenReturn(List.of(1002L));
+        dispatchService.dispatchPendingDemands();
+        assertEquals(1002L, demand.getAssignedVehicleId());
+
+        TransportDemand unindexed = demand(2L, 1L, 2L, "5");
+        dispatchService = dispatchService(pois, vehicles, List.of(unindexed), 0);
+        dispatchService.dispatchPendingDemands();
+        assertEquals(1000L, unindexed.getAssignedVehicleId());
+        vehicleService = (VehicleService) ReflectionTestUtils.getField(dispatchService, "vehicleService");
+        verify(vehicleService, never()).findNearestIdleVehicles(any(), anyInt(), any());
+    }
+
+    /**
+     * 2000 个任务 x 2000 辆车，每个任务考虑全部车辆。分别计时按任务收集候选车辆列表、逐个组合计算成本的旧路径
+     * 与基本类型数组按行并行构建的新路径，两者的成本矩阵应一致，分配结果中不能有重复的车辆。
+     * 基准测试，默认构建不运行。
+     */
+    @Test
+    @Tag("benchmark")
+    public void testFullCostMatrixAtTwoThousandSquare() {
+        int n = 2000;
+        Random random = new Random(5);
+        List<Poi> pois = new ArrayList<>();
+        List<Vehicle> vehicles = new ArrayList<>();
+        List<TransportDemand> demands = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            pois.add(poi(i + 1L, Coordinate.of(116 + random.nextDouble(), 39 + random.nextDouble())));
+            vehicles.add(vehicle(1000L + i, 1L + random.nextInt(2),
+                    Coordinate.of(116 + random.nextDouble(), 39 + random.nextDouble())));
+        }
+        for (int i = 0; i < n; i++) {
+            demands.add(demand(i, 1L + random.nextInt(n), 1L + random.nextInt(n), random.nextBoolean() ? "5" : "50"));
+        }
+        Weight2Dispatch weights = new Weight2Dispatch(1.0, 0.5, 0.1, true, AssignmentAlgorithm.GREEDY);
+        Map<Long, VehicleType> types = Map.of(1L, type(1L, "100"), 2L, type(2L, "10"));
+        Map<Long, Coordinate> positions = new HashMap<>();
+        for (Poi poi : pois) positions.put(poi.getId(), poi.getPosition());
+
+        DispatchServiceImpl dispatchService = dispatchService(pois, vehicles, demands, 0);
+        double[][] expected = null, actual = null;
+        long candidateListNanos = Long.MAX_VALUE, primitiveArrayNanos = Long.MAX_VALUE;
+        // 前几轮用于预热，各取最快一轮
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            expected = candidateListCostMatrix(demands, vehicles, types, positions, weights);
+            candidateListNanos = Math.min(candidateListNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            Object matrix = ReflectionTestUtils.invokeMethod(dispatchService, "buildCostMatrix", demands, vehicles, types, weights);
+            primitiveArrayNanos = Math.min(primitiveArrayNanos, System.nanoTime() - start);
+            actual = (double[][]) ReflectionTestUtils.getField(matrix, "cost");
+        }
+        log.info("{}x{} 成本矩阵：候选车辆列表 {} ms，基本类型数组按行并行 {} ms",
+                n, n, String.format("%.1f", candidateListNanos / 1e6), String.format("%.1f", primitiveArrayNanos / 1e6));
+
+        assertEquals(expected.length, actual.length);
+        for (int d = 0; d < expected.length; d++) {
+            assertEquals(expected[d].length, actual[d].length);
+            for (int c = 0; c < expected[d].length; c++) {
+                if (Double.isInfinite(expected[d][c])) assertTrue(Double.isInfinite(actual[d][c]));
+                else assertEquals(expected[d][c], actual[d][c], 1e-6 * Math.max(1, Math.abs(expected[d][c])));
+            }
+        }
+
+        dispatchService.dispatchPendingDemandsByCost(weights);
+        long assigned = demands.stream().filter(d -> d.getStatus() == DemandStatus.ASSIGNED).count();
+        assertTrue(assigned > 0);
+        assertEquals(assigned, demands.stream().map(TransportDemand::getAssignedVehicleId).filter(id -> id != null).distinct().count());
+    }
+
+    /**
+     * 旧的成本矩阵构建方式：顺序遍历任务，为每个任务收集合格车辆列表，逐个组合用 BigDecimal 和 Coordinate 计算成本，
+     * 列号通过车辆 ID 的哈希表按首次出现的顺序分配。只用作基准对照。
+     */
+    private static double[][] candidateListCostMatrix(List<TransportDemand> demands, List<Vehicle> vehicles,
+                                                      Map<Long, VehicleType> types, Map<Long, Coordinate> positions,
+                                                      Weight2Dispatch weights) {
+        double maxRefLoad = types.values().stream().mapToDouble(type -> type.getMaxLoadWeight().doubleValue()).max().orElse(10000.0);
+        Map<Long, Integer> columnOf = new HashMap<>();
+        int[][] rowColumns = new int[demands.size()][];
+        double[][] rowCosts = new double[demands.size()][];
+        for (int d = 0; d < demands.size(); d++) {
+            TransportDemand demand = demands.get(d);
+            Coordinate origin = positions.get(demand.getOriginPoiId());
+            double distance2 = origin.distanceTo(positions.get(demand.getDestinationPoiId()));
+            List<Vehicle> candidates = new ArrayList<>();
+            for (Vehicle vehicle : vehicles) {
+                VehicleType type = types.get(vehicle.getTypeId());
+                if (type.getMaxLoadWeight().compareTo(demand.getCargoWeight()) >= 0
+                        && type.getMaxLoadVolume().compareTo(demand.getCargoVolume()) >= 0) {
+                    candidates.add(vehicle);
+                }
+            }
+            rowColumns[d] = new int[candidates.size()];
+            rowCosts[d] = new double[candidates.size()];
+            for (int c = 0; c < candidates.size(); c++) {
+                Vehicle vehicle = candidates.get(c);
+                VehicleType type = types.get(vehicle.getTypeId());
+                double distance1 = vehicle.getCurrentPosition().distanceTo(origin);
+                double wastedLoad = type.getMaxLoadWeight().subtract(demand.getCargoWeight()).doubleValue();
+                double wastedLoadCost = (wastedLoad + type.getMaxLoadWeight().doubleValue()) / maxRefLoad
+                        * weights.getWeightWastedLoad() * 3600;
+                rowCosts[d][c] = (distance1 + distance2) / 10 * weights.getWeightTime() + wastedLoadCost
+                        - vehicle.getWaitingDuration() * weights.getWeightWastedIdle();
+                rowColumns[d][c] = columnOf.computeIfAbsent(vehicle.getId(), id -> columnOf.size());
+            }
+        }
+        double[][] cost = new double[demands.size()][columnOf.size()];
+        for (int d = 0; d < demands.size(); d++) {
+            Arrays.fill(cost[d], Double.POSITIVE_INFINITY);
+            for (int c = 0; c < rowColumns[d].length; c++) cost[d][rowColumns[d][c]] = rowCosts[d][c];
+        }
+        return cost;
+    }
+
+    private DispatchServiceImpl dispatchService(List<Poi> pois, List<Vehicle> vehicles, List<TransportDemand> demands,
+                                                int candidateVehicles) {
+        PoiMapper poiMapper = mock(PoiMapper.class);
+        when(poiMapper.findAll()).thenReturn(pois);
+        PoiStore poiStore = new PoiStore();
+        ReflectionTestUtils.setField(poiStore, "poiMapper", poiMapper);
+
+        TransportDemandMapper transportDemandMapper = mock(TransportDemandMapper.class);
+        when(transportDemandMapper.findByStatus(DemandStatus.PENDING)).thenReturn(demands);
+        VehicleMapper vehicleMapper = mock(VehicleMapper.class);
+        when(vehicleMapper.findByStatus(VehicleStatus.IDLE)).thenReturn(vehicles);
+        when(vehicleMapper.findAllTypes()).thenReturn(List.of(type(1L, "100"), type(2L, "10")));
+        // 空间索引为空，退回遍历全部空闲车辆
+        VehicleService vehicleService = mock(VehicleService.class);
+
+        DispatchServiceImpl dispatchService = new DispatchServiceImpl();
+        ReflectionTestUtils.setField(dispatchService, "transportDemandMapper", transportDemandMapper);
+        ReflectionTestUtils.setField(dispatchService, "vehicleMapper", vehicleMapper);
+        ReflectionTestUtils.setField(dispatchService, "vehicleService", vehicleService);
+        ReflectionTestUtils.setField(dispatchService, "poiStore", poiStore);
+        ReflectionTestUtils.setField(dispatchService, "workerPool", workerPool);
+        ReflectionTestUtils.setField(dispatchService, "candidateVehicles", candidateVehicles);
+        return dispatchService;
+    }
+
+    private static Poi poi(Long id, Coordinate coordinate) {
+        Poi poi = new Poi();
+        poi.setId(id);
+        poi.setAmapId("B" + id);
+        poi.setPosition(coordinate);
+        return poi;
+    }
+
+    private static Vehicle vehicle(Long id, Long typeId, Coordinate position) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(id);
+        vehicle.setTypeId(typeId);
+        vehicle.setStatus(VehicleStatus.IDLE);
+        vehicle.setCurrentPosition(position);
+        return vehicle;
+    }
+
+    private static VehicleType type(Long id, String maxLoad) {
+        VehicleType type = new VehicleType();
+        type.setId(id);
+        type.setMaxLoadWeight(new BigDecimal(maxLoad));
+        type.setMaxLoadVolume(new BigDecimal(maxLoad));
+        return type;
+    }
+
+    private static TransportDemand demand(long id, Long originPoiId, Long destinationPoiId, String cargo) {
+        TransportDemand demand = new TransportDemand();
+        demand.setId(id);
+        demand.setOriginPoiId(originPoiId);
+        demand.setDestinationPoiId(destinationPoiId);
+        demand.setCargoWeight(new BigDecimal(cargo));
+        demand.setCargoVolume(new BigDecimal(cargo));
+        demand.setStatus(DemandStatus.PENDING);
+        return demand;
+    }
+}
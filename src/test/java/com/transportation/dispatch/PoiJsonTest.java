@@ -0,0 +1,73 @@
+package com.transportation.dispatch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.transportation.dispatch.controller.POIDataController;
+import com.transportation.dispatch.model.common.Result;
+import com.transportation.dispatch.model.entity.Poi;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.service.POIDataService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PoiJsonTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Test
+    public void testLngLatRoundTripThroughCoordinate() throws Exception {
+        Poi poi = new Poi();
+        poi.setId(1L);
+        poi.setName("仓库");
+        poi.setPosition(Coordinate.of(116.1, 39.2));
+
+        String json = objectMapper.writeValueAsString(poi);
+        assertTrue(json.contains("\"lng\":\"116.100000\""));
+        assertTrue(json.contains("\"lat\":\"39.200000\""));
+        assertFalse(json.contains("position"));
+
+        Poi read = objectMapper.readValue(json, Poi.class);
+        assertEquals(poi.getPosition(), read.getPosition());
+        assertEquals(poi, read);
+
+        // lat 在 lng 之前也能组成坐标；只给一个分量时不修改坐标
+        assertEquals(Coordinate.of(116.1, 39.2),
+                objectMapper.readValue("{\"lat\":\"39.2\",\"lng\":\"116.1\"}", Poi.class).getPosition());
+        assertNull(objectMapper.readValue("{\"lng\":\"116.1\"}", Poi.class).getPosition());
+    }
+
+    @Test
+    public void testUpdateEndpointReceivesCoordinates() throws Exception {
+        POIDataService poiDataService = mock(POIDataService.class);
+        when(poiDataService.update(any())).thenReturn(Result.success("Updated"));
+        POIDataController controller = new POIDataController();
+        ReflectionTestUtils.setField(controller, "poiDataService", poiDataService);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        mockMvc.perform(put("/api/poi/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":7,\"name\":\"仓库\",\"lng\":\"116.1\",\"lat\":\"39.2\"}"))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<Poi> captor = ArgumentCaptor.forClass(Poi.class);
+        verify(poiDataService).update(captor.capture());
+        assertEquals(7L, captor.getValue().getId());
+        assertEquals(Coordinate.of(116.1, 39.2), captor.getValue().getPosition());
+
+        // 无法解析的坐标按请求格式错误拒绝
+        mockMvc.perform(put("/api/poi/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":7,\"lng\":\"abc\",\"lat\":\"39.2\"}"))
+                .andExpect(status().isBadRequest());
+        verifyNoMoreInteractions(poiDataService);
+    }
+}
@@ -0,0 +1,81 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.enumeration.PoiSimType;
+import com.transportation.dispatch.mapper.PoiMapper;
+import com.transportation.dispatch.model.entity.Poi;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.projection.PoiSnapshot;
+import com.transportation.dispatch.projection.PoiStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PoiSnapshotTest {
+
+    @Test
+    public void testIndexesByIdAmapIdAndSimType() {
+        PoiSimType[] types = PoiSimType.values();
+        Poi first = poi(1L, "B001", "116.397128", "39.916527", types[0]);
+        Poi second = poi(2L, "B002", "121.473701", "31.230416", types[0]);
+        Poi broken = poi(3L, "B003", "", null, null);
+        PoiSnapshot snapshot = PoiSnapshot.of(7L, List.of(first, second, broken));
+
+        assertEquals(7L, snapshot.version());
+        assertEquals(3, snapshot.size());
+        assertEquals("B002", snapshot.findById(2L).getAmapId());
+        assertEquals(1L, snapshot.findByAmapId("B001").getId());
+        assertNull(snapshot.findById(99L));
+        assertNull(snapshot.findByAmapId(null));
+        assertEquals(List.of(1L, 2L), snapshot.findBySimType(types[0]).stream().map(Poi::getId).toList());
+        if (types.length > 1) assertTrue(snapshot.findBySimType(types[1]).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.findBySimType(types[0]).clear());
+
+        assertEquals(Coordinate.of(116.397128, 39.916527), snapshot.coordinateOf(1L));
+        assertNull(snapshot.coordinateOf(3L));
+        assertNull(snapshot.coordinateOf(99L));
+        assertNotNull(snapshot.randomOfType(types[0], new Random(1)));
+
+        // 快照持有副本，修改原始对象不影响已发布的快照
+        first.setName("改名");
+        assertEquals("poi-1", snapshot.findById(1L).getName());
+    }
+
+    @Test
+    public void testRefreshPublishesNewVersionAndKeepsOldSnapshotIntact() {
+        PoiMapper poiMapper = mock(PoiMapper.class);
+        List<Poi> rows = new ArrayList<>(List.of(poi(1L, "B001", "116.0", "39.0", PoiSimType.values()[0])));
+        when(poiMapper.findAll()).thenAnswer(invocation -> new ArrayList<>(rows));
+        PoiStore store = new PoiStore();
+        ReflectionTestUtils.setField(store, "poiMapper", poiMapper);
+
+        PoiSnapshot before = store.snapshot();
+        assertSame(before, store.snapshot());
+        verify(poiMapper, times(1)).findAll();
+
+        rows.add(poi(2L, "B002", "117.0", "40.0", PoiSimType.values()[0]));
+        PoiSnapshot after = store.refresh();
+
+        assertSame(after, store.snapshot());
+        assertEquals(before.version() + 1, after.version());
+        assertEquals(1, before.size());
+        assertEquals(2, after.size());
+        assertNull(before.findById(2L));
+    }
+
+    private static Poi poi(Long id, String amapId, String lng, String lat, PoiSimType simType) {
+        Poi poi = new Poi();
+        poi.setId(id);
+        poi.setAmapId(amapId);
+        poi.setName("poi-" + id);
+        poi.setPosition(Coordinate.parse(lng + "," + lat));
+        poi.setSimType(simType);
+        poi.setStatus(1);
+        return poi;
+    }
+}
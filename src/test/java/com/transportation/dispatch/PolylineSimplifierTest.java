@@ -0,0 +1,43 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.model.geo.PolylineSimplifier;
+import com.transportation.dispatch.model.geo.RouteGeometry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PolylineSimplifierTest {
+
+    @Test
+    public void testLevelsDropPointsWithinToleranceAndKeepEndpoints() {
+        // 一条带微小抖动的直线，中间有一个明显的拐点
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= 1000; i++) {
+            if (i > 0) sb.append(';');
+            int jitter = (i % 2 == 0) ? 3 : -3; // 约 0.3 米
+            int lat = i <= 500 ? 30_000_000 + jitter : 30_000_000 + (i - 500) * 20 + jitter;
+            Coordinate.ofMicro(104_000_000 + i * 20, lat).appendTo(sb);
+        }
+        RouteGeometry route = RouteGeometry.parse(sb.toString());
+
+        assertEquals(route.toPolyline(), route.polylineAtLevel(0));
+        String level1 = route.polylineAtLevel(1);
+        RouteGeometry simplified = RouteGeometry.parse(level1);
+        assertEquals(3, simplified.size());
+        assertEquals(route.coordinate(0), simplified.coordinate(0));
+        assertEquals(route.coordinate(route.lastIndex()), simplified.coordinate(2));
+        // 同一层级只计算一次
+        assertSame(level1, route.polylineAtLevel(1));
+        assertEquals(level1, PolylineSimplifier.simplify(sb.toString(), 1));
+    }
+
+    @Test
+    public void testZoomAndToleranceMapToLevels() {
+        assertEquals(0, PolylineSimplifier.resolveLevel(null, null));
+        assertEquals(0, PolylineSimplifier.levelForZoom(18));
+        assertEquals(1, PolylineSimplifier.levelForZoom(16));
+        assertEquals(5, PolylineSimplifier.levelForZoom(3));
+        assertEquals(2, PolylineSimplifier.resolveLevel(18.0, 10.0));
+    }
+}
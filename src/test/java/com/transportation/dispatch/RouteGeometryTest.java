@@ -0,0 +1,87 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.model.geo.GeoUtils;
+import com.transportation.dispatch.model.geo.RouteGeometry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteGeometryTest {
+
+    @Test
+    public void testParseMatchesDoubleParse() {
+        String polyline = "104.065735,30.659462;104.066001,30.659500;104.08342,30.658603";
+        RouteGeometry geometry = RouteGeometry.parse(polyline);
+
+        assertNotNull(geometry);
+        assertEquals(3, geometry.size());
+        assertEquals(Double.parseDouble("104.065735"), geometry.lng(0));
+        assertEquals(Double.parseDouble("30.659462"), geometry.lat(0));
+        assertEquals(Double.parseDouble("104.08342"), geometry.lng(2));
+        assertEquals(Double.parseDouble("30.658603"), geometry.lat(2));
+    }
+
+    @Test
+    public void testParseLongMantissasMatchDoubleParse() {
+        // 尾数超过 2^53 时不能用一次除法得到正确舍入，应与 Double.parseDouble 一致
+        String[] values = {"104.06573512345678", "9007199254740993.5", "30.659462000000001", "0.12345678901234567"};
+        for (String lng : values) {
+            RouteGeometry geometry = RouteGeometry.parse(lng + ",30.659462;104.08342,30.658603");
+            assertNotNull(geometry);
+            assertEquals(Double.parseDouble(lng), geometry.lng(0), lng);
+        }
+    }
+
+    @Test
+    public void testParseSkipsMalformedAndDuplicatePoints() {
+        // 空段、缺少逗号、逗号过多以及相邻重复点都应被过滤
+        String polyline = ";104.065735,30.659462;;abc;104.065735,30.659462;1,2,3;104.08342,30.658603;";
+        RouteGeometry geometry = RouteGeometry.parse(polyline);
+
+        assertNotNull(geometry);
+        assertEquals(2, geometry.size());
+        assertEquals(104.08342, geometry.lng(1));
+    }
+
+    @Test
+    public void testParseRejectsSinglePoint() {
+        assertNull(RouteGeometry.parse("104.065735,30.659462;104.065735,30.659462"));
+        assertNull(RouteGeometry.parse(""));
+        assertNull(RouteGeometry.parse(null));
+    }
+
+    @Test
+    public void testAppendFixed6MatchesStringFormat() {
+        double[] values = {104.0657351, 30.6594625, -0.0000004, -12.5, 0.0, 117.183943};
+        for (double value : values) {
+            String expected = String.format(java.util.Locale.US, "%.6f", value);
+            if (expected.equals("-0.000000")) expected = "0.000000";
+            assertEquals(expected, RouteGeometry.appendFixed6(new StringBuilder(), value).toString());
+        }
+    }
+
+    @Test
+    public void testCumulativeDistanceLookup() {
+        // 沿赤道每 0.001 度约 111.195 米
+        RouteGeometry geometry = RouteGeometry.parse("0.000,0.000;0.001,0.000;0.003,0.000;0.004,0.000");
+        assertNotNull(geometry);
+
+        double segment = GeoUtils.haversine(0, 0, 0.001, 0);
+        assertEquals(segment * 4, geometry.totalLength(), 1e-6);
+        assertEquals(segment, geometry.distanceAt(1), 1e-6);
+
+        assertEquals(0, geometry.nodeIndexAt(0));
+        assertEquals(1, geometry.nodeIndexAt(segment * 1.5));
+        assertEquals(2, geometry.nodeIndexAt(segment * 3));
+        assertEquals(3, geometry.nodeIndexAt(segment * 10));
+
+        double d = segment * 2;
+        int node = geometry.nodeIndexAt(d);
+        assertEquals(0.002, geometry.lngAt(d, node), 1e-9);
+        assertEquals(0.0, geometry.latAt(d, node), 1e-9);
+
+        assertEquals(segment * 2, geometry.remainingDistance(d), 1e-6);
+        assertEquals(0.5, geometry.progress(d), 1e-9);
+        assertEquals(1.0, geometry.progress(segment * 10), 1e-9);
+    }
+}
@@ -0,0 +1,134 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.enumeration.DemandStatus;
+import com.transportation.dispatch.enumeration.SimulationEngineType;
+import com.transportation.dispatch.enumeration.VehicleEventType;
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.model.entity.TransportDemand;
+import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.model.geo.RouteGeometry;
+import com.transportation.dispatch.persistence.SimulationCheckpointStore;
+import com.transportation.dispatch.simulation.SimulationCheckpoint;
+import com.transportation.dispatch.simulation.VehicleEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationCheckpointStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testCheckpointRoundTrip() {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(3L);
+        vehicle.setPlateNumber("川A12345");
+        vehicle.setTypeId(2L);
+        vehicle.setStatus(VehicleStatus.IN_TRANSIT);
+        vehicle.setCurrentPosition(Coordinate.of(104.065735, 30.659462));
+        vehicle.setCurrentDemandId(8L);
+        vehicle.setTotalShippingWeight(new BigDecimal("12.50"));
+        vehicle.setRouteGeometry(RouteGeometry.parse("104.065735,30.659462;104.070000,30.660000;104.080000,30.670000"));
+        vehicle.setRouteId(314L);
+        vehicle.setTraveledPolyline("104.065735,30.659462");
+        vehicle.setRouteTraveledDistance(321.5);
+        vehicle.setActionStartTime(600L);
+        vehicle.setLoadDistance(1234.5);
+
+        TransportDemand demand = new TransportDemand();
+        demand.setId(8L);
+        demand.setCargoName("水泥");
+        demand.setStatus(DemandStatus.ASSIGNED);
+        demand.setAssignedVehicleId(3L);
+        demand.setCreationTime(LocalDateTime.of(2025, 1, 2, 3, 4, 5, 6000));
+
+        SimulationCheckpoint checkpoint = new SimulationCheckpoint();
+        checkpoint.setSessionId(42L);
+        checkpoint.setSimulationTime(3600L);
+        checkpoint.setEngineType(SimulationEngineType.DISCRETE_EVENT);
+        checkpoint.setSeed(-7L);
+        checkpoint.setSubsystemRandomStates(Map.of("demand", 123L));
+        checkpoint.setVehicleRandomStates(Map.of(3L, 456L));
+        checkpoint.setVehicles(List.of(vehicle));
+        checkpoint.setEventStateInitialized(true);
+        checkpoint.setEventClock(3600L);
+        checkpoint.setEvents(List.of(new VehicleEvent(3900L, 3L, VehicleEventType.UNLOADING_COMPLETE, 0)));
+        checkpoint.setIdleSince(Map.of(4L, 3000L));
+
+        SimulationCheckpointStore store = new SimulationCheckpointStore(directory.toString());
+        // 任务表在写线程上补全
+        store.submit(checkpoint, pending -> pending.setDemands(List.of(demand)));
+        store.awaitWrites();
+        SimulationCheckpoint restored = store.read(42L);
+
+        assertNotNull(restored);
+        assertEquals(3600L, restored.getSimulationTime());
+        assertEquals(SimulationEngineType.DISCRETE_EVENT, restored.getEngineType());
+        assertEquals(-7L, restored.getSeed());
+        assertEquals(123L, restored.getSubsystemRandomStates().get("demand"));
+        assertEquals(456L, restored.getVehicleRandomStates().get(3L));
+        assertEquals(demand, restored.getDemands().get(0));
+        assertEquals(3900L, restored.getEvents().get(0).time());
+        assertEquals(VehicleEventType.UNLOADING_COMPLETE, restored.getEvents().get(0).type());
+        assertEquals(3000L, restored.getIdleSince().get(4L));
+
+        Vehicle restoredVehicle = restored.getVehicles().get(0);
+        assertEquals("川A12345", restoredVehicle.getPlateNumber());
+        assertEquals(VehicleStatus.IN_TRANSIT, restoredVehicle.getStatus());
+        assertEquals(vehicle.getCurrentPosition(), restoredVehicle.getCurrentPosition());
+        assertNull(restoredVehicle.getOriginPosition());
+        assertEquals(new BigDecimal("12.50"), restoredVehicle.getTotalShippingWeight());
+        assertEquals(vehicle.getRouteGeometry().totalLength(), restoredVehicle.getRouteGeometry().totalLength(), 1e-9);
+        assertEquals(vehicle.getRouteGeometry().toPolyline(), restoredVehicle.getRoutePolyline());
+        assertEquals(314L, restoredVehicle.getRouteId());
+        assertEquals("104.065735,30.659462", restoredVehicle.getTraveledPolyline());
+        assertEquals(321.5, restoredVehicle.getRouteTraveledDistance());
+        assertEquals(600L, restoredVehicle.getActionStartTime());
+        assertEquals(1234.5, restoredVehicle.getLoadDistance());
+
+        store.delete(42L);
+        assertNull(store.read(42L));
+    }
+
+    @Test
+    public void testTruncatedCheckpointIsIgnored() throws Exception {
+        SimulationCheckpoint checkpoint = new SimulationCheckpoint();
+        checkpoint.setSessionId(1L);
+        SimulationCheckpointStore store = new SimulationCheckpointStore(directory.toString());
+        store.submit(checkpoint);
+        store.awaitWrites();
+
+        Path file = directory.resolve("session-1.ckpt");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+        assertNull(store.read(1L));
+    }
+
+    @Test
+    public void testCorruptedEnumOrdinalIsIgnored() throws Exception {
+        SimulationCheckpoint checkpoint = new SimulationCheckpoint();
+        checkpoint.setSessionId(2L);
+        checkpoint.setEngineType(SimulationEngineType.DISCRETE_EVENT);
+        SimulationCheckpointStore store = new SimulationCheckpointStore(directory.toString());
+        store.submit(checkpoint);
+        store.awaitWrites();
+
+        // 魔数、版本、会话ID、仿真时间之后是引擎类型的序号
+        Path file = directory.resolve("session-2.ckpt");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[24] = 100;
+        Files.write(file, bytes);
+        assertNull(store.read(2L));
+    }
+}
@@ -0,0 +1,35 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.metrics.SimulationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationMetricsTest {
+
+    @Test
+    public void testTickOverrunsAndVehicleCounts() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SimulationMetrics metrics = new SimulationMetrics(registry);
+        long budget = TimeUnit.MILLISECONDS.toNanos(1000);
+
+        metrics.recordTick(TimeUnit.MILLISECONDS.toNanos(200), budget);
+        metrics.recordTick(TimeUnit.MILLISECONDS.toNanos(1500), budget);
+        metrics.recordPhase(SimulationMetrics.PHASE_VEHICLE_UPDATE, 1_000L);
+        metrics.updateVehicleCounts(Map.of(VehicleStatus.IDLE, 3L));
+        metrics.recordWeatherLookup(500L);
+
+        assertEquals(2, registry.get("simulation.tick").timer().count());
+        assertEquals(1.0, registry.get("simulation.tick.overrun").counter().count());
+        assertEquals(1, registry.get("simulation.tick.phase").tag("phase", "vehicle_update").timer().count());
+        assertEquals(1, registry.get("simulation.weather.lookup").timer().count());
+        assertTrue(registry.find("simulation.tick.phase").tag("phase", "weather_lookup").timers().isEmpty());
+        assertEquals(3.0, registry.get("simulation.vehicles").tag("status", "IDLE").gauge().value());
+        assertEquals(0.0, registry.get("simulation.vehicles").tag("status", "IN_TRANSIT").gauge().value());
+    }
+}
@@ -0,0 +1,61 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.simulation.SimulationRandom;
+import com.transportation.dispatch.simulation.StatefulRandom;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationRandomTest {
+
+    @Test
+    public void testVehicleStreamsDoNotDependOnAccessOrder() {
+        SimulationRandom first = new SimulationRandom();
+        first.reseed(42L);
+        int a1 = first.vehicle(1L).nextInt(100);
+        int b1 = first.vehicle(2L).nextInt(100);
+        int a2 = first.vehicle(1L).nextInt(100);
+
+        // 以相反的顺序访问，各车辆的随机序列不变
+        SimulationRandom second = new SimulationRandom();
+        second.reseed(42L);
+        int b1Reordered = second.vehicle(2L).nextInt(100);
+        int a1Reordered = second.vehicle(1L).nextInt(100);
+        int a2Reordered = second.vehicle(1L).nextInt(100);
+
+        assertEquals(a1, a1Reordered);
+        assertEquals(a2, a2Reordered);
+        assertEquals(b1, b1Reordered);
+    }
+
+    @Test
+    public void testReseedRestartsStreams() {
+        SimulationRandom random = new SimulationRandom();
+        random.reseed(7L);
+        long demand = random.subsystem("demand").nextLong();
+        long weather = random.keyed("weather", "104.065735,30.659462", 3).nextLong();
+
+        random.reseed(7L);
+        assertEquals(demand, random.subsystem("demand").nextLong());
+        assertEquals(weather, random.keyed("weather", "104.065735,30.659462", 3).nextLong());
+        assertNotEquals(weather, random.keyed("weather", "104.065735,30.659462", 4).nextLong());
+    }
+
+    @Test
+    public void testRestoredStreamsContinueWhereTheyStopped() {
+        SimulationRandom random = new SimulationRandom();
+        random.reseed(11L);
+        random.subsystem("demand").nextDouble();
+        random.vehicle(5L).nextInt(10);
+        SimulationRandom restored = new SimulationRandom();
+        restored.restore(11L, random.exportSubsystemStates(), random.exportVehicleStates());
+
+        assertEquals(random.subsystem("demand").nextLong(), restored.subsystem("demand").nextLong());
+        assertEquals(random.vehicle(5L).nextLong(), restored.vehicle(5L).nextLong());
+        assertEquals(random.vehicle(6L).nextLong(), restored.vehicle(6L).nextLong());
+        // 与 java.util.Random 的序列保持一致
+        assertEquals(new Random(99L).nextDouble(), new StatefulRandom(99L).nextDouble());
+    }
+}
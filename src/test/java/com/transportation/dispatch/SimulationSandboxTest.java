@@ -0,0 +1,88 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.mapper.*;
+import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.persistence.SimulationCheckpointStore;
+import com.transportation.dispatch.projection.PoiStore;
+import com.transportation.dispatch.service.RouteService;
+import com.transportation.dispatch.service.SimulationService;
+import com.transportation.dispatch.service.VehicleGeoService;
+import com.transportation.dispatch.simulation.sandbox.InMemoryVehicleMapper;
+import com.transportation.dispatch.simulation.sandbox.SandboxSessionMapper;
+import com.transportation.dispatch.simulation.sandbox.SimulationSandbox;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SimulationSandboxTest {
+
+    @Test
+    public void testSandboxesHaveIsolatedStateAndSharedReferenceData() {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(1L);
+        // 实时仿真中正在执行任务的车辆，复制进沙箱时应回到出发点并置为空闲
+        vehicle.setStatus(VehicleStatus.MOVING_TO_PICKUP);
+        vehicle.setCurrentDemandId(42L);
+        vehicle.setCurrentPosition(Coordinate.of(104.10, 30.70));
+        vehicle.setOriginPosition(Coordinate.of(104.06, 30.65));
+        VehicleMapper sharedVehicleMapper = mock(VehicleMapper.class);
+        when(sharedVehicleMapper.findAll()).thenReturn(List.of(vehicle));
+
+        try (AnnotationConfigApplicationContext parent = new AnnotationConfigApplicationContext()) {
+            parent.registerBean("vehicleMapper", VehicleMapper.class, () -> sharedVehicleMapper);
+            parent.registerBean("transportDemandMapper", TransportDemandMapper.class, () -> mock(TransportDemandMapper.class));
+            parent.registerBean(PoiMapper.class, () -> mock(PoiMapper.class));
+            parent.registerBean(PoiStore.class);
+            parent.registerBean(RouteCacheMapper.class, () -> mock(RouteCacheMapper.class));
+            parent.registerBean(SupplyChainMapper.class, () -> mock(SupplyChainMapper.class));
+            parent.registerBean(SimulationSessionMapper.class, () -> mock(SimulationSessionMapper.class));
+            parent.registerBean(RouteService.class, () -> mock(RouteService.class));
+            parent.registerBean(VehicleGeoService.class, () -> mock(VehicleGeoService.class));
+            parent.registerBean(SqlSessionFactory.class, () -> mock(SqlSessionFactory.class));
+            parent.registerBean(SimulationCheckpointStore.class, () -> mock(SimulationCheckpointStore.class));
+            parent.registerBean("simulationWorkerPool", ForkJoinPool.class, () -> new ForkJoinPool(2));
+            parent.refresh();
+
+            try (SimulationSandbox first = new SimulationSandbox(parent);
+                 SimulationSandbox second = new SimulationSandbox(parent)) {
+                SimulationService firstService = first.getSimulationService();
+                SimulationService secondService = second.getSimulationService();
+                assertNotSame(firstService, secondService);
+
+                Object firstVehicles = ReflectionTestUtils.getField(
+                        ReflectionTestUtils.getField(firstService, "vehicleService"), "vehicleMapper");
+                Object secondVehicles = ReflectionTestUtils.getField(
+                        ReflectionTestUtils.getField(secondService, "vehicleService"), "vehicleMapper");
+                assertInstanceOf(InMemoryVehicleMapper.class, firstVehicles);
+                assertNotSame(firstVehicles, secondVehicles);
+
+                Vehicle initial = ((VehicleMapper) firstVehicles).findAll().get(0);
+                assertEquals(VehicleStatus.IDLE, initial.getStatus());
+                assertEquals(Coordinate.of(104.06, 30.65), initial.getCurrentPosition());
+                assertNull(initial.getCurrentDemandId());
+
+                // 沙箱会话带标记写入共享的会话表，且沙箱从不恢复未结束的会话
+                Object sessions = ReflectionTestUtils.getField(firstService, "sessionMapper");
+                assertInstanceOf(SandboxSessionMapper.class, sessions);
+                assertNull(((SimulationSessionMapper) sessions).findLatestUnfinishedSession());
+
+                // 一个沙箱内的修改不影响另一个沙箱，也不写入共享的数据库 mapper
+                Vehicle moved = ((VehicleMapper) firstVehicles).findAll().get(0);
+                moved.setStatus(VehicleStatus.MAINTENANCE);
+                ((VehicleMapper) firstVehicles).update(moved);
+                assertEquals(VehicleStatus.MAINTENANCE, ((VehicleMapper) firstVehicles).findAll().get(0).getStatus());
+                assertEquals(VehicleStatus.IDLE, ((VehicleMapper) secondVehicles).findAll().get(0).getStatus());
+                verify(sharedVehicleMapper, never()).update(any());
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.enumeration.VehicleEventType;
+import com.transportation.dispatch.simulation.VehicleEvent;
+import com.transportation.dispatch.simulation.VehicleEventQueue;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VehicleEventQueueTest {
+
+    @Test
+    public void testPollsDueEventsInTimeThenVehicleOrder() {
+        VehicleEventQueue queue = new VehicleEventQueue();
+        queue.schedule(3L, VehicleEventType.LOADING_COMPLETE, 300);
+        queue.schedule(2L, VehicleEventType.UNLOADING_COMPLETE, 300);
+        queue.schedule(1L, VehicleEventType.MAINTENANCE_OVER, 600);
+
+        VehicleEvent first = queue.pollDue(300);
+        VehicleEvent second = queue.pollDue(300);
+        assertEquals(2L, first.vehicleId());
+        assertEquals(3L, second.vehicleId());
+        assertNull(queue.pollDue(300));
+        assertEquals(1, queue.size());
+        assertEquals(1L, queue.pollDue(600).vehicleId());
+    }
+
+    @Test
+    public void testRescheduleAndCancelSkipStaleEvents() {
+        VehicleEventQueue queue = new VehicleEventQueue();
+        queue.schedule(1L, VehicleEventType.IDLE_INCIDENT, 60);
+        queue.schedule(1L, VehicleEventType.MAINTENANCE_OVER, 360);
+        queue.schedule(2L, VehicleEventType.LOADING_COMPLETE, 120);
+        queue.cancel(2L);
+
+        assertNull(queue.pollDue(300));
+        VehicleEvent event = queue.pollDue(360);
+        assertEquals(VehicleEventType.MAINTENANCE_OVER, event.type());
+        assertEquals(0, queue.size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.service.impl.VehicleGeoServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class VehicleGeoServiceTest {
+
+    @Test
+    public void testOnlyChangedVehiclesArePublished() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        VehicleGeoServiceImpl geoService = new VehicleGeoServiceImpl();
+        ReflectionTestUtils.setField(geoService, "redisTemplate", redisTemplate);
+
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(1L);
+        vehicle.setStatus(VehicleStatus.IDLE);
+        vehicle.setCurrentPosition(Coordinate.of(104.0, 30.0));
+
+        geoService.publish(List.of(vehicle));
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+
+        // 位置和状态都没有变化，不产生任何 Redis 请求
+        geoService.publish(List.of(vehicle));
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+
+        vehicle.setCurrentPosition(Coordinate.of(104.1, 30.0));
+        geoService.publish(List.of(vehicle));
+        verify(redisTemplate, times(2)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    public void testFullResyncClearsStaleKeysOnStartAndAfterFailure() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        RedisConnection connection = mock(RedisConnection.class, RETURNS_DEEP_STUBS);
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenAnswer(invocation -> {
+                    invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+                    return List.of();
+                })
+                .thenThrow(new RuntimeException("connection reset"))
+                .thenAnswer(invocation -> {
+                    invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+                    return List.of();
+                });
+        VehicleGeoServiceImpl geoService = new VehicleGeoServiceImpl();
+        ReflectionTestUtils.setField(geoService, "redisTemplate", redisTemplate);
+
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(1L);
+        vehicle.setStatus(VehicleStatus.IDLE);
+        vehicle.setCurrentPosition(Coordinate.of(104.0, 30.0));
+
+        // 启动后的第一次发布先清空上次运行残留的键
+        geoService.publish(List.of(vehicle));
+        verify(connection.keyCommands(), times(1)).del(any(byte[].class), any(byte[].class));
+
+        vehicle.setCurrentPosition(Coordinate.of(104.1, 30.0));
+        geoService.publish(List.of(vehicle));
+
+        // 发布失败后即使没有变化也要全量重建
+        geoService.publish(List.of(vehicle));
+        verify(redisTemplate, times(3)).executePipelined(any(RedisCallback.class));
+        verify(connection.keyCommands(), times(2)).del(any(byte[].class), any(byte[].class));
+    }
+
+    @Test
+    public void testVehicleWithOnlyStatusIsRemovedWhenItLeavesTheFleet() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        RedisConnection connection = mock(RedisConnection.class, RETURNS_DEEP_STUBS);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+            return List.of();
+        });
+        VehicleGeoServiceImpl geoService = new VehicleGeoServiceImpl();
+        ReflectionTestUtils.setField(geoService, "redisTemplate", redisTemplate);
+
+        // 没有位置的车辆只发布了状态
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(1L);
+        vehicle.setStatus(VehicleStatus.MAINTENANCE);
+        geoService.publish(List.of(vehicle));
+
+        geoService.publish(List.of());
+        verify(redisTemplate, times(2)).executePipelined(any(RedisCallback.class));
+        verify(connection.hashCommands(), times(1)).hDel(any(byte[].class), any(byte[][].class));
+    }
+}
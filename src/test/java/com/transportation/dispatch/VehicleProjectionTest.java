@@ -0,0 +1,300 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.enumeration.DemandStatus;
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.model.dto.VehicleDeltaMessage;
+import com.transportation.dispatch.model.dto.VehicleDto;
+import com.transportation.dispatch.model.dto.VehicleSnapshotMessage;
+import com.transportation.dispatch.model.dto.VehicleSubscriptionRequest;
+import com.transportation.dispatch.model.entity.Poi;
+import com.transportation.dispatch.model.entity.TransportDemand;
+import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.model.geo.RouteGeometry;
+import com.transportation.dispatch.projection.VehicleProjection;
+import com.transportation.dispatch.projection.VehicleSubscriptions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VehicleProjectionTest {
+
+    @Test
+    public void testReferenceDataIsLoadedOnceAndReadsDoNotQuery() {
+        AtomicInteger queries = new AtomicInteger();
+        VehicleProjection projection = new VehicleProjection(
+                ids -> {
+                    queries.incrementAndGet();
+                    List<TransportDemand> demands = new ArrayList<>();
+                    for (Long id : ids) {
+                        TransportDemand demand = new TransportDemand();
+                        demand.setId(id);
+                        demand.setOriginPoiId(1L);
+                        demand.setDestinationPoiId(2L);
+                        demand.setCargoWeight(new BigDecimal("8.5"));
+                        demand.setStatus(DemandStatus.ASSIGNED);
+                        demands.add(demand);
+                    }
+                    return demands;
+                },
+                id -> {
+                    queries.incrementAndGet();
+                    Poi poi = new Poi();
+                    poi.setId(id);
+                    poi.setName("POI-" + id);
+                    return poi;
+                },
+                typeId -> {
+                    queries.incrementAndGet();
+                    return 20.0;
+                },
+                location -> null);
+
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(1L);
+        vehicle.setTypeId(1L);
+        vehicle.setStatus(VehicleStatus.IN_TRANSIT);
+        vehicle.setCurrentPosition(Coordinate.of(104.0, 30.0));
+        vehicle.setCurrentDemandId(5L);
+        vehicle.setTotalShippingWeight(BigDecimal.ZERO);
+
+        projection.refresh(List.of(vehicle));
+        int afterFirstRefresh = queries.get();
+        vehicle.setCurrentPosition(Coordinate.of(104.1, 30.1));
+        projection.refresh(List.of(vehicle));
+        assertEquals(afterFirstRefresh, queries.get());
+
+        List<VehicleDto> dtos = projection.snapshot(null);
+        assertEquals(afterFirstRefresh, queries.get());
+        VehicleDto dto = dtos.get(0);
+        assertEquals("104.100000", dto.getCurrentLng());
+        assertEquals(8.5, dto.getCurrentLoad());
+        assertEquals(20.0, dto.getMaxLoadWeight());
+        assertEquals("POI-1", dto.getOriginName());
+        assertEquals("POI-2", dto.getDestinationName());
+        assertTrue(projection.snapshot(VehicleStatus.IDLE).isEmpty());
+
+        // 读取到的是副本，修改不影响投影
+        dto.setSpeed(99.0);
+        assertEquals(0.0, projection.snapshot(null).get(0).getSpeed());
+    }
+
+    @Test
+    public void testDeltaContainsOnlyChangedFieldsWithConsecutiveSequence() {
+        VehicleProjection projection = new VehicleProjection(ids -> List.of(), id -> null, typeId -> 20.0, location -> null);
+        Vehicle moving = new Vehicle();
+        moving.setId(1L);
+        moving.setStatus(VehicleStatus.MOVING_TO_PICKUP);
+        moving.setCurrentPosition(Coordinate.of(104.0, 30.0));
+        moving.setTraveledPolyline("104.000000,30.000000");
+        Vehicle parked = new Vehicle();
+        parked.setId(2L);
+        parked.setStatus(VehicleStatus.IDLE);
+        parked.setCurrentPosition(Coordinate.of(105.0, 31.0));
+
+        projection.refresh(List.of(moving, parked));
+        VehicleDeltaMessage first = projection.drainDelta();
+        assertEquals(1L, first.getSequence());
+        assertEquals(2, first.getChanges().size());
+        assertNull(projection.drainDelta());
+
+        // 两次刷新合并为一个增量：只包含移动的车辆，尾迹以追加部分发送
+        moving.setCurrentPosition(Coordinate.of(104.1, 30.0));
+        moving.setTraveledPolyline("104.000000,30.000000;104.100000,30.000000");
+        projection.refresh(List.of(moving, parked));
+        moving.setCurrentPosition(Coordinate.of(104.2, 30.0));
+        moving.setTraveledPolyline("104.000000,30.000000;104.100000,30.000000;104.200000,30.000000");
+        projection.refresh(List.of(moving, parked));
+
+        VehicleSnapshotMessage snapshot = projection.snapshotMessage();
+        VehicleDeltaMessage second = projection.drainDelta();
+        assertEquals(2L, second.getSequence());
+        assertEquals(snapshot.getSequence(), second.getSequence());
+        assertEquals(1, second.getChanges().size());
+        Map<String, Object> change = second.getChanges().get(0);
+        assertEquals(1L, change.get("id"));
+        assertEquals("104.200000", change.get("currentLng"));
+        assertFalse(change.containsKey("currentLat"));
+        assertFalse(change.containsKey("traveledPolyline"));
+        assertEquals(";104.100000,30.000000;104.200000,30.000000", change.get("traveledPolylineAppend"));
+        assertEquals(2L, projection.snapshotMessage().getSequence());
+
+        // 整体清空后要求客户端重新获取快照
+        projection.clear();
+        VehicleDeltaMessage resync = projection.drainDelta();
+        assertTrue(resync.isResync());
+        assertEquals(3L, resync.getSequence());
+    }
+
+    @Test
+    public void testViewportSubscriptionReceivesOnlyVehiclesInRange() {
+        VehicleProjection projection = new VehicleProjection(ids -> List.of(), id -> null, typeId -> 20.0, location -> null);
+        VehicleSubscriptions subscriptions = new VehicleSubscriptions(projection);
+        Vehicle inside = vehicle(1L, 104.05, 30.05, VehicleStatus.MOVING_TO_PICKUP);
+        Vehicle outside = vehicle(2L, 105.5, 31.5, VehicleStatus.MOVING_TO_PICKUP);
+        Vehicle idle = vehicle(3L, 104.06, 30.06, VehicleStatus.IDLE);
+        projection.refresh(List.of(inside, outside, idle));
+
+        VehicleSubscriptionRequest request = new VehicleSubscriptionRequest();
+        request.setMinLng(104.0);
+        request.setMinLat(30.0);
+        request.setMaxLng(104.1);
+        request.setMaxLat(30.1);
+        request.setStatuses(Set.of(VehicleStatus.MOVING_TO_PICKUP));
+        VehicleSnapshotMessage snapshot = subscriptions.subscribe("s1", request);
+        assertEquals(0L, snapshot.getSequence());
+        assertEquals(List.of(1L), snapshot.getVehicles().stream().map(VehicleDto::getId).toList());
+        assertTrue(subscriptions.drainDeltas().isEmpty());
+
+        // 视口外车辆的变化不推送
+        outside.setCurrentPosition(Coordinate.of(105.6, 31.5));
+        projection.refresh(List.of(inside, outside, idle));
+        assertTrue(subscriptions.drainDeltas().isEmpty());
+
+        // 一辆离开视口，另一辆进入视口
+        inside.setCurrentPosition(Coordinate.of(104.2, 30.05));
+        outside.setCurrentPosition(Coordinate.of(104.09, 30.09));
+        projection.refresh(List.of(inside, outside, idle));
+        VehicleDeltaMessage delta = subscriptions.drainDeltas().get("s1");
+        assertEquals(1L, delta.getSequence());
+        assertEquals(List.of(1L), delta.getRemoved());
+        assertEquals(1, delta.getChanges().size());
+        assertEquals(2L, delta.getChanges().get(0).get("id"));
+        assertEquals("MOVING_TO_PICKUP", String.valueOf(delta.getChanges().get(0).get("status")));
+
+        subscriptions.unsubscribe("s1");
+        assertEquals(0, subscriptions.size());
+    }
+
+    @Test
+    public void testSkippedSessionReceivesConflatedDelta() {
+        VehicleProjection projection = new VehicleProjection(ids -> List.of(), id -> null, typeId -> 20.0, location -> null);
+        VehicleSubscriptions subscriptions = new VehicleSubscriptions(projection);
+        Vehicle moving = vehicle(1L, 104.0, 30.0, VehicleStatus.MOVING_TO_PICKUP);
+        moving.setTraveledPolyline("104.000000,30.000000");
+        projection.refresh(List.of(moving));
+        subscriptions.subscribe("slow", new VehicleSubscriptionRequest());
+
+        // 会话还没跟上时跳过，变化保留
+        moving.setCurrentPosition(Coordinate.of(104.1, 30.0));
+        moving.setTraveledPolyline("104.000000,30.000000;104.100000,30.000000");
+        projection.refresh(List.of(moving));
+        assertTrue(subscriptions.drainDeltas(sessionId -> false).isEmpty());
+
+        moving.setCurrentPosition(Coordinate.of(104.2, 30.0));
+        moving.setTraveledPolyline("104.000000,30.000000;104.100000,30.000000;104.200000,30.000000");
+        projection.refresh(List.of(moving));
+        VehicleDeltaMessage delta = subscriptions.drainDeltas(sessionId -> true).get("slow");
+        assertEquals(1L, delta.getSequence());
+        Map<String, Object> change = delta.getChanges().get(0);
+        assertEquals("104.200000", change.get("currentLng"));
+        assertEquals(";104.100000,30.000000;104.200000,30.000000", change.get("traveledPolylineAppend"));
+    }
+
+    @Test
+    public void testRoutedVehicleSendsRouteReferenceInsteadOfTrail() {
+        VehicleProjection projection = new VehicleProjection(ids -> List.of(), id -> null, typeId -> 20.0, location -> null);
+        Vehicle moving = vehicle(1L, 104.0, 30.0, VehicleStatus.IN_TRANSIT);
+        RouteGeometry route = RouteGeometry.parse("104.000000,30.000000;104.010000,30.000000;104.020000,30.000000");
+        moving.setRouteId(77L);
+        moving.setRouteGeometry(route);
+        moving.setTraveledPolyline("104.000000,30.000000");
+        projection.refresh(List.of(moving));
+        projection.drainDelta();
+
+        VehicleDto dto = projection.snapshot(null, 0).get(0);
+        assertEquals(77L, dto.getRouteId());
+        assertEquals(0, dto.getRouteIndex());
+        assertNull(dto.getTraveledPolyline());
+
+        // 越过第二个路径点：只有位置和进度变化，路径引用不重复发送
+        moving.setRouteTraveledDistance(route.distanceAt(1) + 10);
+        moving.setCurrentPosition(route.coordinate(1));
+        moving.setTraveledPolyline("104.000000,30.000000;104.010000,30.000000");
+        projection.refresh(List.of(moving));
+        Map<String, Object> change = projection.drainDelta().getChanges().get(0);
+        assertEquals(1, change.get("routeIndex"));
+        assertFalse(change.containsKey("routeId"));
+        assertFalse(change.containsKey("traveledPolyline"));
+        assertFalse(change.containsKey("traveledPolylineAppend"));
+    }
+
+    @Test
+    public void testNearestIdleMatchesBruteForceAndFollowsStatusChanges() {
+        VehicleProjection projection = new VehicleProjection(ids -> List.of(), id -> null, typeId -> 20.0, location -> null);
+        Random random = new Random(5);
+        List<Vehicle> fleet = new ArrayList<>();
+        for (long id = 1; id <= 400; id++) {
+            VehicleStatus status = id % 4 == 0 ? VehicleStatus.IN_TRANSIT : VehicleStatus.IDLE;
+            fleet.add(vehicle(id, 103.9 + random.nextDouble() * 0.3, 30.5 + random.nextDouble() * 0.3, status));
+        }
+        projection.refresh(fleet);
+
+        for (int round = 0; round < 50; round++) {
+            Coordinate center = Coordinate.of(103.85 + random.nextDouble() * 0.4, 30.45 + random.nextDouble() * 0.4);
+            int k = 1 + random.nextInt(20);
+            // 只接受奇数ID，模拟载重筛选
+            List<Long> expected = fleet.stream()
+                    .filter(v -> v.getStatus() == VehicleStatus.IDLE && v.getId() % 2 == 1)
+                    .sorted(Comparator.comparingDouble(v -> v.getCurrentPosition().distanceTo(center)))
+                    .limit(k)
+                    .map(Vehicle::getId)
+                    .toList();
+            assertEquals(expected, projection.nearestIdle(center, k, id -> id % 2 == 1), "round " + round);
+        }
+
+        // 被分配的车辆离开空闲索引，恢复空闲后重新加入
+        Vehicle nearest = fleet.get(0);
+        nearest.setStatus(VehicleStatus.MOVING_TO_PICKUP);
+        projection.refresh(List.of(nearest));
+        assertFalse(projection.nearestIdle(nearest.getCurrentPosition(), 1, id -> true).contains(nearest.getId()));
+        nearest.setStatus(VehicleStatus.IDLE);
+        projection.refresh(List.of(nearest));
+        assertEquals(List.of(nearest.getId()), projection.nearestIdle(nearest.getCurrentPosition(), 1, id -> true));
+
+        // 位置未知的车辆不进入索引
+        Vehicle lost = vehicle(999L, 0, 0, VehicleStatus.IDLE);
+        lost.setCurrentPosition(null);
+        projection.refresh(List.of(lost));
+        assertFalse(projection.nearestIdle(Coordinate.of(104.0, 30.6), 400, id -> true).contains(999L));
+    }
+
+    @Test
+    public void testNearestIdleDoesNotWaitForProjectionMonitor() throws Exception {
+        VehicleProjection projection = new VehicleProjection(ids -> List.of(), id -> null, typeId -> 20.0, location -> null);
+        projection.refresh(List.of(vehicle(1L, 104.0, 30.6, VehicleStatus.IDLE)));
+
+        // 投影的对象锁被占用（如正在刷新或生成快照）时，调度线程仍能查询空闲索引
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            synchronized (projection) {
+                Future<List<Long>> nearest = executor.submit(() -> projection.nearestIdle(Coordinate.of(104.0, 30.6), 1, id -> true));
+                assertEquals(List.of(1L), nearest.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Vehicle vehicle(Long id, double lng, double lat, VehicleStatus status) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(id);
+        vehicle.setTypeId(1L);
+        vehicle.setStatus(status);
+        vehicle.setCurrentPosition(Coordinate.of(lng, lat));
+        return vehicle;
+    }
+}
@@ -0,0 +1,69 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.mapper.VehicleMapper;
+import com.transportation.dispatch.model.entity.Vehicle;
+import com.transportation.dispatch.persistence.VehicleWriteBehindBuffer;
+import com.transportation.dispatch.service.impl.VehicleServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class VehicleSyncWatermarkTest {
+
+    /**
+     * last_update_time 只精确到秒：水位线那一秒内、ID 比已同步行更小的车辆之后被修改，也必须被同步到
+     */
+    @Test
+    public void testSameSecondUpdateOfLowerIdIsPickedUp() {
+        LocalDateTime second = LocalDateTime.of(2026, 1, 1, 12, 0, 0);
+        VehicleMapper vehicleMapper = mock(VehicleMapper.class);
+        when(vehicleMapper.findAll()).thenReturn(List.of(
+                vehicle(3L, second.minusSeconds(5), 10.0),
+                vehicle(5L, second, 10.0),
+                vehicle(9L, second, 10.0)));
+        VehicleServiceImpl vehicleService = new VehicleServiceImpl();
+        ReflectionTestUtils.setField(vehicleService, "vehicleMapper", vehicleMapper);
+        ReflectionTestUtils.setField(vehicleService, "vehicleWriteBehindBuffer", mock(VehicleWriteBehindBuffer.class));
+
+        assertEquals(3, sync(vehicleService).size());
+
+        // 同一秒内车辆 #3 被修改，水位线那一秒的其余行没有变化
+        when(vehicleMapper.findUpdatedSince(second)).thenReturn(List.of(
+                vehicle(3L, second, 20.0),
+                vehicle(5L, second, 10.0),
+                vehicle(9L, second, 10.0)));
+        List<Vehicle> applied = sync(vehicleService);
+        assertEquals(List.of(3L), applied.stream().map(Vehicle::getId).toList());
+        Map<Long, Vehicle> cache = cache(vehicleService);
+        assertEquals(20.0, cache.get(3L).getSpeed());
+
+        // 再次重读同一秒，没有新的变化
+        assertTrue(sync(vehicleService).isEmpty());
+    }
+
+    private static List<Vehicle> sync(VehicleServiceImpl vehicleService) {
+        return ReflectionTestUtils.invokeMethod(vehicleService, "syncExternalChanges");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, Vehicle> cache(VehicleServiceImpl vehicleService) {
+        return (Map<Long, Vehicle>) ReflectionTestUtils.getField(vehicleService, "runtimeVehicleCache");
+    }
+
+    private static Vehicle vehicle(Long id, LocalDateTime lastUpdateTime, double speed) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(id);
+        vehicle.setTypeId(1L);
+        vehicle.setStatus(VehicleStatus.IDLE);
+        vehicle.setSpeed(speed);
+        vehicle.setLastUpdateTime(lastUpdateTime);
+        return vehicle;
+    }
+}
@@ -0,0 +1,73 @@
+package com.transportation.dispatch;
+
+import com.transportation.dispatch.model.dto.VehicleDeltaMessage;
+import com.transportation.dispatch.model.dto.VehicleSnapshotMessage;
+import com.transportation.dispatch.model.dto.VehicleSubscriptionRequest;
+import com.transportation.dispatch.scheduler.VehicleTelemetryStream;
+import com.transportation.dispatch.service.VehicleService;
+import com.transportation.dispatch.simulation.SimulationTickEvent;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class VehicleTelemetryStreamTest {
+
+    @Test
+    public void testSlowSubscriberBuffersAtMostTheLatestTick() throws Exception {
+        VehicleService vehicleService = mock(VehicleService.class);
+        AtomicLong sequence = new AtomicLong();
+        when(vehicleService.openVehicleStream(anyString(), any())).thenReturn(new VehicleSnapshotMessage(0L, List.of()));
+        when(vehicleService.drainVehicleStream(anyString())).thenAnswer(invocation ->
+                new VehicleDeltaMessage(sequence.incrementAndGet(), false, List.of(), List.of()));
+        VehicleTelemetryStream stream = new VehicleTelemetryStream(vehicleService);
+        ReflectionTestUtils.setField(stream, "heartbeatSeconds", 3600L);
+
+        List<ServerSentEvent<Object>> received = new CopyOnWriteArrayList<>();
+        BaseSubscriber<ServerSentEvent<Object>> subscriber = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(ServerSentEvent<Object> value) {
+                received.add(value);
+            }
+        };
+        stream.open(new VehicleSubscriptionRequest()).subscribe(subscriber);
+        assertEquals(1, received.size());
+        assertEquals(VehicleTelemetryStream.EVENT_SNAPSHOT, received.get(0).event());
+
+        // 订阅者没有请求更多数据时，多个 tick 只保留最新的，增量合并计算
+        for (long tick = 1; tick <= 50; tick++) {
+            stream.onTick(new SimulationTickEvent(tick));
+        }
+        Thread.sleep(200);
+        verify(vehicleService, atMost(1)).drainVehicleStream(anyString());
+
+        subscriber.request(10);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (received.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(VehicleTelemetryStream.EVENT_DELTA, received.get(1).event());
+        assertEquals("1", received.get(1).id());
+        Thread.sleep(200);
+        // 50 个 tick 最多触发 3 次计算：请求前的 1 次，加上 publishOn 队列与 onBackpressureLatest 各保留的 1 个 tick
+        verify(vehicleService, atMost(3)).drainVehicleStream(anyString());
+
+        subscriber.dispose();
+        verify(vehicleService).closeVehicleStream(anyString());
+    }
+}
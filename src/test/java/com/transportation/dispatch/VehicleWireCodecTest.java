@@ -0,0 +1,112 @@
+package com.transportation.dispatch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transportation.dispatch.enumeration.VehicleStatus;
+import com.transportation.dispatch.model.dto.VehicleDeltaMessage;
+import com.transportation.dispatch.model.dto.VehicleDto;
+import com.transportation.dispatch.model.dto.VehicleSnapshotMessage;
+import com.transportation.dispatch.model.geo.Coordinate;
+import com.transportation.dispatch.projection.VehicleDtoDiff;
+import com.transportation.dispatch.projection.VehicleWireCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VehicleWireCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    public void testSnapshotRoundTripIsSmallerThanJson() throws Exception {
+        Random random = new Random(7);
+        List<VehicleDto> vehicles = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            vehicles.add(vehicle(id, random));
+        }
+        VehicleSnapshotMessage snapshot = new VehicleSnapshotMessage(42L, vehicles);
+
+        byte[] binary = VehicleWireCodec.encode(snapshot);
+        VehicleSnapshotMessage decoded = VehicleWireCodec.decodeSnapshot(binary);
+        assertEquals(42L, decoded.getSequence());
+        assertEquals(vehicles, decoded.getVehicles());
+
+        byte[] json = objectMapper.writeValueAsBytes(snapshot);
+        assertTrue(binary.length * 4 < json.length, "binary=" + binary.length + " json=" + json.length);
+    }
+
+    @Test
+    public void testDeltaRoundTripWithAppendedTrailAndRemovals() throws Exception {
+        Random random = new Random(11);
+        List<Map<String, Object>> changes = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            VehicleDto before = vehicle(id, random);
+            VehicleDto after = vehicle(id, new Random(random.nextLong()));
+            after.setPlateNumber(before.getPlateNumber());
+            after.setTypeId(before.getTypeId());
+            after.setOriginName(before.getOriginName());
+            after.setDestinationName(before.getDestinationName());
+            after.setMaxLoadWeight(before.getMaxLoadWeight());
+            after.setTraveledPolyline(before.getTraveledPolyline() + ";" + after.getCurrentLng() + "," + after.getCurrentLat());
+            changes.add(VehicleDtoDiff.diff(before, after));
+        }
+        VehicleDeltaMessage delta = new VehicleDeltaMessage(7L, true, changes, List.of(900L, 901L, 1200L));
+
+        byte[] binary = VehicleWireCodec.encode(delta);
+        VehicleDeltaMessage decoded = VehicleWireCodec.decodeDelta(binary);
+        assertEquals(7L, decoded.getSequence());
+        assertTrue(decoded.isResync());
+        assertEquals(delta.getRemoved(), decoded.getRemoved());
+        assertEquals(changes.size(), decoded.getChanges().size());
+        for (int i = 0; i < changes.size(); i++) {
+            Map<String, Object> expected = changes.get(i);
+            Map<String, Object> actual = decoded.getChanges().get(i);
+            assertEquals(expected.keySet(), actual.keySet());
+            assertTrue(actual.containsKey(VehicleDtoDiff.TRAVELED_POLYLINE_APPEND));
+            for (String field : expected.keySet()) {
+                assertEquals(String.valueOf(expected.get(field)), String.valueOf(actual.get(field)), field);
+            }
+        }
+
+        byte[] json = objectMapper.writeValueAsBytes(delta);
+        assertTrue(binary.length * 4 < json.length, "binary=" + binary.length + " json=" + json.length);
+    }
+
+    /**
+     * 构造数值已落在编码精度上的车辆，保证往返后完全相等
+     */
+    private static VehicleDto vehicle(long id, Random random) {
+        VehicleDto dto = new VehicleDto();
+        dto.setId(id);
+        dto.setPlateNumber("川A" + (10000 + id));
+        dto.setTypeId(1L + random.nextInt(3));
+        dto.setStatus(VehicleStatus.values()[random.nextInt(VehicleStatus.values().length)]);
+        Coordinate position = Coordinate.ofMicro(104_000_000 + random.nextInt(200_000), 30_600_000 + random.nextInt(200_000));
+        dto.setCurrentLng(position.getLngText());
+        dto.setCurrentLat(position.getLatText());
+        dto.setCurrentDemandId(random.nextBoolean() ? 1000L + random.nextInt(1000) : null);
+        StringBuilder trail = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            if (i > 0) trail.append(';');
+            Coordinate point = Coordinate.ofMicro(position.getLngE6() - (20 - i) * 150, position.getLatE6() - (20 - i) * 90);
+            trail.append(point);
+        }
+        dto.setTraveledPolyline(trail.toString());
+        dto.setRouteDistance(random.nextInt(30_000));
+        dto.setRouteDuration(random.nextInt(3_600));
+        dto.setRemainingDistance(random.nextInt(30_000_000) / 1000.0);
+        dto.setRouteProgress(random.nextInt(1_000_000) / 1_000_000.0);
+        dto.setMaxLoadWeight(20.0);
+        dto.setCurrentLoad(random.nextInt(20_000) / 1000.0);
+        dto.setNoLoadDistance(random.nextInt(100_000_000) / 1000.0);
+        dto.setLoadDistance(random.nextInt(100_000_000) / 1000.0);
+        dto.setOriginName("仓库" + random.nextInt(50));
+        dto.setDestinationName("门店" + random.nextInt(50));
+        dto.setWeatherCondition("RAINY");
+        dto.setSpeedFactor(0.7);
+        dto.setSpeed(random.nextInt(25_000) / 1000.0);
+        dto.setAdjustedSpeed(random.nextInt(25_000) / 1000.0);
+        return dto;
+    }
+}